@@ -4,6 +4,7 @@ import { Clock, Calendar, FileText, Stethoscope, RefreshCw } from 'lucide-react'
 import { useState, useEffect } from 'react';
 import { useRouter } from 'next/navigation';
 import { AuthService } from '@/lib/auth-service';
+import { fetchAppointmentPage } from '@/lib/api';
 import Navbar from '@/components/Navbar';
 import Footer from '@/components/Footer';
 
@@ -52,6 +53,8 @@ export default function HistoryPage() {
   const [bookingHistory, setBookingHistory] = useState<BookingRecord[]>([]);
   const [isLoading, setIsLoading] = useState(true);
   const [error, setError] = useState<string | null>(null);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
+  const [isLoadingMore, setIsLoadingMore] = useState(false);
 
   // Helper function to get status color
   const getStatusColor = (status: string): string => {
@@ -122,7 +125,22 @@ export default function HistoryPage() {
     };
   };
 
-  // ฟังก์ชันโหลดประวัติการจองจาก Backend
+  // หนึ่งหน้าของประวัติ (ใหม่สุดก่อน); cursor = nextCursor ของหน้าก่อน
+  const fetchHistoryPage = (cursor: string | null) => {
+    const apiBaseUrl = process.env.NEXT_PUBLIC_API_BASE_URL || 'http://localhost:8082';
+    const token = AuthService.getToken();
+
+    if (!token) {
+      throw new Error('No authentication token found');
+    }
+
+    return fetchAppointmentPage<Appointment>(`${apiBaseUrl}/api/appointments/my`, {
+      'Authorization': `Bearer ${token}`,
+      'Content-Type': 'application/json',
+    }, 'Failed to load appointments', { cursor });
+  };
+
+  // ฟังก์ชันโหลดประวัติการจองจาก Backend (หน้าแรก)
   const loadBookingHistory = async () => {
     setIsLoading(true);
     setError(null);
@@ -136,35 +154,12 @@ export default function HistoryPage() {
         return;
       }
 
-      const apiBaseUrl = process.env.NEXT_PUBLIC_API_BASE_URL || 'http://localhost:8082';
-      const token = AuthService.getToken();
-
-      if (!token) {
-        throw new Error('No authentication token found');
-      }
-
-      const response = await fetch(`${apiBaseUrl}/api/appointments/my`, {
-        headers: {
-          'Authorization': `Bearer ${token}`,
-          'Content-Type': 'application/json',
-        },
-      });
-
-      if (!response.ok) {
-        throw new Error(`Failed to load appointments: ${response.status}`);
-      }
-
-      const data = await response.json();
-      console.log('✅ [History] Appointments loaded:', data);
+      // the endpoint is paged newest first; older bookings load with "load more"
+      const page = await fetchHistoryPage(null);
+      console.log('✅ [History] Appointments loaded:', page);
 
-      const appointments: Appointment[] = data.appointments || [];
-
-      // Convert to BookingRecord format and sort by createdAt (newest first)
-      const bookingRecords = appointments
-        .map(convertToBookingRecord)
-        .sort((a, b) => new Date(b.createdAt).getTime() - new Date(a.createdAt).getTime());
-
-      setBookingHistory(bookingRecords);
+      setBookingHistory(page.appointments.map(convertToBookingRecord));
+      setNextCursor(page.nextCursor);
 
     } catch (error) {
       console.error('❌ [History] Error loading appointments:', error);
@@ -174,6 +169,22 @@ export default function HistoryPage() {
     }
   };
 
+  const loadMoreHistory = async () => {
+    if (!nextCursor) return;
+    setIsLoadingMore(true);
+
+    try {
+      const page = await fetchHistoryPage(nextCursor);
+      setBookingHistory(prev => [...prev, ...page.appointments.map(convertToBookingRecord)]);
+      setNextCursor(page.nextCursor);
+    } catch (error) {
+      console.error('❌ [History] Error loading more appointments:', error);
+      setError(error instanceof Error ? error.message : 'Failed to load appointment history');
+    } finally {
+      setIsLoadingMore(false);
+    }
+  };
+
   useEffect(() => {
     loadBookingHistory();
   }, []);
@@ -327,6 +338,18 @@ export default function HistoryPage() {
               ))}
             </div>
           )}
+
+          {nextCursor && (
+            <div className="mt-6 text-center">
+              <button
+                onClick={loadMoreHistory}
+                disabled={isLoadingMore}
+                className="px-4 py-2 bg-white/70 border border-emerald-200 text-emerald-700 rounded-lg hover:bg-emerald-50 transition-colors font-medium disabled:opacity-50"
+              >
+                {isLoadingMore ? 'กำลังโหลด...' : 'โหลดประวัติเพิ่มเติม'}
+              </button>
+            </div>
+          )}
         </div>
       </main>
 
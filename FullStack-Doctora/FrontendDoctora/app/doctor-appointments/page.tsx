@@ -5,6 +5,7 @@ import { useRouter } from 'next/navigation';
 import { AuthService } from '@/lib/auth-service';
 import { DoctorService, DoctorAppointment } from '@/lib/doctor-service';
 import { AppointmentService, PatientBookingInfoResponse } from '@/lib/appointment-service';
+import { toDateParam } from '@/lib/api';
 import Navbar from '@/components/Navbar';
 import Footer from '@/components/Footer';
 import {
@@ -36,6 +37,8 @@ export default function DoctorAppointments() {
   const [selectedPatientInfo, setSelectedPatientInfo] = useState<PatientBookingInfoResponse | null>(null);
   const [isModalOpen, setIsModalOpen] = useState(false);
   const [loadingPatientInfo, setLoadingPatientInfo] = useState(false);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
+  const [isLoadingMore, setIsLoadingMore] = useState(false);
 
   useEffect(() => {
     const checkAuth = async () => {
@@ -82,8 +85,10 @@ export default function DoctorAppointments() {
       setIsLoading(true);
       setError(null);
 
-      const data = await DoctorService.getMyAppointments();
-      setAppointments(data.appointments);
+      // first page from today onwards; older and later pages load on demand
+      const page = await DoctorService.getMyAppointmentsPage(toDateParam(new Date()));
+      setAppointments(page.appointments);
+      setNextCursor(page.nextCursor);
     } catch (err) {
       console.error('Error fetching appointments:', err);
       setError(err instanceof Error ? err.message : 'เกิดข้อผิดพลาดในการโหลดข้อมูล');
@@ -92,6 +97,21 @@ export default function DoctorAppointments() {
     }
   };
 
+  const loadMoreAppointments = async () => {
+    if (!nextCursor) return;
+    try {
+      setIsLoadingMore(true);
+      const page = await DoctorService.getMyAppointmentsPage(toDateParam(new Date()), nextCursor);
+      setAppointments(prev => [...prev, ...page.appointments]);
+      setNextCursor(page.nextCursor);
+    } catch (err) {
+      const errorMessage = err instanceof Error ? err.message : 'เกิดข้อผิดพลาดในการโหลดข้อมูล';
+      alert('เกิดข้อผิดพลาด: ' + errorMessage);
+    } finally {
+      setIsLoadingMore(false);
+    }
+  };
+
   const handleConfirmAppointment = async (appointmentId: number) => {
     try {
       setConfirmingId(appointmentId);
@@ -342,6 +362,18 @@ export default function DoctorAppointments() {
             })}
           </div>
         )}
+
+        {nextCursor && (
+          <div className="mt-6 text-center">
+            <button
+              onClick={loadMoreAppointments}
+              disabled={isLoadingMore}
+              className="px-4 py-2 bg-white border border-gray-300 text-gray-700 rounded-lg hover:bg-gray-50 transition-colors text-sm font-medium disabled:opacity-50"
+            >
+              {isLoadingMore ? 'กำลังโหลด...' : 'โหลดเพิ่มเติม'}
+            </button>
+          </div>
+        )}
       </div>
 
       {/* Patient Info Modal */}
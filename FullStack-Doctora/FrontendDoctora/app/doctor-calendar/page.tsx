@@ -5,6 +5,7 @@ import { useRouter } from 'next/navigation';
 import { AuthService } from '@/lib/auth-service';
 import { DoctorService, DoctorAppointment } from '@/lib/doctor-service';
 import { AppointmentService, PatientBookingInfoResponse } from '@/lib/appointment-service';
+import { toDateParam } from '@/lib/api';
 import Navbar from '@/components/Navbar';
 import {
   ChevronLeft,
@@ -28,6 +29,7 @@ export default function DoctorCalendarPage() {
   const [selectedPatientInfo, setSelectedPatientInfo] = useState<PatientBookingInfoResponse | null>(null);
   const [isModalOpen, setIsModalOpen] = useState(false);
   const [loadingPatientInfo, setLoadingPatientInfo] = useState(false);
+  const [isAuthorized, setIsAuthorized] = useState(false);
 
   useEffect(() => {
     const checkAuth = async () => {
@@ -37,7 +39,7 @@ export default function DoctorCalendarPage() {
           router.push('/login');
           return;
         }
-        await fetchAppointments();
+        setIsAuthorized(true);
       } catch (error) {
         console.error('Auth check failed:', error);
         router.push('/login');
@@ -47,11 +49,20 @@ export default function DoctorCalendarPage() {
     checkAuth();
   }, [router]);
 
-  const fetchAppointments = async () => {
+  // Reload whenever the displayed month changes
+  useEffect(() => {
+    if (isAuthorized) {
+      fetchAppointments(currentDate);
+    }
+  }, [isAuthorized, currentDate.getFullYear(), currentDate.getMonth()]);
+
+  const fetchAppointments = async (month: Date) => {
     try {
       setIsLoading(true);
       setError(null);
-      const { appointments: data } = await DoctorService.getMyAppointments();
+      const firstDay = new Date(month.getFullYear(), month.getMonth(), 1);
+      const lastDay = new Date(month.getFullYear(), month.getMonth() + 1, 0);
+      const { appointments: data } = await DoctorService.getMyAppointments(toDateParam(firstDay), toDateParam(lastDay));
       setAppointments(data);
     } catch (err) {
       console.error('Error fetching appointments:', err);
@@ -5,6 +5,7 @@ import { useRouter } from 'next/navigation';
 import { AuthService } from '@/lib/auth-service';
 import { DoctorService, DoctorProfile, DoctorAppointment, DoctorStats, DoctorAvailability } from '@/lib/doctor-service';
 import { AppointmentService, PatientBookingInfoResponse } from '@/lib/appointment-service';
+import { toDateParam } from '@/lib/api';
 import Navbar from '@/components/Navbar';
 import Footer from '@/components/Footer';
 import {
@@ -82,10 +83,15 @@ export default function DoctorDashboard() {
       setIsLoading(true);
       setError(null);
 
+      // Only the days the dashboard shows: today and the next 7 days
+      const today = new Date();
+      const nextWeek = new Date();
+      nextWeek.setDate(nextWeek.getDate() + 7);
+
       // Fetch all data in parallel, but handle availability separately to not break dashboard
       const [profileData, appointmentsData, statsData] = await Promise.all([
         DoctorService.getMyProfile(),
-        DoctorService.getMyAppointments(),
+        DoctorService.getMyAppointments(toDateParam(today), toDateParam(nextWeek)),
         DoctorService.getDoctorStats()
       ]);
 
@@ -395,7 +401,7 @@ export default function DoctorDashboard() {
                 <Users className="w-5 h-5 text-green-600" />
               </div>
             </div>
-            <p className="text-sm text-gray-600 mb-1">นัดหมายทั้งหมด</p>
+            <p className="text-sm text-gray-600 mb-1">นัดหมาย 7 วันข้างหน้า</p>
             <p className="text-3xl font-semibold text-gray-800">{appointments.length}</p>
           </div>
 
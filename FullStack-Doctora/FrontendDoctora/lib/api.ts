@@ -5,4 +5,83 @@ export const API_ENDPOINTS = {
   REGISTER: `${API_BASE_URL}/api/auth/register`,
   LOGIN: `${API_BASE_URL}/api/auth/login`,
   ME: `${API_BASE_URL}/api/users/me`,
-} as const;
\ No newline at end of file
+} as const;
+
+// Largest page the appointment history endpoints accept
+const HISTORY_PAGE_SIZE = 200;
+
+export interface AppointmentPage<T> {
+  appointments: T[];
+  nextCursor: string | null;
+  hasMore: boolean;
+}
+
+export interface AppointmentPageQuery {
+  cursor?: string | null;
+  limit?: number;
+  from?: string; // YYYY-MM-DD, inclusive
+  to?: string;   // YYYY-MM-DD, inclusive
+}
+
+/**
+ * Read one page from a paged history endpoint (/api/appointments/my, /api/appointments/doctor/my).
+ * Pass nextCursor from the previous page as cursor to continue; hasMore is false on the last page.
+ */
+export async function fetchAppointmentPage<T>(
+  url: string,
+  headers: HeadersInit,
+  errorMessage: string,
+  query: AppointmentPageQuery = {}
+): Promise<AppointmentPage<T>> {
+  const params = new URLSearchParams();
+  if (query.limit) params.set('limit', String(query.limit));
+  if (query.cursor) params.set('cursor', query.cursor);
+  if (query.from) params.set('from', query.from);
+  if (query.to) params.set('to', query.to);
+
+  const queryString = params.toString();
+  const response = await fetch(queryString ? `${url}?${queryString}` : url, { headers });
+
+  if (!response.ok) {
+    const errorData = await response.json().catch(() => ({}));
+    throw new Error(errorData.message || `${errorMessage}: ${response.status}`);
+  }
+
+  const page = await response.json();
+  return {
+    appointments: page.appointments || [],
+    nextCursor: page.hasMore ? page.nextCursor : null,
+    hasMore: Boolean(page.hasMore),
+  };
+}
+
+/**
+ * Every appointment between two dates (inclusive). Only for bounded windows such as the month a
+ * calendar shows: the cursor is followed until the window is exhausted, never through all history.
+ */
+export async function fetchAppointmentsBetween<T>(
+  url: string,
+  headers: HeadersInit,
+  errorMessage: string,
+  from: string,
+  to: string
+): Promise<{ appointments: T[] }> {
+  const appointments: T[] = [];
+  let cursor: string | null = null;
+
+  do {
+    const page: AppointmentPage<T> = await fetchAppointmentPage<T>(url, headers, errorMessage,
+      { cursor, from, to, limit: HISTORY_PAGE_SIZE });
+    appointments.push(...page.appointments);
+    cursor = page.nextCursor;
+  } while (cursor);
+
+  return { appointments };
+}
+
+// Local calendar date as YYYY-MM-DD (toISOString would shift to UTC)
+export function toDateParam(date: Date): string {
+  const month = String(date.getMonth() + 1).padStart(2, '0');
+  const day = String(date.getDate()).padStart(2, '0');
+  return `${date.getFullYear()}-${month}-${day}`;
+}
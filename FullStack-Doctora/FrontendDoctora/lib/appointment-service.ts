@@ -1,4 +1,5 @@
 import { AuthService } from "./auth-service";
+import { AppointmentPage, fetchAppointmentPage, fetchAppointmentsBetween } from "./api";
 
 const API_BASE_URL = process.env.NEXT_PUBLIC_API_BASE_URL || 'http://localhost:8082';
 
@@ -120,19 +121,15 @@ export class AppointmentService {
   }
 
   /**
-   * Get my appointments
+   * Get my appointments, newest first, one page at a time (pass nextCursor to read further back)
    */
-  static async getMyAppointments(): Promise<{appointments: AppointmentResponse[]}> {
-    const response = await fetch(`${API_BASE_URL}/api/appointments/my`, {
-      headers: this.getAuthHeaders(),
-    });
-
-    if (!response.ok) {
-      const errorData = await response.json();
-      throw new Error(errorData.message || 'Failed to fetch appointments');
-    }
-
-    return response.json();
+  static async getMyAppointments(cursor?: string | null): Promise<AppointmentPage<AppointmentResponse>> {
+    return fetchAppointmentPage<AppointmentResponse>(
+      `${API_BASE_URL}/api/appointments/my`,
+      this.getAuthHeaders(),
+      'Failed to fetch appointments',
+      { cursor }
+    );
   }
 
   /**
@@ -220,19 +217,16 @@ export class AppointmentService {
   }
 
   /**
-   * Get doctor's appointments (Doctor only)
+   * Get doctor's appointments between two dates, YYYY-MM-DD inclusive (Doctor only)
    */
-  static async getDoctorAppointments(): Promise<{appointments: AppointmentResponse[]}> {
-    const response = await fetch(`${API_BASE_URL}/api/appointments/doctor/my`, {
-      headers: this.getAuthHeaders(),
-    });
-
-    if (!response.ok) {
-      const errorData = await response.json();
-      throw new Error(errorData.message || 'Failed to fetch appointments');
-    }
-
-    return response.json();
+  static async getDoctorAppointments(from: string, to: string): Promise<{appointments: AppointmentResponse[]}> {
+    return fetchAppointmentsBetween<AppointmentResponse>(
+      `${API_BASE_URL}/api/appointments/doctor/my`,
+      this.getAuthHeaders(),
+      'Failed to fetch appointments',
+      from,
+      to
+    );
   }
 
   /**
@@ -1,4 +1,5 @@
 import { AuthService } from "./auth-service";
+import { AppointmentPage, fetchAppointmentPage, fetchAppointmentsBetween } from "./api";
 
 const API_BASE_URL = process.env.NEXT_PUBLIC_API_BASE_URL || 'http://localhost:8082';
 
@@ -119,20 +120,28 @@ export class DoctorService {
   }
 
   /**
-   * Get current doctor's appointments
+   * Get current doctor's appointments between two dates (YYYY-MM-DD, inclusive)
    */
-  static async getMyAppointments(): Promise<{appointments: DoctorAppointment[]}> {
-    const response = await fetch(`${API_BASE_URL}/api/appointments/doctor/my`, {
-      method: 'GET',
-      headers: this.getAuthHeaders(),
-    });
-
-    if (!response.ok) {
-      const errorData = await response.json();
-      throw new Error(errorData.message || 'Failed to fetch doctor appointments');
-    }
+  static async getMyAppointments(from: string, to: string): Promise<{appointments: DoctorAppointment[]}> {
+    return fetchAppointmentsBetween<DoctorAppointment>(
+      `${API_BASE_URL}/api/appointments/doctor/my`,
+      this.getAuthHeaders(),
+      'Failed to fetch doctor appointments',
+      from,
+      to
+    );
+  }
 
-    return response.json();
+  /**
+   * One page of the current doctor's appointments in time order, starting at `from`
+   */
+  static async getMyAppointmentsPage(from: string, cursor?: string | null): Promise<AppointmentPage<DoctorAppointment>> {
+    return fetchAppointmentPage<DoctorAppointment>(
+      `${API_BASE_URL}/api/appointments/doctor/my`,
+      this.getAuthHeaders(),
+      'Failed to fetch doctor appointments',
+      { from, cursor }
+    );
   }
 
   /**
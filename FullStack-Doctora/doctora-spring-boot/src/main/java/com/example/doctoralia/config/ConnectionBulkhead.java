@@ -0,0 +1,176 @@
+package com.example.doctoralia.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fair semaphore in front of the connection pool, one permit per Hikari connection minus a
+ * small reserve.
+ *
+ * With virtual threads thousands of requests can ask for a connection at once. Hikari
+ * hands connections out in no particular order, so under that load some requests wait
+ * much longer than others and time out. Here waiters queue FIFO on the semaphore and only
+ * then reach Hikari, which always has a free connection for them. The permit is returned
+ * when the connection is closed (given back to the pool).
+ *
+ * A thread that already holds a connection and asks for another (a REQUIRES_NEW block)
+ * does not queue again: waiting behind requests that are themselves waiting for its first
+ * connection could never end. It goes straight to Hikari, into the reserve kept out of the
+ * semaphore (booking.db.bulkhead.reserve).
+ *
+ * On by default together with spring.threads.virtual.enabled; see booking.db.bulkhead.*.
+ */
+@Component
+@ConditionalOnProperty(name = "booking.db.bulkhead.enabled", havingValue = "true")
+public class ConnectionBulkhead implements BeanPostProcessor {
+
+    private final long timeoutMs;
+    private final int reserve;
+    private volatile Semaphore permits;
+    private volatile int size;
+
+    // connections this thread holds through the bulkhead
+    private final ThreadLocal<int[]> held = ThreadLocal.withInitial(() -> new int[1]);
+
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong nested = new AtomicLong();
+
+    public ConnectionBulkhead(Environment environment) {
+        this.timeoutMs = environment.getProperty("booking.db.bulkhead.timeout-ms", Long.class, 30_000L);
+        this.reserve = environment.getProperty("booking.db.bulkhead.reserve", Integer.class, 2);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof HikariDataSource hikari && permits == null) {
+            size = Math.max(1, hikari.getMaximumPoolSize() - reserve);
+            permits = new Semaphore(size, true);
+            return new BulkheadDataSource(hikari);
+        }
+        return bean;
+    }
+
+    /**
+     * สถิติของ bulkhead สำหรับ admin
+     */
+    public Map<String, Object> getMetrics() {
+        Semaphore semaphore = permits;
+        long count = acquired.get();
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("permits", size);
+        metrics.put("inUse", semaphore == null ? 0 : size - semaphore.availablePermits());
+        metrics.put("waiting", semaphore == null ? 0 : semaphore.getQueueLength());
+        metrics.put("acquired", count);
+        metrics.put("timedOut", timedOut.get());
+        metrics.put("nested", nested.get());
+        metrics.put("avgWaitMs", count == 0 ? 0.0 : totalWaitNanos.get() / 1e6 / count);
+        metrics.put("maxWaitMs", maxWaitNanos.get() / 1e6);
+        return metrics;
+    }
+
+    private Connection acquire(ConnectionSource source) throws SQLException {
+        int[] count = held.get();
+        if (count[0] > 0) {
+            nested.incrementAndGet();
+            Connection connection = source.get();
+            count[0]++;
+            return releasingOnClose(connection, count, false);
+        }
+
+        long began = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+                timedOut.incrementAndGet();
+                throw new SQLTransientConnectionException(
+                        "Database bulkhead: no connection within " + timeoutMs + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database connection", e);
+        }
+        long waited = System.nanoTime() - began;
+        acquired.incrementAndGet();
+        totalWaitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+
+        Connection connection;
+        try {
+            connection = source.get();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        count[0]++;
+        return releasingOnClose(connection, count, true);
+    }
+
+    private Connection releasingOnClose(Connection connection, int[] count, boolean permit) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if ("close".equals(method.getName()) && method.getParameterCount() == 0) {
+                        try {
+                            connection.close();
+                        } finally {
+                            if (released.compareAndSet(false, true)) {
+                                count[0]--;
+                                if (permit) {
+                                    permits.release();
+                                }
+                            }
+                        }
+                        return null;
+                    }
+                    if ("unwrap".equals(method.getName()) && ((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+        Connection get() throws SQLException;
+    }
+
+    private final class BulkheadDataSource extends DelegatingDataSource {
+
+        BulkheadDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return acquire(() -> obtainTargetDataSource().getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return acquire(() -> obtainTargetDataSource().getConnection(username, password));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.doctoralia.config;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.security.Principal;
+
+/**
+ * ข้อมูลผู้ใช้ที่ได้จาก JWT (parse ครั้งเดียวต่อ request) เก็บไว้ใน SecurityContext
+ */
+public class DoctoraPrincipal implements Principal {
+    private final Long userId;
+    private final String email;
+    private final String role;
+    private final Long doctorId;
+    private final long expiresAtMillis;
+
+    public DoctoraPrincipal(Long userId, String email, String role, Long doctorId, long expiresAtMillis) {
+        this.userId = userId;
+        this.email = email;
+        this.role = role;
+        this.doctorId = doctorId;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    /**
+     * Principal of the current request, or null for anonymous requests
+     */
+    public static DoctoraPrincipal current() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof DoctoraPrincipal principal) {
+            return principal;
+        }
+        return null;
+    }
+
+    public Long getUserId() { return userId; }
+    public String getEmail() { return email; }
+    public String getRole() { return role; }
+    public Long getDoctorId() { return doctorId; }
+    public long getExpiresAtMillis() { return expiresAtMillis; }
+
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    @Override
+    public String toString() {
+        return "DoctoraPrincipal{" +
+                "userId=" + userId +
+                ", email='" + email + '\'' +
+                ", role='" + role + '\'' +
+                ", doctorId=" + doctorId +
+                '}';
+    }
+}
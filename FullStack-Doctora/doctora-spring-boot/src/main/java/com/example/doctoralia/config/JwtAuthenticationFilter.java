@@ -1,6 +1,7 @@
 package com.example.doctoralia.config;
 
 import com.example.doctoralia.service.UserService;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -8,9 +9,12 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -28,12 +32,47 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserService userService;
 
+    // Public routes (permitAll in SecurityConfig) that never look at the caller: no token work at all
+    private static final List<RequestMatcher> PUBLIC_ROUTES = List.of(
+            route(null, "/api/health"),
+            route(null, "/api/health/**"),
+            route(null, "/api/auth/login"),
+            route(null, "/api/auth/register"),
+            route(null, "/api/public/**"),
+            route(HttpMethod.GET, "/api/specialties"),
+            route(HttpMethod.GET, "/api/specialties/**"),
+            route(HttpMethod.GET, "/api/doctors"),
+            route(HttpMethod.GET, "/api/doctors/search"),
+            route(HttpMethod.GET, "/api/doctors/suggest"),
+            route(HttpMethod.GET, "/api/doctors/specialty/**"),
+            route(HttpMethod.GET, "/api/doctors/stats"),
+            route(HttpMethod.GET, "/api/doctors/active"),
+            route(HttpMethod.GET, "/api/doctors/by-specialty"),
+            route(HttpMethod.GET, "/api/doctors/smart-select"),
+            route(HttpMethod.GET, "/api/doctors/{id:[0-9]+}"),
+            route(HttpMethod.GET, "/api/doctors/{id:[0-9]+}/free-slots"),
+            route(HttpMethod.GET, "/api/calendar/heatmap"),
+            route(HttpMethod.GET, "/api/availability/doctor/**"),
+            route(HttpMethod.GET, "/api/availability/free-doctors"),
+            route(HttpMethod.GET, "/api/availability/shared-windows"),
+            route(HttpMethod.GET, "/api/appointments/doctor/*/booked-slots"));
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        for (RequestMatcher matcher : PUBLIC_ROUTES) {
+            if (matcher.matches(request)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
         String requestURI = request.getRequestURI();
-        logger.info("Processing request: {} {}", request.getMethod(), requestURI);
+        logger.debug("Processing request: {} {}", request.getMethod(), requestURI);
         
         try {
             // ดึง JWT token จาก Authorization header
@@ -42,31 +81,27 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             if (jwt == null) {
                 logger.warn("No JWT token found in request to: {}", requestURI);
             } else {
-                logger.info("JWT token found, validating...");
-                
-                if (jwtUtils.validateJwtToken(jwt)) {
-                    // ดึงข้อมูลจาก token
-                    String email = jwtUtils.getEmailFromJwtToken(jwt);
-                    String role = jwtUtils.getRoleFromJwtToken(jwt);
-
-                    // สร้าง authorities สำหรับ Spring Security
-                    List<SimpleGrantedAuthority> authorities = List.of(
-                            new SimpleGrantedAuthority("ROLE_" + role)
-                    );
-
-                    // สร้าง Authentication object
-                    UsernamePasswordAuthenticationToken authentication =
-                            new UsernamePasswordAuthenticationToken(email, null, authorities);
-
-                    // ตั้งค่า Security Context
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
-
-                    logger.info("User authenticated: {} with role: {} for request: {}", email, role, requestURI);
-                } else {
-                    logger.error("JWT token validation failed for request: {}", requestURI);
-                }
+                // ตรวจ signature และอ่าน claims ครั้งเดียว
+                DoctoraPrincipal principal = jwtUtils.parsePrincipal(jwt);
+
+                // สร้าง authorities สำหรับ Spring Security
+                List<SimpleGrantedAuthority> authorities = List.of(
+                        new SimpleGrantedAuthority("ROLE_" + principal.getRole())
+                );
+
+                // สร้าง Authentication object (principal = DoctoraPrincipal, getName() = email)
+                UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(principal, null, authorities);
+
+                // ตั้งค่า Security Context
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+
+                logger.debug("User authenticated: {} with role: {} for request: {}",
+                        principal.getEmail(), principal.getRole(), requestURI);
             }
 
+        } catch (JwtException | IllegalArgumentException e) {
+            logger.error("JWT token validation failed for request {}: {}", requestURI, e.getMessage());
         } catch (Exception e) {
             logger.error("Cannot set user authentication for request {}: ", requestURI, e);
         }
@@ -75,6 +110,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private static RequestMatcher route(HttpMethod method, String pattern) {
+        return PathPatternRequestMatcher.withDefaults().matcher(method, pattern);
+    }
+
     /**
      * ดึง JWT token จาก Authorization header
      */
@@ -10,6 +10,8 @@ import org.springframework.stereotype.Component;
 
 import java.security.Key;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class JwtUtils {
@@ -21,48 +23,97 @@ public class JwtUtils {
     @Value("${jwt.expiration}")
     private long jwtExpiration;
 
+    private static final int VERIFIED_TOKEN_CACHE_SIZE = 1024;
+
+    private volatile Key signingKey;
+    private volatile JwtParser parser;
+
+    // token -> principal; reads take no lock, a full cache drops an arbitrary entry instead of tracking recency
+    private final ConcurrentHashMap<String, DoctoraPrincipal> verifiedTokens = new ConcurrentHashMap<>();
+
     /**
      * สร้าง JWT Token จาก User
      */
 
     public String generateJwtToken(User user) {
-        return Jwts.builder()
+        return generateJwtToken(user, null);
+    }
+
+    /**
+     * สร้าง JWT Token พร้อม doctorId (สำหรับหมอ) เพื่อไม่ต้องหา doctor จาก userId ทุก request
+     */
+    public String generateJwtToken(User user, Long doctorId) {
+        JwtBuilder builder = Jwts.builder()
                 .setSubject(user.getEmail())
                 .claim("userId", user.getId())
                 .claim("role", user.getRole().name())
                 .claim("firstName", user.getFirstName())
-                .claim("lastName", user.getLastName())
+                .claim("lastName", user.getLastName());
+        if (doctorId != null) {
+            builder.claim("doctorId", doctorId);
+        }
+        return builder
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration))
                 .signWith(getSigningKey(), SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    /**
+     * ตรวจ signature และอ่าน claims ของ token เพียงครั้งเดียว
+     * Tokens verified recently are answered from a small bounded cache until they expire.
+     */
+    public DoctoraPrincipal parsePrincipal(String token) {
+        DoctoraPrincipal cached = verifiedTokens.get(token);
+        if (cached != null) {
+            if (cached.getExpiresAtMillis() > System.currentTimeMillis()) {
+                return cached;
+            }
+            verifiedTokens.remove(token, cached); // หมดอายุแล้ว ให้ parser โยน ExpiredJwtException ตามปกติ
+        }
+
+        DoctoraPrincipal principal = verify(token);
+        if (verifiedTokens.size() >= VERIFIED_TOKEN_CACHE_SIZE) {
+            makeRoom();
+        }
+        verifiedTokens.put(token, principal);
+        return principal;
+    }
+
+    // signature check + claims, no cache
+    DoctoraPrincipal verify(String token) {
+        Claims claims = getParser().parseClaimsJws(token).getBody();
+        Date expiration = claims.getExpiration();
+        return new DoctoraPrincipal(
+                claims.get("userId", Long.class),
+                claims.getSubject(),
+                claims.get("role", String.class),
+                claims.get("doctorId", Long.class),
+                expiration != null ? expiration.getTime() : Long.MAX_VALUE);
+    }
+
+    // evicts whichever entries the iterator meets first; concurrent writers may overshoot the bound slightly
+    private void makeRoom() {
+        Iterator<DoctoraPrincipal> entries = verifiedTokens.values().iterator();
+        while (verifiedTokens.size() >= VERIFIED_TOKEN_CACHE_SIZE && entries.hasNext()) {
+            entries.next();
+            entries.remove();
+        }
+    }
+
     /**
      * ดึง email จาก JWT Token
      */
 
     public String getEmailFromJwtToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
-        return claims.getSubject();
+        return parsePrincipal(token).getEmail();
     }
 
     /**
      * ดึง User ID จาก JWT Token
      */
     public Long getUserIdFromJwtToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
-        return claims.get("userId", Long.class);
+        return parsePrincipal(token).getUserId();
     }
 
     /**
@@ -70,12 +121,7 @@ public class JwtUtils {
      */
 
     public String getRoleFromJwtToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.get("role", String.class);
+        return parsePrincipal(token).getRole();
     }
 
     /**
@@ -83,10 +129,7 @@ public class JwtUtils {
      */
     public boolean validateJwtToken(String authToken) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(authToken);
+            parsePrincipal(authToken);
             return true;
         } catch (SecurityException e) {
             logger.error("Invalid JWT signature: {}", e.getMessage());
@@ -98,18 +141,33 @@ public class JwtUtils {
             logger.error("JWT token is unsupported: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
             logger.error("JWT claims string is empty: {}", e.getMessage());
+        } catch (JwtException e) {
+            logger.error("Invalid JWT: {}", e.getMessage());
         }
         return false;
     }
 
     /**
-     * สร้าง Signing Key จาก secret
+     * Signing Key จาก secret (สร้างครั้งเดียว)
      */
 
     private Key getSigningKey() {
-        byte[] keyBytes = jwtSecret.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+        Key key = signingKey;
+        if (key == null) {
+            key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+            signingKey = key;
+        }
+        return key;
     }
 
-}
+    // JwtParser is immutable and thread-safe once built
+    private JwtParser getParser() {
+        JwtParser jwtParser = parser;
+        if (jwtParser == null) {
+            jwtParser = Jwts.parserBuilder().setSigningKey(getSigningKey()).build();
+            parser = jwtParser;
+        }
+        return jwtParser;
+    }
 
+}
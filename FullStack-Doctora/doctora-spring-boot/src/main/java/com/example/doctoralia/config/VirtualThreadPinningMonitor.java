@@ -0,0 +1,128 @@
+package com.example.doctoralia.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reports virtual threads that block while pinned to their carrier thread.
+ *
+ * Listens to the JDK's own jdk.VirtualThreadPinned JFR event in-process (no recording file),
+ * logs each pin longer than the threshold with the frames that caused it, and keeps a count
+ * per call site for GET /api/admin/runtime-metrics. Usual causes are blocking I/O or
+ * Object.wait() inside a synchronized block or method.
+ */
+@Component
+@ConditionalOnProperty(name = "booking.pinning.monitor.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private static final int MAX_SITES = 200;
+    private static final int FRAMES_IN_SITE = 6;
+
+    // call site (top frames) -> number of pins
+    private final Map<String, AtomicLong> pinsBySite = new ConcurrentHashMap<>();
+    private final AtomicLong totalPins = new AtomicLong();
+    private final AtomicLong totalPinnedNanos = new AtomicLong();
+
+    @Value("${booking.pinning.threshold-ms:20}")
+    private long thresholdMs = 20;
+
+    private RecordingStream stream;
+
+    @PostConstruct
+    public void start() {
+        try {
+            stream = new RecordingStream();
+            stream.enable("jdk.VirtualThreadPinned")
+                    .withThreshold(Duration.ofMillis(thresholdMs))
+                    .withStackTrace();
+            stream.onEvent("jdk.VirtualThreadPinned", this::record);
+            stream.startAsync();
+            logger.info("Virtual thread pinning monitor started (threshold {} ms)", thresholdMs);
+        } catch (Exception | LinkageError e) {
+            // JFR is missing from some trimmed runtimes - the app runs fine without the monitor
+            logger.warn("Virtual thread pinning monitor not available: {}", e.getMessage());
+            stream = null;
+        }
+    }
+
+    void record(RecordedEvent event) {
+        String site = site(event.getStackTrace());
+        long nanos = event.getDuration().toNanos();
+        totalPins.incrementAndGet();
+        totalPinnedNanos.addAndGet(nanos);
+        if (pinsBySite.size() < MAX_SITES || pinsBySite.containsKey(site)) {
+            pinsBySite.computeIfAbsent(site, s -> new AtomicLong()).incrementAndGet();
+        }
+        logger.warn("Virtual thread pinned for {} ms at {}", nanos / 1_000_000, site);
+    }
+
+    /**
+     * จำนวนครั้งที่ virtual thread ถูก pin แยกตามตำแหน่งในโค้ด
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Long> sites = new HashMap<>();
+        pinsBySite.forEach((site, count) -> sites.put(site, count.get()));
+
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("active", stream != null);
+        metrics.put("thresholdMs", thresholdMs);
+        metrics.put("pins", totalPins.get());
+        metrics.put("pinnedMs", totalPinnedNanos.get() / 1_000_000);
+        metrics.put("sites", sites);
+        return metrics;
+    }
+
+    static String site(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "unknown";
+        }
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        // skip the scheduler's own parking frames, the caller is what matters
+        int first = 0;
+        while (first < frames.size() - 1 && isParkingFrame(frames.get(first))) {
+            first++;
+        }
+        StringBuilder site = new StringBuilder();
+        for (int i = first; i < Math.min(first + FRAMES_IN_SITE, frames.size()); i++) {
+            RecordedFrame frame = frames.get(i);
+            if (i > first) {
+                site.append(" <- ");
+            }
+            site.append(frame.getMethod().getType().getName())
+                    .append('.')
+                    .append(frame.getMethod().getName())
+                    .append(':')
+                    .append(frame.getLineNumber());
+        }
+        return site.toString();
+    }
+
+    private static boolean isParkingFrame(RecordedFrame frame) {
+        String type = frame.getMethod().getType().getName();
+        return type.equals("java.lang.VirtualThread") || type.startsWith("jdk.internal.misc.");
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+}
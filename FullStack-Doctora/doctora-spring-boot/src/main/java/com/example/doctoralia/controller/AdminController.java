@@ -1,20 +1,37 @@
 package com.example.doctoralia.controller;
 
+import com.example.doctoralia.config.ConnectionBulkhead;
+import com.example.doctoralia.config.VirtualThreadPinningMonitor;
 import com.example.doctoralia.dto.*;
 import com.example.doctoralia.model.Doctor;
 import com.example.doctoralia.model.Specialty;
 import com.example.doctoralia.model.User;
+import com.example.doctoralia.service.AppointmentExportService;
+import com.example.doctoralia.service.AppointmentService;
+import com.example.doctoralia.service.AvailabilityImportService;
+import com.example.doctoralia.service.AvailabilityIntervalIndex;
+import com.example.doctoralia.service.CacheInvalidationBus;
 import com.example.doctoralia.service.DoctorService;
+import com.example.doctoralia.service.DoctorSearchExecutor;
+import com.example.doctoralia.service.DoctorSuggestIndex;
+import com.example.doctoralia.service.WeeklyAvailabilityIndex;
+import com.example.doctoralia.service.PasswordHashingService;
 import com.example.doctoralia.service.SpecialtyService;
 import com.example.doctoralia.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -35,6 +52,40 @@ public class AdminController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private AppointmentExportService appointmentExportService;
+
+    @Autowired
+    private AvailabilityImportService availabilityImportService;
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Autowired
+    private DoctorSuggestIndex suggestIndex;
+
+    @Autowired
+    private DoctorSearchExecutor searchExecutor;
+
+    @Autowired
+    private WeeklyAvailabilityIndex weeklyAvailabilityIndex;
+
+    @Autowired
+    private AvailabilityIntervalIndex availabilityIntervalIndex;
+
+    // มีเฉพาะเมื่อเปิด booking.db.bulkhead.enabled / booking.pinning.monitor.enabled
+    @Autowired(required = false)
+    private ConnectionBulkhead connectionBulkhead;
+
+    @Autowired(required = false)
+    private VirtualThreadPinningMonitor pinningMonitor;
+
     //สร้างหมอใหม่ ADMIN
     @PostMapping("/doctors")
     public ResponseEntity<?> addDoctor(@Valid @RequestBody CreateDoctorRequest request) {
@@ -214,6 +265,110 @@ public class AdminController {
         }
     }
 
+    //ตรวจความถูกต้องของ slot index เทียบกับตาราง appointments (และซ่อมถ้าไม่ตรง)
+    @GetMapping("/slot-index/verify")
+    public ResponseEntity<?> verifySlotIndex() {
+        try {
+            List<String> mismatches = appointmentService.verifySlotIndex();
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("consistent", mismatches.isEmpty());
+            response.put("mismatches", mismatches);
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error verifying slot index: ", e);
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+
+    //สถิติการ hash รหัสผ่าน (เวลา hash, ความยาวคิว, จำนวนที่ถูกปฏิเสธ)
+    @GetMapping("/auth-metrics")
+    public ResponseEntity<?> getAuthMetrics() {
+        return ResponseEntity.ok(passwordHashingService.getMetrics());
+    }
+
+    //สถานะ runtime: virtual threads, DB bulkhead และการ pin ของ virtual thread
+    @GetMapping("/runtime-metrics")
+    public ResponseEntity<?> getRuntimeMetrics() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("virtualThreads", Thread.currentThread().isVirtual());
+        response.put("dbBulkhead", connectionBulkhead != null ? connectionBulkhead.getMetrics() : Map.of("enabled", false));
+        response.put("pinning", pinningMonitor != null ? pinningMonitor.getMetrics() : Map.of("enabled", false));
+        response.put("cacheBus", cacheInvalidationBus.getMetrics());
+        response.put("suggestIndex", suggestIndex.getMetrics());
+        response.put("doctorSearchCache", searchExecutor.getMetrics());
+        response.put("weeklyAvailability", weeklyAvailabilityIndex.getMetrics());
+        response.put("availabilityIntervals", availabilityIntervalIndex.getMetrics());
+        return ResponseEntity.ok(response);
+    }
+
+    //export นัดหมายช่วงวันที่ from..to (รวมวันสุดท้าย) เป็น CSV หรือ NDJSON แบบ stream
+    @GetMapping("/appointments/export")
+    public ResponseEntity<?> exportAppointments(@RequestParam String from,
+                                                @RequestParam String to,
+                                                @RequestParam(defaultValue = "csv") String format) {
+        LocalDate fromDate;
+        LocalDate toDate;
+        AppointmentExportService.Format exportFormat;
+        try {
+            fromDate = LocalDate.parse(from);
+            toDate = LocalDate.parse(to);
+            exportFormat = AppointmentExportService.Format.parse(format);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: Dates must be in yyyy-MM-dd format"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: " + e.getMessage()));
+        }
+        if (toDate.isBefore(fromDate)) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: 'to' must not be before 'from'"));
+        }
+
+        // rows are written while the response is sent; nothing is collected in memory
+        StreamingResponseBody body = out -> appointmentExportService.export(fromDate, toDate, exportFormat, out);
+        String filename = "appointments_" + fromDate + "_" + toDate + "." + exportFormat.getExtension();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+
+    //import ตารางเวลาหมอจำนวนมาก (CSV หรือ JSON array ใน body) - แถวที่ผิดถูกข้ามและรายงานกลับ
+    @PostMapping("/availabilities/import")
+    public ResponseEntity<?> importAvailabilities(@RequestParam(defaultValue = "csv") String format,
+                                                  @RequestParam(defaultValue = "false") boolean replace,
+                                                  @RequestParam(defaultValue = "false") boolean dryRun,
+                                                  HttpServletRequest request) {
+        try {
+            AvailabilityImportService.Format importFormat = AvailabilityImportService.Format.parse(format);
+            AvailabilityImportResult result = availabilityImportService.importSchedules(
+                    request.getInputStream(), importFormat, replace, dryRun);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", dryRun
+                    ? "Dry run: " + result.imported() + " of " + result.rowsRead() + " rows are valid"
+                    : "Imported " + result.imported() + " of " + result.rowsRead() + " rows");
+            response.put("rowsRead", result.rowsRead());
+            response.put("imported", result.imported());
+            response.put("failed", result.failed());
+            response.put("doctors", result.doctors());
+            response.put("replaced", result.replaced());
+            response.put("dryRun", result.dryRun());
+            response.put("elapsedMs", result.elapsedMs());
+            response.put("errors", result.errors());
+            response.put("errorsTruncated", result.errorsTruncated());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error importing availabilities: ", e);
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+
     /**
      * Get all users (Admin only) - for admin to see available doctor users
      */
@@ -1,14 +1,15 @@
 package com.example.doctoralia.controller;
 
-import com.example.doctoralia.config.JwtUtils;
+import com.example.doctoralia.config.DoctoraPrincipal;
+import com.example.doctoralia.dto.AppointmentResponse;
+import com.example.doctoralia.dto.BookedSlot;
 import com.example.doctoralia.dto.CreateAppointmentRequest;
 import com.example.doctoralia.dto.CreateAppointmentWithPatientInfoRequest;
+import com.example.doctoralia.dto.HistoryPage;
 import com.example.doctoralia.dto.MessageResponse;
 import com.example.doctoralia.model.Appointment;
-import com.example.doctoralia.model.Doctor;
 import com.example.doctoralia.service.AppointmentService;
 import com.example.doctoralia.service.DoctorService;
-import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,9 +32,6 @@ public class AppointmentController {
     @Autowired
     private AppointmentService appointmentService;
 
-    @Autowired
-    private JwtUtils jwtUtils;
-
     @Autowired
     private DoctorService doctorService;
 
@@ -43,16 +41,15 @@ public class AppointmentController {
     @PostMapping
     @PreAuthorize("hasRole('PATIENT')")
     public ResponseEntity<?> createAppointment(
-            @Valid @RequestBody CreateAppointmentRequest request,
-            HttpServletRequest httpRequest) {
+            @Valid @RequestBody CreateAppointmentRequest request) {
         try {
-            String jwt = parseJwt(httpRequest);
-            if (jwt == null || !jwtUtils.validateJwtToken(jwt)) {
+            DoctoraPrincipal principal = DoctoraPrincipal.current();
+            if (principal == null) {
                 return ResponseEntity.badRequest()
                         .body(new MessageResponse("Invalid token"));
             }
 
-            Long patientId = jwtUtils.getUserIdFromJwtToken(jwt);
+            Long patientId = principal.getUserId();
             logger.info("Creating appointment for patient: {} with doctor: {}", patientId, request.getDoctorId());
 
             Appointment appointment = appointmentService.createAppointment(
@@ -65,7 +62,7 @@ public class AppointmentController {
 
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Appointment created successfully!");
-            response.put("appointment", convertToAppointmentResponse(appointment));
+            response.put("appointment", AppointmentResponse.from(appointment));
 
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -81,16 +78,15 @@ public class AppointmentController {
     @PostMapping("/with-patient-info")
     @PreAuthorize("hasRole('PATIENT')")
     public ResponseEntity<?> createAppointmentWithPatientInfo(
-            @Valid @RequestBody CreateAppointmentWithPatientInfoRequest request,
-            HttpServletRequest httpRequest) {
+            @Valid @RequestBody CreateAppointmentWithPatientInfoRequest request) {
         try {
-            String jwt = parseJwt(httpRequest);
-            if (jwt == null || !jwtUtils.validateJwtToken(jwt)) {
+            DoctoraPrincipal principal = DoctoraPrincipal.current();
+            if (principal == null) {
                 return ResponseEntity.badRequest()
                         .body(new MessageResponse("Invalid token"));
             }
 
-            Long patientId = jwtUtils.getUserIdFromJwtToken(jwt);
+            Long patientId = principal.getUserId();
             logger.info("Creating appointment with patient info for patient: {} with doctor: {}",
                        patientId, request.getDoctorId());
 
@@ -107,25 +103,31 @@ public class AppointmentController {
     }
 
     /**
-     * Get all appointments for current patient
+     * Get appointments of current patient, newest first, one page at a time.
+     * Pass nextCursor from the previous response as cursor to read further back.
      */
     @GetMapping("/my")
     @PreAuthorize("hasRole('PATIENT')")
-    public ResponseEntity<?> getMyAppointments(HttpServletRequest request) {
+    public ResponseEntity<?> getMyAppointments(@RequestParam(required = false) String cursor,
+                                               @RequestParam(required = false) Integer limit,
+                                               @RequestParam(required = false) List<String> status,
+                                               @RequestParam(required = false) String from,
+                                               @RequestParam(required = false) String to) {
         try {
-            String jwt = parseJwt(request);
-            if (jwt == null || !jwtUtils.validateJwtToken(jwt)) {
+            DoctoraPrincipal principal = DoctoraPrincipal.current();
+            if (principal == null) {
                 return ResponseEntity.badRequest()
                         .body(new MessageResponse("Invalid token"));
             }
 
-            Long patientId = jwtUtils.getUserIdFromJwtToken(jwt);
-            List<Appointment> appointments = appointmentService.getAppointmentsByPatient(patientId);
+            Long patientId = principal.getUserId();
+            HistoryPage<AppointmentResponse> page =
+                    appointmentService.getAppointmentsByPatient(patientId, cursor, limit, status, from, to);
 
             Map<String, Object> response = new HashMap<>();
-            response.put("appointments", appointments.stream()
-                    .map(this::convertToAppointmentResponse)
-                    .toList());
+            response.put("appointments", page.items());
+            response.put("nextCursor", page.nextCursor());
+            response.put("hasMore", page.hasMore());
 
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -136,34 +138,40 @@ public class AppointmentController {
     }
 
     /**
-     * Get all appointments for current doctor
+     * Get appointments of current doctor by appointment time, one page at a time.
+     * Pass nextCursor from the previous response as cursor to read the next page.
      */
     @GetMapping("/doctor/my")
     @PreAuthorize("hasRole('DOCTOR')")
-    public ResponseEntity<?> getMyDoctorAppointments(HttpServletRequest request) {
+    public ResponseEntity<?> getMyDoctorAppointments(@RequestParam(required = false) String cursor,
+                                                     @RequestParam(required = false) Integer limit,
+                                                     @RequestParam(required = false) List<String> status,
+                                                     @RequestParam(required = false) String from,
+                                                     @RequestParam(required = false) String to) {
         try {
-            String jwt = parseJwt(request);
-            if (jwt == null || !jwtUtils.validateJwtToken(jwt)) {
+            DoctoraPrincipal principal = DoctoraPrincipal.current();
+            if (principal == null) {
                 return ResponseEntity.badRequest()
                         .body(new MessageResponse("Invalid token"));
             }
 
-            Long doctorUserId = jwtUtils.getUserIdFromJwtToken(jwt);
+            Long doctorUserId = principal.getUserId();
 
-            // Find doctor by user ID first
-            Optional<Doctor> doctorOpt = doctorService.findByUserId(doctorUserId);
-            if (doctorOpt.isEmpty()) {
+            // doctor id from the token claim (or one id-only lookup for older tokens)
+            Optional<Long> doctorIdOpt = doctorService.resolveDoctorId(doctorUserId);
+            if (doctorIdOpt.isEmpty()) {
                 return ResponseEntity.badRequest()
                         .body(new MessageResponse("Doctor profile not found"));
             }
 
-            Long doctorId = doctorOpt.get().getId();
-            List<Appointment> appointments = appointmentService.getAppointmentsByDoctor(doctorId);
+            Long doctorId = doctorIdOpt.get();
+            HistoryPage<AppointmentResponse> page =
+                    appointmentService.getAppointmentsByDoctor(doctorId, cursor, limit, status, from, to);
 
             Map<String, Object> response = new HashMap<>();
-            response.put("appointments", appointments.stream()
-                    .map(this::convertToAppointmentResponse)
-                    .toList());
+            response.put("appointments", page.items());
+            response.put("nextCursor", page.nextCursor());
+            response.put("hasMore", page.hasMore());
 
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -179,35 +187,31 @@ public class AppointmentController {
     @PutMapping("/{id}/confirm")
     @PreAuthorize("hasRole('DOCTOR')")
     public ResponseEntity<?> confirmAppointment(
-            @PathVariable Long id,
-            HttpServletRequest request) {
+            @PathVariable Long id) {
         logger.info("🔵 [confirmAppointment] Starting - Appointment ID: {}", id);
 
         try {
-            String jwt = parseJwt(request);
-            logger.info("🔵 [confirmAppointment] JWT parsed: {}", jwt != null ? "Present" : "NULL");
-
-            if (jwt == null || !jwtUtils.validateJwtToken(jwt)) {
+            DoctoraPrincipal principal = DoctoraPrincipal.current();
+            if (principal == null) {
                 logger.error("❌ [confirmAppointment] Invalid or missing JWT token");
                 return ResponseEntity.badRequest()
                         .body(new MessageResponse("Invalid token"));
             }
 
-            Long doctorUserId = jwtUtils.getUserIdFromJwtToken(jwt);
-            String role = jwtUtils.getRoleFromJwtToken(jwt);
+            Long doctorUserId = principal.getUserId();
+            String role = principal.getRole();
             logger.info("🔵 [confirmAppointment] Doctor User ID: {}, Role: {}", doctorUserId, role);
 
-            // Find doctor by user ID
-            Optional<Doctor> doctorOpt = doctorService.findByUserId(doctorUserId);
-            logger.info("🔵 [confirmAppointment] Doctor found: {}", doctorOpt.isPresent());
+            // Resolve doctor id (token claim, no query for current tokens)
+            Optional<Long> doctorIdOpt = doctorService.resolveDoctorId(doctorUserId);
 
-            if (doctorOpt.isEmpty()) {
+            if (doctorIdOpt.isEmpty()) {
                 logger.error("❌ [confirmAppointment] Doctor profile not found for user ID: {}", doctorUserId);
                 return ResponseEntity.badRequest()
                         .body(new MessageResponse("Doctor profile not found"));
             }
 
-            Long doctorId = doctorOpt.get().getId();
+            Long doctorId = doctorIdOpt.get();
             logger.info("🔵 [confirmAppointment] Doctor ID: {}", doctorId);
 
             Appointment appointment = appointmentService.confirmAppointment(id, doctorId);
@@ -215,7 +219,7 @@ public class AppointmentController {
 
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Appointment confirmed successfully!");
-            response.put("appointment", convertToAppointmentResponse(appointment));
+            response.put("appointment", AppointmentResponse.from(appointment));
 
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -231,36 +235,29 @@ public class AppointmentController {
     @GetMapping("/{id}/patient-info")
     @PreAuthorize("hasRole('DOCTOR')")
     public ResponseEntity<?> getPatientBookingInfo(
-            @PathVariable Long id,
-            HttpServletRequest request) {
+            @PathVariable Long id) {
         logger.info("🔵 [getPatientBookingInfo] Getting patient info for appointment ID: {}", id);
 
         try {
-            String jwt = parseJwt(request);
-            if (jwt == null || !jwtUtils.validateJwtToken(jwt)) {
+            DoctoraPrincipal principal = DoctoraPrincipal.current();
+            if (principal == null) {
                 logger.error("❌ [getPatientBookingInfo] Invalid or missing JWT token");
                 return ResponseEntity.badRequest()
                         .body(new MessageResponse("Invalid token"));
             }
 
-            Long doctorUserId = jwtUtils.getUserIdFromJwtToken(jwt);
+            Long doctorUserId = principal.getUserId();
 
-            // Find doctor by user ID
-            Optional<Doctor> doctorOpt = doctorService.findByUserId(doctorUserId);
-            if (doctorOpt.isEmpty()) {
+            // Resolve doctor id
+            Optional<Long> doctorIdOpt = doctorService.resolveDoctorId(doctorUserId);
+            if (doctorIdOpt.isEmpty()) {
                 logger.error("❌ [getPatientBookingInfo] Doctor profile not found for user ID: {}", doctorUserId);
                 return ResponseEntity.badRequest()
                         .body(new MessageResponse("Doctor profile not found"));
             }
 
-            // Get the appointment to verify it belongs to this doctor
-            Appointment appointment = appointmentService.getAppointmentsByDoctor(doctorOpt.get().getId())
-                    .stream()
-                    .filter(apt -> apt.getId().equals(id))
-                    .findFirst()
-                    .orElse(null);
-
-            if (appointment == null) {
+            // Verify the appointment belongs to this doctor with one indexed existence query
+            if (!appointmentService.isAppointmentOfDoctor(id, doctorIdOpt.get())) {
                 logger.error("❌ [getPatientBookingInfo] Appointment not found or doesn't belong to this doctor");
                 return ResponseEntity.badRequest()
                         .body(new MessageResponse("Appointment not found or unauthorized"));
@@ -310,16 +307,15 @@ public class AppointmentController {
     @PutMapping("/{id}/cancel")
     @PreAuthorize("hasRole('PATIENT') or hasRole('DOCTOR')")
     public ResponseEntity<?> cancelAppointment(
-            @PathVariable Long id,
-            HttpServletRequest request) {
+            @PathVariable Long id) {
         try {
-            String jwt = parseJwt(request);
-            if (jwt == null || !jwtUtils.validateJwtToken(jwt)) {
+            DoctoraPrincipal principal = DoctoraPrincipal.current();
+            if (principal == null) {
                 return ResponseEntity.badRequest()
                         .body(new MessageResponse("Invalid token"));
             }
 
-            Long userId = jwtUtils.getUserIdFromJwtToken(jwt);
+            Long userId = principal.getUserId();
             Appointment appointment = appointmentService.cancelAppointment(id, userId);
 
             return ResponseEntity.ok(new MessageResponse("Appointment cancelled successfully!"));
@@ -341,16 +337,16 @@ public class AppointmentController {
         try {
             logger.info("Getting booked slots for doctor: {} on date: {}", doctorId, date);
 
-            List<Appointment> appointments = appointmentService.getAppointmentsByDoctorAndDate(doctorId, date);
+            List<BookedSlot> slots = appointmentService.getBookedSlots(doctorId, date);
 
             // Group appointments by time slot and status
-            List<Map<String, Object>> bookedSlots = appointments.stream()
+            List<Map<String, Object>> bookedSlots = slots.stream()
                     .map(apt -> {
                         Map<String, Object> slot = new HashMap<>();
-                        slot.put("appointmentId", apt.getId());
-                        slot.put("startTime", apt.getAppointmentDatetime());
+                        slot.put("appointmentId", apt.getAppointmentId());
+                        slot.put("startTime", apt.getStartTime());
                         slot.put("durationMinutes", apt.getDurationMinutes());
-                        slot.put("status", apt.getStatus()); // PENDING, CONFIRMED, CANCELLED, COMPLETED
+                        slot.put("status", apt.getStatus()); // PENDING, CONFIRMED, COMPLETED, NO_SHOW
                         return slot;
                     })
                     .toList();
@@ -368,44 +364,4 @@ public class AppointmentController {
         }
     }
 
-    private String parseJwt(HttpServletRequest request) {
-        String headerAuth = request.getHeader("Authorization");
-        if (headerAuth != null && headerAuth.startsWith("Bearer ")) {
-            return headerAuth.substring(7);
-        }
-        return null;
-    }
-
-    private Map<String, Object> convertToAppointmentResponse(Appointment appointment) {
-        Map<String, Object> response = new HashMap<>();
-        response.put("id", appointment.getId());
-
-        // Doctor info
-        Map<String, Object> doctor = new HashMap<>();
-        doctor.put("id", appointment.getDoctor().getId());
-        doctor.put("doctorName", appointment.getDoctor().getDoctorName());
-        Map<String, Object> specialty = new HashMap<>();
-        specialty.put("id", appointment.getDoctor().getSpecialty().getId());
-        specialty.put("name", appointment.getDoctor().getSpecialty().getName());
-        doctor.put("specialty", specialty);
-        response.put("doctor", doctor);
-
-        // Patient info
-        Map<String, Object> patient = new HashMap<>();
-        patient.put("id", appointment.getPatient().getId());
-        patient.put("email", appointment.getPatient().getEmail());
-        patient.put("firstName", appointment.getPatient().getFirstName());
-        patient.put("lastName", appointment.getPatient().getLastName());
-        response.put("patient", patient);
-
-        response.put("appointmentDatetime", appointment.getAppointmentDatetime());
-        response.put("durationMinutes", appointment.getDurationMinutes());
-        response.put("status", appointment.getStatus());
-        response.put("notes", appointment.getNotes());
-        response.put("doctorNotes", appointment.getDoctorNotes());
-        response.put("createdAt", appointment.getCreatedAt());
-        response.put("updatedAt", appointment.getUpdatedAt());
-
-        return response;
-    }
-}
\ No newline at end of file
+}
@@ -5,17 +5,23 @@ import com.example.doctoralia.dto.LoginRequest;
 import com.example.doctoralia.dto.MessageResponse;
 import com.example.doctoralia.dto.RegisterRequest;
 import com.example.doctoralia.model.User;
+import com.example.doctoralia.service.DoctorService;
+import com.example.doctoralia.service.LoginThrottle;
 import com.example.doctoralia.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -26,14 +32,26 @@ public class AuthController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private DoctorService doctorService;
+
     @Autowired
     private JwtUtils jwtUtils;
 
+    @Autowired
+    private LoginThrottle loginThrottle;
+
     /**
      * สมัครสมาชิก
      */
     @PostMapping("/register")
-    public ResponseEntity<?> registerUser(@Valid @RequestBody RegisterRequest request) {
+    public ResponseEntity<?> registerUser(@Valid @RequestBody RegisterRequest request,
+                                          HttpServletRequest httpRequest) {
+        long retryAfter = loginThrottle.tryAcquire(httpRequest.getRemoteAddr(), request.getEmail());
+        if (retryAfter > 0) {
+            return tooManyRequests(retryAfter, "Error: Too many attempts. Please try again later.");
+        }
+
         try{
             //เช็ค email ซ้ำ
             if (userService.existsByEmail(request.getEmail())) {
@@ -57,6 +75,8 @@ public class AuthController {
             logger.info("User registered successfully: {}", request.getEmail());
             return ResponseEntity.ok(new MessageResponse("User registered successfully!"));
 
+        } catch (RejectedExecutionException e) {
+            return tooManyRequests(1, "Error: " + e.getMessage());
         } catch (Exception e){
             logger.error("Error registering user: ", e);
             return ResponseEntity.badRequest()
@@ -65,7 +85,14 @@ public class AuthController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> loginUser(@Valid @RequestBody LoginRequest request){
+    public ResponseEntity<?> loginUser(@Valid @RequestBody LoginRequest request,
+                                       HttpServletRequest httpRequest){
+        // ตัดคำขอที่ถี่เกินก่อนถึง BCrypt
+        long retryAfter = loginThrottle.tryAcquire(httpRequest.getRemoteAddr(), request.getEmail());
+        if (retryAfter > 0) {
+            return tooManyRequests(retryAfter, "Error: Too many login attempts. Please try again later.");
+        }
+
         try {
             Optional<User> userOpt = userService.getUserByEmail(
                     request.getEmail(),
@@ -75,7 +102,8 @@ public class AuthController {
             if (userOpt.isPresent()) {
                 User user = userOpt.get();
 
-                String jwt = jwtUtils.generateJwtToken(user);
+                Long doctorId = doctorService.findDoctorIdForToken(user);
+                String jwt = jwtUtils.generateJwtToken(user, doctorId);
 
                 logger.info("User logged in successfully: {}", jwt);
 
@@ -87,12 +115,18 @@ public class AuthController {
                 response.put("firstName", user.getFirstName());
                 response.put("lastName", user.getLastName());
                 response.put("role", user.getRole());
+                if (doctorId != null) {
+                    response.put("doctorId", doctorId);
+                }
 
                 return ResponseEntity.ok(response);
             } else {
                 return ResponseEntity.badRequest()
                         .body(new MessageResponse("Error: Invalid email or password!"));
             }
+        } catch (RejectedExecutionException e) {
+            // hashing pool is full - fail fast instead of queueing behind it
+            return tooManyRequests(1, "Error: " + e.getMessage());
         } catch (Exception e) {
             logger.error("Error login user: ", e);
             return ResponseEntity.badRequest()
@@ -102,5 +136,10 @@ public class AuthController {
 
     }
 
-}
 
+    private ResponseEntity<?> tooManyRequests(long retryAfterSeconds, String message) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(new MessageResponse(message));
+    }
+}
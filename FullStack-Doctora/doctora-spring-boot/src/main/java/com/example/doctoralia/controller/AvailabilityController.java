@@ -1,16 +1,18 @@
 package com.example.doctoralia.controller;
 
-import com.example.doctoralia.config.JwtUtils;
+import com.example.doctoralia.config.DoctoraPrincipal;
 import com.example.doctoralia.dto.AddAvailabilityRequest;
+import com.example.doctoralia.dto.DoctorSummaryResponse;
+import com.example.doctoralia.dto.FreeWindow;
 import com.example.doctoralia.dto.MessageResponse;
+import com.example.doctoralia.dto.ReplaceScheduleRequest;
 import com.example.doctoralia.model.Appointment;
 import com.example.doctoralia.model.Availability;
-import com.example.doctoralia.model.Doctor;
 import com.example.doctoralia.model.UserRole;
 import com.example.doctoralia.repository.AppointmentRepository;
 import com.example.doctoralia.service.AvailabilityService;
 import com.example.doctoralia.service.DoctorService;
-import jakarta.servlet.http.HttpServletRequest;
+import com.example.doctoralia.service.WeeklyAvailabilityIndex;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,7 +22,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -37,11 +42,14 @@ public class AvailabilityController {
     @Autowired
     private DoctorService doctorService;
 
-    @Autowired
-    private JwtUtils jwtUtils;
     @Autowired
     private AvailabilityService availabilityService;
 
+    @Autowired
+    private WeeklyAvailabilityIndex weeklyAvailabilityIndex;
+
+    private static final int MAX_SHARED_DOCTORS = 50;
+
 
 
 
@@ -49,11 +57,11 @@ public class AvailabilityController {
 
     @PostMapping
     @PreAuthorize("hasRole('DOCTOR')")
-    public ResponseEntity<?> addAvailability(@Valid @RequestBody AddAvailabilityRequest request,
-                                             HttpServletRequest httpRequest) {
+    public ResponseEntity<?> addAvailability(@Valid @RequestBody AddAvailabilityRequest request) {
         try {
-            Long userId = getUserIdFromToken(httpRequest);
-            String role = getRoleFromToken(httpRequest);
+            DoctoraPrincipal principal = currentPrincipal();
+            Long userId = principal.getUserId();
+            String role = principal.getRole();
 
             if (!UserRole.DOCTOR.name().equals(role)) {
                 return ResponseEntity.badRequest()
@@ -61,16 +69,16 @@ public class AvailabilityController {
             }
 
             //หา doctor profile
-            Optional<Doctor> doctorOpt = doctorService.findByUserId(userId);
-            if (doctorOpt.isEmpty()) {
+            Optional<Long> doctorIdOpt = doctorService.resolveDoctorId(userId);
+            if (doctorIdOpt.isEmpty()) {
                 return ResponseEntity.badRequest()
                         .body(new MessageResponse("Doctor profile not found."));
             }
 
-            Doctor doctor = doctorOpt.get();
+            Long doctorId = doctorIdOpt.get();
 
             Availability availability = availabilityService.addAvailability(
-                    doctor.getId(),
+                    doctorId,
                     request.getDayOfWeek(),
                     request.getStartTime(),
                     request.getEndTime()
@@ -94,19 +102,19 @@ public class AvailabilityController {
      */
     @GetMapping("/my")
     @PreAuthorize("hasRole('DOCTOR')")
-    public ResponseEntity<?> getMyAvailability(HttpServletRequest request) {
+    public ResponseEntity<?> getMyAvailability() {
         try{
-            Long userId = getUserIdFromToken(request);
+            Long userId = currentPrincipal().getUserId();
 
             //หา doctor profile
-            Optional<Doctor> doctorOpt = doctorService.findByUserId(userId);
-            if (doctorOpt.isEmpty()) {
+            Optional<Long> doctorIdOpt = doctorService.resolveDoctorId(userId);
+            if (doctorIdOpt.isEmpty()) {
                 return ResponseEntity.badRequest()
                         .body(new MessageResponse("Doctor profile not found."));
             }
 
-            Doctor doctor = doctorOpt.get();
-            List<Availability> availabilities = availabilityService.getDoctorAvailabilities(doctor.getId());
+            Long doctorId = doctorIdOpt.get();
+            List<Availability> availabilities = availabilityService.getDoctorAvailabilities(doctorId);
 
             List<Map<String,Object>> response = availabilities.stream()
                     .map(this::convertToAvailabilityResponse)
@@ -144,25 +152,87 @@ public class AvailabilityController {
         }
     }
 
+    /**
+     * หมอที่ว่างตลอดช่วงเวลาที่ถาม (ละเอียดระดับ 15 นาที, ตอบจาก WeeklyAvailabilityIndex)
+     * GET /api/availability/free-doctors?dayOfWeek=1&time=10:15&until=11:00&specialtyId=3
+     */
+    @GetMapping("/free-doctors")
+    public ResponseEntity<?> getFreeDoctors(@RequestParam Integer dayOfWeek,
+                                            @RequestParam String time,
+                                            @RequestParam(required = false) String until,
+                                            @RequestParam(required = false) Long specialtyId) {
+        try {
+            LocalTime from = LocalTime.parse(time);
+            LocalTime to = until != null ? LocalTime.parse(until) : null;
+            List<Long> doctorIds = weeklyAvailabilityIndex.availableDoctors(dayOfWeek, from, to, specialtyId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("dayOfWeek", dayOfWeek);
+            response.put("time", from);
+            response.put("until", to);
+            response.put("specialtyId", specialtyId);
+            // an id can drop out between the index and the query (doctor deactivated meanwhile)
+            List<DoctorSummaryResponse> doctors = doctorService.findActiveSummaries(doctorIds);
+            response.put("doctors", doctors);
+            response.put("count", doctors.size());
+            return ResponseEntity.ok(response);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: Invalid time format. Use HH:mm"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * ช่วงเวลาในสัปดาห์ที่หมอทุกคน (match=all) หรือคนใดคนหนึ่ง (match=any) ว่าง
+     * GET /api/availability/shared-windows?doctorIds=1,2,3&match=all&dayOfWeek=1
+     */
+    @GetMapping("/shared-windows")
+    public ResponseEntity<?> getSharedWindows(@RequestParam List<Long> doctorIds,
+                                              @RequestParam(defaultValue = "all") String match,
+                                              @RequestParam(required = false) Integer dayOfWeek) {
+        try {
+            if (!"all".equals(match) && !"any".equals(match)) {
+                throw new IllegalArgumentException("match must be all or any");
+            }
+            if (doctorIds.size() > MAX_SHARED_DOCTORS) {
+                throw new IllegalArgumentException("At most " + MAX_SHARED_DOCTORS + " doctors");
+            }
+            List<FreeWindow> windows = weeklyAvailabilityIndex.sharedWindows(
+                    new LinkedHashSet<>(doctorIds), "all".equals(match), dayOfWeek);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("doctorIds", doctorIds);
+            response.put("match", match);
+            response.put("dayOfWeek", dayOfWeek);
+            response.put("windows", windows);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+
     //แก้ไขตารางเวลาหมอ (หมอเท่านั้น)
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('DOCTOR')")
     public ResponseEntity<?> updateAvailability (@PathVariable Long id,
-                                                 @Valid @RequestBody AddAvailabilityRequest request,
-                                                 HttpServletRequest httpRequest) {
+                                                 @Valid @RequestBody AddAvailabilityRequest request) {
         try{
-            Long userId = getUserIdFromToken(httpRequest);
+            Long userId = currentPrincipal().getUserId();
 
-            Optional<Doctor> doctorOpt = doctorService.findByUserId(userId);
-            if (doctorOpt.isEmpty()) {
+            Optional<Long> doctorIdOpt = doctorService.resolveDoctorId(userId);
+            if (doctorIdOpt.isEmpty()) {
                 return ResponseEntity.badRequest()
                         .body(new MessageResponse("Doctor profile not found."));
             }
 
-            Doctor doctor = doctorOpt.get();
+            Long doctorId = doctorIdOpt.get();
 
             Availability availability = availabilityService.updateAvailability(
-                    doctor.getId(),
+                    doctorId,
                     id,
                     request.getDayOfWeek(),
                     request.getStartTime(),
@@ -177,23 +247,52 @@ public class AvailabilityController {
         }
     }
 
+    /**
+     * แทนที่ตารางเวลาทั้งสัปดาห์ของหมอตัวเอง (หมอเท่านั้น) - แจ้งทุกช่วงที่ผิดพร้อมกัน
+     */
+    @PutMapping("/schedule")
+    @PreAuthorize("hasRole('DOCTOR')")
+    public ResponseEntity<?> replaceSchedule(@Valid @RequestBody ReplaceScheduleRequest request) {
+        try {
+            Long userId = currentPrincipal().getUserId();
+
+            Optional<Long> doctorIdOpt = doctorService.resolveDoctorId(userId);
+            if (doctorIdOpt.isEmpty()) {
+                return ResponseEntity.badRequest()
+                        .body(new MessageResponse("Doctor profile not found."));
+            }
+
+            List<Availability> saved = availabilityService.replaceWeeklySchedule(doctorIdOpt.get(), request.getSlots());
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Schedule replaced successfully!");
+            response.put("availabilities", saved.stream()
+                    .map(this::convertToAvailabilityResponse)
+                    .toList());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error replacing schedule!", e);
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+
     //ลบตารางเวลา
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('DOCTOR')")
-    public ResponseEntity<?> deleteAvailability (@PathVariable Long id,
-                                                 HttpServletRequest httpRequest) {
+    public ResponseEntity<?> deleteAvailability (@PathVariable Long id) {
         try{
-            Long userId = getUserIdFromToken(httpRequest);
+            Long userId = currentPrincipal().getUserId();
 
-            Optional<Doctor> doctorOpt = doctorService.findByUserId(userId);
-            if (doctorOpt.isEmpty()) {
+            Optional<Long> doctorIdOpt = doctorService.resolveDoctorId(userId);
+            if (doctorIdOpt.isEmpty()) {
                 return ResponseEntity.badRequest()
                         .body(new MessageResponse("Doctor profile not found."));
             }
 
-            Doctor doctor = doctorOpt.get();
+            Long doctorId = doctorIdOpt.get();
 
-            availabilityService.deleteAvailability(doctor.getId(), id);
+            availabilityService.deleteAvailability(doctorId, id);
 
             return ResponseEntity.ok(new MessageResponse("Availability deleted successfully!"));
         } catch (Exception e) {
@@ -204,22 +303,13 @@ public class AvailabilityController {
     }
 
     // Helper methods
-    private Long getUserIdFromToken(HttpServletRequest request) {
-        String jwt = parseJwt(request);
-        return jwtUtils.getUserIdFromJwtToken(jwt);
-    }
-
-    private String getRoleFromToken(HttpServletRequest request) {
-        String jwt = parseJwt(request);
-        return jwtUtils.getRoleFromJwtToken(jwt);
-    }
-
-    private String parseJwt(HttpServletRequest request) {
-        String headerAuth = request.getHeader("Authorization");
-        if (headerAuth != null && headerAuth.startsWith("Bearer ")) {
-            return headerAuth.substring(7);
+    // principal ที่ JwtAuthenticationFilter ตั้งไว้ใน SecurityContext (ไม่ parse token ซ้ำ)
+    private DoctoraPrincipal currentPrincipal() {
+        DoctoraPrincipal principal = DoctoraPrincipal.current();
+        if (principal == null) {
+            throw new IllegalStateException("Invalid token");
         }
-        return null;
+        return principal;
     }
 
     private Map<String, Object> convertToAvailabilityResponse(Availability availability) {
@@ -0,0 +1,68 @@
+package com.example.doctoralia.controller;
+
+import com.example.doctoralia.dto.MessageResponse;
+import com.example.doctoralia.service.CalendarHeatmapService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/calendar")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class CalendarController {
+    private static final Logger logger = LoggerFactory.getLogger(CalendarController.class);
+
+    @Autowired
+    private CalendarHeatmapService calendarHeatmapService;
+
+    /**
+     * เวลาว่างรายวันทั้งเดือน ของหมอหนึ่งคนหรือทั้งแผนก (Public API)
+     * GET /api/calendar/heatmap?doctorId=1&month=YYYY-MM
+     * GET /api/calendar/heatmap?specialtyId=1&month=YYYY-MM
+     */
+    @GetMapping("/heatmap")
+    public ResponseEntity<?> getHeatmap(
+            @RequestParam(required = false) Long doctorId,
+            @RequestParam(required = false) Long specialtyId,
+            @RequestParam String month) {
+        if ((doctorId == null) == (specialtyId == null)) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: Provide exactly one of doctorId or specialtyId"));
+        }
+
+        YearMonth yearMonth;
+        try {
+            yearMonth = YearMonth.parse(month);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: Invalid month format. Use YYYY-MM"));
+        }
+
+        try {
+            List<Map<String, Object>> days = doctorId != null
+                    ? calendarHeatmapService.getDoctorHeatmap(doctorId, yearMonth)
+                    : calendarHeatmapService.getSpecialtyHeatmap(specialtyId, yearMonth);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("scope", doctorId != null ? "doctor" : "specialty");
+            response.put("scopeId", doctorId != null ? doctorId : specialtyId);
+            response.put("month", yearMonth.toString());
+            response.put("days", days);
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            logger.error("Error building calendar heatmap: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to build heatmap: " + e.getMessage()));
+        }
+    }
+}
@@ -1,32 +1,38 @@
 package com.example.doctoralia.controller;
 
-import com.example.doctoralia.config.JwtUtils;
+import com.example.doctoralia.config.DoctoraPrincipal;
+import com.example.doctoralia.dto.DoctorDetailResponse;
+import com.example.doctoralia.dto.DoctorLoad;
+import com.example.doctoralia.dto.DoctorResponse;
+import com.example.doctoralia.dto.DoctorSearchResult;
 import com.example.doctoralia.dto.DoctorStats;
-import com.example.doctoralia.model.Appointment;
-import com.example.doctoralia.model.AppointmentStatus;
+import com.example.doctoralia.dto.DoctorSuggestion;
+import com.example.doctoralia.dto.DoctorSummaryResponse;
+import com.example.doctoralia.dto.MessageResponse;
 import com.example.doctoralia.model.Doctor;
 import com.example.doctoralia.model.Specialty;
 import com.example.doctoralia.repository.DoctorRepository;
 import com.example.doctoralia.repository.SpecialtyRepository;
-import com.example.doctoralia.service.AppointmentService;
-import com.example.doctoralia.service.AvailabilityService;
+import com.example.doctoralia.service.CatalogService;
+import com.example.doctoralia.service.DoctorLoadIndex;
+import com.example.doctoralia.service.DoctorSearchExecutor;
 import com.example.doctoralia.service.DoctorService;
+import com.example.doctoralia.service.DoctorSuggestIndex;
+import com.example.doctoralia.service.FreeSlotService;
 import com.example.doctoralia.service.SpecialtyService;
-import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.*;
-import java.util.Random;
 
 @RestController
 @RequestMapping("/api/doctors")
@@ -42,13 +48,19 @@ public class DoctorController {
     private SpecialtyService specialtyService;
 
     @Autowired
-    private AppointmentService appointmentService;
+    private DoctorLoadIndex doctorLoadIndex;
 
     @Autowired
-    private AvailabilityService availabilityService;
+    private FreeSlotService freeSlotService;
 
     @Autowired
-    private JwtUtils jwtUtils;
+    private CatalogService catalogService;
+
+    @Autowired
+    private DoctorSuggestIndex suggestIndex;
+
+    @Autowired
+    private DoctorSearchExecutor searchExecutor;
 
     /**
      * Get all active doctors (for general listing)
@@ -56,11 +68,13 @@ public class DoctorController {
     @GetMapping("/active")
     public ResponseEntity<?> getAllActiveDoctors() {
         try {
-            List<Doctor> doctors = doctorService.findByIsActiveTrue();
-
-            List<Map<String, Object>> doctorList = doctors.stream()
-                .map(this::convertToSimpleDoctorResponse)
-                .toList();
+            List<DoctorSummaryResponse> doctorList = catalogService.get().getActiveDoctors();
+            if (doctorList == null) {
+                // เกินงบหน่วยความจำของ snapshot - อ่านจาก database
+                doctorList = doctorService.findByIsActiveTrue().stream()
+                        .map(this::convertToSimpleDoctorResponse)
+                        .toList();
+            }
 
             Map<String, Object> response = new HashMap<>();
             response.put("doctors", doctorList);
@@ -79,11 +93,12 @@ public class DoctorController {
     @GetMapping("/by-specialty")
     public ResponseEntity<?> getDoctorsBySpecialty(@RequestParam String specialty) {
         try {
-            List<Doctor> doctors = doctorService.findBySpecialtyName(specialty);
-
-            List<Map<String, Object>> doctorList = doctors.stream()
-                .map(this::convertToSimpleDoctorResponse)
-                .toList();
+            List<DoctorSummaryResponse> doctorList = catalogService.get().getDoctorsBySpecialty(specialty);
+            if (doctorList == null) {
+                doctorList = doctorService.findBySpecialtyName(specialty).stream()
+                        .map(this::convertToSimpleDoctorResponse)
+                        .toList();
+            }
 
             Map<String, Object> response = new HashMap<>();
             response.put("doctors", doctorList);
@@ -99,7 +114,8 @@ public class DoctorController {
 
 
     /**
-     * Improved search endpoint with better error handling
+     * Search doctors by name, specialty and fee range (page of 10 by default).
+     * slice=true skips the total count and only reports hasNext
      */
     @GetMapping
     public ResponseEntity<?> searchDoctors(
@@ -110,63 +126,43 @@ public class DoctorController {
             @RequestParam(required = false) Long specialty,
             @RequestParam(required = false) BigDecimal minFee,
             @RequestParam(required = false) BigDecimal maxFee,
-            @RequestParam(required = false, defaultValue = "false") boolean includeInactive) {
+            @RequestParam(required = false, defaultValue = "false") boolean includeInactive,
+            @RequestParam(required = false, defaultValue = "false") boolean slice) {
 
         try {
             logger.info("Searching doctors with params: page={}, size={}, name={}, specialty={}, minFee={}, maxFee={}",
                     page, size, name, specialty, minFee, maxFee);
 
-            Page<Doctor> doctors;
+            Map<String, Object> response = new HashMap<>();
 
             // If we have search/filter parameters, use advanced search
             if (name != null || specialty != null || minFee != null || maxFee != null) {
-                try {
-                    if (includeInactive) {
-                        doctors = doctorService.searchDoctorsIncludingInactive(name, specialty, minFee, maxFee, page, size);
-                    } else {
-                        doctors = doctorService.searchDoctors(name, specialty, minFee, maxFee, page, size);
-                    }
-                } catch (Exception e) {
-                    logger.warn("Advanced search failed, falling back to simpler methods: {}", e.getMessage());
-
-                    // Fallback: Try individual filters
-                    if (specialty != null && name == null) {
-                        // Specialty only
-                        doctors = doctorService.findBySpecialty(specialty, page, size);
-                    } else if (name != null && specialty == null) {
-                        // Name only - convert List to Page
-                        List<Doctor> doctorList = doctorService.findByName(name);
-                        int start = page * size;
-                        int end = Math.min(start + size, doctorList.size());
-                        List<Doctor> pageContent = doctorList.subList(start, end);
-                        doctors = new PageImpl<>(pageContent, PageRequest.of(page, size), doctorList.size());
-                    } else {
-                        // Get all doctors
-                        if (includeInactive) {
-                            doctors = doctorService.getAllDoctorsIncludingInactive(page, size, sort);
-                        } else {
-                            doctors = doctorService.getAllDoctors(page, size, sort);
-                        }
-                    }
+                DoctorSearchResult result = searchExecutor.search(name, specialty, minFee, maxFee,
+                        includeInactive, page, size, !slice);
+                response.put("doctors", result.doctors());
+                response.put("currentPage", result.page());
+                if (result.isCounted()) {
+                    response.put("totalItems", result.totalItems());
+                    response.put("totalPages", result.totalPages());
                 }
+                response.put("hasNext", result.hasNext());
+                response.put("hasPrevious", result.hasPrevious());
             } else {
                 // No filters, get all doctors
+                Page<Doctor> doctors;
                 if (includeInactive) {
                     doctors = doctorService.getAllDoctorsIncludingInactive(page, size, sort);
                 } else {
                     doctors = doctorService.getAllDoctors(page, size, sort);
                 }
+                response.put("doctors", doctors.getContent().stream().map(this::convertToDoctorResponse).toList());
+                response.put("currentPage", doctors.getNumber());
+                response.put("totalItems", doctors.getTotalElements());
+                response.put("totalPages", doctors.getTotalPages());
+                response.put("hasNext", doctors.hasNext());
+                response.put("hasPrevious", doctors.hasPrevious());
             }
 
-            // Convert to response format
-            Map<String, Object> response = new HashMap<>();
-            response.put("doctors", doctors.getContent().stream().map(this::convertToDoctorResponse).toList());
-            response.put("currentPage", doctors.getNumber());
-            response.put("totalItems", doctors.getTotalElements());
-            response.put("totalPages", doctors.getTotalPages());
-            response.put("hasNext", doctors.hasNext());
-            response.put("hasPrevious", doctors.hasPrevious());
-
             return ResponseEntity.ok(response);
 
         } catch (Exception e) {
@@ -191,6 +187,12 @@ public class DoctorController {
     @GetMapping("/{id}")
     public ResponseEntity<?> getDoctorById(@PathVariable Long id) {
         try {
+            // active doctors come from the catalog snapshot; inactive/unknown ids fall through to the database
+            DoctorDetailResponse cached = catalogService.get().getDoctorDetail(id);
+            if (cached != null) {
+                return ResponseEntity.ok(cached);
+            }
+
             Optional<Doctor> doctorOpt = doctorService.findById(id);
 
             if (doctorOpt.isPresent()) {
@@ -215,6 +217,56 @@ public class DoctorController {
         }
     }
 
+    /**
+     * ช่วงเวลาว่างของหมอ (Public API)
+     * GET /api/doctors/{id}/free-slots?from=YYYY-MM-DD&to=YYYY-MM-DD&slotMinutes=30
+     */
+    @GetMapping("/{id}/free-slots")
+    public ResponseEntity<?> getFreeSlots(
+            @PathVariable Long id,
+            @RequestParam String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(defaultValue = "30") int slotMinutes) {
+        try {
+            LocalDate fromDate;
+            LocalDate toDate;
+            try {
+                fromDate = LocalDate.parse(from);
+                toDate = to != null && !to.isEmpty() ? LocalDate.parse(to) : fromDate;
+            } catch (DateTimeParseException e) {
+                return ResponseEntity.badRequest()
+                        .body(new MessageResponse("Error: Invalid date format. Use YYYY-MM-DD"));
+            }
+
+            Optional<Doctor> doctorOpt = doctorService.findById(id);
+            if (doctorOpt.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            if (!doctorOpt.get().getIsActive()) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "Doctor is not available"));
+            }
+
+            List<Map<String, Object>> intervals = freeSlotService.getFreeIntervals(id, fromDate, toDate, slotMinutes);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("doctorId", id);
+            response.put("from", fromDate.toString());
+            response.put("to", toDate.toString());
+            response.put("slotMinutes", slotMinutes);
+            response.put("freeIntervals", intervals);
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: " + e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error getting free slots for doctor {}: ", id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to get free slots: " + e.getMessage()));
+        }
+    }
+
     //ดึงหมอตาม specialty (Public API) - เฉพาะ active doctors
     @GetMapping("/specialty/{specialtyId}")
     public ResponseEntity<?> getDoctorsBySpecialty(
@@ -256,7 +308,7 @@ public class DoctorController {
             // Only show active doctors for public search
             List<Doctor> doctors = doctorService.findByName(name);
 
-            List<Map<String, Object>> response = doctors.stream()
+            List<DoctorResponse> response = doctors.stream()
                     .map(this::convertToDoctorResponse)
                     .toList();
 
@@ -269,6 +321,31 @@ public class DoctorController {
         }
     }
 
+    //คำแนะนำระหว่างพิมพ์ (public API) - หมอ active และแผนก จาก index ในหน่วยความจำ
+    @GetMapping("/suggest")
+    public ResponseEntity<?> suggestDoctors(@RequestParam String q,
+                                            @RequestParam(defaultValue = "8") int limit) {
+        try {
+            int k = Math.max(1, Math.min(limit, DoctorSuggestIndex.MAX_LIMIT));
+            List<DoctorSuggestion> suggestions = suggestIndex.suggest(q, k);
+            if (suggestions == null) {
+                // index เกินงบหน่วยความจำ - ค้นจาก database
+                suggestions = doctorService.findByName(q).stream()
+                        .limit(k)
+                        .map(doctor -> DoctorSuggestion.doctor(doctor.getId(), doctor.getDoctorName(),
+                                doctor.getSpecialtyName()))
+                        .toList();
+            }
+
+            return ResponseEntity.ok(Map.of("suggestions", suggestions));
+
+        } catch (Exception e) {
+            logger.error("Error suggesting doctors: ", e);
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Error suggesting doctors: " + e.getMessage()));
+        }
+    }
+
     //ดึงสถิติหมอ (Public API)
     @GetMapping("/stats")
     public ResponseEntity<?> getDoctorStats() {
@@ -288,18 +365,19 @@ public class DoctorController {
      */
     @GetMapping("/profile/my")
     @PreAuthorize("hasRole('DOCTOR')")
-    public ResponseEntity<?> getMyProfile(HttpServletRequest request) {
+    public ResponseEntity<?> getMyProfile() {
         try {
-            String jwt = parseJwt(request);
-            if (jwt == null || !jwtUtils.validateJwtToken(jwt)) {
+            DoctoraPrincipal principal = DoctoraPrincipal.current();
+            if (principal == null) {
                 return ResponseEntity.badRequest()
                         .body(Map.of("error", "Invalid token"));
             }
 
-            Long doctorUserId = jwtUtils.getUserIdFromJwtToken(jwt);
+            Long doctorUserId = principal.getUserId();
             logger.info("Getting profile for doctor user ID: {}", doctorUserId);
 
-            Optional<Doctor> doctorOpt = doctorService.findByUserId(doctorUserId);
+            Optional<Doctor> doctorOpt = doctorService.resolveDoctorId(doctorUserId)
+                    .flatMap(doctorService::findById);
             if (doctorOpt.isEmpty()) {
                 return ResponseEntity.badRequest()
                         .body(Map.of("error", "Doctor profile not found"));
@@ -321,25 +399,24 @@ public class DoctorController {
     @PutMapping("/profile/my")
     @PreAuthorize("hasRole('DOCTOR')")
     public ResponseEntity<?> updateMyProfile(
-            @RequestBody Map<String, Object> updateRequest,
-            HttpServletRequest request) {
+            @RequestBody Map<String, Object> updateRequest) {
         try {
-            String jwt = parseJwt(request);
-            if (jwt == null || !jwtUtils.validateJwtToken(jwt)) {
+            DoctoraPrincipal principal = DoctoraPrincipal.current();
+            if (principal == null) {
                 return ResponseEntity.badRequest()
                         .body(Map.of("error", "Invalid token"));
             }
 
-            Long doctorUserId = jwtUtils.getUserIdFromJwtToken(jwt);
+            Long doctorUserId = principal.getUserId();
             logger.info("Updating profile for doctor user ID: {}", doctorUserId);
 
-            Optional<Doctor> doctorOpt = doctorService.findByUserId(doctorUserId);
-            if (doctorOpt.isEmpty()) {
+            Optional<Long> doctorIdOpt = doctorService.resolveDoctorId(doctorUserId);
+            if (doctorIdOpt.isEmpty()) {
                 return ResponseEntity.badRequest()
                         .body(Map.of("error", "Doctor profile not found"));
             }
 
-            Long doctorId = doctorOpt.get().getId();
+            Long doctorId = doctorIdOpt.get();
 
             // Extract update fields
             String bio = (String) updateRequest.get("bio");
@@ -365,22 +442,8 @@ public class DoctorController {
         }
     }
 
-    private String parseJwt(HttpServletRequest request) {
-        String headerAuth = request.getHeader("Authorization");
-        if (headerAuth != null && headerAuth.startsWith("Bearer ")) {
-            return headerAuth.substring(7);
-        }
-        return null;
-    }
-
-    private Map<String, Object> convertToDoctorDetailResponse(Doctor doctor) {
-        Map<String, Object> response = convertToDoctorResponse(doctor);
-        response.put("bio", doctor.getBio()); // เอา bio เต็ม
-        response.put("licenseNumber", doctor.getLicenseNumber());
-        response.put("phone", doctor.getUser().getPhone());
-        response.put("createdAt", doctor.getCreatedAt());
-
-        return response;
+    private DoctorDetailResponse convertToDoctorDetailResponse(Doctor doctor) {
+        return DoctorDetailResponse.from(doctor);
     }
 
     private Map<String, Object> convertToSpecialtyResponse(Specialty specialty) {
@@ -393,29 +456,8 @@ public class DoctorController {
     }
 
     // Helper method for converting Doctor to response
-    private Map<String, Object> convertToDoctorResponse(Doctor doctor) {
-        Map<String, Object> response = new HashMap<>();
-        response.put("id", doctor.getId());
-        response.put("doctorName", doctor.getDoctorName());
-        response.put("email", doctor.getUser().getEmail());
-
-        // Specialty info
-        Map<String, Object> specialty = new HashMap<>();
-        specialty.put("id", doctor.getSpecialty().getId());
-        specialty.put("name", doctor.getSpecialty().getName());
-        response.put("specialty", specialty);
-
-        response.put("licenseNumber", doctor.getLicenseNumber());
-        response.put("experienceYears", doctor.getExperienceYears());
-        response.put("consultationFee", doctor.getConsultationFee());
-        response.put("roomNumber", doctor.getRoomNumber());
-        response.put("isActive", doctor.getIsActive());
-        response.put("bio", doctor.getBio() != null ?
-                (doctor.getBio().length() > 100 ?
-                        doctor.getBio().substring(0, 100) + "..." :
-                        doctor.getBio()) : null);
-
-        return response;
+    private DoctorResponse convertToDoctorResponse(Doctor doctor) {
+        return DoctorResponse.from(doctor);
     }
 
     /**
@@ -430,23 +472,19 @@ public class DoctorController {
         try {
             logger.info("🎯 Smart select doctor for specialty: {} on date: {}", specialty, date);
 
-            // Get doctors by specialty
-            List<Doctor> doctors = doctorService.findBySpecialtyName(specialty);
-
-            if (doctors.isEmpty()) {
-                logger.warn("⚠️ No doctors found for specialty: {}", specialty);
-                Map<String, Object> response = new HashMap<>();
-                response.put("message", "No doctors found for this specialty");
-                response.put("doctor", null);
-                return ResponseEntity.ok(response);
+            boolean hasDate = date != null && !date.isEmpty();
+            LocalDate selectedDate;
+            try {
+                selectedDate = hasDate ? LocalDate.parse(date) : LocalDate.now();
+            } catch (DateTimeParseException e) {
+                return ResponseEntity.badRequest()
+                        .body(new MessageResponse("Error: Invalid date format. Use YYYY-MM-DD"));
             }
 
-            // Filter active doctors only
-            doctors = doctors.stream()
-                    .filter(Doctor::getIsActive)
-                    .toList();
+            // หมอ active ทุกคนในแผนก + เวลาออกตรวจ + ภาระงานในวันนั้น (จาก cache ในหน่วยความจำ)
+            List<DoctorLoad> loads = doctorLoadIndex.getLoads(specialty, selectedDate);
 
-            if (doctors.isEmpty()) {
+            if (loads.isEmpty()) {
                 logger.warn("⚠️ No active doctors found for specialty: {}", specialty);
                 Map<String, Object> response = new HashMap<>();
                 response.put("message", "No active doctors available for this specialty");
@@ -454,106 +492,46 @@ public class DoctorController {
                 return ResponseEntity.ok(response);
             }
 
-            logger.info("✅ Found {} active doctors", doctors.size());
-
-            // 🔍 Filter doctors by availability on the selected date
-            if (date != null && !date.isEmpty()) {
-                logger.info("🔍 Filtering doctors by availability on date: {}", date);
-
-                List<Doctor> doctorsWithAvailability = doctors.stream()
-                    .filter(doctor -> {
-                        boolean hasAvailability = availabilityService.hasDoctorAvailabilityOnDate(
-                            doctor.getId(),
-                            date
-                        );
-                        if (!hasAvailability) {
-                            logger.info("  ⊘ Doctor {} has NO availability on {}",
-                                doctor.getDoctorName(), date);
-                        }
-                        return hasAvailability;
-                    })
-                    .toList();
+            logger.info("✅ Found {} active doctors", loads.size());
 
-                if (doctorsWithAvailability.isEmpty()) {
+            DoctorLoad selected;
+            if (hasDate) {
+                // 🎯 Smart selection logic: เลือกแพทย์ที่มีนาทีที่ถูกจองน้อยที่สุดในวันนั้น
+                Optional<DoctorLoad> leastLoaded = doctorLoadIndex.leastLoaded(specialty, selectedDate);
+                if (leastLoaded.isEmpty()) {
                     logger.warn("⚠️ No doctors available on {} for specialty: {}", date, specialty);
                     Map<String, Object> response = new HashMap<>();
                     response.put("message", "No doctors have available time slots on this date. Please select another date.");
                     response.put("doctor", null);
-                    response.put("totalDoctorsInSpecialty", doctors.size());
+                    response.put("totalDoctorsInSpecialty", loads.size());
                     response.put("doctorsAvailableOnDate", 0);
                     return ResponseEntity.ok(response);
                 }
-
-                doctors = doctorsWithAvailability;
-                logger.info("✅ {} doctors have availability on {}", doctors.size(), date);
+                selected = leastLoaded.get();
+            } else {
+                // กรณีไม่มี date: ใช้ภาระงานของวันนี้ ถ้าวันนี้ไม่มีใครออกตรวจก็เลือกคนที่งานน้อยที่สุด
+                logger.info("📊 No date provided, using today's load");
+                selected = doctorLoadIndex.leastLoaded(specialty, selectedDate)
+                        .orElseGet(() -> loads.stream()
+                                .min(Comparator.comparingInt(DoctorLoad::getBookedMinutes))
+                                .get());
             }
 
-            // 🎯 Smart selection logic: เลือกแพทย์ที่มีคิวน้อยที่สุด
-            Doctor selectedDoctor = null;
-
-            if (date != null && !date.isEmpty()) {
-                // กรณีมี date: เช็คคิวของแต่ละแพทย์ในวันนั้น
-                logger.info("📊 Checking queue for each doctor on date: {}", date);
-
-                Map<Doctor, Integer> doctorQueueMap = new HashMap<>();
-
-                for (Doctor doctor : doctors) {
-                    try {
-                        List<Appointment> appointments = appointmentService.getAppointmentsByDoctorAndDate(
-                            doctor.getId(),
-                            date
-                        );
-
-                        // นับเฉพาะ PENDING และ CONFIRMED
-                        long queueCount = appointments.stream()
-                            .filter(apt -> apt.getStatus() == AppointmentStatus.PENDING ||
-                                          apt.getStatus() == AppointmentStatus.CONFIRMED)
-                            .count();
-
-                        doctorQueueMap.put(doctor, (int) queueCount);
-                        logger.info("  - {} (ID: {}): {} appointments",
-                            doctor.getDoctorName(), doctor.getId(), queueCount);
-
-                    } catch (Exception e) {
-                        logger.warn("  - Error checking queue for doctor {}: {}",
-                            doctor.getDoctorName(), e.getMessage());
-                        doctorQueueMap.put(doctor, 0);
-                    }
-                }
-
-                // หาแพทย์ที่มีคิวน้อยที่สุด
-                int minQueue = doctorQueueMap.values().stream()
-                    .min(Integer::compare)
-                    .orElse(0);
-
-                // กรณีมีหลายคนคิวเท่ากัน -> สุ่มเลือก
-                List<Doctor> doctorsWithMinQueue = doctorQueueMap.entrySet().stream()
-                    .filter(entry -> entry.getValue() == minQueue)
-                    .map(Map.Entry::getKey)
-                    .toList();
-
-                logger.info("📌 {} doctors have minimum queue ({} appointments)",
-                    doctorsWithMinQueue.size(), minQueue);
-
-                Random random = new Random();
-                selectedDoctor = doctorsWithMinQueue.get(random.nextInt(doctorsWithMinQueue.size()));
-
-                logger.info("🎯 Selected doctor: {} (ID: {}) with {} appointments on {}",
-                    selectedDoctor.getDoctorName(), selectedDoctor.getId(), minQueue, date);
-
-            } else {
-                // กรณีไม่มี date: สุ่มเลือก
-                logger.info("🎲 No date provided, selecting randomly");
-                Random random = new Random();
-                selectedDoctor = doctors.get(random.nextInt(doctors.size()));
-                logger.info("🎯 Selected doctor: {} (ID: {})",
-                    selectedDoctor.getDoctorName(), selectedDoctor.getId());
+            Optional<Doctor> selectedDoctor = doctorService.findById(selected.getDoctorId());
+            if (selectedDoctor.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(Map.of("error", "Failed to select doctor: doctor no longer exists"));
             }
 
+            logger.info("🎯 Selected doctor: {} (ID: {}) with {} appointments on {}",
+                    selectedDoctor.get().getDoctorName(), selected.getDoctorId(), selected.getQueueCount(), selectedDate);
+
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Doctor selected successfully");
-            response.put("doctor", convertToSimpleDoctorResponse(selectedDoctor));
-            response.put("totalDoctorsInSpecialty", doctors.size());
+            response.put("doctor", convertToSimpleDoctorResponse(selectedDoctor.get()));
+            response.put("totalDoctorsInSpecialty", hasDate
+                    ? loads.stream().filter(DoctorLoad::isAvailable).count()
+                    : loads.size());
 
             return ResponseEntity.ok(response);
 
@@ -565,28 +543,7 @@ public class DoctorController {
     }
 
     // Helper method for simple doctor response (for lists)
-    private Map<String, Object> convertToSimpleDoctorResponse(Doctor doctor) {
-        Map<String, Object> response = new HashMap<>();
-        response.put("id", doctor.getId());
-        response.put("doctorName", doctor.getDoctorName());
-        response.put("email", doctor.getUser().getEmail());
-
-        // Specialty info
-        Map<String, Object> specialty = new HashMap<>();
-        specialty.put("id", doctor.getSpecialty().getId());
-        specialty.put("name", doctor.getSpecialty().getName());
-        response.put("specialty", specialty);
-
-        response.put("consultationFee", doctor.getConsultationFee());
-        response.put("experienceYears", doctor.getExperienceYears());
-        response.put("roomNumber", doctor.getRoomNumber());
-
-        // Short bio for lists
-        response.put("bio", doctor.getBio() != null ?
-                (doctor.getBio().length() > 50 ?
-                        doctor.getBio().substring(0, 50) + "..." :
-                        doctor.getBio()) : null);
-
-        return response;
+    private DoctorSummaryResponse convertToSimpleDoctorResponse(Doctor doctor) {
+        return DoctorSummaryResponse.from(doctor);
     }
-}
\ No newline at end of file
+}
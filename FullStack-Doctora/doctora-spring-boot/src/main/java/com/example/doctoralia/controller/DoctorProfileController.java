@@ -1,6 +1,6 @@
 package com.example.doctoralia.controller;
 
-import com.example.doctoralia.config.JwtUtils;
+import com.example.doctoralia.config.DoctoraPrincipal;
 import com.example.doctoralia.dto.MessageResponse;
 import com.example.doctoralia.dto.UpdateDoctorProfileRequest;
 import com.example.doctoralia.model.Doctor;
@@ -8,7 +8,6 @@ import com.example.doctoralia.model.User;
 import com.example.doctoralia.model.UserRole;
 import com.example.doctoralia.service.DoctorService;
 import com.example.doctoralia.service.UserService;
-import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,22 +32,19 @@ public class DoctorProfileController {
     @Autowired
     private UserService userService;
 
-    @Autowired
-    private JwtUtils jwtUtils;
-
     //หมอดูโปรไฟล์ตัวเอง
     @GetMapping
     @PreAuthorize("hasRole('DOCTOR')")
-    public ResponseEntity<?> getMyProfile(HttpServletRequest request) {
+    public ResponseEntity<?> getMyProfile() {
         try{
-            String jwt = parseJwt(request);
-            if (jwt == null || !jwtUtils.validateJwtToken(jwt)) {
+            DoctoraPrincipal principal = DoctoraPrincipal.current();
+            if (principal == null) {
                 return ResponseEntity.badRequest()
                         .body(new MessageResponse("Invalid token"));
             }
 
-            Long userId = jwtUtils.getUserIdFromJwtToken(jwt);
-            String role = jwtUtils.getRoleFromJwtToken(jwt);
+            Long userId = principal.getUserId();
+            String role = principal.getRole();
 
             //เช็ค role
             if (!UserRole.DOCTOR.name().equals(role)) {
@@ -56,8 +52,9 @@ public class DoctorProfileController {
                         .body(new MessageResponse("Access denied. Doctor role required."));
             }
 
-            //หา doctor profile
-            Optional<Doctor> doctorOpt = doctorService.findByUserId(userId);
+            //หา doctor profile (id จาก token แล้วโหลดด้วย primary key)
+            Optional<Doctor> doctorOpt = doctorService.resolveDoctorId(userId)
+                    .flatMap(doctorService::findById);
             if (doctorOpt.isPresent()) {
                 Doctor doctor = doctorOpt.get();
                 return ResponseEntity.ok(convertToDoctorProfileResponse(doctor));
@@ -76,18 +73,17 @@ public class DoctorProfileController {
     @PutMapping
     @PreAuthorize("hasRole('DOCTOR')")
     public ResponseEntity<?> updateMyProfile
-            (@Valid @RequestBody UpdateDoctorProfileRequest request,
-             HttpServletRequest httpRequest){
+            (@Valid @RequestBody UpdateDoctorProfileRequest request){
 
         try {
-            String jwt = parseJwt(httpRequest);
-            if (jwt == null || !jwtUtils.validateJwtToken(jwt)) {
+            DoctoraPrincipal principal = DoctoraPrincipal.current();
+            if (principal == null) {
                 return ResponseEntity.badRequest()
                         .body(new MessageResponse("Invalid token"));
             }
 
-            Long userId = jwtUtils.getUserIdFromJwtToken(jwt);
-            String role = jwtUtils.getRoleFromJwtToken(jwt);
+            Long userId = principal.getUserId();
+            String role = principal.getRole();
 
             //ตรวจสอบ role
             if (!UserRole.DOCTOR.name().equals(role)) {
@@ -96,7 +92,8 @@ public class DoctorProfileController {
             }
 
             //หา doctor profile
-            Optional<Doctor> doctorOpt = doctorService.findByUserId(userId);
+            Optional<Doctor> doctorOpt = doctorService.resolveDoctorId(userId)
+                    .flatMap(doctorService::findById);
             //เช็คว่ามีโปรไฟล์มั้ย
             if (doctorOpt.isEmpty()) {
                 return ResponseEntity.badRequest()
@@ -126,7 +123,7 @@ public class DoctorProfileController {
             logger.info("Doctor profile updated: {}", doctor.getLicenseNumber());
 
             // Reload doctor profile to get updated data
-            Optional<Doctor> updatedDoctorOpt = doctorService.findByUserId(userId);
+            Optional<Doctor> updatedDoctorOpt = doctorService.findById(doctor.getId());
             if (updatedDoctorOpt.isPresent()) {
                 Map<String, Object> response = new HashMap<>();
                 response.put("message", "Profile updated successfully!");
@@ -142,16 +139,6 @@ public class DoctorProfileController {
         }
     }
 
-    //JWT Token เพื่อยืนยันตัวตน ดึงจาก ฤีะ้นพรผฟะรนื ้ำฟกำพ
-    private String parseJwt(HttpServletRequest request) {
-        String token = request.getHeader("Authorization");
-
-        if (token != null && token.startsWith("Bearer ")) {
-            return token.substring(7);
-        }
-        return null;
-    }
-
     //แปลง Doctor เป็น response format
     private Map<String, Object> convertToDoctorProfileResponse(Doctor doctor) {
         Map<String, Object> response = new HashMap<>();
@@ -1,8 +1,9 @@
 package com.example.doctoralia.controller;
 
-import com.example.doctoralia.dto.SpecialtyWithDoctorCount;
 import com.example.doctoralia.model.Specialty;
 import com.example.doctoralia.repository.SpecialtyRepository;
+import com.example.doctoralia.service.CatalogService;
+import com.example.doctoralia.service.CatalogSnapshot;
 import com.example.doctoralia.service.SpecialtyService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,16 +22,14 @@ public class SpecialtyController {
     @Autowired
     private SpecialtyService specialtyService;
 
-    //ดึงแผนกทั้งหมด
+    @Autowired
+    private CatalogService catalogService;
+
+    //ดึงแผนกทั้งหมด (จาก catalog snapshot ไม่แตะ database)
     @GetMapping
     public ResponseEntity<?> getAllSpecialties() {
         try {
-            List<Specialty> specialties = specialtyService.getAllSpecialties();
-
-            List<Map<String, Object>> response = specialties.stream()
-                    .map(this::convertToSpecialtyResponse)
-                    .toList();
-            return ResponseEntity.ok(Map.of("specialties", response));
+            return ResponseEntity.ok(Map.of("specialties", catalogService.get().getSpecialties()));
         } catch (Exception e) {
             logger.error("Error getting specialties with doctors: ", e);
             return ResponseEntity.badRequest()
@@ -42,18 +41,7 @@ public class SpecialtyController {
     @GetMapping("/with-count")
     public ResponseEntity<?> getSpecialtiesWithDoctorCount() {
         try {
-            List<SpecialtyWithDoctorCount> specialties =
-                    specialtyService.getSpecialtiesWithDoctorCount();
-
-            List<Map<String, Object>> response = specialties.stream()
-                    .map(item -> {
-                        Map<String, Object> specialty = convertToSpecialtyResponse(item.getSpecialty());
-                        specialty.put("doctorCount", item.getDoctorCount());
-                        return specialty;
-                    })
-                    .toList();
-
-            return ResponseEntity.ok(Map.of("specialties", response));
+            return ResponseEntity.ok(Map.of("specialties", catalogService.get().getSpecialtiesWithCount()));
 
         } catch (Exception e) {
             logger.error("Error getting specialties with doctor count: ", e);
@@ -66,17 +54,10 @@ public class SpecialtyController {
     @GetMapping("/{id}")
     public ResponseEntity<?> getSpecialtyById(@PathVariable Long id) {
         try {
-            Optional<Specialty> specialtyOpt = specialtyService.findById(id);
-
-            if (specialtyOpt.isPresent()) {
-                Specialty specialty = specialtyOpt.get();
-                long doctorCount = specialtyService.countDoctorsInSpecialty(id);
-
-                Map<String, Object> response = convertToSpecialtyResponse(specialty);
-                response.put("doctorCount", doctorCount);
-
-                return ResponseEntity.ok(response);
+            Map<String, Object> specialty = catalogService.get().getSpecialty(id);
 
+            if (specialty != null) {
+                return ResponseEntity.ok(specialty);
             } else {
                 return ResponseEntity.notFound().build();
             }
@@ -109,13 +90,7 @@ public class SpecialtyController {
 
     // Helper method สำหรับแปลง Entity เป็น Response
     private Map<String, Object> convertToSpecialtyResponse(Specialty specialty) {
-        Map<String, Object> response = new HashMap<>();
-        response.put("id", specialty.getId());
-        response.put("name", specialty.getName());
-        response.put("description", specialty.getDescription());
-        response.put("createdAt", specialty.getCreatedAt());
-
-        return response;
+        return CatalogSnapshot.specialty(specialty);
     }
 
 }
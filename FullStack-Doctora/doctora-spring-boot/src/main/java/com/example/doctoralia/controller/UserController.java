@@ -1,11 +1,10 @@
 package com.example.doctoralia.controller;
 
-import com.example.doctoralia.config.JwtUtils;
+import com.example.doctoralia.config.DoctoraPrincipal;
 import com.example.doctoralia.dto.MessageResponse;
 import com.example.doctoralia.dto.UpdateProfileRequest;
 import com.example.doctoralia.model.User;
 import com.example.doctoralia.service.UserService;
-import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,19 +28,16 @@ public class UserController {
     @Autowired
     private UserService userService;
 
-    @Autowired
-    private JwtUtils jwtUtils;
-
     /**
      * ดึงข้อมูลโปรไฟล์ตัวเอง
      */
     @GetMapping("/me")
-    public ResponseEntity<?> getCurrentUser(HttpServletRequest request) {
+    public ResponseEntity<?> getCurrentUser() {
         try{
-            String jwt = parseJwt(request);
+            DoctoraPrincipal principal = DoctoraPrincipal.current();
 
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String email = jwtUtils.getEmailFromJwtToken(jwt);
+            if (principal != null) {
+                String email = principal.getEmail();
 
                 Optional<User> userOpt = userService.findByEmail(email);
 
@@ -80,14 +76,13 @@ public class UserController {
      */
     @PutMapping("/me")
     public ResponseEntity<?> updateCurrentUser(
-            @RequestBody UpdateProfileRequest request,
-            HttpServletRequest httpRequest) {
+            @RequestBody UpdateProfileRequest request) {
         try {
-            // ดึง JWT Token จาก Authorization header
-            String jwt = parseJwt(httpRequest);
+            // ผู้ใช้ปัจจุบันจาก SecurityContext (filter ตรวจ token แล้ว)
+            DoctoraPrincipal principal = DoctoraPrincipal.current();
 
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                Long userId = jwtUtils.getUserIdFromJwtToken(jwt);
+            if (principal != null) {
+                Long userId = principal.getUserId();
 
                 // อัพเดทข้อมูล
                 User updatedUser = userService.updateUser(
@@ -113,32 +108,20 @@ public class UserController {
         }
     }
 
-    /**
-     * ดึง JWT Token จาก Authorization header
-     */
-    private  String parseJwt(HttpServletRequest request){
-        String headerAuth = request.getHeader("Authorization");
-        if (headerAuth != null && headerAuth.startsWith("Bearer ")) {
-            return headerAuth.substring(7);
-        }
-
-        return null;
-    }
-
     /**
      * Get all users for admin (Admin only)
      */
     @GetMapping("/all")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<?> getAllUsersForAdmin(HttpServletRequest request) {
+    public ResponseEntity<?> getAllUsersForAdmin() {
         try {
-            String jwt = parseJwt(request);
-            if (jwt == null || !jwtUtils.validateJwtToken(jwt)) {
+            DoctoraPrincipal principal = DoctoraPrincipal.current();
+            if (principal == null) {
                 return ResponseEntity.badRequest()
                         .body(new MessageResponse("Invalid token"));
             }
 
-            String role = jwtUtils.getRoleFromJwtToken(jwt);
+            String role = principal.getRole();
             if (!"ADMIN".equals(role)) {
                 return ResponseEntity.badRequest()
                         .body(new MessageResponse("Access denied. Admin role required."));
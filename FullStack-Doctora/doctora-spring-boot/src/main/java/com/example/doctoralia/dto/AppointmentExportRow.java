@@ -0,0 +1,41 @@
+package com.example.doctoralia.dto;
+
+import com.example.doctoralia.model.AppointmentStatus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One appointment with its patient booking info (null when booked without it), as exported
+ * for admin reporting. Built by a JPQL constructor expression, so streaming rows never puts
+ * entities in the persistence context.
+ */
+public record AppointmentExportRow(
+        Long appointmentId,
+        LocalDateTime appointmentDatetime,
+        Integer durationMinutes,
+        AppointmentStatus status,
+        Long doctorId,
+        String doctorFirstName,
+        String doctorLastName,
+        String specialtyName,
+        Long patientId,
+        String patientEmail,
+        String patientFirstName,
+        String patientLastName,
+        String notes,
+        String doctorNotes,
+        LocalDateTime createdAt,
+        String queueNumber,
+        String bookingPrefix,
+        String bookingFirstName,
+        String bookingLastName,
+        String bookingGender,
+        LocalDate bookingDateOfBirth,
+        String bookingNationality,
+        String bookingCitizenId,
+        String bookingPhone,
+        String bookingEmail,
+        String symptoms,
+        String bookingType) {
+}
@@ -0,0 +1,65 @@
+package com.example.doctoralia.dto;
+
+import com.example.doctoralia.model.Appointment;
+import com.example.doctoralia.model.AppointmentStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Appointment with its doctor and patient, as returned by the appointment endpoints.
+ *
+ * The list endpoints build it straight from a JPQL constructor expression (the flat
+ * constructor below), so no entities or intermediate maps are created per row.
+ */
+public record AppointmentResponse(
+        Long id,
+        DoctorRef doctor,
+        PatientRef patient,
+        LocalDateTime appointmentDatetime,
+        Integer durationMinutes,
+        AppointmentStatus status,
+        String notes,
+        String doctorNotes,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt) {
+
+    public record DoctorRef(Long id, String doctorName, SpecialtyRef specialty) {}
+
+    public record PatientRef(Long id, String email, String firstName, String lastName) {}
+
+    // row of AppointmentRepository.APPOINTMENT_RESPONSE
+    public AppointmentResponse(Long id,
+                               Long doctorId, String doctorFirstName, String doctorLastName,
+                               Long specialtyId, String specialtyName,
+                               Long patientId, String patientEmail, String patientFirstName, String patientLastName,
+                               LocalDateTime appointmentDatetime, Integer durationMinutes, AppointmentStatus status,
+                               String notes, String doctorNotes, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(id,
+                new DoctorRef(doctorId, fullName(doctorFirstName, doctorLastName), new SpecialtyRef(specialtyId, specialtyName)),
+                new PatientRef(patientId, patientEmail, patientFirstName, patientLastName),
+                appointmentDatetime, durationMinutes, status, notes, doctorNotes, createdAt, updatedAt);
+    }
+
+    public static AppointmentResponse from(Appointment appointment) {
+        return new AppointmentResponse(
+                appointment.getId(),
+                new DoctorRef(appointment.getDoctor().getId(), appointment.getDoctor().getDoctorName(),
+                        SpecialtyRef.from(appointment.getDoctor().getSpecialty())),
+                new PatientRef(appointment.getPatient().getId(), appointment.getPatient().getEmail(),
+                        appointment.getPatient().getFirstName(), appointment.getPatient().getLastName()),
+                appointment.getAppointmentDatetime(),
+                appointment.getDurationMinutes(),
+                appointment.getStatus(),
+                appointment.getNotes(),
+                appointment.getDoctorNotes(),
+                appointment.getCreatedAt(),
+                appointment.getUpdatedAt());
+    }
+
+    // same format as Doctor.getDoctorName()
+    private static String fullName(String firstName, String lastName) {
+        String first = firstName != null ? firstName : "";
+        String last = lastName != null ? lastName : "";
+        return (first + " " + last).trim();
+    }
+}
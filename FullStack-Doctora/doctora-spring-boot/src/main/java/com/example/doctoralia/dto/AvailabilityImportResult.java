@@ -0,0 +1,21 @@
+package com.example.doctoralia.dto;
+
+import java.util.List;
+
+/**
+ * ผลการ import ตารางเวลา: นับทุกแถว แต่เก็บ error ไว้แค่ชุดแรก (errorsTruncated บอกว่ามีมากกว่านั้น)
+ */
+public record AvailabilityImportResult(
+        long rowsRead,
+        long imported,
+        long failed,
+        int doctors,
+        long replaced,
+        boolean dryRun,
+        long elapsedMs,
+        List<RowError> errors,
+        boolean errorsTruncated
+) {
+    // row = เลขบรรทัดใน CSV (header คือบรรทัด 1) หรือลำดับ object ใน JSON array (เริ่มที่ 1)
+    public record RowError(long row, String error) {}
+}
@@ -0,0 +1,11 @@
+package com.example.doctoralia.dto;
+
+import java.time.LocalTime;
+
+/**
+ * One active weekly availability of an active doctor, with the doctor's specialty
+ * (projection used to build the weekly availability index).
+ */
+public record AvailabilityWindow(Long doctorId, Long specialtyId, Integer dayOfWeek,
+                                 LocalTime startTime, LocalTime endTime) {
+}
@@ -0,0 +1,25 @@
+package com.example.doctoralia.dto;
+
+import com.example.doctoralia.model.AppointmentStatus;
+
+import java.time.LocalDateTime;
+
+public class BookedSlot {
+    private Long appointmentId;
+    private LocalDateTime startTime;
+    private Integer durationMinutes;
+    private AppointmentStatus status;
+
+    public BookedSlot(Long appointmentId, LocalDateTime startTime, Integer durationMinutes, AppointmentStatus status) {
+        this.appointmentId = appointmentId;
+        this.startTime = startTime;
+        this.durationMinutes = durationMinutes;
+        this.status = status;
+    }
+
+    // Getters
+    public Long getAppointmentId() { return appointmentId; }
+    public LocalDateTime getStartTime() { return startTime; }
+    public Integer getDurationMinutes() { return durationMinutes; }
+    public AppointmentStatus getStatus() { return status; }
+}
@@ -0,0 +1,40 @@
+package com.example.doctoralia.dto;
+
+import com.example.doctoralia.model.Doctor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Doctor profile page (full bio, contact details).
+ */
+public record DoctorDetailResponse(
+        Long id,
+        String doctorName,
+        String email,
+        SpecialtyRef specialty,
+        String licenseNumber,
+        Integer experienceYears,
+        BigDecimal consultationFee,
+        String roomNumber,
+        Boolean isActive,
+        String bio,
+        String phone,
+        LocalDateTime createdAt) {
+
+    public static DoctorDetailResponse from(Doctor doctor) {
+        return new DoctorDetailResponse(
+                doctor.getId(),
+                doctor.getDoctorName(),
+                doctor.getUser().getEmail(),
+                SpecialtyRef.from(doctor.getSpecialty()),
+                doctor.getLicenseNumber(),
+                doctor.getExperienceYears(),
+                doctor.getConsultationFee(),
+                doctor.getRoomNumber(),
+                doctor.getIsActive(),
+                doctor.getBio(),
+                doctor.getUser().getPhone(),
+                doctor.getCreatedAt());
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.doctoralia.dto;
+
+/**
+ * ภาระงานของหมอหนึ่งคนในวันที่เลือก: จำนวนคิวและนาทีที่ถูกจอง (PENDING/CONFIRMED)
+ * และหมอมีตารางออกตรวจวันนั้นหรือไม่
+ */
+public class DoctorLoad {
+    private Long doctorId;
+    private boolean available;
+    private int queueCount;
+    private int bookedMinutes;
+
+    public DoctorLoad(Long doctorId, boolean available, int queueCount, int bookedMinutes) {
+        this.doctorId = doctorId;
+        this.available = available;
+        this.queueCount = queueCount;
+        this.bookedMinutes = bookedMinutes;
+    }
+
+    public Long getDoctorId() { return doctorId; }
+    public boolean isAvailable() { return available; }
+    public int getQueueCount() { return queueCount; }
+    public int getBookedMinutes() { return bookedMinutes; }
+}
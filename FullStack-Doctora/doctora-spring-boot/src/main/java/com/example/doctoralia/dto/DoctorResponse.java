@@ -0,0 +1,42 @@
+package com.example.doctoralia.dto;
+
+import com.example.doctoralia.model.Doctor;
+
+import java.math.BigDecimal;
+
+/**
+ * Doctor for paged listings and search (bio cut to 100 characters).
+ */
+public record DoctorResponse(
+        Long id,
+        String doctorName,
+        String email,
+        SpecialtyRef specialty,
+        String licenseNumber,
+        Integer experienceYears,
+        BigDecimal consultationFee,
+        String roomNumber,
+        Boolean isActive,
+        String bio) {
+
+    public static DoctorResponse from(Doctor doctor) {
+        return new DoctorResponse(
+                doctor.getId(),
+                doctor.getDoctorName(),
+                doctor.getUser().getEmail(),
+                SpecialtyRef.from(doctor.getSpecialty()),
+                doctor.getLicenseNumber(),
+                doctor.getExperienceYears(),
+                doctor.getConsultationFee(),
+                doctor.getRoomNumber(),
+                doctor.getIsActive(),
+                shorten(doctor.getBio(), 100));
+    }
+
+    static String shorten(String bio, int length) {
+        if (bio == null) {
+            return null;
+        }
+        return bio.length() > length ? bio.substring(0, length) + "..." : bio;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.doctoralia.dto;
+
+import java.util.List;
+
+/**
+ * One page of doctor search results. totalItems is null when the search ran without a
+ * count query (slice mode); hasNext is always known.
+ */
+public record DoctorSearchResult(List<DoctorResponse> doctors, int page, int size, Long totalItems, boolean hasNext) {
+
+    public boolean isCounted() {
+        return totalItems != null;
+    }
+
+    public Integer totalPages() {
+        if (totalItems == null) {
+            return null;
+        }
+        return size == 0 ? 1 : (int) Math.ceil((double) totalItems / size);
+    }
+
+    public boolean hasPrevious() {
+        return page > 0;
+    }
+}
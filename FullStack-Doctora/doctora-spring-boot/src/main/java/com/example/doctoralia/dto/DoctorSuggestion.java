@@ -0,0 +1,16 @@
+package com.example.doctoralia.dto;
+
+/**
+ * One typeahead suggestion: an active doctor (type "doctor", with its specialty) or a
+ * specialty (type "specialty", specialty = null).
+ */
+public record DoctorSuggestion(String type, Long id, String label, String specialty) {
+
+    public static DoctorSuggestion doctor(Long id, String doctorName, String specialtyName) {
+        return new DoctorSuggestion("doctor", id, doctorName, specialtyName);
+    }
+
+    public static DoctorSuggestion specialty(Long id, String name) {
+        return new DoctorSuggestion("specialty", id, name, null);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.doctoralia.dto;
+
+import com.example.doctoralia.model.Doctor;
+
+import java.math.BigDecimal;
+
+/**
+ * Doctor for simple lists and smart select (bio cut to 50 characters).
+ */
+public record DoctorSummaryResponse(
+        Long id,
+        String doctorName,
+        String email,
+        SpecialtyRef specialty,
+        BigDecimal consultationFee,
+        Integer experienceYears,
+        String roomNumber,
+        String bio) {
+
+    public static DoctorSummaryResponse from(Doctor doctor) {
+        return new DoctorSummaryResponse(
+                doctor.getId(),
+                doctor.getDoctorName(),
+                doctor.getUser().getEmail(),
+                SpecialtyRef.from(doctor.getSpecialty()),
+                doctor.getConsultationFee(),
+                doctor.getExperienceYears(),
+                doctor.getRoomNumber(),
+                DoctorResponse.shorten(doctor.getBio(), 50));
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.doctoralia.dto;
+
+import java.time.LocalTime;
+
+/**
+ * A free stretch of the week at quarter-hour resolution (dayOfWeek 1=Monday ... 7=Sunday).
+ */
+public record FreeWindow(int dayOfWeek, LocalTime startTime, LocalTime endTime) {
+}
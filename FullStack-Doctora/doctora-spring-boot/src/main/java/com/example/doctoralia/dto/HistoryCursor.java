@@ -0,0 +1,30 @@
+package com.example.doctoralia.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in an appointment history list: the (appointmentDatetime, id) of the last row a
+ * client has seen. Sent to clients as an opaque URL-safe token; the next page starts right
+ * after it, so a page costs the same however deep into the history it is.
+ */
+public record HistoryCursor(LocalDateTime appointmentDatetime, Long id) {
+
+    public String encode() {
+        String raw = appointmentDatetime + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static HistoryCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new HistoryCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.valueOf(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | StringIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.doctoralia.dto;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated history. nextCursor is null on the last page.
+ */
+public record HistoryPage<T>(List<T> items, String nextCursor) {
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.doctoralia.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+public class ReplaceScheduleRequest {
+    @NotNull(message = "Slots are required")
+    private List<@Valid @NotNull AddAvailabilityRequest> slots;
+
+    // Getters and Setters
+    public List<AddAvailabilityRequest> getSlots() { return slots; }
+    public void setSlots(List<AddAvailabilityRequest> slots) { this.slots = slots; }
+}
@@ -13,11 +13,11 @@ public class Appointment {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "doctor_id", nullable = false)
     private Doctor doctor;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "patient_id", nullable = false)
     private User patient;
 
@@ -27,6 +27,10 @@ public class Appointment {
     @Column(name = "duration_minutes")
     private Integer durationMinutes = 30;
 
+    // Maintained by the trg_appointments_set_end trigger (V12)
+    @Column(name = "appointment_end", insertable = false, updatable = false)
+    private LocalDateTime appointmentEnd;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 20)
     private AppointmentStatus status = AppointmentStatus.PENDING;
@@ -74,6 +78,8 @@ public class Appointment {
         this.durationMinutes = durationMinutes;
     }
 
+    public LocalDateTime getAppointmentEnd() { return appointmentEnd; }
+
     public AppointmentStatus getStatus() { return status; }
     public void setStatus(AppointmentStatus status) { this.status = status; }
 
@@ -12,12 +12,14 @@ import java.time.LocalTime;
 @Entity
 @Table(name = "availabilities")
 public class Availability {
+    // ids are handed out in blocks of 50 (V18) so Hibernate can batch inserts - IDENTITY cannot
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "availabilities_id_seq")
+    @SequenceGenerator(name = "availabilities_id_seq", sequenceName = "availabilities_id_seq", allocationSize = 50)
     private Long id;
 
     //Many-to-One relationship with Doctor
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "doctor_id",nullable = false)
     private Doctor doctor;
 
@@ -133,7 +135,7 @@ public class Availability {
     public String toString() {
         return "Availability{" +
                 "id=" + id +
-                ", doctorName='" + (doctor != null ? doctor.getDoctorName() : "N/A") + '\'' +
+                ", doctorId=" + (doctor != null ? doctor.getId() : null) +
                 ", dayOfWeek=" + getDayName() +
                 ", timeRange='" + getTimeRange() + '\'' +
                 ", isActive=" + isActive +
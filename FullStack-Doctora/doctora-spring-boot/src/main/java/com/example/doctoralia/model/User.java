@@ -35,6 +35,10 @@ public class User {
     @Column(name = "last_name")   // Remove nullable = false
     private String lastName;
 
+    // lower(first_name || ' ' || last_name), generated by the database (V16) - only used in name searches
+    @Column(name = "search_name", columnDefinition = "TEXT", insertable = false, updatable = false)
+    private String searchName;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private UserRole role;
@@ -1,23 +1,83 @@
 package com.example.doctoralia.repository;
 
+import com.example.doctoralia.dto.AppointmentExportRow;
+import com.example.doctoralia.dto.AppointmentResponse;
+import com.example.doctoralia.dto.BookedSlot;
 import com.example.doctoralia.model.Appointment;
 import com.example.doctoralia.model.AppointmentStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
+    //เช็คว่านัดนี้เป็นของหมอคนนี้ (ใช้ index บน doctor_id)
+    boolean existsByIdAndDoctorId(Long id, Long doctorId);
 
-    // Find appointments by patient
-    List<Appointment> findByPatientIdOrderByAppointmentDatetimeDesc(Long patientId);
+    // Appointment with doctor (user, specialty) and patient for single-appointment responses
+    @EntityGraph(attributePaths = {"doctor.user", "doctor.specialty", "patient"})
+    Optional<Appointment> findWithDoctorAndPatientById(Long id);
 
-    // Find appointments by doctor
-    List<Appointment> findByDoctorIdOrderByAppointmentDatetimeAsc(Long doctorId);
+    // Appointment list rows built as response records in one joined query (no entities)
+    String APPOINTMENT_RESPONSE = "SELECT new com.example.doctoralia.dto.AppointmentResponse(" +
+            "a.id, d.id, du.firstName, du.lastName, s.id, s.name, " +
+            "p.id, p.email, p.firstName, p.lastName, " +
+            "a.appointmentDatetime, a.durationMinutes, a.status, a.notes, a.doctorNotes, a.createdAt, a.updatedAt) " +
+            "FROM Appointment a JOIN a.doctor d JOIN d.user du JOIN d.specialty s JOIN a.patient p ";
+
+    // History pages: keyset on (appointmentDatetime, id) within [from, to), served by
+    // idx_appointments_patient_datetime_id / idx_appointments_doctor_datetime_id (V15)
+    @Query(APPOINTMENT_RESPONSE + "WHERE p.id = :patientId AND a.status IN :statuses " +
+            "AND a.appointmentDatetime >= :from AND a.appointmentDatetime < :to " +
+            "AND (a.appointmentDatetime, a.id) < (:beforeDatetime, :beforeId) " +
+            "ORDER BY a.appointmentDatetime DESC, a.id DESC")
+    List<AppointmentResponse> findPatientHistoryPage(@Param("patientId") Long patientId,
+                                                     @Param("statuses") Collection<AppointmentStatus> statuses,
+                                                     @Param("from") LocalDateTime from,
+                                                     @Param("to") LocalDateTime to,
+                                                     @Param("beforeDatetime") LocalDateTime beforeDatetime,
+                                                     @Param("beforeId") Long beforeId,
+                                                     Limit limit);
+
+    @Query(APPOINTMENT_RESPONSE + "WHERE d.id = :doctorId AND a.status IN :statuses " +
+            "AND a.appointmentDatetime >= :from AND a.appointmentDatetime < :to " +
+            "AND (a.appointmentDatetime, a.id) > (:afterDatetime, :afterId) " +
+            "ORDER BY a.appointmentDatetime ASC, a.id ASC")
+    List<AppointmentResponse> findDoctorHistoryPage(@Param("doctorId") Long doctorId,
+                                                    @Param("statuses") Collection<AppointmentStatus> statuses,
+                                                    @Param("from") LocalDateTime from,
+                                                    @Param("to") LocalDateTime to,
+                                                    @Param("afterDatetime") LocalDateTime afterDatetime,
+                                                    @Param("afterId") Long afterId,
+                                                    Limit limit);
+
+    // Export rows in [from, to) with booking info, read through a server-side cursor (caller closes the stream)
+    @Query("SELECT new com.example.doctoralia.dto.AppointmentExportRow(" +
+            "a.id, a.appointmentDatetime, a.durationMinutes, a.status, " +
+            "d.id, du.firstName, du.lastName, s.name, " +
+            "p.id, p.email, p.firstName, p.lastName, a.notes, a.doctorNotes, a.createdAt, " +
+            "b.queueNumber, b.patientPrefix, b.patientFirstName, b.patientLastName, b.patientGender, " +
+            "b.patientDateOfBirth, b.patientNationality, b.patientCitizenId, b.patientPhone, b.patientEmail, " +
+            "b.symptoms, b.bookingType) " +
+            "FROM Appointment a JOIN a.doctor d JOIN d.user du JOIN d.specialty s JOIN a.patient p " +
+            "LEFT JOIN PatientBookingInfo b ON b.appointment = a " +
+            "WHERE a.appointmentDatetime >= :from AND a.appointmentDatetime < :to " +
+            "ORDER BY a.appointmentDatetime ASC, a.id ASC")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<AppointmentExportRow> streamExportRows(@Param("from") LocalDateTime from,
+                                                  @Param("to") LocalDateTime to);
 
     // Find appointments by status
     List<Appointment> findByStatus(AppointmentStatus status);
@@ -31,30 +91,41 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
             @Param("patientId") Long patientId,
             @Param("now") LocalDateTime now);
 
-    // Find appointments for a doctor on a specific date
+    // Non-cancelled appointments of a doctor starting in [from, to)
+    // Half-open range on the bare column so idx_appointments_doctor_datetime_id serves it as a range scan
     @Query("SELECT a FROM Appointment a WHERE a.doctor.id = :doctorId " +
-            "AND DATE(a.appointmentDatetime) = DATE(:date) " +
+            "AND a.appointmentDatetime >= :from AND a.appointmentDatetime < :to " +
+            "AND a.status <> com.example.doctoralia.model.AppointmentStatus.CANCELLED " +
             "ORDER BY a.appointmentDatetime ASC")
-    List<Appointment> findByDoctorIdAndDate(
+    List<Appointment> findActiveByDoctorIdAndRange(
             @Param("doctorId") Long doctorId,
-            @Param("date") LocalDateTime date);
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
 
     // Check for conflicting appointments (for preventing double booking)
-    // Using native PostgreSQL query for better compatibility
+    // Same range expression as the appointments_no_overlap exclusion constraint (V12). legacy_overlap only exempts
+    // old rows from the constraint; they still occupy their slot, so they are not filtered out here
     @Query(value = "SELECT * FROM appointments a WHERE a.doctor_id = :doctorId " +
             "AND a.status IN ('PENDING', 'CONFIRMED') " +
-            "AND ((a.appointment_datetime <= :start AND " +
-            "      a.appointment_datetime + (a.duration_minutes || ' minutes')::interval > :start) " +
-            "OR (a.appointment_datetime < :end AND " +
-            "    a.appointment_datetime + (a.duration_minutes || ' minutes')::interval >= :end) " +
-            "OR (a.appointment_datetime >= :start AND " +
-            "    a.appointment_datetime < :end))",
+            "AND tstzrange(a.appointment_datetime, a.appointment_end, '[)') && " +
+            "    tstzrange(CAST(:start AS timestamptz), CAST(:end AS timestamptz), '[)')",
             nativeQuery = true)
     List<Appointment> findConflictingAppointments(
             @Param("doctorId") Long doctorId,
             @Param("start") LocalDateTime start,
             @Param("end") LocalDateTime end);
 
+    // Non-cancelled slots of a doctor starting in [from, to) - used to load AppointmentSlotIndex
+    @Query("SELECT new com.example.doctoralia.dto.BookedSlot(a.id, a.appointmentDatetime, a.durationMinutes, a.status) " +
+            "FROM Appointment a WHERE a.doctor.id = :doctorId " +
+            "AND a.appointmentDatetime >= :from AND a.appointmentDatetime < :to " +
+            "AND a.status <> com.example.doctoralia.model.AppointmentStatus.CANCELLED " +
+            "ORDER BY a.appointmentDatetime ASC")
+    List<BookedSlot> findSlotsByDoctorIdAndRange(
+            @Param("doctorId") Long doctorId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
     // Count appointments by status
     long countByStatus(AppointmentStatus status);
 
@@ -1,8 +1,10 @@
 package com.example.doctoralia.repository;
 
+import com.example.doctoralia.dto.AvailabilityWindow;
 import com.example.doctoralia.model.Availability;
 import com.example.doctoralia.model.Doctor;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -39,22 +41,6 @@ public interface AvailabilityRepository extends JpaRepository<Availability, Long
                                                         @Param("dayOfWeek") Integer dayOfWeek,
                                                         @Param("time") LocalTime time);
 
-    //ตรวจสอบเวลาซ้อนกันของหมอคนเดียว
-    @Query("SELECT a FROM Availability a WHERE " +
-            "a.doctor.id = :doctorId AND " +
-            "a.dayOfWeek = :dayOfWeek AND " +
-            "a.isActive = true AND " +
-            "a.id <> :excludeId AND " +
-            "((a.startTime <= :startTime AND a.endTime > :startTime) OR " +
-            "(a.startTime < :endTime AND a.endTime >= :endTime) OR " +
-            "(a.startTime >= :startTime AND a.endTime <= :endTime))")
-    List<Availability> findOverlappingAvailabilities(@Param("doctorId") Long doctorId,
-                                                     @Param("dayOfWeek") Integer dayOfWeek,
-                                                     @Param("startTime") LocalTime startTime,
-                                                     @Param("endTime") LocalTime endTime,
-                                                     @Param("excludeId") Long excludeId);
-
-
     //หา availability ทั้งหมดของหมอที่่ active
     List<Availability> findByIsActiveTrueOrderByDoctorIdAscDayOfWeekAscStartTimeAsc();
 
@@ -68,25 +54,19 @@ public interface AvailabilityRepository extends JpaRepository<Availability, Long
     //หา availability ตาม ID และ doctor (สำหรับ security)
     Optional<Availability> findByIdAndDoctor(Long id, Doctor doctor);
 
-    //หาแพทย์ทั้งหมดที่ว่างในช่วงเวลาที่กำหนด
-    @Query("SELECT DISTINCT a.doctor FROM Availability a WHERE " +
-            "a.dayOfWeek = :dayOfWeek AND " +
-            "a.startTime <= :time AND " +
-            "a.endTime > :time AND " +
-            "a.isActive = true AND " +
-            "a.doctor.isActive = true")
-    List<Doctor> findDoctorsAvailableAtTime(@Param("dayOfWeek") Integer dayOfWeek,
-                                            @Param("time") LocalTime time);
-
-    //หาแพทย์ตาม specialty ที่ว่างในช่วงเวลาที่กำหนด
-    @Query("SELECT DISTINCT a.doctor FROM Availability a WHERE " +
-            "a.doctor.specialty.id = :specialtyId AND " +
-            "a.dayOfWeek = :dayOfWeek AND " +
-            "a.startTime <= :time AND " +
-            "a.endTime > :time AND " +
-            "a.isActive = true AND " +
-            "a.doctor.isActive = true")
-    List<Doctor> findDoctorsBySpecialtyAvailableAtTime(@Param("specialtyId") Long specialtyId,
-                                                        @Param("dayOfWeek") Integer dayOfWeek,
-                                                        @Param("time") LocalTime time);
+    //ลบตารางทั้งหมดของหมอ (ใช้ตอนแทนที่ทั้งสัปดาห์ - ลบก่อน insert จึงไม่ชน exclusion constraint)
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM Availability a WHERE a.doctor.id = :doctorId")
+    int deleteAllByDoctorId(@Param("doctorId") Long doctorId);
+
+    // availability ที่ active ของหมอที่ active พร้อม specialty (สำหรับ WeeklyAvailabilityIndex)
+    String WINDOW_SELECT = "SELECT new com.example.doctoralia.dto.AvailabilityWindow(" +
+            "d.id, d.specialty.id, a.dayOfWeek, a.startTime, a.endTime) " +
+            "FROM Availability a JOIN a.doctor d WHERE a.isActive = true AND d.isActive = true";
+
+    @Query(WINDOW_SELECT)
+    List<AvailabilityWindow> findActiveWindows();
+
+    @Query(WINDOW_SELECT + " AND d.id = :doctorId")
+    List<AvailabilityWindow> findActiveWindowsByDoctorId(@Param("doctorId") Long doctorId);
 }
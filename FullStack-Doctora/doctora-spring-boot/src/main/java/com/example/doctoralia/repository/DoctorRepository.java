@@ -5,25 +5,55 @@ import com.example.doctoralia.model.Specialty;
 import com.example.doctoralia.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface DoctorRepository extends JpaRepository<Doctor, Long> {
+    // user และ specialty เป็น LAZY - query ที่ส่งหมอออกไปแสดงผลโหลดมาด้วย join เดียว
+
+    //หาหมอพร้อม user และ specialty (สำหรับแสดงผล)
+    @EntityGraph(attributePaths = {"user", "specialty"})
+    Optional<Doctor> findWithUserAndSpecialtyById(Long id);
+
+    //หาหมอหลายคนตาม ID พร้อม user และ specialty
+    @EntityGraph(attributePaths = {"user", "specialty"})
+    List<Doctor> findWithUserAndSpecialtyByIdIn(Collection<Long> ids);
+
+    //หาหมอทั้งหมดแบบแบ่งหน้า (admin list)
+    @Override
+    @EntityGraph(attributePaths = {"user", "specialty"})
+    Page<Doctor> findAll(Pageable pageable);
+
     //หาหมอจาก User
     Optional<Doctor> findByUser(User user);
 
     //หาหมอจาก User ID
     Optional<Doctor> findByUserId(Long userId);
 
+    //หาหมอจาก User ID พร้อม user และ specialty
+    @EntityGraph(attributePaths = {"user", "specialty"})
+    Optional<Doctor> findWithUserAndSpecialtyByUserId(Long userId);
+
+    //หา doctor id จาก User ID (ไม่โหลด entity)
+    @Query("SELECT d.id FROM Doctor d WHERE d.user.id = :userId")
+    Optional<Long> findIdByUserId(@Param("userId") Long userId);
+
     //หาหมอจาก license number
     Optional<Doctor> findByLicenseNumber(String licenseNumber);
 
+    //หา doctor id จาก license number (ไม่โหลด entity)
+    @Query("SELECT d.id FROM Doctor d WHERE d.licenseNumber = :licenseNumber")
+    Optional<Long> findIdByLicenseNumber(@Param("licenseNumber") String licenseNumber);
+
     //ดูว่ามี license นี้หรือยัง
     boolean existsByLicenseNumber(String licenseNumber);
 
@@ -41,41 +71,42 @@ public interface DoctorRepository extends JpaRepository<Doctor, Long> {
     /**
      * หาหมอตาม specialty ID (รวม inactive) - สำหรับ admin
      */
+    @EntityGraph(attributePaths = {"user", "specialty"})
     Page<Doctor> findBySpecialtyId(Long specialtyId, Pageable pageable);
 
+    // ค้นหาชื่อผ่าน users.search_name (GIN trigram index, V16) - :name ต้อง normalize ด้วย
+    // DoctorService.normalizeName ก่อน; ผลเรียงตาม similarity ชื่อที่ใกล้คำค้นที่สุดขึ้นก่อน
+    String NAME_MATCH = "u.searchName LIKE CONCAT('%', :name, '%')";
+    String NAME_RANK = "function('similarity', u.searchName, :name) DESC, u.firstName ASC, d.id ASC";
+
     /**
-     * ค้นหาหมอตามชื่อ (search ใน firstName และ lastName ของ User) - เฉพาะ active
-     * Fixed version with proper null handling
+     * ค้นหาหมอตามชื่อ (ชื่อ, นามสกุล หรือชื่อเต็ม) - เฉพาะ active
      */
-    @Query("SELECT d FROM Doctor d JOIN d.user u WHERE " +
-            "d.isActive = true AND " +
-            "(LOWER(COALESCE(u.firstName, '')) LIKE LOWER(CONCAT('%', :name, '%')) OR " +
-            "LOWER(COALESCE(u.lastName, '')) LIKE LOWER(CONCAT('%', :name, '%')) OR " +
-            "LOWER(CONCAT(COALESCE(u.firstName, ''), ' ', COALESCE(u.lastName, ''))) LIKE LOWER(CONCAT('%', :name, '%')))")
+    @Query("SELECT d FROM Doctor d JOIN FETCH d.user u JOIN FETCH d.specialty WHERE " +
+            "d.isActive = true AND " + NAME_MATCH + " ORDER BY " + NAME_RANK)
     List<Doctor> findByDoctorNameContaining(@Param("name") String name);
 
     /**
      * ค้นหาหมอตามชื่อ (รวม inactive) - สำหรับ admin
      */
-    @Query("SELECT d FROM Doctor d JOIN d.user u WHERE " +
-            "(LOWER(CONCAT(u.firstName, ' ', u.lastName)) LIKE LOWER(CONCAT('%', :name, '%')) OR " +
-            "LOWER(u.firstName) LIKE LOWER(CONCAT('%', :name, '%')) OR " +
-            "LOWER(u.lastName) LIKE LOWER(CONCAT('%', :name, '%')))")
+    @Query("SELECT d FROM Doctor d JOIN FETCH d.user u JOIN FETCH d.specialty WHERE " +
+            NAME_MATCH + " ORDER BY " + NAME_RANK)
     List<Doctor> findByDoctorNameContainingIncludingInactive(@Param("name") String name);
 
+    // ค้นหาขั้นสูงแบบ native (public) - parameter ที่เป็น null ได้ต้อง CAST ให้ Postgres รู้ type
+    String ACTIVE_SEARCH_FROM = "FROM doctors d JOIN users u ON d.user_id = u.id WHERE " +
+            "d.is_active = true AND " +
+            "(CAST(:name AS text) IS NULL OR u.search_name LIKE '%' || CAST(:name AS text) || '%') AND " +
+            "(CAST(:specialtyId AS bigint) IS NULL OR d.specialty_id = :specialtyId) AND " +
+            "(CAST(:minFee AS numeric) IS NULL OR d.consultation_fee >= :minFee) AND " +
+            "(CAST(:maxFee AS numeric) IS NULL OR d.consultation_fee <= :maxFee) ";
+
     /**
-     * Fixed query - ค้นหาหมอขั้นสูง (ชื่อ + แผนก + ค่าตรวจ) - เฉพาะ active
-     * Fixed the CONCAT and LOWER functions for PostgreSQL
+     * ค้นหาหมอขั้นสูง (ชื่อ + แผนก + ค่าตรวจ) - เฉพาะ active, ชื่อที่ใกล้ที่สุดขึ้นก่อน
      */
-    @Query(value = "SELECT d.* FROM doctors d " +
-            "JOIN users u ON d.user_id = u.id " +
-            "JOIN specialties s ON d.specialty_id = s.id WHERE " +
-            "d.is_active = true AND " +
-            "(:name IS NULL OR LOWER(COALESCE(u.first_name, '') || ' ' || COALESCE(u.last_name, '')) LIKE LOWER('%' || :name || '%')) AND " +
-            "(:specialtyId IS NULL OR s.id = :specialtyId) AND " +
-            "(:minFee IS NULL OR d.consultation_fee >= :minFee) AND " +
-            "(:maxFee IS NULL OR d.consultation_fee <= :maxFee) " +
-            "ORDER BY u.first_name",
+    @Query(value = "SELECT d.* " + ACTIVE_SEARCH_FROM +
+            "ORDER BY similarity(u.search_name, CAST(:name AS text)) DESC, u.first_name ASC, d.id ASC",
+            countQuery = "SELECT COUNT(*) " + ACTIVE_SEARCH_FROM,
             nativeQuery = true)
     Page<Doctor> findDoctorsWithFilters(@Param("name") String name,
                                         @Param("specialtyId") Long specialtyId,
@@ -83,6 +114,18 @@ public interface DoctorRepository extends JpaRepository<Doctor, Long> {
                                         @Param("maxFee") BigDecimal maxFee,
                                         Pageable pageable);
 
+    /**
+     * เหมือน findDoctorsWithFilters แต่ไม่นับจำนวนทั้งหมด (ดึง size + 1 แถวเพื่อรู้ว่ามีหน้าถัดไป)
+     */
+    @Query(value = "SELECT d.* " + ACTIVE_SEARCH_FROM +
+            "ORDER BY similarity(u.search_name, CAST(:name AS text)) DESC, u.first_name ASC, d.id ASC",
+            nativeQuery = true)
+    Slice<Doctor> sliceDoctorsWithFilters(@Param("name") String name,
+                                          @Param("specialtyId") Long specialtyId,
+                                          @Param("minFee") BigDecimal minFee,
+                                          @Param("maxFee") BigDecimal maxFee,
+                                          Pageable pageable);
+
     /**
      * Alternative simpler query if the above still has issues
      */
@@ -90,28 +133,45 @@ public interface DoctorRepository extends JpaRepository<Doctor, Long> {
             "(:specialtyId IS NULL OR d.specialty.id = :specialtyId)")
     Page<Doctor> findDoctorsWithSpecialtyFilter(@Param("specialtyId") Long specialtyId, Pageable pageable);
 
+    String ADMIN_FILTERS =
+            "(:name IS NULL OR " + NAME_MATCH + ") AND " +
+            "(:specialtyId IS NULL OR s.id = :specialtyId) AND " +
+            "(:minFee IS NULL OR d.consultationFee >= :minFee) AND " +
+            "(:maxFee IS NULL OR d.consultationFee <= :maxFee)";
+
     /**
      * ค้นหาหมอขั้นสูง (รวม inactive) - สำหรับ admin
      */
-    @Query("SELECT d FROM Doctor d JOIN d.user u JOIN d.specialty s WHERE " +
-            "(:name IS NULL OR LOWER(CONCAT(u.firstName, ' ', u.lastName)) LIKE LOWER(CONCAT('%', :name, '%'))) AND " +
-            "(:specialtyId IS NULL OR s.id = :specialtyId) AND " +
-            "(:minFee IS NULL OR d.consultationFee >= :minFee) AND " +
-            "(:maxFee IS NULL OR d.consultationFee <= :maxFee)")
+    @Query(value = "SELECT d FROM Doctor d JOIN FETCH d.user u JOIN FETCH d.specialty s WHERE " + ADMIN_FILTERS +
+            " ORDER BY " + NAME_RANK,
+            countQuery = "SELECT COUNT(d) FROM Doctor d JOIN d.user u JOIN d.specialty s WHERE " + ADMIN_FILTERS)
     Page<Doctor> findDoctorsWithFiltersIncludingInactive(@Param("name") String name,
                                                          @Param("specialtyId") Long specialtyId,
                                                          @Param("minFee") BigDecimal minFee,
                                                          @Param("maxFee") BigDecimal maxFee,
                                                          Pageable pageable);
 
+    /**
+     * เหมือน findDoctorsWithFiltersIncludingInactive แต่ไม่นับจำนวนทั้งหมด - สำหรับ admin
+     */
+    @Query("SELECT d FROM Doctor d JOIN FETCH d.user u JOIN FETCH d.specialty s WHERE " + ADMIN_FILTERS +
+            " ORDER BY " + NAME_RANK)
+    Slice<Doctor> sliceDoctorsWithFiltersIncludingInactive(@Param("name") String name,
+                                                           @Param("specialtyId") Long specialtyId,
+                                                           @Param("minFee") BigDecimal minFee,
+                                                           @Param("maxFee") BigDecimal maxFee,
+                                                           Pageable pageable);
+
     /**
      * หาหมอตาม specialty พร้อม pagination (เฉพาะ active)
      */
+    @EntityGraph(attributePaths = {"user", "specialty"})
     Page<Doctor> findBySpecialtyIdAndIsActiveTrue(Long specialtyId, Pageable pageable);
 
     /**
      * หาหมอทั้งหมดที่ active พร้อม pagination
      */
+    @EntityGraph(attributePaths = {"user", "specialty"})
     Page<Doctor> findByIsActiveTrue(Pageable pageable);
 
     /**
@@ -119,6 +179,10 @@ public interface DoctorRepository extends JpaRepository<Doctor, Long> {
      */
     long countBySpecialtyIdAndIsActiveTrue(Long specialtyId);
 
+    //นับหมอ active ของทุกแผนก: แถวละ [specialtyId, count]
+    @Query("SELECT d.specialty.id, COUNT(d) FROM Doctor d WHERE d.isActive = true GROUP BY d.specialty.id")
+    List<Object[]> countActiveBySpecialty();
+
     /**
      * นับจำนวนหมอทั้งหมดที่ active
      */
@@ -132,13 +196,18 @@ public interface DoctorRepository extends JpaRepository<Doctor, Long> {
     /**
      * หาหมอทั้งหมดที่ active เรียงตามชื่อ
      */
-    @Query("SELECT d FROM Doctor d JOIN d.user u WHERE d.isActive = true ORDER BY u.firstName ASC")
+    @Query("SELECT d FROM Doctor d JOIN FETCH d.user u JOIN FETCH d.specialty WHERE d.isActive = true ORDER BY u.firstName ASC")
     List<Doctor> findByIsActiveTrueOrderByDoctorNameAsc();
 
+    //หมอ active ทั้งหมดพร้อม user และ specialty ใน query เดียว (สำหรับ catalog snapshot)
+    @Query("SELECT d FROM Doctor d JOIN FETCH d.user u JOIN FETCH d.specialty " +
+            "WHERE d.isActive = true ORDER BY u.firstName ASC, d.id ASC")
+    List<Doctor> findActiveWithUserAndSpecialty();
+
     /**
      * หาหมอตามชื่อ specialty และ active = true
      */
-    @Query("SELECT d FROM Doctor d JOIN d.specialty s WHERE " +
+    @Query("SELECT d FROM Doctor d JOIN FETCH d.user JOIN FETCH d.specialty s WHERE " +
             "d.isActive = true AND LOWER(s.name) = LOWER(:specialtyName)")
     List<Doctor> findBySpecialtyNameAndIsActiveTrue(@Param("specialtyName") String specialtyName);
 }
\ No newline at end of file
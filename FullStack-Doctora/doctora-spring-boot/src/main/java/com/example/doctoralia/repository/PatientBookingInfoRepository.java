@@ -1,11 +1,14 @@
 package com.example.doctoralia.repository;
 
 import com.example.doctoralia.model.PatientBookingInfo;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,48 +18,64 @@ public interface PatientBookingInfoRepository extends JpaRepository<PatientBooki
     // Find by appointment ID
     Optional<PatientBookingInfo> findByAppointmentId(Long appointmentId);
 
-    // Find all booking info for a patient (by email)
-    List<PatientBookingInfo> findByPatientEmailOrderByCreatedAtDesc(String email);
-
     // Find by queue number
     Optional<PatientBookingInfo> findByQueueNumber(String queueNumber);
 
     // Find by citizen ID (for duplicate check)
     List<PatientBookingInfo> findByPatientCitizenIdOrderByCreatedAtDesc(String citizenId);
 
-    // Custom query to get booking info with appointment details
+    // Booking history of an email with appointment details, one keyset page on
+    // (appointmentDatetime, id) newest first - pass the last row of the previous page
     @Query("""
         SELECT pbi FROM PatientBookingInfo pbi
         JOIN FETCH pbi.appointment a
         JOIN FETCH a.doctor d
         JOIN FETCH d.specialty s
         WHERE pbi.patientEmail = :email
-        ORDER BY pbi.createdAt DESC
+        AND (a.appointmentDatetime, a.id) < (:beforeDatetime, :beforeId)
+        ORDER BY a.appointmentDatetime DESC, a.id DESC
         """)
-    List<PatientBookingInfo> findBookingHistoryByEmail(@Param("email") String email);
-
-    // Get latest queue number for generating next queue
-    @Query("SELECT MAX(pbi.queueNumber) FROM PatientBookingInfo pbi WHERE pbi.queueNumber IS NOT NULL")
-    Optional<String> findLatestQueueNumber();
+    List<PatientBookingInfo> findBookingHistoryByEmail(
+        @Param("email") String email,
+        @Param("beforeDatetime") LocalDateTime beforeDatetime,
+        @Param("beforeId") Long beforeId,
+        Limit limit
+    );
 
-    // Find today's bookings
+    // Find bookings whose appointment starts in [from, to)
     @Query("""
         SELECT pbi FROM PatientBookingInfo pbi
         JOIN pbi.appointment a
-        WHERE DATE_TRUNC('day', a.appointmentDatetime) = DATE_TRUNC('day', CURRENT_TIMESTAMP)
+        WHERE a.appointmentDatetime >= :from AND a.appointmentDatetime < :to
         ORDER BY a.appointmentDatetime ASC
         """)
-    List<PatientBookingInfo> findTodaysBookings();
+    List<PatientBookingInfo> findBookingsBetween(
+        @Param("from") LocalDateTime from,
+        @Param("to") LocalDateTime to
+    );
 
-    // Check if citizen ID has existing booking for same day
+    // Find today's bookings
+    default List<PatientBookingInfo> findTodaysBookings() {
+        LocalDate today = LocalDate.now();
+        return findBookingsBetween(today.atStartOfDay(), today.plusDays(1).atStartOfDay());
+    }
+
+    // Count bookings of a citizen ID whose appointment starts in [from, to)
     @Query("""
         SELECT COUNT(pbi) FROM PatientBookingInfo pbi
         JOIN pbi.appointment a
         WHERE pbi.patientCitizenId = :citizenId
-        AND DATE_TRUNC('day', a.appointmentDatetime) = DATE_TRUNC('day', :appointmentDate)
+        AND a.appointmentDatetime >= :from AND a.appointmentDatetime < :to
         """)
-    long countByPatientCitizenIdAndAppointmentDate(
+    long countByPatientCitizenIdAndAppointmentRange(
         @Param("citizenId") String citizenId,
-        @Param("appointmentDate") java.time.LocalDateTime appointmentDate
+        @Param("from") LocalDateTime from,
+        @Param("to") LocalDateTime to
     );
+
+    // Check if citizen ID has existing booking for same day
+    default long countByPatientCitizenIdAndAppointmentDate(String citizenId, LocalDateTime appointmentDate) {
+        LocalDate day = appointmentDate.toLocalDate();
+        return countByPatientCitizenIdAndAppointmentRange(citizenId, day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+    }
 }
\ No newline at end of file
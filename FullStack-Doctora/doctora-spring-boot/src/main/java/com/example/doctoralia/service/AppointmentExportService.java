@@ -0,0 +1,193 @@
+package com.example.doctoralia.service;
+
+import com.example.doctoralia.dto.AppointmentExportRow;
+import com.example.doctoralia.repository.AppointmentRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Writes appointments with their patient booking info as CSV or NDJSON for admin reporting.
+ *
+ * Rows come from a cursor (fetch size 500) in a read-only transaction and are written one by
+ * one, so memory use does not depend on the date range. Meant to run inside a
+ * StreamingResponseBody; the transaction and its connection are held until the last row.
+ */
+@Service
+public class AppointmentExportService {
+    private static final Logger logger = LoggerFactory.getLogger(AppointmentExportService.class);
+
+    // push rows to the client every so often instead of only when the buffer fills
+    private static final int FLUSH_EVERY = 1_000;
+
+    static final String[] CSV_HEADER = {
+            "appointmentId", "appointmentDatetime", "durationMinutes", "status",
+            "doctorId", "doctorFirstName", "doctorLastName", "specialty",
+            "patientId", "patientEmail", "patientFirstName", "patientLastName", "notes", "doctorNotes", "createdAt",
+            "queueNumber", "bookingPrefix", "bookingFirstName", "bookingLastName", "bookingGender",
+            "bookingDateOfBirth", "bookingNationality", "bookingCitizenId", "bookingPhone", "bookingEmail",
+            "symptoms", "bookingType"
+    };
+
+    public enum Format {
+        CSV("text/csv;charset=UTF-8", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() { return contentType; }
+        public String getExtension() { return extension; }
+
+        public static Format parse(String value) {
+            try {
+                return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported export format: " + value + " (use csv or ndjson)");
+            }
+        }
+    }
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * export นัดที่เริ่มในช่วง [from, to] (รวมวันสุดท้าย) - คืนจำนวนแถวที่เขียน
+     */
+    public long export(LocalDate from, LocalDate to, Format format, OutputStream out) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("'to' must not be before 'from'");
+        }
+
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        Long written = template.execute(status -> {
+            try (Stream<AppointmentExportRow> rows = appointmentRepository.streamExportRows(
+                    from.atStartOfDay(), to.plusDays(1).atStartOfDay())) {
+                return format == Format.CSV ? writeCsv(rows.iterator(), out) : writeNdjson(rows.iterator(), out);
+            } catch (IOException e) {
+                // client went away - the transaction rolls back and releases the cursor
+                throw new UncheckedIOException(e);
+            }
+        });
+        long count = written != null ? written : 0;
+        logger.info("Exported {} appointments ({} to {}) as {}", count, from, to, format);
+        return count;
+    }
+
+    long writeCsv(Iterator<AppointmentExportRow> rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write('\uFEFF'); // BOM so Excel reads Thai names as UTF-8
+        writeCsvLine(writer, (Object[]) CSV_HEADER);
+
+        long count = 0;
+        while (rows.hasNext()) {
+            AppointmentExportRow row = rows.next();
+            writeCsvLine(writer,
+                    row.appointmentId(), row.appointmentDatetime(), row.durationMinutes(), row.status(),
+                    row.doctorId(), row.doctorFirstName(), row.doctorLastName(), row.specialtyName(),
+                    row.patientId(), row.patientEmail(), row.patientFirstName(), row.patientLastName(),
+                    row.notes(), row.doctorNotes(), row.createdAt(),
+                    row.queueNumber(), row.bookingPrefix(), row.bookingFirstName(), row.bookingLastName(),
+                    row.bookingGender(), row.bookingDateOfBirth(), row.bookingNationality(), row.bookingCitizenId(),
+                    row.bookingPhone(), row.bookingEmail(), row.symptoms(), row.bookingType());
+            if (++count % FLUSH_EVERY == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    long writeNdjson(Iterator<AppointmentExportRow> rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        long count = 0;
+        // closing the sequence must not close the response stream; the container does that
+        try (SequenceWriter sequence = objectMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(writer)) {
+            while (rows.hasNext()) {
+                sequence.write(rows.next());
+                if (++count % FLUSH_EVERY == 0) {
+                    sequence.flush();
+                }
+            }
+        }
+        if (count > 0) {
+            writer.write('\n');
+        }
+        writer.flush();
+        return count;
+    }
+
+    private static void writeCsvLine(Writer writer, Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeCsvValue(writer, values[i]);
+        }
+        writer.write("\r\n");
+    }
+
+    // RFC 4180: quote fields containing separators, quotes or line breaks
+    private static void writeCsvValue(Writer writer, Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        // enum name like the NDJSON output, not the display name from toString()
+        String text = value instanceof Enum<?> constant ? constant.name() : value.toString();
+        // free text typed by patients must not run as an Excel formula: prefix ' and always quote
+        boolean formula = value instanceof String && startsLikeFormula(text);
+        if (formula) {
+            text = "'" + text;
+        }
+        boolean quote = formula || text.indexOf(',') >= 0 || text.indexOf('"') >= 0
+                || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static boolean startsLikeFormula(String text) {
+        if (text.isEmpty()) {
+            return false;
+        }
+        char first = text.charAt(0);
+        return first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r';
+    }
+}
@@ -1,5 +1,9 @@
 package com.example.doctoralia.service;
 
+import com.example.doctoralia.dto.AppointmentResponse;
+import com.example.doctoralia.dto.BookedSlot;
+import com.example.doctoralia.dto.HistoryCursor;
+import com.example.doctoralia.dto.HistoryPage;
 import com.example.doctoralia.model.Appointment;
 import com.example.doctoralia.model.AppointmentStatus;
 import com.example.doctoralia.model.Doctor;
@@ -14,22 +18,32 @@ import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @Transactional
 public class AppointmentService {
     private static final Logger logger = LoggerFactory.getLogger(AppointmentService.class);
 
+    static final int HISTORY_DEFAULT_PAGE_SIZE = 50;
+    static final int HISTORY_MAX_PAGE_SIZE = 200;
+    private static final LocalDateTime HISTORY_MIN = LocalDateTime.of(1900, 1, 1, 0, 0);
+    private static final LocalDateTime HISTORY_MAX = LocalDateTime.of(9999, 1, 1, 0, 0);
+
     @Autowired
     private AppointmentRepository appointmentRepository;
 
@@ -42,11 +56,29 @@ public class AppointmentService {
     @Autowired
     private PatientBookingInfoRepository patientBookingInfoRepository;
 
+    @Autowired
+    private AppointmentSlotIndex slotIndex;
+
+    @Autowired
+    private DoctorBookingLock bookingLock;
+
+    @Autowired
+    private QueueNumberAllocator queueNumberAllocator;
+
+    @Autowired
+    private DoctorLoadIndex loadIndex;
+
+    @Autowired
+    private CalendarHeatmapService calendarHeatmapService;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
     public Appointment createAppointment(Long doctorId, Long patientId,
                                          LocalDateTime appointmentDateTime,
                                          Integer durationMinutes, String notes) {
         // Validate doctor exists and is active
-        Optional<Doctor> doctorOpt = doctorRepository.findById(doctorId);
+        Optional<Doctor> doctorOpt = doctorRepository.findWithUserAndSpecialtyById(doctorId);
         if (doctorOpt.isEmpty()) {
             throw new IllegalArgumentException("Doctor not found with ID: " + doctorId);
         }
@@ -70,12 +102,21 @@ public class AppointmentService {
             throw new IllegalArgumentException("Appointment time must be in the future");
         }
 
-        // Check for conflicting appointments (same doctor, overlapping time)
-        LocalDateTime appointmentEnd = appointmentDateTime.plusMinutes(durationMinutes != null ? durationMinutes : 30);
-        List<Appointment> conflicts = appointmentRepository.findConflictingAppointments(
-                doctorId, appointmentDateTime, appointmentEnd);
+        int duration = durationMinutes != null ? durationMinutes : 30;
+
+        // Slots this node already knows are taken are turned away without a query or the lock
+        if (!slotIndex.isFree(doctorId, appointmentDateTime, duration)) {
+            throw new IllegalArgumentException("This time slot is not available. Please choose another time.");
+        }
+
+        // Serialize bookings of this doctor until commit so check-then-insert cannot race
+        bookingLock.lockForBooking(doctorId);
 
-        if (!conflicts.isEmpty()) {
+        // Check for conflicting appointments (same doctor, overlapping time) in the database: under the lock it
+        // sees every committed booking, including ones made on other nodes that the slot index has not heard of
+        if (!appointmentRepository.findConflictingAppointments(
+                doctorId, appointmentDateTime, appointmentDateTime.plusMinutes(duration)).isEmpty()) {
+            slotIndex.evictDays(doctorId, appointmentDateTime, duration);
             throw new IllegalArgumentException("This time slot is not available. Please choose another time.");
         }
 
@@ -84,23 +125,118 @@ public class AppointmentService {
         appointment.setDoctor(doctor);
         appointment.setPatient(patient);
         appointment.setAppointmentDatetime(appointmentDateTime);
-        appointment.setDurationMinutes(durationMinutes != null ? durationMinutes : 30);
+        appointment.setDurationMinutes(duration);
         appointment.setStatus(AppointmentStatus.PENDING);
         appointment.setNotes(notes);
 
-        Appointment savedAppointment = appointmentRepository.save(appointment);
+        // Flush now so the appointments_no_overlap constraint is checked here; it is the
+        // backstop for rows written without the booking lock
+        Appointment savedAppointment;
+        try {
+            savedAppointment = appointmentRepository.saveAndFlush(appointment);
+        } catch (DataIntegrityViolationException e) {
+            if (isSlotConflict(e)) {
+                // the index said free but the database disagrees - it missed a booking, reload those days
+                slotIndex.evictDays(doctorId, appointmentDateTime, duration);
+                throw new IllegalArgumentException("This time slot is not available. Please choose another time.");
+            }
+            throw e;
+        }
+        slotIndex.recordChange(savedAppointment);
+        loadIndex.recordChange(savedAppointment, null);
+        calendarHeatmapService.recordBookingChange(savedAppointment);
+        cacheInvalidationBus.publish(CacheInvalidationBus.EntityType.APPOINTMENT, doctorId);
         logger.info("Appointment created: {} for patient {} with doctor {}",
                 savedAppointment.getId(), patientId, doctorId);
 
         return savedAppointment;
     }
 
-    public List<Appointment> getAppointmentsByPatient(Long patientId) {
-        return appointmentRepository.findByPatientIdOrderByAppointmentDatetimeDesc(patientId);
+    private boolean isSlotConflict(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null &&
+                (message.contains("appointments_no_overlap") || message.contains("idx_appointments_exact_time"));
+    }
+
+    /**
+     * ประวัตินัดของผู้ป่วย ใหม่สุดก่อน ทีละหน้า (cursor = แถวสุดท้ายของหน้าก่อน)
+     */
+    public HistoryPage<AppointmentResponse> getAppointmentsByPatient(Long patientId, String cursor, Integer limit,
+                                                                     List<String> statuses, String from, String to) {
+        int pageSize = historyPageSize(limit);
+        LocalDateTime rangeFrom = historyFrom(from);
+        LocalDateTime rangeTo = historyTo(to);
+        HistoryCursor before = cursor != null && !cursor.isBlank()
+                ? HistoryCursor.decode(cursor)
+                : new HistoryCursor(rangeTo, 0L); // everything in the window is before (to, 0)
+
+        List<AppointmentResponse> rows = appointmentRepository.findPatientHistoryPage(patientId,
+                historyStatuses(statuses), rangeFrom, rangeTo,
+                before.appointmentDatetime(), before.id(), Limit.of(pageSize + 1));
+        return historyPage(rows, pageSize);
+    }
+
+    /**
+     * ตารางนัดของหมอ เรียงตามเวลานัด ทีละหน้า (cursor = แถวสุดท้ายของหน้าก่อน)
+     */
+    public HistoryPage<AppointmentResponse> getAppointmentsByDoctor(Long doctorId, String cursor, Integer limit,
+                                                                    List<String> statuses, String from, String to) {
+        int pageSize = historyPageSize(limit);
+        LocalDateTime rangeFrom = historyFrom(from);
+        LocalDateTime rangeTo = historyTo(to);
+        HistoryCursor after = cursor != null && !cursor.isBlank()
+                ? HistoryCursor.decode(cursor)
+                : new HistoryCursor(rangeFrom, 0L); // ids start at 1, so rows at exactly `from` are included
+
+        List<AppointmentResponse> rows = appointmentRepository.findDoctorHistoryPage(doctorId,
+                historyStatuses(statuses), rangeFrom, rangeTo,
+                after.appointmentDatetime(), after.id(), Limit.of(pageSize + 1));
+        return historyPage(rows, pageSize);
+    }
+
+    // one extra row is read to know whether another page exists
+    private static HistoryPage<AppointmentResponse> historyPage(List<AppointmentResponse> rows, int pageSize) {
+        if (rows.size() <= pageSize) {
+            return new HistoryPage<>(rows, null);
+        }
+        List<AppointmentResponse> page = rows.subList(0, pageSize);
+        AppointmentResponse last = page.get(pageSize - 1);
+        return new HistoryPage<>(List.copyOf(page),
+                new HistoryCursor(last.appointmentDatetime(), last.id()).encode());
     }
 
-    public List<Appointment> getAppointmentsByDoctor(Long doctorId) {
-        return appointmentRepository.findByDoctorIdOrderByAppointmentDatetimeAsc(doctorId);
+    private static int historyPageSize(Integer limit) {
+        if (limit == null) {
+            return HISTORY_DEFAULT_PAGE_SIZE;
+        }
+        if (limit < 1 || limit > HISTORY_MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + HISTORY_MAX_PAGE_SIZE);
+        }
+        return limit;
+    }
+
+    private static Set<AppointmentStatus> historyStatuses(List<String> statuses) {
+        if (statuses == null || statuses.isEmpty()) {
+            return EnumSet.allOf(AppointmentStatus.class);
+        }
+        Set<AppointmentStatus> parsed = EnumSet.noneOf(AppointmentStatus.class);
+        for (String status : statuses) {
+            try {
+                parsed.add(AppointmentStatus.valueOf(status.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown appointment status: " + status);
+            }
+        }
+        return parsed;
+    }
+
+    // date window [from, to] in whole days; open ends fall back to a far past / future bound
+    private static LocalDateTime historyFrom(String from) {
+        return from == null || from.isBlank() ? HISTORY_MIN : LocalDate.parse(from).atStartOfDay();
+    }
+
+    private static LocalDateTime historyTo(String to) {
+        return to == null || to.isBlank() ? HISTORY_MAX : LocalDate.parse(to).plusDays(1).atStartOfDay();
     }
 
     public Appointment cancelAppointment(Long appointmentId, Long userId) {
@@ -123,8 +259,13 @@ public class AppointmentService {
             throw new IllegalArgumentException("Cannot cancel appointment with status: " + appointment.getStatus());
         }
 
+        AppointmentStatus previousStatus = appointment.getStatus();
         appointment.setStatus(AppointmentStatus.CANCELLED);
         Appointment updated = appointmentRepository.save(appointment);
+        slotIndex.recordChange(updated);
+        loadIndex.recordChange(updated, previousStatus);
+        calendarHeatmapService.recordBookingChange(updated);
+        cacheInvalidationBus.publish(CacheInvalidationBus.EntityType.APPOINTMENT, updated.getDoctor().getId());
 
         logger.info("Appointment {} cancelled by user {}", appointmentId, userId);
         return updated;
@@ -137,16 +278,27 @@ public class AppointmentService {
         }
 
         Appointment appointment = appointmentOpt.get();
+        AppointmentStatus previousStatus = appointment.getStatus();
         appointment.setStatus(status);
 
-        return appointmentRepository.save(appointment);
+        Appointment updated = appointmentRepository.save(appointment);
+        slotIndex.recordChange(updated);
+        loadIndex.recordChange(updated, previousStatus);
+        calendarHeatmapService.recordBookingChange(updated);
+        cacheInvalidationBus.publish(CacheInvalidationBus.EntityType.APPOINTMENT, updated.getDoctor().getId());
+        return updated;
+    }
+
+    //เช็คว่านัดเป็นของหมอคนนี้ (exists query เดียว ไม่โหลดนัดทั้งหมดของหมอ)
+    public boolean isAppointmentOfDoctor(Long appointmentId, Long doctorId) {
+        return appointmentRepository.existsByIdAndDoctorId(appointmentId, doctorId);
     }
 
     /**
      * Confirm an appointment (Doctor only)
      */
     public Appointment confirmAppointment(Long appointmentId, Long doctorId) {
-        Optional<Appointment> appointmentOpt = appointmentRepository.findById(appointmentId);
+        Optional<Appointment> appointmentOpt = appointmentRepository.findWithDoctorAndPatientById(appointmentId);
         if (appointmentOpt.isEmpty()) {
             throw new IllegalArgumentException("Appointment not found");
         }
@@ -165,6 +317,9 @@ public class AppointmentService {
 
         appointment.setStatus(AppointmentStatus.CONFIRMED);
         Appointment updated = appointmentRepository.save(appointment);
+        slotIndex.recordChange(updated);
+        loadIndex.recordChange(updated, AppointmentStatus.PENDING);
+        cacheInvalidationBus.publish(CacheInvalidationBus.EntityType.APPOINTMENT, updated.getDoctor().getId());
 
         logger.info("Appointment {} confirmed by doctor {}", appointmentId, doctorId);
         return updated;
@@ -188,7 +343,9 @@ public class AppointmentService {
         // Generate queue number if not provided
         String queueNumber = request.getQueueNumber();
         if (queueNumber == null || queueNumber.trim().isEmpty()) {
-            queueNumber = generateQueueNumber();
+            queueNumber = queueNumberAllocator.next(
+                appointment.getDoctor().getId(),
+                appointment.getAppointmentDatetime().toLocalDate());
         }
 
         // Create and save patient booking info
@@ -214,8 +371,7 @@ public class AppointmentService {
         Map<String, Object> response = new HashMap<>();
         response.put("message", "Appointment created successfully!");
 
-        Map<String, Object> appointmentData = convertToAppointmentResponse(appointment);
-        response.put("appointment", appointmentData);
+        response.put("appointment", AppointmentResponse.from(appointment));
 
         Map<String, Object> patientInfo = new HashMap<>();
         patientInfo.put("id", savedPatientInfo.getId());
@@ -232,22 +388,6 @@ public class AppointmentService {
         return response;
     }
 
-    /**
-     * Generate unique queue number
-     */
-    private String generateQueueNumber() {
-        // Get the latest queue number from database
-        String latestQueue = patientBookingInfoRepository.findLatestQueueNumber().orElse("000");
-
-        try {
-            int nextNumber = Integer.parseInt(latestQueue) + 1;
-            return String.format("%03d", nextNumber); // Format as 3-digit string (001, 002, etc.)
-        } catch (NumberFormatException e) {
-            logger.warn("Invalid queue number format: {}, starting from 001", latestQueue);
-            return "001";
-        }
-    }
-
     /**
      * Get patient booking info for an appointment
      */
@@ -263,22 +403,9 @@ public class AppointmentService {
             // Parse date string (YYYY-MM-DD)
             LocalDate date = LocalDate.parse(dateString, DateTimeFormatter.ISO_LOCAL_DATE);
 
-            // Get start and end of day
-            LocalDateTime startOfDay = date.atStartOfDay();
-            LocalDateTime endOfDay = date.atTime(23, 59, 59);
-
-            // Query appointments for this doctor on this date
-            List<Appointment> appointments = appointmentRepository.findByDoctorIdOrderByAppointmentDatetimeAsc(doctorId);
-
-            // Filter by date range
-            return appointments.stream()
-                    .filter(apt -> {
-                        LocalDateTime aptTime = apt.getAppointmentDatetime();
-                        return !aptTime.isBefore(startOfDay) && !aptTime.isAfter(endOfDay);
-                    })
-                    // Only include non-cancelled appointments
-                    .filter(apt -> apt.getStatus() != AppointmentStatus.CANCELLED)
-                    .toList();
+            // Non-cancelled appointments in [start of day, start of next day), filtered in SQL
+            return appointmentRepository.findActiveByDoctorIdAndRange(
+                    doctorId, date.atStartOfDay(), date.plusDays(1).atStartOfDay());
 
         } catch (Exception e) {
             logger.error("Error getting appointments by doctor and date: ", e);
@@ -287,38 +414,22 @@ public class AppointmentService {
     }
 
     /**
-     * Convert appointment to response format (reusing existing method logic)
+     * Booked (non-cancelled) slots of a doctor on a date, served from the slot index
      */
-    private Map<String, Object> convertToAppointmentResponse(Appointment appointment) {
-        Map<String, Object> response = new HashMap<>();
-        response.put("id", appointment.getId());
-
-        // Doctor info
-        Map<String, Object> doctor = new HashMap<>();
-        doctor.put("id", appointment.getDoctor().getId());
-        doctor.put("doctorName", appointment.getDoctor().getDoctorName());
-        Map<String, Object> specialty = new HashMap<>();
-        specialty.put("id", appointment.getDoctor().getSpecialty().getId());
-        specialty.put("name", appointment.getDoctor().getSpecialty().getName());
-        doctor.put("specialty", specialty);
-        response.put("doctor", doctor);
-
-        // Patient info
-        Map<String, Object> patient = new HashMap<>();
-        patient.put("id", appointment.getPatient().getId());
-        patient.put("email", appointment.getPatient().getEmail());
-        patient.put("firstName", appointment.getPatient().getFirstName());
-        patient.put("lastName", appointment.getPatient().getLastName());
-        response.put("patient", patient);
-
-        response.put("appointmentDatetime", appointment.getAppointmentDatetime());
-        response.put("durationMinutes", appointment.getDurationMinutes());
-        response.put("status", appointment.getStatus());
-        response.put("notes", appointment.getNotes());
-        response.put("doctorNotes", appointment.getDoctorNotes());
-        response.put("createdAt", appointment.getCreatedAt());
-        response.put("updatedAt", appointment.getUpdatedAt());
+    public List<BookedSlot> getBookedSlots(Long doctorId, String dateString) {
+        LocalDate date;
+        try {
+            date = LocalDate.parse(dateString, DateTimeFormatter.ISO_LOCAL_DATE);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid date format. Please use YYYY-MM-DD");
+        }
+        return slotIndex.getBookedSlots(doctorId, date);
+    }
 
-        return response;
+    /**
+     * Compare the slot index with the appointments table and repair any drift
+     */
+    public List<String> verifySlotIndex() {
+        return slotIndex.verifyAgainstDatabase();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,411 @@
+package com.example.doctoralia.service;
+
+import com.example.doctoralia.dto.BookedSlot;
+import com.example.doctoralia.model.Appointment;
+import com.example.doctoralia.model.AppointmentStatus;
+import com.example.doctoralia.repository.AppointmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory occupancy index of appointments, one bitmap per (doctor, day).
+ *
+ * Each day keeps 1440 bits (one per minute, 23 longs) marking the minutes covered by
+ * PENDING/CONFIRMED appointments, plus the non-cancelled rows touching that day so the
+ * booked-slots API can be answered without a query. A day is loaded from the appointments
+ * table the first time it is asked for and is then kept current by {@link #recordChange},
+ * which is applied after the writing transaction commits. Days are reloaded once they are
+ * older than booking.slot-index.ttl, so a day that went wrong unnoticed (a lost remote event,
+ * a write outside this service) repairs itself.
+ */
+@Component
+public class AppointmentSlotIndex {
+    private static final Logger logger = LoggerFactory.getLogger(AppointmentSlotIndex.class);
+
+    static final int MINUTES_PER_DAY = 24 * 60;
+    static final int WORDS_PER_DAY = (MINUTES_PER_DAY + 63) >>> 6;
+    private static final int SECONDS_PER_DAY = MINUTES_PER_DAY * 60;
+    private static final int MAX_CACHED_DAYS = 50_000;
+    private static final AppointmentStatus[] STATUSES = AppointmentStatus.values();
+
+    // key = DoctorDayKey.of(doctorId, date)
+    private final Map<Long, DaySlots> days = new ConcurrentHashMap<>();
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Value("${booking.slot-index.ttl:5m}")
+    private Duration ttl = Duration.ofMinutes(5);
+
+    /**
+     * true ถ้าช่วง [start, start + durationMinutes) ของหมอยังว่าง (ไม่ชนกับ PENDING/CONFIRMED)
+     */
+    public boolean isFree(Long doctorId, LocalDateTime start, int durationMinutes) {
+        LocalDate date = start.toLocalDate();
+        int startSecond = start.toLocalTime().toSecondOfDay();
+        int fromMinute = startSecond / 60;
+        int toMinute = (startSecond + durationMinutes * 60 + 59) / 60;
+
+        while (true) {
+            DaySlots day = load(doctorId, date);
+            day.lock.lock();
+            try {
+                if (day.anyOccupied(fromMinute, Math.min(toMinute, MINUTES_PER_DAY))) {
+                    return false;
+                }
+            } finally {
+                day.lock.unlock();
+            }
+            if (toMinute <= MINUTES_PER_DAY) {
+                return true;
+            }
+            // appointment runs past midnight, continue on the next day
+            toMinute -= MINUTES_PER_DAY;
+            fromMinute = 0;
+            date = date.plusDays(1);
+        }
+    }
+
+    /**
+     * Non-cancelled appointments of a doctor starting on the given date, ordered by start time
+     */
+    public List<BookedSlot> getBookedSlots(Long doctorId, LocalDate date) {
+        DaySlots day = load(doctorId, date);
+        LocalDateTime midnight = date.atStartOfDay();
+        List<BookedSlot> slots = new ArrayList<>();
+
+        day.lock.lock();
+        try {
+            for (int i = 0; i < day.size; i++) {
+                if (day.startSeconds[i] >= 0) {
+                    slots.add(new BookedSlot(day.ids[i], midnight.plusSeconds(day.startSeconds[i]),
+                            day.durations[i], STATUSES[day.statuses[i]]));
+                }
+            }
+        } finally {
+            day.lock.unlock();
+        }
+        slots.sort((a, b) -> a.getStartTime().compareTo(b.getStartTime()));
+        return slots;
+    }
+
+    /**
+     * Apply a created appointment or a status change to every cached day it touches.
+     * Inside a transaction the update is deferred until commit so rollbacks never leak in.
+     */
+    public void recordChange(Appointment appointment) {
+        Long id = appointment.getId();
+        Long doctorId = appointment.getDoctor().getId();
+        LocalDateTime start = appointment.getAppointmentDatetime();
+        int duration = appointment.getDurationMinutes() != null ? appointment.getDurationMinutes() : 30;
+        AppointmentStatus status = appointment.getStatus();
+
+        TransactionHooks.afterCommit(() -> apply(id, doctorId, start, duration, status));
+    }
+
+    /**
+     * ลบข้อมูลของหมอออกจาก cache ทั้งหมด (เช่นตอนลบหมอ)
+     */
+    public void evictDoctor(Long doctorId) {
+        days.keySet().removeIf(key -> DoctorDayKey.doctorId(key) == doctorId);
+    }
+
+    /**
+     * Drop the cached days an appointment would cover, so the next lookup reads them from the
+     * database (used when the overlap constraint caught a booking this index thought was free)
+     */
+    public void evictDays(Long doctorId, LocalDateTime start, int durationMinutes) {
+        LocalDate last = start.plusMinutes(durationMinutes).minusNanos(1).toLocalDate();
+        for (LocalDate date = start.toLocalDate(); !date.isAfter(last); date = date.plusDays(1)) {
+            days.remove(DoctorDayKey.of(doctorId, date));
+        }
+    }
+
+    public void clear() {
+        days.clear();
+    }
+
+    /**
+     * Reload every cached day from the appointments table, compare it with the in-memory
+     * copy and repair any drift. Returns one line per day that did not match.
+     */
+    public List<String> verifyAgainstDatabase() {
+        List<String> mismatches = new ArrayList<>();
+
+        for (Map.Entry<Long, DaySlots> entry : days.entrySet()) {
+            DaySlots day = entry.getValue();
+            if (!day.loaded) {
+                continue;
+            }
+            long doctorId = DoctorDayKey.doctorId(entry.getKey());
+            LocalDate date = LocalDate.ofEpochDay(DoctorDayKey.epochDay(entry.getKey()));
+
+            // read under the day lock, like a first load: a commit applied meanwhile either
+            // waits for this or is already in the rows read here, so no change can be undone
+            day.lock.lock();
+            try {
+                DaySlots fresh = new DaySlots();
+                fill(fresh, doctorId, date);
+                if (!day.sameAs(fresh)) {
+                    mismatches.add("doctor " + doctorId + " on " + date + ": cached " + day.size +
+                            " rows, database " + fresh.size + " rows");
+                    day.copyFrom(fresh);
+                }
+                day.loadedAt = System.nanoTime();
+            } finally {
+                day.lock.unlock();
+            }
+        }
+
+        if (!mismatches.isEmpty()) {
+            logger.warn("Slot index drift repaired for {} day(s): {}", mismatches.size(), mismatches);
+        }
+        return mismatches;
+    }
+
+    public int cachedDays() {
+        return days.size();
+    }
+
+    private void apply(Long id, Long doctorId, LocalDateTime start, int duration, AppointmentStatus status) {
+        LocalDate date = start.toLocalDate();
+        // offset is relative to each day's midnight, so it turns negative on spill-over days
+        int offset = start.toLocalTime().toSecondOfDay();
+
+        while (true) {
+            DaySlots day = days.get(DoctorDayKey.of(doctorId, date));
+            if (day != null) {
+                day.lock.lock();
+                try {
+                    // a day that is still loading will read the committed row itself
+                    if (day.loaded) {
+                        if (status == AppointmentStatus.CANCELLED) {
+                            day.remove(id);
+                        } else {
+                            day.upsert(id, offset, duration, status);
+                        }
+                        day.rebuild();
+                    }
+                } finally {
+                    day.lock.unlock();
+                }
+            }
+            if (offset + duration * 60 <= SECONDS_PER_DAY) {
+                break;
+            }
+            offset -= SECONDS_PER_DAY;
+            date = date.plusDays(1);
+        }
+    }
+
+    private DaySlots load(Long doctorId, LocalDate date) {
+        long key = DoctorDayKey.of(doctorId, date);
+        DaySlots day = days.get(key);
+        if (day == null) {
+            if (days.size() >= MAX_CACHED_DAYS) {
+                evictStale();
+            }
+            day = days.computeIfAbsent(key, k -> new DaySlots());
+        }
+        if (!day.loaded || expired(day)) {
+            day.lock.lock();
+            try {
+                if (!day.loaded || expired(day)) {
+                    fill(day, doctorId, date);
+                    day.loadedAt = System.nanoTime();
+                    day.loaded = true;
+                }
+            } finally {
+                day.lock.unlock();
+            }
+        }
+        return day;
+    }
+
+    private boolean expired(DaySlots day) {
+        return System.nanoTime() - day.loadedAt >= ttl.toNanos();
+    }
+
+    private void fill(DaySlots day, long doctorId, LocalDate date) {
+        LocalDateTime midnight = date.atStartOfDay();
+        // include the previous day so appointments running past midnight are counted
+        List<BookedSlot> rows = appointmentRepository.findSlotsByDoctorIdAndRange(
+                doctorId, midnight.minusDays(1), midnight.plusDays(1));
+
+        day.clear();
+        for (BookedSlot row : rows) {
+            int duration = row.getDurationMinutes() != null ? row.getDurationMinutes() : 30;
+            int startSecond = (int) Duration.between(midnight, row.getStartTime()).getSeconds();
+            if (startSecond + duration * 60 > 0) {
+                day.upsert(row.getAppointmentId(), startSecond, duration, row.getStatus());
+            }
+        }
+        day.rebuild();
+    }
+
+    private void evictStale() {
+        long today = LocalDate.now().toEpochDay();
+        days.keySet().removeIf(key -> DoctorDayKey.epochDay(key) < today);
+        if (days.size() >= MAX_CACHED_DAYS) {
+            logger.info("Slot index reached {} days, clearing", days.size());
+            days.clear();
+        }
+    }
+
+    /**
+     * Occupancy of one doctor-day. Rows are stored in parallel primitive arrays;
+     * startSeconds is relative to this day's midnight (negative for rows that began the day before).
+     */
+    static final class DaySlots {
+        // a lock rather than a monitor: the first load queries the database while holding it,
+        // and a virtual thread blocked inside synchronized would pin its carrier thread
+        final ReentrantLock lock = new ReentrantLock();
+        final long[] occupied = new long[WORDS_PER_DAY];
+        long[] ids = new long[4];
+        int[] startSeconds = new int[4];
+        int[] durations = new int[4];
+        byte[] statuses = new byte[4];
+        int size;
+        volatile boolean loaded;
+        volatile long loadedAt;
+
+        void upsert(long id, int startSecond, int duration, AppointmentStatus status) {
+            int i = indexOf(id);
+            if (i < 0) {
+                if (size == ids.length) {
+                    int capacity = size * 2;
+                    ids = Arrays.copyOf(ids, capacity);
+                    startSeconds = Arrays.copyOf(startSeconds, capacity);
+                    durations = Arrays.copyOf(durations, capacity);
+                    statuses = Arrays.copyOf(statuses, capacity);
+                }
+                i = size++;
+                ids[i] = id;
+            }
+            startSeconds[i] = startSecond;
+            durations[i] = duration;
+            statuses[i] = (byte) status.ordinal();
+        }
+
+        void remove(long id) {
+            int i = indexOf(id);
+            if (i >= 0) {
+                int last = --size;
+                ids[i] = ids[last];
+                startSeconds[i] = startSeconds[last];
+                durations[i] = durations[last];
+                statuses[i] = statuses[last];
+            }
+        }
+
+        /**
+         * Recompute the bitmap from the rows; rows may overlap, so bits are never cleared one by one
+         */
+        void rebuild() {
+            Arrays.fill(occupied, 0L);
+            for (int i = 0; i < size; i++) {
+                if (statuses[i] == AppointmentStatus.PENDING.ordinal() ||
+                        statuses[i] == AppointmentStatus.CONFIRMED.ordinal()) {
+                    int from = Math.max(0, startSeconds[i] / 60);
+                    int to = Math.min(MINUTES_PER_DAY, (startSeconds[i] + durations[i] * 60 + 59) / 60);
+                    setBits(occupied, from, to);
+                }
+            }
+        }
+
+        boolean anyOccupied(int fromMinute, int toMinute) {
+            return anyBits(occupied, fromMinute, toMinute);
+        }
+
+        void clear() {
+            size = 0;
+            Arrays.fill(occupied, 0L);
+        }
+
+        boolean sameAs(DaySlots other) {
+            if (size != other.size || !Arrays.equals(occupied, other.occupied)) {
+                return false;
+            }
+            for (int i = 0; i < size; i++) {
+                int j = other.indexOf(ids[i]);
+                if (j < 0 || other.statuses[j] != statuses[i] || other.startSeconds[j] != startSeconds[i]
+                        || other.durations[j] != durations[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void copyFrom(DaySlots other) {
+            ids = Arrays.copyOf(other.ids, other.ids.length);
+            startSeconds = Arrays.copyOf(other.startSeconds, other.ids.length);
+            durations = Arrays.copyOf(other.durations, other.ids.length);
+            statuses = Arrays.copyOf(other.statuses, other.ids.length);
+            size = other.size;
+            System.arraycopy(other.occupied, 0, occupied, 0, WORDS_PER_DAY);
+        }
+
+        private int indexOf(long id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    static void setBits(long[] words, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (first == last) {
+            words[first] |= firstMask & lastMask;
+            return;
+        }
+        words[first] |= firstMask;
+        for (int i = first + 1; i < last; i++) {
+            words[i] = -1L;
+        }
+        words[last] |= lastMask;
+    }
+
+    static boolean anyBits(long[] words, int from, int to) {
+        if (from >= to) {
+            return false;
+        }
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (first == last) {
+            return (words[first] & firstMask & lastMask) != 0;
+        }
+        if ((words[first] & firstMask) != 0 || (words[last] & lastMask) != 0) {
+            return true;
+        }
+        for (int i = first + 1; i < last; i++) {
+            if (words[i] != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
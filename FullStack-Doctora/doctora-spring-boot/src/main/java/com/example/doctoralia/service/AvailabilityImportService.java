@@ -0,0 +1,440 @@
+package com.example.doctoralia.service;
+
+import com.example.doctoralia.dto.AvailabilityImportResult;
+import com.example.doctoralia.dto.AvailabilityImportResult.RowError;
+import com.example.doctoralia.model.Availability;
+import com.example.doctoralia.model.Doctor;
+import com.example.doctoralia.repository.AvailabilityRepository;
+import com.example.doctoralia.repository.DoctorRepository;
+import com.example.doctoralia.service.AvailabilityIntervalTree.Interval;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bulk import of weekly availabilities (CSV or a JSON array) for onboarding many doctors at once.
+ *
+ * The upload is first spooled to a temporary file, so a slow client never holds a connection;
+ * the file is then read row by row and every row is validated on its own: a bad row is
+ * reported with its row number and skipped, the rest are imported. Rows are
+ * persisted through one EntityManager and flushed/cleared every hibernate.jdbc.batch_size
+ * rows, so with pooled availability ids (V18) each flush is one JDBC batch and memory does
+ * not grow with the file. Doctors are addressed by doctor_id or license_number; their
+ * profiles still come from POST /api/admin/doctors since each needs a login account.
+ *
+ * The whole import is one transaction: it either commits every valid row or none (a
+ * concurrent schedule change that trips availabilities_no_overlap rolls it all back).
+ */
+@Service
+public class AvailabilityImportService {
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilityImportService.class);
+
+    static final int MAX_REPORTED_ERRORS = 1_000;
+
+    public enum Format {
+        CSV, JSON;
+
+        public static Format parse(String value) {
+            try {
+                return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported import format: " + value + " (use csv or json)");
+            }
+        }
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private AvailabilityRepository availabilityRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CalendarHeatmapService calendarHeatmapService;
+
+    @Autowired
+    private WeeklyAvailabilityIndex weeklyAvailabilityIndex;
+
+    @Autowired
+    private AvailabilityIntervalIndex intervalIndex;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize = 50;
+
+    @Value("${availability.import.max-rows:200000}")
+    private long maxRows = 200_000;
+
+    /**
+     * replace = ลบตารางเดิมของหมอแต่ละคนในไฟล์ก่อน, dryRun = ตรวจอย่างเดียว ไม่เขียนอะไร
+     */
+    public AvailabilityImportResult importSchedules(InputStream in, Format format, boolean replace, boolean dryRun) {
+        long startedAt = System.nanoTime();
+        Path spool = spool(in);
+        try {
+            return importSpooled(spool, format, replace, dryRun, startedAt);
+        } finally {
+            try {
+                Files.deleteIfExists(spool);
+            } catch (IOException e) {
+                logger.warn("Could not delete import spool file {}: {}", spool, e.getMessage());
+            }
+        }
+    }
+
+    // the whole body is on disk before the transaction (and its connection) is opened
+    private static Path spool(InputStream in) {
+        try {
+            Path spool = Files.createTempFile("availability-import", ".tmp");
+            try {
+                Files.copy(in, spool, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                Files.deleteIfExists(spool);
+                throw e;
+            }
+            return spool;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not read import file: " + e.getMessage());
+        }
+    }
+
+    private AvailabilityImportResult importSpooled(Path spool, Format format, boolean replace, boolean dryRun,
+                                                   long startedAt) {
+        Run run = new Run(replace, dryRun);
+
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        try {
+            template.executeWithoutResult(status -> {
+                try (InputStream body = Files.newInputStream(spool)) {
+                    if (format == Format.JSON) {
+                        readJson(body, run);
+                    } else {
+                        readCsv(body, run);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (dryRun) {
+                    status.setRollbackOnly();
+                } else {
+                    run.flush();
+                    if (run.changed()) {
+                        cacheInvalidationBus.publish(CacheInvalidationBus.EntityType.AVAILABILITY, null);
+                    }
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw new IllegalArgumentException("Could not read import file: " + e.getCause().getMessage());
+        } catch (DataIntegrityViolationException e) {
+            String message = e.getMostSpecificCause().getMessage();
+            if (message != null && message.contains("availabilities_no_overlap")) {
+                throw new IllegalArgumentException(
+                        "Import rolled back: a schedule was changed while it was running. Please run it again.");
+            }
+            throw e;
+        }
+
+        // committed - ตารางของหมอหลายคนเปลี่ยน ล้างทั้งหมดทีเดียว
+        if (!dryRun && run.changed()) {
+            calendarHeatmapService.clear();
+            weeklyAvailabilityIndex.invalidate();
+            intervalIndex.clear();
+        }
+
+        long elapsedMs = (System.nanoTime() - startedAt) / 1_000_000;
+        logger.info("Availability import{}: {} rows, {} imported, {} failed, {} doctors, {} replaced in {} ms",
+                dryRun ? " (dry run)" : "", run.rowsRead, run.imported, run.failed, run.weeks.size(),
+                run.replaced, elapsedMs);
+        return new AvailabilityImportResult(run.rowsRead, run.imported, run.failed, run.weeks.size(),
+                run.replaced, dryRun, elapsedMs, run.errors, run.errorsTruncated);
+    }
+
+    /**
+     * header: doctor_id หรือ license_number, day_of_week, start_time, end_time (ลำดับไหนก็ได้)
+     */
+    private void readCsv(InputStream in, Run run) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Map<String, Integer> columns = null;
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            String[] fields = line.split(",", -1);
+            if (columns == null) {
+                columns = csvColumns(fields);
+                continue;
+            }
+            run.accept(lineNumber,
+                    field(fields, columns.get("doctorid")),
+                    field(fields, columns.get("licensenumber")),
+                    field(fields, columns.get("dayofweek")),
+                    field(fields, columns.get("starttime")),
+                    field(fields, columns.get("endtime")));
+        }
+        if (columns == null) {
+            throw new IllegalArgumentException("Import file is empty");
+        }
+    }
+
+    private static Map<String, Integer> csvColumns(String[] header) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.length; i++) {
+            String name = unquote(header[i]).replace("\uFEFF", "").replace("_", "").toLowerCase(Locale.ROOT);
+            columns.put(name, i);
+        }
+        if (!columns.containsKey("dayofweek") || !columns.containsKey("starttime") || !columns.containsKey("endtime")
+                || (!columns.containsKey("doctorid") && !columns.containsKey("licensenumber"))) {
+            throw new IllegalArgumentException(
+                    "CSV header must have day_of_week, start_time, end_time and doctor_id or license_number");
+        }
+        return columns;
+    }
+
+    private static String field(String[] fields, Integer index) {
+        if (index == null || index >= fields.length) {
+            return null;
+        }
+        String value = unquote(fields[index]);
+        return value.isEmpty() ? null : value;
+    }
+
+    private static String unquote(String value) {
+        String trimmed = value.trim();
+        if (trimmed.length() >= 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"")) {
+            return trimmed.substring(1, trimmed.length() - 1).trim();
+        }
+        return trimmed;
+    }
+
+    /**
+     * [{"doctorId" หรือ "licenseNumber", "dayOfWeek", "startTime", "endTime"}, ...] - อ่านทีละ object
+     */
+    private void readJson(InputStream in, Run run) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("JSON import must be an array of availability objects");
+            }
+            long index = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+                index++;
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    run.reject(index, "Expected an availability object");
+                    continue;
+                }
+                JsonNode row = objectMapper.readTree(parser);
+                run.accept(index, text(row, "doctorId"), text(row, "licenseNumber"),
+                        text(row, "dayOfWeek"), text(row, "startTime"), text(row, "endTime"));
+            }
+        }
+    }
+
+    private static String text(JsonNode row, String name) {
+        JsonNode value = row.get(name);
+        return value == null || value.isNull() || value.asText().isBlank() ? null : value.asText().trim();
+    }
+
+    /**
+     * สถานะของการ import หนึ่งครั้ง
+     */
+    private final class Run {
+        private final boolean replace;
+        private final boolean dryRun;
+
+        private final Map<String, Optional<Long>> doctorIds = new HashMap<>();
+        private final Map<Long, List<List<Interval>>> weeks = new HashMap<>();
+        private final List<RowError> errors = new ArrayList<>();
+        private boolean errorsTruncated;
+
+        private long rowsRead;
+        private long imported;
+        private long failed;
+        private long replaced;
+        private int pending;
+
+        Run(boolean replace, boolean dryRun) {
+            this.replace = replace;
+            this.dryRun = dryRun;
+        }
+
+        void accept(long row, String doctorId, String licenseNumber, String dayOfWeek, String startTime, String endTime) {
+            countRow();
+            try {
+                Long id = resolveDoctor(doctorId, licenseNumber);
+                Integer day = parseDay(dayOfWeek);
+                LocalTime start = parseTime("start_time", startTime);
+                LocalTime end = parseTime("end_time", endTime);
+                AvailabilityService.validateAvailabilityInput(day, start, end);
+
+                List<Interval> sameDay = week(id).get(day - 1);
+                for (Interval taken : sameDay) {
+                    // ต่อวันมีไม่กี่ช่วง ไล่ดูตรงๆ เร็วกว่าสร้าง tree
+                    if (taken.start().isBefore(end) && taken.end().isAfter(start)) {
+                        throw new IllegalArgumentException(taken.id() == null
+                                ? "Overlaps existing availability " + taken.timeRange()
+                                : "Overlaps row " + taken.id() + " (" + taken.timeRange() + ")");
+                    }
+                }
+                sameDay.add(new Interval(row, start, end));
+                persist(id, day, start, end);
+                imported++;
+            } catch (IllegalArgumentException e) {
+                error(row, e.getMessage());
+            }
+        }
+
+        void reject(long row, String message) {
+            countRow();
+            error(row, message);
+        }
+
+        void flush() {
+            if (pending > 0) {
+                entityManager.flush();
+                entityManager.clear();
+                pending = 0;
+            }
+        }
+
+        boolean changed() {
+            return imported > 0 || replaced > 0;
+        }
+
+        private void countRow() {
+            if (++rowsRead > maxRows) {
+                throw new IllegalArgumentException("An import can have at most " + maxRows + " rows");
+            }
+        }
+
+        private void error(long row, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new RowError(row, message));
+            } else {
+                errorsTruncated = true;
+            }
+        }
+
+        private void persist(Long doctorId, Integer day, LocalTime start, LocalTime end) {
+            if (dryRun) {
+                return;
+            }
+            entityManager.persist(new Availability(entityManager.getReference(Doctor.class, doctorId), day, start, end));
+            // แต่ละรอบ = 1 JDBC batch; clear ไม่ให้ persistence context โตตามไฟล์
+            if (++pending >= batchSize) {
+                flush();
+            }
+        }
+
+        /**
+         * ช่วงเวลาที่มีแล้วของหมอ (ครั้งแรกที่เจอหมอคนนี้: ลบของเดิมถ้า replace ไม่งั้นอ่านของเดิมมาตรวจซ้อน)
+         */
+        private List<List<Interval>> week(Long doctorId) {
+            List<List<Interval>> week = weeks.get(doctorId);
+            if (week != null) {
+                return week;
+            }
+            week = new ArrayList<>(7);
+            for (int day = 0; day < 7; day++) {
+                week.add(new ArrayList<>());
+            }
+            if (replace) {
+                if (!dryRun) {
+                    replaced += availabilityRepository.deleteAllByDoctorId(doctorId);
+                }
+            } else {
+                for (Availability existing :
+                        availabilityRepository.findByDoctorIdAndIsActiveTrueOrderByDayOfWeekAscStartTimeAsc(doctorId)) {
+                    week.get(existing.getDayOfWeek() - 1)
+                            .add(new Interval(null, existing.getStartTime(), existing.getEndTime()));
+                }
+            }
+            weeks.put(doctorId, week);
+            return week;
+        }
+
+        private Long resolveDoctor(String doctorId, String licenseNumber) {
+            if (doctorId != null) {
+                Optional<Long> id = doctorIds.computeIfAbsent("id:" + doctorId, key -> {
+                    try {
+                        Long parsed = Long.valueOf(doctorId);
+                        return doctorRepository.existsById(parsed) ? Optional.of(parsed) : Optional.empty();
+                    } catch (NumberFormatException e) {
+                        return Optional.empty();
+                    }
+                });
+                return id.orElseThrow(() -> new IllegalArgumentException("Doctor not found with ID: " + doctorId));
+            }
+            if (licenseNumber != null) {
+                return doctorIds.computeIfAbsent("license:" + licenseNumber,
+                                key -> doctorRepository.findIdByLicenseNumber(licenseNumber))
+                        .orElseThrow(() -> new IllegalArgumentException(
+                                "Doctor not found with license number: " + licenseNumber));
+            }
+            throw new IllegalArgumentException("doctor_id or license_number is required");
+        }
+    }
+
+    private static Integer parseDay(String value) {
+        try {
+            return value == null ? null : Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Day of week must be between 1-7");
+        }
+    }
+
+    private static LocalTime parseTime(String name, String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value + " (use HH:mm)");
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.doctoralia.service;
+
+import com.example.doctoralia.model.Availability;
+import com.example.doctoralia.repository.AvailabilityRepository;
+import com.example.doctoralia.service.AvailabilityIntervalTree.Interval;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Per-doctor interval trees of active availabilities, one per day of the week, used to
+ * validate availability writes without an overlap query.
+ *
+ * A doctor's week is read once, on the caller's transaction, and then kept current: after
+ * a write on this node commits, only the changed day is rebuilt from the saved row, with no
+ * reload. Changes announced by other nodes drop the doctor's week instead, since their rows
+ * are not at hand. Between a commit and its update a writer may still validate against the
+ * old week; the availabilities_no_overlap constraint stays as the backstop for that.
+ */
+@Component
+public class AvailabilityIntervalIndex {
+
+    private final Map<Long, AvailabilityIntervalTree[]> weeks = new ConcurrentHashMap<>();
+
+    // bumped by every eviction so a load that raced with one is not cached
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+
+    @Autowired
+    private AvailabilityRepository availabilityRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${availability.interval-index.max-doctors:5000}")
+    private int maxDoctors = 5000;
+
+    /**
+     * availability ที่ active ของหมอที่ซ้อนกับ [start, end) ในวันนั้นทั้งหมด
+     */
+    public List<Interval> conflicts(Long doctorId, int dayOfWeek, LocalTime start, LocalTime end, Long excludeId) {
+        return week(doctorId)[dayOfWeek - 1].overlapping(start, end, excludeId);
+    }
+
+    /**
+     * availability ถูกเพิ่มหรือแก้ไข - อัปเดต tree ของวันที่เกี่ยวข้องหลัง commit
+     */
+    public void saved(Long doctorId, Availability availability) {
+        Long id = availability.getId();
+        Integer day = Boolean.FALSE.equals(availability.getIsActive()) ? null : availability.getDayOfWeek();
+        Interval interval = new Interval(id, availability.getStartTime(), availability.getEndTime());
+        TransactionHooks.afterCommit(() -> update(doctorId, week -> {
+            remove(week, id);
+            if (day != null && day >= 1 && day <= 7) {
+                List<Interval> intervals = new ArrayList<>(week[day - 1].intervals());
+                intervals.add(interval);
+                week[day - 1] = AvailabilityIntervalTree.of(intervals);
+            }
+        }));
+    }
+
+    public void deleted(Long doctorId, Long availabilityId) {
+        TransactionHooks.afterCommit(() -> update(doctorId, week -> remove(week, availabilityId)));
+    }
+
+    /**
+     * ตารางทั้งสัปดาห์ถูกแทนที่ - สร้าง tree ของหมอใหม่จากแถวที่บันทึกหลัง commit
+     */
+    public void replaced(Long doctorId, List<Availability> week) {
+        AvailabilityIntervalTree[] fresh = build(week);
+        TransactionHooks.afterCommit(() -> update(doctorId, current -> System.arraycopy(fresh, 0, current, 0, 7)));
+    }
+
+    /**
+     * ตารางของหมอเปลี่ยนจาก node อื่น (ไม่มีแถวให้) - ทิ้ง tree ของหมอคนนี้หลัง commit
+     */
+    public void evict(Long doctorId) {
+        TransactionHooks.afterCommit(() -> {
+            generation.incrementAndGet();
+            weeks.remove(doctorId);
+        });
+    }
+
+    public void clear() {
+        generation.incrementAndGet();
+        weeks.clear();
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("doctors", weeks.size());
+        metrics.put("hits", hits.get());
+        metrics.put("loads", loads.get());
+        return metrics;
+    }
+
+    // copy-on-write so readers of the old week never see a half-updated one; a load in
+    // flight is not cached (generation) since it may have read the rows before this commit
+    private void update(Long doctorId, Consumer<AvailabilityIntervalTree[]> change) {
+        generation.incrementAndGet();
+        weeks.computeIfPresent(doctorId, (id, week) -> {
+            AvailabilityIntervalTree[] copy = week.clone();
+            change.accept(copy);
+            return copy;
+        });
+    }
+
+    private static void remove(AvailabilityIntervalTree[] week, Long availabilityId) {
+        for (int day = 0; day < 7; day++) {
+            List<Interval> intervals = week[day].intervals();
+            if (intervals.stream().anyMatch(i -> availabilityId.equals(i.id()))) {
+                week[day] = AvailabilityIntervalTree.of(intervals.stream()
+                        .filter(i -> !availabilityId.equals(i.id()))
+                        .toList());
+            }
+        }
+    }
+
+    private AvailabilityIntervalTree[] week(Long doctorId) {
+        AvailabilityIntervalTree[] cached = weeks.get(doctorId);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+
+        long loadedAt = generation.get();
+        // joins the writer's transaction: validation runs before its own changes are written
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        List<Availability> rows = template.execute(status ->
+                availabilityRepository.findByDoctorIdAndIsActiveTrueOrderByDayOfWeekAscStartTimeAsc(doctorId));
+        AvailabilityIntervalTree[] week = build(rows != null ? rows : List.of());
+        loads.incrementAndGet();
+
+        if (generation.get() == loadedAt) {
+            if (weeks.size() >= maxDoctors) {
+                weeks.clear(); // เกินงบ - เริ่มใหม่ดีกว่าไล่หาหมอที่ใช้น้อยที่สุด
+            }
+            weeks.put(doctorId, week);
+        }
+        return week;
+    }
+
+    private static AvailabilityIntervalTree[] build(List<Availability> rows) {
+        List<List<Interval>> byDay = new ArrayList<>(7);
+        for (int day = 0; day < 7; day++) {
+            byDay.add(new ArrayList<>());
+        }
+        for (Availability row : rows) {
+            if (row.getDayOfWeek() != null && row.getDayOfWeek() >= 1 && row.getDayOfWeek() <= 7
+                    && !Boolean.FALSE.equals(row.getIsActive())) {
+                byDay.get(row.getDayOfWeek() - 1).add(new Interval(row.getId(), row.getStartTime(), row.getEndTime()));
+            }
+        }
+        AvailabilityIntervalTree[] week = new AvailabilityIntervalTree[7];
+        for (int day = 0; day < 7; day++) {
+            week[day] = AvailabilityIntervalTree.of(byDay.get(day));
+        }
+        return week;
+    }
+}
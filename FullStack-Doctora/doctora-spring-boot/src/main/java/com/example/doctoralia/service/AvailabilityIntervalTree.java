@@ -0,0 +1,105 @@
+package com.example.doctoralia.service;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable interval tree over one doctor's availabilities on one day of the week.
+ *
+ * Intervals are sorted by start time and the tree is implicit in that array: the middle of
+ * every index range is a node and maxEnd[node] is the latest end time in its subtree. A
+ * query skips every subtree that ends before the asked range starts and everything to the
+ * right of a node that starts after it ends, so it visits O(log n + k) nodes and returns
+ * all k overlapping intervals in start order. Ranges are half-open [start, end), the same
+ * as the availabilities_no_overlap constraint.
+ */
+public final class AvailabilityIntervalTree {
+
+    public record Interval(Long id, LocalTime start, LocalTime end) {
+        public String timeRange() {
+            return start + " - " + end;
+        }
+    }
+
+    static final AvailabilityIntervalTree EMPTY = new AvailabilityIntervalTree(new Interval[0]);
+
+    private final Interval[] intervals;
+    private final LocalTime[] maxEnd;
+
+    private AvailabilityIntervalTree(Interval[] intervals) {
+        this.intervals = intervals;
+        this.maxEnd = new LocalTime[intervals.length];
+        build(0, intervals.length - 1);
+    }
+
+    public static AvailabilityIntervalTree of(Collection<Interval> intervals) {
+        if (intervals.isEmpty()) {
+            return EMPTY;
+        }
+        Interval[] sorted = intervals.toArray(new Interval[0]);
+        Arrays.sort(sorted, Comparator.comparing(Interval::start).thenComparing(Interval::end));
+        return new AvailabilityIntervalTree(sorted);
+    }
+
+    /**
+     * ช่วงเวลาทั้งหมดที่ซ้อนกับ [start, end) เรียงตามเวลาเริ่ม (excludeId = ตัวที่กำลังแก้)
+     */
+    public List<Interval> overlapping(LocalTime start, LocalTime end, Long excludeId) {
+        List<Interval> found = new ArrayList<>();
+        collect(0, intervals.length - 1, start, end, excludeId, found);
+        return found;
+    }
+
+    public int size() {
+        return intervals.length;
+    }
+
+    /**
+     * ทุกช่วงใน tree เรียงตามเวลาเริ่ม
+     */
+    public List<Interval> intervals() {
+        return List.of(intervals);
+    }
+
+    private LocalTime build(int lo, int hi) {
+        if (lo > hi) {
+            return null;
+        }
+        int mid = (lo + hi) >>> 1;
+        LocalTime latest = intervals[mid].end();
+        LocalTime left = build(lo, mid - 1);
+        LocalTime right = build(mid + 1, hi);
+        if (left != null && left.isAfter(latest)) {
+            latest = left;
+        }
+        if (right != null && right.isAfter(latest)) {
+            latest = right;
+        }
+        maxEnd[mid] = latest;
+        return latest;
+    }
+
+    private void collect(int lo, int hi, LocalTime start, LocalTime end, Long excludeId, List<Interval> found) {
+        if (lo > hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        if (!maxEnd[mid].isAfter(start)) {
+            return; // ทุกช่วงใน subtree นี้จบก่อน start
+        }
+        collect(lo, mid - 1, start, end, excludeId, found);
+
+        Interval node = intervals[mid];
+        if (!node.start().isBefore(end)) {
+            return; // node and everything to its right start at or after end
+        }
+        if (node.end().isAfter(start) && (excludeId == null || !excludeId.equals(node.id()))) {
+            found.add(node);
+        }
+        collect(mid + 1, hi, start, end, excludeId, found);
+    }
+}
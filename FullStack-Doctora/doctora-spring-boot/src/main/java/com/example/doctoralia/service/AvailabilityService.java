@@ -1,16 +1,22 @@
 package com.example.doctoralia.service;
 
+import com.example.doctoralia.dto.AddAvailabilityRequest;
 import com.example.doctoralia.model.Availability;
 import com.example.doctoralia.model.Doctor;
 import com.example.doctoralia.repository.AvailabilityRepository;
 import com.example.doctoralia.repository.DoctorRepository;
+import com.example.doctoralia.service.AvailabilityIntervalTree.Interval;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,6 +25,7 @@ import org.slf4j.LoggerFactory;
 public class AvailabilityService {
 
     private static final Logger logger = LoggerFactory.getLogger(AvailabilityService.class);
+    private static final int MAX_WEEKLY_SLOTS = 7 * 24;
 
     @Autowired
     private AvailabilityRepository availabilityRepository;
@@ -29,6 +36,18 @@ public class AvailabilityService {
     @Autowired
     private DoctorService doctorService;
 
+    @Autowired
+    private CalendarHeatmapService calendarHeatmapService;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Autowired
+    private WeeklyAvailabilityIndex weeklyAvailabilityIndex;
+
+    @Autowired
+    private AvailabilityIntervalIndex intervalIndex;
+
     //เพิ่ม availability สำหรับหมอ
     public Availability addAvailability(Long doctorId, Integer dayOfWeek, LocalTime startTime, LocalTime endTime) {
 
@@ -44,20 +63,17 @@ public class AvailabilityService {
         validateAvailabilityInput(dayOfWeek, startTime, endTime);
 
 
-        // ตรวจสอบเวลาซ้อนกัน
-        List<Availability> overlapping = availabilityRepository.findOverlappingAvailabilities(
-                doctorId, dayOfWeek, startTime, endTime, 0L // 0L for new record
-        );
-
-        if (!overlapping.isEmpty()) {
-            throw new IllegalArgumentException("Time slot overlaps with existing availability: " +
-                    overlapping.get(0).getTimeRange());
-        }
+        // ตรวจสอบเวลาซ้อนกัน (จาก interval tree ของหมอ)
+        checkNoOverlap(doctorId, dayOfWeek, startTime, endTime, null);
 
         //สร้าง availability
         Availability availability = new Availability(doctor,dayOfWeek,startTime,endTime);
 
-        Availability saved = availabilityRepository.save(availability);
+        Availability saved = saveChecked(availability);
+        calendarHeatmapService.invalidateDoctor(doctor);
+        weeklyAvailabilityIndex.doctorChanged(doctor.getId());
+        intervalIndex.saved(doctor.getId(), saved);
+        cacheInvalidationBus.publish(CacheInvalidationBus.EntityType.AVAILABILITY, doctor.getId());
         logger.info("Availability added for doctor {}: {} {}", doctor.getDoctorName(),
                 saved.getDayName(), saved.getTimeRange());
         return saved;
@@ -76,8 +92,8 @@ public class AvailabilityService {
 
         Doctor doctor = doctorOpt.get();
 
-        //หา availability
-        Optional<Availability> availabilityOpt = availabilityRepository.findById(availabilityId);
+        //หา availability (เฉพาะของหมอคนนี้ ไม่งั้น index จะได้แถวของหมอคนอื่น)
+        Optional<Availability> availabilityOpt = availabilityRepository.findByIdAndDoctor(availabilityId, doctor);
         if (availabilityOpt.isEmpty()) {
             throw new IllegalArgumentException("Availability not found or access denied");
         }
@@ -88,21 +104,18 @@ public class AvailabilityService {
         validateAvailabilityInput(dayOfWeek, startTime, endTime);
 
         // ตรวจสอบเวลาซ้อนกัน (ยกเว้นตัวเอง)
-        List<Availability> overlapping = availabilityRepository.findOverlappingAvailabilities(
-                doctorId, dayOfWeek, startTime, endTime, availabilityId
-        );
-
-        if (!overlapping.isEmpty()) {
-            throw new IllegalArgumentException("Time slot overlaps with existing availability: " +
-                    overlapping.get(0).getTimeRange());
-        }
+        checkNoOverlap(doctorId, dayOfWeek, startTime, endTime, availabilityId);
 
         // อัพเดท
         availability.setDayOfWeek(dayOfWeek);
         availability.setStartTime(startTime);
         availability.setEndTime(endTime);
 
-        Availability updated = availabilityRepository.save(availability);
+        Availability updated = saveChecked(availability);
+        calendarHeatmapService.invalidateDoctor(doctor);
+        weeklyAvailabilityIndex.doctorChanged(doctor.getId());
+        intervalIndex.saved(doctor.getId(), updated);
+        cacheInvalidationBus.publish(CacheInvalidationBus.EntityType.AVAILABILITY, doctor.getId());
         logger.info("Availability updated for doctor {}: {} {}", doctor.getDoctorName(),
                 updated.getDayName(), updated.getTimeRange());
 
@@ -146,11 +159,56 @@ public class AvailabilityService {
         // ทด ตรวจสอบว่ามี appointment ในชาวงเวลานี้หรือไม่
 
         availabilityRepository.delete(availability);
+        calendarHeatmapService.invalidateDoctor(doctor);
+        weeklyAvailabilityIndex.doctorChanged(doctor.getId());
+        intervalIndex.deleted(doctor.getId(), availability.getId());
+        cacheInvalidationBus.publish(CacheInvalidationBus.EntityType.AVAILABILITY, doctor.getId());
         logger.info("Availability deleted for doctor {}: {} {}", doctor.getDoctorName(),
                 availability.getDayName(), availability.getTimeRange());
 
     }
 
+    /**
+     * แทนที่ตารางทั้งสัปดาห์ของหมอ: ตรวจทุกช่วงในรอบเดียว (แจ้งทุกปัญหาพร้อมกัน)
+     * แล้วลบของเดิมและบันทึกของใหม่ใน transaction เดียว
+     */
+    public List<Availability> replaceWeeklySchedule(Long doctorId, List<AddAvailabilityRequest> slots) {
+        Optional<Doctor> doctorOpt = doctorRepository.findById(doctorId);
+        if (doctorOpt.isEmpty()) {
+            throw new IllegalArgumentException("Doctor not found with ID: " + doctorId);
+        }
+        Doctor doctor = doctorOpt.get();
+
+        if (slots.size() > MAX_WEEKLY_SLOTS) {
+            throw new IllegalArgumentException("A weekly schedule can have at most " + MAX_WEEKLY_SLOTS + " slots");
+        }
+        validateSchedule(slots);
+
+        int removed = availabilityRepository.deleteAllByDoctorId(doctorId);
+        List<Availability> created = slots.stream()
+                .sorted(Comparator.comparing(AddAvailabilityRequest::getDayOfWeek)
+                        .thenComparing(AddAvailabilityRequest::getStartTime))
+                .map(slot -> new Availability(doctor, slot.getDayOfWeek(), slot.getStartTime(), slot.getEndTime()))
+                .toList();
+
+        List<Availability> saved;
+        try {
+            saved = availabilityRepository.saveAllAndFlush(created);
+        } catch (DataIntegrityViolationException e) {
+            if (isOverlapConflict(e)) {
+                throw new IllegalArgumentException("Schedule was changed by another request. Please reload and try again.");
+            }
+            throw e;
+        }
+        calendarHeatmapService.invalidateDoctor(doctor);
+        weeklyAvailabilityIndex.doctorChanged(doctor.getId());
+        intervalIndex.replaced(doctor.getId(), saved);
+        cacheInvalidationBus.publish(CacheInvalidationBus.EntityType.AVAILABILITY, doctor.getId());
+        logger.info("Weekly schedule replaced for doctor {}: {} slot(s) removed, {} added",
+                doctor.getId(), removed, saved.size());
+        return saved;
+    }
+
     /**
      * ดึง availability ของหมอทั้งหมด
      */
@@ -248,11 +306,91 @@ public class AvailabilityService {
         }
     }
 
+    private void checkNoOverlap(Long doctorId, Integer dayOfWeek, LocalTime startTime, LocalTime endTime,
+                                Long excludeId) {
+        List<Interval> conflicts = intervalIndex.conflicts(doctorId, dayOfWeek, startTime, endTime, excludeId);
+        if (!conflicts.isEmpty()) {
+            throw new IllegalArgumentException("Time slot overlaps with existing availability: " +
+                    conflicts.stream().map(Interval::timeRange).collect(Collectors.joining(", ")));
+        }
+    }
+
+    // flush ทันทีให้ availabilities_no_overlap ตรวจตรงนี้ (กันกรณีแก้ตารางพร้อมกันหรือจาก node อื่น)
+    private Availability saveChecked(Availability availability) {
+        try {
+            return availabilityRepository.saveAndFlush(availability);
+        } catch (DataIntegrityViolationException e) {
+            if (isOverlapConflict(e)) {
+                throw new IllegalArgumentException("Time slot overlaps with existing availability: " +
+                        availability.getDayName() + " " + availability.getTimeRange() +
+                        " was taken by another change. Please reload your schedule.");
+            }
+            throw e;
+        }
+    }
+
+    private boolean isOverlapConflict(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.contains("availabilities_no_overlap");
+    }
+
+    /**
+     * ตรวจตารางทั้งสัปดาห์: ค่าของแต่ละช่วง แล้วเรียงตามวัน/เวลาเริ่มและกวาดครั้งเดียวหาช่วงที่ซ้อนกัน
+     */
+    private void validateSchedule(List<AddAvailabilityRequest> slots) {
+        List<String> errors = new ArrayList<>();
+        for (int i = 0; i < slots.size(); i++) {
+            AddAvailabilityRequest slot = slots.get(i);
+            try {
+                validateAvailabilityInput(slot.getDayOfWeek(), slot.getStartTime(), slot.getEndTime());
+            } catch (IllegalArgumentException e) {
+                errors.add("Slot " + (i + 1) + ": " + e.getMessage());
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException(String.join("; ", errors));
+        }
+
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < slots.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparing((Integer i) -> slots.get(i).getDayOfWeek())
+                .thenComparing(i -> slots.get(i).getStartTime()));
+
+        // ช่วงที่จบช้าที่สุดของวันนั้นจนถึงตอนนี้ - ถ้าช่วงถัดไปเริ่มก่อนมันจบ แปลว่าซ้อนกัน
+        Integer latest = null;
+        for (int i : order) {
+            AddAvailabilityRequest slot = slots.get(i);
+            if (latest != null) {
+                AddAvailabilityRequest previous = slots.get(latest);
+                if (previous.getDayOfWeek().equals(slot.getDayOfWeek())
+                        && slot.getStartTime().isBefore(previous.getEndTime())) {
+                    errors.add("Slot " + (i + 1) + " (" + describe(slot) + ") overlaps slot " +
+                            (latest + 1) + " (" + describe(previous) + ")");
+                    if (slot.getEndTime().isAfter(previous.getEndTime())) {
+                        latest = i;
+                    }
+                    continue;
+                }
+            }
+            latest = i;
+        }
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException(String.join("; ", errors));
+        }
+    }
+
+    private static String describe(AddAvailabilityRequest slot) {
+        Availability view = new Availability(null, slot.getDayOfWeek(), slot.getStartTime(), slot.getEndTime());
+        return view.getDayName() + " " + view.getTimeRange();
+    }
+
     /**
      * Validate availability input
      */
-    private void validateAvailabilityInput(Integer dayOfWeek, LocalTime startTime, LocalTime endTime) {
-        if (dayOfWeek < 1 || dayOfWeek > 7) {
+    static void validateAvailabilityInput(Integer dayOfWeek, LocalTime startTime, LocalTime endTime) {
+        if (dayOfWeek == null || dayOfWeek < 1 || dayOfWeek > 7) {
             throw new IllegalArgumentException("Day of week must be between 1-7");
         }
 
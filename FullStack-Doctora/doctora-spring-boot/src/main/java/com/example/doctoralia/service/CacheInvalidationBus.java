@@ -0,0 +1,277 @@
+package com.example.doctoralia.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tells the other backend nodes which cached doctors, specialties, availabilities and
+ * appointments changed.
+ *
+ * {@link #publish} writes a cache_events row and calls pg_notify inside the writing
+ * transaction, so nothing is sent for a rollback and other nodes hear about it only after
+ * commit. Every node LISTENs on its own JDBC connection (outside the pool) and hands each
+ * change to {@link CatalogChanges} as a {@link RemoteChange} event, which drops the matching
+ * local caches. The cache_events id is the version: after a lost connection a
+ * node replays the rows newer than the last version it saw, and clears everything if it
+ * was away longer than the rows are kept.
+ *
+ * Off unless cache.bus.enabled=true (only needed with more than one instance).
+ */
+@Component
+public class CacheInvalidationBus {
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    static final String CHANNEL = "doctora_cache";
+    static final Duration RETENTION = Duration.ofDays(1);
+    // ids are taken before commit, so a slightly lower id can become visible after a higher one
+    private static final Duration CATCH_UP_OVERLAP = Duration.ofMinutes(1);
+    private static final long PRUNE_EVERY_MS = 60 * 60_000;
+
+    // APPOINTMENT carries the doctor id, since that is what the slot and load caches are keyed by
+    public enum EntityType { DOCTOR, SPECIALTY, AVAILABILITY, APPOINTMENT }
+
+    /**
+     * A change made on another node; type = null when everything may have changed
+     */
+    public record RemoteChange(EntityType type, Long entityId) {}
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private volatile boolean running;
+    private Thread listener;
+
+    // highest cache_events id this node has seen (-1 = not connected yet)
+    private volatile long watermark = -1;
+    // written by the listener thread, read by getMetrics() on request threads
+    private volatile Instant disconnectedAt;
+    private long lastPruneAt;
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong applied = new AtomicLong();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${cache.bus.enabled:false}")
+    private boolean enabled;
+
+    @Value("${spring.datasource.url:}")
+    private String url;
+
+    @Value("${spring.datasource.username:}")
+    private String username;
+
+    @Value("${spring.datasource.password:}")
+    private String password;
+
+    /**
+     * แจ้ง node อื่นว่าข้อมูลนี้เปลี่ยน (ส่งจริงตอน commit)
+     */
+    public void publish(EntityType type, Long entityId) {
+        if (!enabled) {
+            return;
+        }
+        Long version = jdbcTemplate.queryForObject(
+                "INSERT INTO cache_events (entity_type, entity_id, origin) VALUES (?, ?, ?) RETURNING id",
+                Long.class, type.name(), entityId, nodeId);
+        jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class,
+                CHANNEL, payload(type, entityId, version, nodeId));
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listen, "cache-invalidation-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    public long getWatermark() {
+        return watermark;
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("nodeId", nodeId);
+        metrics.put("connected", running && disconnectedAt == null && watermark >= 0);
+        metrics.put("version", watermark);
+        metrics.put("received", received.get());
+        metrics.put("applied", applied.get());
+        return metrics;
+    }
+
+    private void listen() {
+        long backoffMs = 1_000;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(url, username, password)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                // LISTEN first, then read the watermark, so nothing falls in between
+                catchUp(connection);
+                backoffMs = 1_000;
+                logger.info("Cache invalidation bus listening on node {} from version {}", nodeId, watermark);
+
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(5_000);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            handle(notification.getParameter());
+                        }
+                    }
+                    pruneIfDue(connection);
+                }
+            } catch (SQLException | RuntimeException e) {
+                // a failed event closes the connection too; back off the same way instead of spinning on it
+                if (disconnectedAt == null) {
+                    disconnectedAt = Instant.now();
+                }
+                if (e instanceof SQLException) {
+                    logger.warn("Cache invalidation bus disconnected, retrying in {} ms: {}", backoffMs, e.getMessage());
+                } else {
+                    logger.error("Cache invalidation bus failed to apply an event, reconnecting in {} ms", backoffMs, e);
+                }
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoffMs = Math.min(backoffMs * 2, 30_000);
+            }
+        }
+    }
+
+    private void catchUp(Connection connection) throws SQLException {
+        if (watermark < 0) {
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM cache_events")) {
+                rs.next();
+                watermark = rs.getLong(1);
+            }
+            return;
+        }
+
+        if (disconnectedAt != null && disconnectedAt.isBefore(Instant.now().minus(RETENTION))) {
+            // events may already be pruned - start over
+            logger.warn("Cache invalidation bus was away longer than {}, clearing local caches", RETENTION);
+            clearAll();
+        }
+
+        Set<String> seen = new LinkedHashSet<>();
+        Instant since = (disconnectedAt != null ? disconnectedAt : Instant.now()).minus(CATCH_UP_OVERLAP);
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT id, entity_type, entity_id, origin FROM cache_events " +
+                "WHERE id > ? OR created_at >= ? ORDER BY id")) {
+            statement.setLong(1, watermark);
+            // an absolute instant against TIMESTAMPTZ, so the JVM and session time zones do not matter
+            statement.setObject(2, since.atOffset(ZoneOffset.UTC));
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    long entityId = rs.getLong("entity_id");
+                    String payload = payload(EntityType.valueOf(rs.getString("entity_type")),
+                            rs.wasNull() ? null : entityId, rs.getLong("id"), rs.getString("origin"));
+                    // several edits of the same row while away only need one eviction
+                    if (seen.add(payload.substring(0, payload.indexOf(':', payload.indexOf(':') + 1)))) {
+                        handle(payload);
+                    } else {
+                        watermark = Math.max(watermark, rs.getLong("id"));
+                    }
+                }
+            }
+        }
+        disconnectedAt = null;
+    }
+
+    /**
+     * payload = type:entityId:version:origin (entityId is empty when not known)
+     */
+    void handle(String payload) {
+        String[] parts = payload.split(":", 4);
+        if (parts.length < 4) {
+            logger.warn("Ignoring malformed cache event: {}", payload);
+            return;
+        }
+        EntityType type = EntityType.valueOf(parts[0]);
+        Long entityId = parts[1].isEmpty() ? null : Long.valueOf(parts[1]);
+        long version = Long.parseLong(parts[2]);
+        received.incrementAndGet();
+
+        // this node already dropped its own caches when it wrote the change
+        if (!nodeId.equals(parts[3])) {
+            apply(type, entityId);
+            applied.incrementAndGet();
+        }
+        watermark = Math.max(watermark, version);
+    }
+
+    private void apply(EntityType type, Long entityId) {
+        eventPublisher.publishEvent(new RemoteChange(type, entityId));
+    }
+
+    private void clearAll() {
+        eventPublisher.publishEvent(new RemoteChange(null, null));
+    }
+
+    private void pruneIfDue(Connection connection) throws SQLException {
+        long now = System.currentTimeMillis();
+        if (now - lastPruneAt < PRUNE_EVERY_MS) {
+            return;
+        }
+        lastPruneAt = now;
+        try (PreparedStatement statement = connection.prepareStatement(
+                "DELETE FROM cache_events WHERE created_at < now() - ? * INTERVAL '1 second'")) {
+            // cutoff on the database clock, the same clock that filled created_at
+            statement.setLong(1, RETENTION.toSeconds());
+            statement.executeUpdate();
+        }
+    }
+
+    static String payload(EntityType type, Long entityId, long version, String origin) {
+        return type.name() + ":" + (entityId != null ? entityId : "") + ":" + version + ":" + origin;
+    }
+
+    String getNodeId() {
+        return nodeId;
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.doctoralia.service;
+
+import com.example.doctoralia.model.Appointment;
+import com.example.doctoralia.model.Doctor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Free capacity per day of a month for one doctor or a whole specialty (booking calendar heatmap).
+ *
+ * A month costs two queries: the weekly availabilities of the doctors in scope and one
+ * GROUP BY doctor_id, date over that month's PENDING/CONFIRMED appointments. Results are
+ * cached per (scope, month); booking changes drop the affected doctor and specialty month
+ * after commit, availability and doctor edits drop everything for that doctor.
+ */
+@Service
+public class CalendarHeatmapService {
+
+    static final long TTL_MS = 5 * 60_000;
+    private static final int MAX_CACHED_MONTHS = 5_000;
+
+    private static final String AVAILABILITY_SQL = """
+            SELECT av.doctor_id, av.day_of_week, av.start_time, av.end_time
+            FROM availabilities av
+            JOIN doctors d ON d.id = av.doctor_id
+            WHERE av.is_active = true AND d.is_active = true AND d.%s = ?
+            """;
+
+    private static final String BOOKED_MINUTES_SQL = """
+            SELECT a.doctor_id,
+                   CAST(a.appointment_datetime AS date) AS day,
+                   SUM(COALESCE(a.duration_minutes, 30)) AS booked_minutes
+            FROM appointments a
+            JOIN doctors d ON d.id = a.doctor_id
+            WHERE d.is_active = true AND d.%s = ?
+              AND a.appointment_datetime >= ? AND a.appointment_datetime < ?
+              AND a.status IN ('PENDING', 'CONFIRMED')
+            GROUP BY a.doctor_id, CAST(a.appointment_datetime AS date)
+            """;
+
+    // key = "doctor:{id}:{yyyy-MM}" or "specialty:{id}:{yyyy-MM}"
+    private final Map<String, CachedMonth> cache = new ConcurrentHashMap<>();
+
+    // bumped on every invalidation so a computation that raced with one is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public List<Map<String, Object>> getDoctorHeatmap(Long doctorId, YearMonth month) {
+        return get("doctor", "id", doctorId, month);
+    }
+
+    public List<Map<String, Object>> getSpecialtyHeatmap(Long specialtyId, YearMonth month) {
+        return get("specialty", "specialty_id", specialtyId, month);
+    }
+
+    /**
+     * นัดถูกสร้าง/ยกเลิก/เปลี่ยนสถานะ - ล้าง cache เดือนนั้นของหมอและแผนกหลัง commit
+     */
+    public void recordBookingChange(Appointment appointment) {
+        Doctor doctor = appointment.getDoctor();
+        String month = YearMonth.from(appointment.getAppointmentDatetime()).toString();
+        String doctorKey = "doctor:" + doctor.getId() + ":" + month;
+        String specialtyKey = "specialty:" + doctor.getSpecialty().getId() + ":" + month;
+
+        TransactionHooks.afterCommit(() -> {
+            generation.incrementAndGet();
+            cache.remove(doctorKey);
+            cache.remove(specialtyKey);
+        });
+    }
+
+    /**
+     * ตารางเวลาของหมอเปลี่ยน - ล้าง cache ทุกเดือนของหมอและแผนกหลัง commit
+     */
+    public void invalidateDoctor(Doctor doctor) {
+        String doctorPrefix = "doctor:" + doctor.getId() + ":";
+        String specialtyPrefix = "specialty:" + doctor.getSpecialty().getId() + ":";
+
+        TransactionHooks.afterCommit(() -> {
+            generation.incrementAndGet();
+            cache.keySet().removeIf(key -> key.startsWith(doctorPrefix) || key.startsWith(specialtyPrefix));
+        });
+    }
+
+    public void clear() {
+        generation.incrementAndGet();
+        cache.clear();
+    }
+
+    private List<Map<String, Object>> get(String scope, String column, Long scopeId, YearMonth month) {
+        String key = scope + ":" + scopeId + ":" + month;
+        CachedMonth cached = cache.get(key);
+        if (cached != null && System.currentTimeMillis() - cached.loadedAt < TTL_MS) {
+            return cached.days;
+        }
+
+        long startGeneration = generation.get();
+        List<Map<String, Object>> days = compute(column, scopeId, month);
+        if (generation.get() == startGeneration) {
+            if (cache.size() >= MAX_CACHED_MONTHS) {
+                cache.clear();
+            }
+            cache.put(key, new CachedMonth(days));
+        }
+        return days;
+    }
+
+    private List<Map<String, Object>> compute(String column, Long scopeId, YearMonth month) {
+        // minutes each doctor works per day of week (index 1-7)
+        Map<Long, int[]> weeklyMinutes = new HashMap<>();
+        jdbcTemplate.query(String.format(AVAILABILITY_SQL, column), rs -> {
+            Time start = rs.getTime("start_time");
+            Time end = rs.getTime("end_time");
+            int minutes = (end.toLocalTime().toSecondOfDay() - start.toLocalTime().toSecondOfDay()) / 60;
+            weeklyMinutes.computeIfAbsent(rs.getLong("doctor_id"), id -> new int[8])[rs.getInt("day_of_week")] += minutes;
+        }, scopeId);
+
+        int length = month.lengthOfMonth();
+        LocalDate first = month.atDay(1);
+        int[] available = new int[length];
+        for (int day = 0; day < length; day++) {
+            int dow = first.plusDays(day).getDayOfWeek().getValue();
+            for (int[] weekly : weeklyMinutes.values()) {
+                available[day] += weekly[dow];
+            }
+        }
+
+        int[] booked = new int[length];
+        jdbcTemplate.query(String.format(BOOKED_MINUTES_SQL, column), rs -> {
+            LocalDate date = rs.getDate("day").toLocalDate();
+            int[] weekly = weeklyMinutes.get(rs.getLong("doctor_id"));
+            if (weekly == null || !YearMonth.from(date).equals(month)) {
+                return;
+            }
+            // นัดนอกเวลาออกตรวจไม่ทำให้ความจุติดลบ
+            booked[date.getDayOfMonth() - 1] += Math.min(rs.getInt("booked_minutes"), weekly[date.getDayOfWeek().getValue()]);
+        }, scopeId, first.atStartOfDay(), month.plusMonths(1).atDay(1).atStartOfDay());
+
+        List<Map<String, Object>> days = new ArrayList<>(length);
+        for (int day = 0; day < length; day++) {
+            days.add(Map.of(
+                    "date", first.plusDays(day).toString(),
+                    "availableMinutes", available[day],
+                    "bookedMinutes", booked[day],
+                    "freeMinutes", available[day] - booked[day]));
+        }
+        return List.copyOf(days);
+    }
+
+    private static final class CachedMonth {
+        final List<Map<String, Object>> days;
+        final long loadedAt = System.currentTimeMillis();
+
+        CachedMonth(List<Map<String, Object>> days) {
+            this.days = days;
+        }
+    }
+}
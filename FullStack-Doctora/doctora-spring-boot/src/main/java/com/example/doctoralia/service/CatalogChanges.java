@@ -0,0 +1,135 @@
+package com.example.doctoralia.service;
+
+import com.example.doctoralia.model.Doctor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * The one place that knows which caches hold doctor and specialty data, and which ones
+ * drop appointment data booked on another node.
+ *
+ * Writers call {@link #doctorChanged}, {@link #doctorRemoved} or {@link #specialtyChanged}
+ * inside their transaction: every local cache is told (each acts after commit) and the
+ * change is published on the {@link CacheInvalidationBus} for the other nodes. Changes
+ * heard from other nodes come back as {@link CacheInvalidationBus.RemoteChange} events and
+ * drop the same caches here, without publishing again.
+ */
+@Component
+public class CatalogChanges {
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private DoctorSearchExecutor searchExecutor;
+
+    @Autowired
+    private DoctorSuggestIndex suggestIndex;
+
+    @Autowired
+    private DoctorLoadIndex doctorLoadIndex;
+
+    @Autowired
+    private CalendarHeatmapService calendarHeatmapService;
+
+    @Autowired
+    private AppointmentSlotIndex slotIndex;
+
+    @Autowired
+    private WeeklyAvailabilityIndex weeklyAvailabilityIndex;
+
+    @Autowired
+    private AvailabilityIntervalIndex availabilityIntervalIndex;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    /**
+     * หมอถูกสร้าง/แก้ไข/เปิดปิด หรือชื่อเปลี่ยน (doctor ต้องโหลด user และ specialty แล้ว)
+     */
+    public void doctorChanged(Doctor doctor) {
+        doctorCaches(doctor.getId());
+        suggestIndex.doctorChanged(doctor);
+        cacheInvalidationBus.publish(CacheInvalidationBus.EntityType.DOCTOR, doctor.getId());
+    }
+
+    public void doctorRemoved(Long doctorId) {
+        doctorCaches(doctorId);
+        slotIndex.evictDoctor(doctorId);
+        suggestIndex.doctorRemoved(doctorId);
+        cacheInvalidationBus.publish(CacheInvalidationBus.EntityType.DOCTOR, doctorId);
+    }
+
+    public void specialtyChanged(Long specialtyId) {
+        specialtyCaches();
+        cacheInvalidationBus.publish(CacheInvalidationBus.EntityType.SPECIALTY, specialtyId);
+    }
+
+    /**
+     * ข้อมูลเปลี่ยนจาก node อื่น (entityId = null คือไม่รู้ว่าตัวไหน, type = null คือทุกอย่าง)
+     */
+    @EventListener
+    public void onRemoteChange(CacheInvalidationBus.RemoteChange change) {
+        if (change.type() == null) {
+            specialtyCaches();
+            doctorLoadIndex.clear();
+            calendarHeatmapService.clear();
+            weeklyAvailabilityIndex.invalidate();
+            availabilityIntervalIndex.clear();
+            slotIndex.clear();
+            return;
+        }
+        Long entityId = change.entityId();
+        switch (change.type()) {
+            case SPECIALTY -> specialtyCaches();
+            case DOCTOR -> {
+                specialtyCaches(); // the doctor row is not at hand for the suggest index
+                doctorLoadIndex.clear();
+                calendarHeatmapService.clear();
+                if (entityId != null) {
+                    slotIndex.evictDoctor(entityId);
+                }
+                availabilityChanged(entityId);
+            }
+            case AVAILABILITY -> {
+                calendarHeatmapService.clear();
+                availabilityChanged(entityId);
+            }
+            case APPOINTMENT -> {
+                // booked on another node: this node's bitmaps and counts for the doctor are behind
+                doctorLoadIndex.clear();
+                calendarHeatmapService.clear();
+                if (entityId != null) {
+                    slotIndex.evictDoctor(entityId);
+                } else {
+                    slotIndex.clear();
+                }
+            }
+        }
+    }
+
+    private void doctorCaches(Long doctorId) {
+        catalogService.invalidate();
+        searchExecutor.invalidate();
+        doctorLoadIndex.clear();
+        calendarHeatmapService.clear();
+        weeklyAvailabilityIndex.doctorChanged(doctorId);
+    }
+
+    private void specialtyCaches() {
+        catalogService.invalidate();
+        searchExecutor.invalidate();
+        suggestIndex.invalidate();
+    }
+
+    private void availabilityChanged(Long doctorId) {
+        if (doctorId != null) {
+            weeklyAvailabilityIndex.doctorChanged(doctorId);
+            availabilityIntervalIndex.evict(doctorId);
+        } else {
+            weeklyAvailabilityIndex.invalidate();
+            availabilityIntervalIndex.clear();
+        }
+    }
+}
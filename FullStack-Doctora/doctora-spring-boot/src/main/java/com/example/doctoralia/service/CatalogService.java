@@ -0,0 +1,117 @@
+package com.example.doctoralia.service;
+
+import com.example.doctoralia.model.Doctor;
+import com.example.doctoralia.model.Specialty;
+import com.example.doctoralia.repository.DoctorRepository;
+import com.example.doctoralia.repository.SpecialtyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Holds the current {@link CatalogSnapshot} for the public specialty and doctor endpoints.
+ *
+ * Reads are a volatile field read. Writers to specialties or doctors call {@link #invalidate()};
+ * after their transaction commits a new snapshot is built from two queries on the background
+ * refresh thread and swapped in whole, so readers see either the old catalog or the new one,
+ * never a mix. Rebuilds are serialized and each one reads after its own commit, so the last
+ * swap is always current. A reader outside a transaction that finds the snapshot behind
+ * rebuilds it itself; one inside a transaction keeps the last snapshot until the queued
+ * rebuild lands rather than taking a second connection.
+ */
+@Service
+public class CatalogService {
+    private static final Logger logger = LoggerFactory.getLogger(CatalogService.class);
+
+    private volatile CatalogSnapshot snapshot;
+
+    // bumped by every invalidation; a snapshot remembers the generation it was built for
+    private final AtomicLong generation = new AtomicLong();
+    private volatile long builtGeneration = -1;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    @Autowired
+    private SpecialtyRepository specialtyRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // memory budget: above this many active doctors only specialties and counts are cached
+    @Value("${catalog.snapshot.max-doctors:5000}")
+    private int maxDoctors = 5000;
+
+    /**
+     * snapshot ปัจจุบัน (สร้างครั้งแรกตอนมีคนเรียก หรือหลัง rebuild ล้มเหลว)
+     */
+    public CatalogSnapshot get() {
+        CatalogSnapshot current = snapshot;
+        if (current != null && builtGeneration == generation.get()) {
+            return current;
+        }
+        if (current != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+            return current;
+        }
+        return rebuild();
+    }
+
+    /**
+     * ข้อมูล catalog เปลี่ยน - สร้าง snapshot ใหม่หลัง commit
+     */
+    public void invalidate() {
+        // bumped only after commit, so a reader rebuilding mid-transaction can't claim it
+        TransactionHooks.afterCommit(generation::incrementAndGet);
+        TransactionHooks.afterCommitAsync(() -> {
+            try {
+                rebuild();
+            } catch (Exception e) {
+                // readers rebuild on their next call since builtGeneration is behind
+                logger.warn("Catalog snapshot rebuild failed: {}", e.getMessage());
+            }
+        });
+    }
+
+    CatalogSnapshot rebuild() {
+        rebuildLock.lock();
+        try {
+            long target = generation.get();
+            CatalogSnapshot current = snapshot;
+            if (current != null && builtGeneration == target) {
+                return current; // อีก thread สร้างให้แล้วระหว่างรอ
+            }
+
+            // joins the caller's transaction if there is one (first build only) instead of a second connection
+            TransactionTemplate template = new TransactionTemplate(transactionManager);
+            template.setReadOnly(true);
+            CatalogSnapshot fresh = template.execute(status -> {
+                List<Specialty> specialties = specialtyRepository.findAllByOrderByNameAsc();
+                List<Doctor> doctors = doctorRepository.findActiveWithUserAndSpecialty();
+                return new CatalogSnapshot(specialties, doctors, doctors.size() <= maxDoctors);
+            });
+            if (fresh == null) {
+                fresh = CatalogSnapshot.EMPTY;
+            }
+            if (!fresh.isDoctorsCached()) {
+                logger.warn("Catalog has {} active doctors, above the budget of {}: doctor lists are read from the database",
+                        fresh.getActiveDoctorCount(), maxDoctors);
+            }
+
+            snapshot = fresh;
+            builtGeneration = target;
+            return fresh;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.doctoralia.service;
+
+import com.example.doctoralia.dto.DoctorDetailResponse;
+import com.example.doctoralia.dto.DoctorSummaryResponse;
+import com.example.doctoralia.model.Doctor;
+import com.example.doctoralia.model.Specialty;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable view of the public catalog: specialties, their active doctor counts and the
+ * active doctors, already rendered in the shape the public endpoints return.
+ *
+ * Built in one go by {@link CatalogService} and never modified afterwards, so any number of
+ * request threads can read it without locking. Doctor views are left out (doctorsCached =
+ * false) when the active doctor count is above the memory budget.
+ */
+public final class CatalogSnapshot {
+
+    static final CatalogSnapshot EMPTY = new CatalogSnapshot(List.of(), List.of(), false);
+
+    private final List<Map<String, Object>> specialties;
+    private final List<Map<String, Object>> specialtiesWithCount;
+    private final Map<Long, Map<String, Object>> specialtyById;
+    private final boolean doctorsCached;
+    private final List<DoctorSummaryResponse> activeDoctors;
+    private final Map<String, List<DoctorSummaryResponse>> doctorsBySpecialty;
+    private final Map<Long, DoctorDetailResponse> doctorDetails;
+    private final Map<Long, DoctorSummaryResponse> doctorSummaries;
+    private final int activeDoctorCount;
+
+    /**
+     * @param specialties   all specialties ordered by name
+     * @param activeDoctors active doctors ordered by first name, with user and specialty loaded
+     * @param cacheDoctors  whether doctor views fit in the memory budget
+     */
+    CatalogSnapshot(List<Specialty> specialties, List<Doctor> activeDoctors, boolean cacheDoctors) {
+        Map<Long, Integer> counts = new HashMap<>();
+        for (Doctor doctor : activeDoctors) {
+            counts.merge(doctor.getSpecialty().getId(), 1, Integer::sum);
+        }
+
+        List<Map<String, Object>> specialtyList = new ArrayList<>(specialties.size());
+        List<Map<String, Object>> withCount = new ArrayList<>(specialties.size());
+        Map<Long, Map<String, Object>> byId = new HashMap<>();
+        for (Specialty specialty : specialties) {
+            Map<String, Object> view = specialty(specialty);
+            specialtyList.add(Collections.unmodifiableMap(view));
+
+            Map<String, Object> counted = specialty(specialty);
+            counted.put("doctorCount", (long) counts.getOrDefault(specialty.getId(), 0));
+            withCount.add(Collections.unmodifiableMap(counted));
+            byId.put(specialty.getId(), withCount.get(withCount.size() - 1));
+        }
+        this.specialties = List.copyOf(specialtyList);
+        this.specialtiesWithCount = List.copyOf(withCount);
+        this.specialtyById = Map.copyOf(byId);
+        this.activeDoctorCount = activeDoctors.size();
+        this.doctorsCached = cacheDoctors;
+
+        if (!cacheDoctors) {
+            this.activeDoctors = List.of();
+            this.doctorsBySpecialty = Map.of();
+            this.doctorDetails = Map.of();
+            this.doctorSummaries = Map.of();
+            return;
+        }
+
+        List<DoctorSummaryResponse> summaries = new ArrayList<>(activeDoctors.size());
+        Map<String, List<DoctorSummaryResponse>> bySpecialty = new LinkedHashMap<>();
+        Map<Long, DoctorDetailResponse> details = new HashMap<>();
+        Map<Long, DoctorSummaryResponse> summaryById = new HashMap<>();
+        for (Doctor doctor : activeDoctors) {
+            DoctorSummaryResponse summary = DoctorSummaryResponse.from(doctor);
+            summaries.add(summary);
+            bySpecialty.computeIfAbsent(specialtyKey(doctor.getSpecialty().getName()), k -> new ArrayList<>())
+                    .add(summary);
+            details.put(doctor.getId(), DoctorDetailResponse.from(doctor));
+            summaryById.put(doctor.getId(), summary);
+        }
+        bySpecialty.replaceAll((name, list) -> List.copyOf(list));
+        this.activeDoctors = List.copyOf(summaries);
+        this.doctorsBySpecialty = Map.copyOf(bySpecialty);
+        this.doctorDetails = Map.copyOf(details);
+        this.doctorSummaries = Map.copyOf(summaryById);
+    }
+
+    public List<Map<String, Object>> getSpecialties() { return specialties; }
+    public List<Map<String, Object>> getSpecialtiesWithCount() { return specialtiesWithCount; }
+    public int getActiveDoctorCount() { return activeDoctorCount; }
+    public boolean isDoctorsCached() { return doctorsCached; }
+
+    /**
+     * แผนกพร้อม doctorCount หรือ null ถ้าไม่มี
+     */
+    public Map<String, Object> getSpecialty(Long id) {
+        return specialtyById.get(id);
+    }
+
+    // null when doctors are over the memory budget - caller falls back to the database
+    public List<DoctorSummaryResponse> getActiveDoctors() {
+        return doctorsCached ? activeDoctors : null;
+    }
+
+    public List<DoctorSummaryResponse> getDoctorsBySpecialty(String specialtyName) {
+        if (!doctorsCached) {
+            return null;
+        }
+        return doctorsBySpecialty.getOrDefault(specialtyKey(specialtyName), List.of());
+    }
+
+    /**
+     * รายละเอียดหมอที่ active หรือ null (ไม่มี, inactive หรือไม่ได้ cache) ให้ไปอ่านจาก database
+     */
+    public DoctorDetailResponse getDoctorDetail(Long id) {
+        return doctorDetails.get(id);
+    }
+
+    /**
+     * ข้อมูลย่อของหมอที่ active หรือ null (ไม่มี, inactive หรือไม่ได้ cache)
+     */
+    public DoctorSummaryResponse getDoctorSummary(Long id) {
+        return doctorSummaries.get(id);
+    }
+
+    static String specialtyKey(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // response shape shared with SpecialtyController for the uncached paths
+    public static Map<String, Object> specialty(Specialty specialty) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("id", specialty.getId());
+        response.put("name", specialty.getName());
+        response.put("description", specialty.getDescription());
+        response.put("createdAt", specialty.getCreatedAt());
+        return response;
+    }
+}
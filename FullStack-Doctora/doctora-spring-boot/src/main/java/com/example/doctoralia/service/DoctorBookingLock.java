@@ -0,0 +1,79 @@
+package com.example.doctoralia.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serializes bookings per doctor for the lifetime of the booking transaction.
+ *
+ * Inside one node a striped lock keeps concurrent requests for the same doctor in line
+ * (different doctors almost always land on different stripes, so there is no global lock).
+ * Across nodes pg_advisory_xact_lock(doctor_id) does the same in Postgres. Both are
+ * released when the transaction completes, after the slot index has seen the commit.
+ */
+@Component
+public class DoctorBookingLock {
+
+    private static final int STRIPES = 64;
+
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${booking.lock.timeout-ms:5000}")
+    private long timeoutMs = 5000;
+
+    public DoctorBookingLock() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * ล็อกการจองของหมอคนนี้จนกว่า transaction ปัจจุบันจะจบ (commit หรือ rollback)
+     */
+    public void lockForBooking(Long doctorId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Booking lock requires an active transaction");
+        }
+
+        ReentrantLock lock = stripeFor(doctorId);
+        try {
+            if (!lock.tryLock(timeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Doctor's schedule is busy. Please try again.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for booking lock");
+        }
+
+        // afterCompletion runs after every afterCommit callback, so the slot index is already current
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public int getOrder() {
+                return Ordered.LOWEST_PRECEDENCE;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+
+        jdbcTemplate.query("SELECT pg_advisory_xact_lock(?)", (ResultSetExtractor<Void>) rs -> null, doctorId);
+    }
+
+    private ReentrantLock stripeFor(Long doctorId) {
+        return stripes[(int) ((doctorId * 0x9E3779B97F4A7C15L) >>> 58)];
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.doctoralia.service;
+
+import java.time.LocalDate;
+
+/**
+ * One long map key per doctor and day: (doctorId << 20) | epochDay.
+ * 20 bits hold every epoch day from 1970 up to the year 4840; other dates are rejected,
+ * since a negative day would sign-extend over the doctor bits.
+ */
+final class DoctorDayKey {
+    private static final long DAY_MASK = 0xFFFFF;
+    private static final long MAX_DOCTOR_ID = Long.MAX_VALUE >>> 20;
+
+    private DoctorDayKey() {
+    }
+
+    static long of(long doctorId, LocalDate date) {
+        long epochDay = date.toEpochDay();
+        if (epochDay < 0 || epochDay > DAY_MASK) {
+            throw new IllegalArgumentException("Date out of range: " + date);
+        }
+        if (doctorId < 0 || doctorId > MAX_DOCTOR_ID) {
+            throw new IllegalArgumentException("Doctor id out of range: " + doctorId);
+        }
+        return (doctorId << 20) | epochDay;
+    }
+
+    static long doctorId(long key) {
+        return key >>> 20;
+    }
+
+    static long epochDay(long key) {
+        return key & DAY_MASK;
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.doctoralia.service;
+
+import com.example.doctoralia.dto.DoctorLoad;
+import com.example.doctoralia.model.Appointment;
+import com.example.doctoralia.model.AppointmentStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live doctor load per (specialty, day), used to auto-assign the least-loaded doctor.
+ *
+ * A day is loaded with one query through {@link SmartSelectService} and then kept current
+ * by {@link #recordChange} after each booking transaction commits. Doctors working that
+ * day sit in a sorted set ordered by booked minutes, so picking one is a first() call.
+ * Ties go to a per-day hash of the doctor id: deterministic, but not always the lowest id.
+ * Days are reloaded after {@link #REFRESH_MS} to pick up availability edits and other nodes.
+ */
+@Component
+public class DoctorLoadIndex {
+
+    static final long REFRESH_MS = 60_000;
+    private static final int MAX_CACHED_DAYS = 10_000;
+
+    private static final Comparator<Entry> LEAST_LOADED = Comparator
+            .comparingInt((Entry e) -> e.bookedMinutes)
+            .thenComparingLong(e -> e.tieKey)
+            .thenComparingLong(e -> e.doctorId);
+
+    // key = lower(specialty name) + "|" + epochDay
+    private final Map<String, SpecialtyDay> days = new ConcurrentHashMap<>();
+
+    @Autowired
+    private SmartSelectService smartSelectService;
+
+    /**
+     * หมอที่ออกตรวจวันนั้นและมีนาทีที่ถูกจองน้อยที่สุด
+     */
+    public Optional<DoctorLoad> leastLoaded(String specialtyName, LocalDate date) {
+        SpecialtyDay day = load(specialtyName, date);
+        synchronized (day) {
+            return day.available.isEmpty() ? Optional.empty() : Optional.of(day.available.first().toLoad());
+        }
+    }
+
+    /**
+     * ภาระงานของหมอ active ทุกคนในแผนก เรียงตาม doctor id
+     */
+    public List<DoctorLoad> getLoads(String specialtyName, LocalDate date) {
+        SpecialtyDay day = load(specialtyName, date);
+        synchronized (day) {
+            List<DoctorLoad> loads = new ArrayList<>(day.byDoctor.size());
+            day.byDoctor.values().forEach(entry -> loads.add(entry.toLoad()));
+            loads.sort(Comparator.comparing(DoctorLoad::getDoctorId));
+            return loads;
+        }
+    }
+
+    /**
+     * Apply a created appointment (previousStatus = null) or a status change to the cached day.
+     * Deferred until commit; days that are not cached are left to load fresh.
+     */
+    public void recordChange(Appointment appointment, AppointmentStatus previousStatus) {
+        int duration = appointment.getDurationMinutes() != null ? appointment.getDurationMinutes() : 30;
+        int queueDelta = counted(appointment.getStatus()) - counted(previousStatus);
+        if (queueDelta == 0) {
+            return;
+        }
+
+        Long doctorId = appointment.getDoctor().getId();
+        String key = key(appointment.getDoctor().getSpecialty().getName(),
+                appointment.getAppointmentDatetime().toLocalDate());
+
+        TransactionHooks.afterCommit(() -> {
+            SpecialtyDay day = days.get(key);
+            if (day != null) {
+                synchronized (day) {
+                    day.adjust(doctorId, queueDelta, queueDelta * duration);
+                }
+            }
+        });
+    }
+
+    /**
+     * ล้าง cache ทั้งหมด (เช่นตอนเปลี่ยนแผนกหรือลบหมอ)
+     */
+    public void clear() {
+        days.clear();
+    }
+
+    private SpecialtyDay load(String specialtyName, LocalDate date) {
+        String key = key(specialtyName, date);
+        SpecialtyDay day = days.get(key);
+        if (day != null && System.currentTimeMillis() - day.loadedAt < REFRESH_MS) {
+            return day;
+        }
+
+        if (days.size() >= MAX_CACHED_DAYS) {
+            long today = LocalDate.now().toEpochDay();
+            days.entrySet().removeIf(e -> e.getValue().epochDay < today);
+        }
+
+        SpecialtyDay fresh = new SpecialtyDay(date.toEpochDay(), smartSelectService.getDoctorLoads(specialtyName, date));
+        days.put(key, fresh);
+        return fresh;
+    }
+
+    private static String key(String specialtyName, LocalDate date) {
+        return specialtyName.toLowerCase(Locale.ROOT) + "|" + date.toEpochDay();
+    }
+
+    private static int counted(AppointmentStatus status) {
+        return status == AppointmentStatus.PENDING || status == AppointmentStatus.CONFIRMED ? 1 : 0;
+    }
+
+    static final class SpecialtyDay {
+        final long epochDay;
+        final long loadedAt = System.currentTimeMillis();
+        final Map<Long, Entry> byDoctor = new HashMap<>();
+        final TreeSet<Entry> available = new TreeSet<>(LEAST_LOADED);
+
+        SpecialtyDay(long epochDay, List<DoctorLoad> loads) {
+            this.epochDay = epochDay;
+            for (DoctorLoad load : loads) {
+                Entry entry = new Entry(load, tieKey(load.getDoctorId(), epochDay));
+                byDoctor.put(entry.doctorId, entry);
+                if (entry.available) {
+                    available.add(entry);
+                }
+            }
+        }
+
+        void adjust(Long doctorId, int queueDelta, int minutesDelta) {
+            Entry entry = byDoctor.get(doctorId);
+            if (entry == null) {
+                return; // หมอไม่ได้อยู่ในแผนกนี้ตอนโหลด
+            }
+            // remove before changing the sort key, re-insert after
+            boolean wasAvailable = entry.available && available.remove(entry);
+            entry.queueCount = Math.max(0, entry.queueCount + queueDelta);
+            entry.bookedMinutes = Math.max(0, entry.bookedMinutes + minutesDelta);
+            if (wasAvailable) {
+                available.add(entry);
+            }
+        }
+
+        private static long tieKey(long doctorId, long epochDay) {
+            long h = (doctorId ^ (epochDay * 0x9E3779B97F4A7C15L)) * 0xBF58476D1CE4E5B9L;
+            return h ^ (h >>> 31);
+        }
+    }
+
+    static final class Entry {
+        final long doctorId;
+        final boolean available;
+        final long tieKey;
+        int queueCount;
+        int bookedMinutes;
+
+        Entry(DoctorLoad load, long tieKey) {
+            this.doctorId = load.getDoctorId();
+            this.available = load.isAvailable();
+            this.tieKey = tieKey;
+            this.queueCount = load.getQueueCount();
+            this.bookedMinutes = load.getBookedMinutes();
+        }
+
+        DoctorLoad toLoad() {
+            return new DoctorLoad(doctorId, available, queueCount, bookedMinutes);
+        }
+    }
+}
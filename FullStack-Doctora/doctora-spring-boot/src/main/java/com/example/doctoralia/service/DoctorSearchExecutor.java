@@ -0,0 +1,155 @@
+package com.example.doctoralia.service;
+
+import com.example.doctoralia.dto.DoctorResponse;
+import com.example.doctoralia.dto.DoctorSearchResult;
+import com.example.doctoralia.model.Doctor;
+import com.example.doctoralia.repository.DoctorRepository;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the filtered doctor search (name, specialty, fee range) and caches each result page.
+ *
+ * Entries are keyed by the normalized filters and page and live for a short TTL. Doctor,
+ * specialty and doctor-name writes call {@link #invalidate()}, which drops everything
+ * after commit. A search that started before an invalidation keeps its older generation,
+ * so its result is never served afterwards.
+ *
+ * Slice mode (counted = false) skips the count(*) query and only reports whether a next
+ * page exists.
+ */
+@Service
+public class DoctorSearchExecutor {
+
+    static final int MAX_PAGE_SIZE = 100;
+
+    record Key(String name, Long specialtyId, BigDecimal minFee, BigDecimal maxFee,
+               boolean includeInactive, int page, int size, boolean counted) {
+    }
+
+    private record Entry(DoctorSearchResult result, long generation, long expiresAt) {
+    }
+
+    private final Map<Key, Entry> cache = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${doctor.search.cache.ttl:30s}")
+    private Duration ttl = Duration.ofSeconds(30);
+
+    @Value("${doctor.search.cache.max-entries:2000}")
+    private int maxEntries = 2000;
+
+    /**
+     * ค้นหาหมอตามตัวกรอง - ใช้ผลใน cache ถ้ายังไม่หมดอายุ
+     */
+    public DoctorSearchResult search(String name, Long specialtyId, BigDecimal minFee, BigDecimal maxFee,
+                                     boolean includeInactive, int page, int size, boolean counted) {
+        String normalizedName = DoctorService.normalizeName(name);
+        // clamped before keying so size=100000 cannot fill the cache with oversized pages
+        Key key = new Key(normalizedName, specialtyId, normalizeFee(minFee), normalizeFee(maxFee),
+                includeInactive, Math.max(page, 0), Math.max(1, Math.min(size, MAX_PAGE_SIZE)), counted);
+
+        long now = System.currentTimeMillis();
+        long current = generation.get();
+        Entry entry = cache.get(key);
+        if (entry != null && entry.generation() == current && entry.expiresAt() > now) {
+            hits.incrementAndGet();
+            return entry.result();
+        }
+        misses.incrementAndGet();
+
+        DoctorSearchResult result = load(key);
+        if (ttl.toMillis() > 0) {
+            if (cache.size() >= maxEntries) {
+                evict(now);
+            }
+            cache.put(key, new Entry(result, current, now + ttl.toMillis()));
+        }
+        return result;
+    }
+
+    /**
+     * ข้อมูลหมอ/แผนกเปลี่ยน - ล้างผลค้นหาทั้งหมดหลัง commit
+     */
+    public void invalidate() {
+        TransactionHooks.afterCommit(() -> {
+            generation.incrementAndGet();
+            cache.clear();
+        });
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("entries", cache.size());
+        metrics.put("hits", hits.get());
+        metrics.put("misses", misses.get());
+        metrics.put("ttlSeconds", ttl.toSeconds());
+        return metrics;
+    }
+
+    private DoctorSearchResult load(Key key) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template.execute(status -> {
+            Pageable pageable = PageRequest.of(key.page(), key.size());
+            if (key.counted()) {
+                Page<Doctor> doctors = key.includeInactive()
+                        ? doctorRepository.findDoctorsWithFiltersIncludingInactive(key.name(), key.specialtyId(), key.minFee(), key.maxFee(), pageable)
+                        : doctorRepository.findDoctorsWithFilters(key.name(), key.specialtyId(), key.minFee(), key.maxFee(), pageable);
+                return new DoctorSearchResult(toResponses(doctors), key.page(), key.size(),
+                        doctors.getTotalElements(), doctors.hasNext());
+            }
+            Slice<Doctor> doctors = key.includeInactive()
+                    ? doctorRepository.sliceDoctorsWithFiltersIncludingInactive(key.name(), key.specialtyId(), key.minFee(), key.maxFee(), pageable)
+                    : doctorRepository.sliceDoctorsWithFilters(key.name(), key.specialtyId(), key.minFee(), key.maxFee(), pageable);
+            return new DoctorSearchResult(toResponses(doctors), key.page(), key.size(), null, doctors.hasNext());
+        });
+    }
+
+    // native query ใส่ entity graph ไม่ได้ - โหลด user/specialty ใน transaction แล้วแปลงเป็น response เลย
+    private static List<DoctorResponse> toResponses(Slice<Doctor> doctors) {
+        return doctors.getContent().stream()
+                .peek(doctor -> {
+                    Hibernate.initialize(doctor.getUser());
+                    Hibernate.initialize(doctor.getSpecialty());
+                })
+                .map(DoctorResponse::from)
+                .toList();
+    }
+
+    private void evict(long now) {
+        cache.values().removeIf(entry -> entry.expiresAt() <= now || entry.generation() != generation.get());
+        if (cache.size() >= maxEntries) {
+            cache.clear(); // ยังเต็มอยู่ - เริ่มใหม่ดีกว่าไล่หา entry ที่เก่าที่สุด
+        }
+    }
+
+    // 500 กับ 500.00 เป็นค่าตรวจเดียวกัน
+    private static BigDecimal normalizeFee(BigDecimal fee) {
+        return fee != null ? fee.stripTrailingZeros() : null;
+    }
+}
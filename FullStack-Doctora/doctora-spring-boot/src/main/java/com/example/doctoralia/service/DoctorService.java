@@ -1,6 +1,8 @@
 package com.example.doctoralia.service;
 
+import com.example.doctoralia.config.DoctoraPrincipal;
 import com.example.doctoralia.dto.DoctorStats;
+import com.example.doctoralia.dto.DoctorSummaryResponse;
 import com.example.doctoralia.model.Doctor;
 import com.example.doctoralia.model.Specialty;
 import com.example.doctoralia.model.User;
@@ -20,7 +22,11 @@ import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
@@ -37,6 +43,12 @@ public class DoctorService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private CatalogChanges catalogChanges;
+
     //ค้นหาหมอทั้งหมด (เฉพาะ active) - สำหรับ public use
     public Page<Doctor> getAllDoctors(int page, int size, String sortBy) {
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortBy));
@@ -49,27 +61,9 @@ public class DoctorService {
         return doctorRepository.findAll(pageable);
     }
 
-    /**
-     * ค้นหาหมอขั้นสูง (ชื่อ + แผนก + ค่าตรวจ) - เฉพาะ active
-     */
-    public Page<Doctor> searchDoctors(String name, Long specialtyId, BigDecimal minFee, BigDecimal maxFee,
-                                      int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("user.firstName").ascending());
-        return doctorRepository.findDoctorsWithFilters(name, specialtyId, minFee, maxFee, pageable);
-    }
-
-    /**
-     * ค้นหาหมอขั้นสูง (รวม inactive) - สำหรับ admin
-     */
-    public Page<Doctor> searchDoctorsIncludingInactive(String name, Long specialtyId, BigDecimal minFee, BigDecimal maxFee,
-                                                       int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("user.firstName").ascending());
-        return doctorRepository.findDoctorsWithFiltersIncludingInactive(name, specialtyId, minFee, maxFee, pageable);
-    }
-
     //ค้นหาหมอตาม ID (รวม inactive) - สำหรับ admin
     public Optional<Doctor> findById(Long id) {
-        return doctorRepository.findById(id);
+        return doctorRepository.findWithUserAndSpecialtyById(id);
     }
 
     //หาหมอจาก User ID
@@ -77,6 +71,26 @@ public class DoctorService {
         return doctorRepository.findByUserId(userId);
     }
 
+    /**
+     * doctor id ของ user ที่ login อยู่ - ใช้ claim doctorId ใน token ถ้ามี
+     * Tokens issued before the doctor profile existed fall back to one id-only query.
+     */
+    public Optional<Long> resolveDoctorId(Long userId) {
+        DoctoraPrincipal principal = DoctoraPrincipal.current();
+        if (principal != null && principal.getDoctorId() != null && userId.equals(principal.getUserId())) {
+            return Optional.of(principal.getDoctorId());
+        }
+        return doctorRepository.findIdByUserId(userId);
+    }
+
+    //doctor id สำหรับใส่ใน token ตอน login (null ถ้าไม่ใช่หมอ)
+    public Long findDoctorIdForToken(User user) {
+        if (user.getRole() != UserRole.DOCTOR) {
+            return null;
+        }
+        return doctorRepository.findIdByUserId(user.getId()).orElse(null);
+    }
+
     //หาหมอจาก specialty (เฉพาะ active) - สำหรับ public
     public Page<Doctor> findBySpecialty(Long specialtyId, int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("user.firstName").ascending());
@@ -91,12 +105,51 @@ public class DoctorService {
 
     //ค้นหาตามชื่อหมอ (เฉพาะ active) - สำหรับ public
     public List<Doctor> findByName(String name) {
-        return doctorRepository.findByDoctorNameContaining(name);
+        String normalized = normalizeName(name);
+        return doctorRepository.findByDoctorNameContaining(normalized != null ? normalized : "");
     }
 
     //ค้นหาตามชื่อหมอ (รวม inactive) - สำหรับ admin
     public List<Doctor> findByNameIncludingInactive(String name) {
-        return doctorRepository.findByDoctorNameContainingIncludingInactive(name);
+        String normalized = normalizeName(name);
+        return doctorRepository.findByDoctorNameContainingIncludingInactive(normalized != null ? normalized : "");
+    }
+
+    /**
+     * คำค้นในรูปเดียวกับ users.search_name: ตัวพิมพ์เล็ก, เว้นวรรคเดียว, escape อักขระพิเศษของ LIKE
+     * null ถ้าไม่มีคำค้น
+     */
+    static String normalizeName(String name) {
+        if (name == null) {
+            return null;
+        }
+        String normalized = name.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        if (normalized.isEmpty()) {
+            return null;
+        }
+        return normalized.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * ข้อมูลย่อของหมอ active ตาม id เรียงตามลำดับที่ส่งมา - จาก catalog snapshot ถ้ามี
+     */
+    public List<DoctorSummaryResponse> findActiveSummaries(List<Long> doctorIds) {
+        if (doctorIds.isEmpty()) {
+            return List.of();
+        }
+        CatalogSnapshot snapshot = catalogService.get();
+        if (snapshot.isDoctorsCached()) {
+            return doctorIds.stream().map(snapshot::getDoctorSummary).filter(Objects::nonNull).toList();
+        }
+        Map<Long, Doctor> doctors = new HashMap<>();
+        for (Doctor doctor : doctorRepository.findWithUserAndSpecialtyByIdIn(doctorIds)) {
+            doctors.put(doctor.getId(), doctor);
+        }
+        return doctorIds.stream()
+                .map(doctors::get)
+                .filter(doctor -> doctor != null && Boolean.TRUE.equals(doctor.getIsActive()))
+                .map(DoctorSummaryResponse::from)
+                .toList();
     }
 
     //หาหมอทั้งหมดที่ active (สำหรับการแสดง list)
@@ -162,6 +215,7 @@ public class DoctorService {
         doctor.setIsActive(true);
 
         Doctor savedDoctor = doctorRepository.save(doctor);
+        catalogChanges.doctorChanged(savedDoctor);
         logger.info("Doctor created successfully: {} for user: {}", licenseNumber, user.getEmail());
 
         return savedDoctor;
@@ -171,7 +225,7 @@ public class DoctorService {
     public Doctor updateDoctor(Long doctorId, Long specialtyId, String licenseNumber,
                               String bio, Integer experienceYears, BigDecimal consultationFee, String roomNumber) {
 
-        Optional<Doctor> doctorOpt = doctorRepository.findById(doctorId);
+        Optional<Doctor> doctorOpt = doctorRepository.findWithUserAndSpecialtyById(doctorId);
         if (doctorOpt.isEmpty()) {
             throw new IllegalArgumentException("Doctor not found with ID: " + doctorId);
         }
@@ -201,6 +255,7 @@ public class DoctorService {
         if (roomNumber != null) doctor.setRoomNumber(roomNumber);
 
         Doctor updatedDoctor = doctorRepository.save(doctor);
+        catalogChanges.doctorChanged(doctor);
         logger.info("Doctor updated by admin: {}", doctor.getLicenseNumber());
 
         return updatedDoctor;
@@ -210,7 +265,7 @@ public class DoctorService {
     public Doctor updateDoctorProfile(Long doctorId, String bio, Integer experienceYears,
                                       BigDecimal consultationFee, String roomNumber) {
 
-        Optional<Doctor> doctorOpt = doctorRepository.findById(doctorId);
+        Optional<Doctor> doctorOpt = doctorRepository.findWithUserAndSpecialtyById(doctorId);
         if (doctorOpt.isEmpty()) {
             throw new IllegalArgumentException("Doctor not found with ID: " + doctorId);
         }
@@ -223,6 +278,7 @@ public class DoctorService {
         if (roomNumber != null) doctor.setRoomNumber(roomNumber);
 
         Doctor updatedDoctor = doctorRepository.save(doctor);
+        catalogChanges.doctorChanged(doctor);
         logger.info("Doctor profile updated: {}", doctor.getLicenseNumber());
 
         return updatedDoctor;
@@ -249,13 +305,14 @@ public class DoctorService {
         // ลบ User หลังจากลบ Doctor แล้ว
         userRepository.deleteById(userId);
         userRepository.flush(); // บังคับให้ลบทันที
+        catalogChanges.doctorRemoved(doctorId);
 
         logger.info("Doctor and User deleted by admin - License: {}, Email: {}", licenseNumber, userEmail);
     }
 
     //เปิด/ปิดการใช้งานหมอ (admin)
     public Doctor toggleDoctorStatus(Long doctorId, boolean isActive) {
-        Optional<Doctor> doctorOpt = doctorRepository.findById(doctorId);
+        Optional<Doctor> doctorOpt = doctorRepository.findWithUserAndSpecialtyById(doctorId);
         if (doctorOpt.isEmpty()) {
             throw new IllegalArgumentException("Doctor not found with ID: " + doctorId);
         }
@@ -264,6 +321,7 @@ public class DoctorService {
         doctor.setIsActive(isActive);
 
         Doctor updatedDoctor = doctorRepository.save(doctor);
+        catalogChanges.doctorChanged(doctor);
         logger.info("Doctor status updated: {} - Active: {}", doctor.getLicenseNumber(), isActive);
 
         return updatedDoctor;
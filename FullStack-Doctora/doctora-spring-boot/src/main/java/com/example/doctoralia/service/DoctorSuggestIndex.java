@@ -0,0 +1,427 @@
+package com.example.doctoralia.service;
+
+import com.example.doctoralia.dto.DoctorSuggestion;
+import com.example.doctoralia.model.Doctor;
+import com.example.doctoralia.model.Specialty;
+import com.example.doctoralia.repository.DoctorRepository;
+import com.example.doctoralia.repository.SpecialtyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory typeahead over active doctors and specialties for /api/doctors/suggest.
+ *
+ * Names are normalized (lower case, Thai tone marks and title prefixes such as "นพ." removed)
+ * and every 1-, 2- and 3-character substring points to the entries containing it. Thai is
+ * written without spaces, so substrings rather than words are indexed. A query reads one
+ * posting list (up to 3 characters) or intersects its trigram lists, checks the candidates
+ * and keeps the best k.
+ *
+ * Doctor writes update single entries after commit; specialty changes rebuild the index.
+ * Readers never lock: posting lists are immutable arrays replaced whole, and candidates are
+ * re-checked against the entry text. Above suggest.index.max-entries the index is dropped and
+ * {@link #suggest} returns null so callers fall back to the database.
+ */
+@Component
+public class DoctorSuggestIndex {
+    private static final Logger logger = LoggerFactory.getLogger(DoctorSuggestIndex.class);
+
+    static final int MAX_GRAM = 3;
+    // longer names are cut for indexing, which bounds postings per entry
+    static final int MAX_TEXT_LENGTH = 80;
+    public static final int MAX_LIMIT = 20;
+
+    // คำนำหน้าที่ตัดออกทั้งชื่อและคำค้น (เฉพาะแบบมีจุด ไม่ชนกับต้นชื่อ เช่น "นพดล")
+    private static final String[] TITLES = {
+            "ทพญ.", "นพ.", "พญ.", "ทพ.", "ภก.", "ภญ.", "ผศ.", "รศ.", "ศ.", "ดร.",
+            "prof.", "dr."
+    };
+    // without a dot they are only titles when followed by a space
+    private static final String[] SPACED_TITLES = {"นางสาว ", "นาง ", "นาย ", "dr "};
+
+    private record Entry(int slot, DoctorSuggestion suggestion, String text, int kind) {}
+
+    private record Scored(Entry entry, int rank) {}
+
+    private static final Comparator<Scored> BEST_FIRST = Comparator
+            .comparingInt(Scored::rank)
+            .thenComparingInt(s -> s.entry().kind())
+            .thenComparingInt(s -> s.entry().text().length())
+            .thenComparingLong(s -> s.entry().suggestion().id());
+
+    private static final class State {
+        final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+        final Map<String, int[]> postings = new ConcurrentHashMap<>();
+        // writer side only (under writeLock)
+        final Map<Long, Integer> doctorSlots = new HashMap<>();
+        final Map<Long, Integer> specialtySlots = new HashMap<>();
+        final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+        int nextSlot;
+    }
+
+    private static final int KIND_SPECIALTY = 0;
+    private static final int KIND_DOCTOR = 1;
+
+    // null = not built yet, invalidated, or over the budget (see overBudget)
+    private volatile State state;
+    private volatile boolean overBudget;
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private SpecialtyRepository specialtyRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${suggest.index.max-entries:20000}")
+    private int maxEntries = 20000;
+
+    /**
+     * คำแนะนำสูงสุด limit รายการ หรือ null ถ้า index เกินงบหน่วยความจำ (ให้ไปค้นใน database)
+     */
+    public List<DoctorSuggestion> suggest(String query, int limit) {
+        State current = state;
+        if (current == null) {
+            if (overBudget) {
+                return null;
+            }
+            current = rebuild();
+            if (current == null) {
+                return null;
+            }
+        }
+        String q = normalize(query);
+        if (q.isEmpty()) {
+            return List.of();
+        }
+
+        int k = Math.max(1, Math.min(limit, MAX_LIMIT));
+        PriorityQueue<Scored> top = new PriorityQueue<>(k + 1, BEST_FIRST.reversed());
+        for (int slot : candidates(current, q)) {
+            Entry entry = current.entries.get(slot);
+            if (entry == null) {
+                continue; // removed after the posting list was read
+            }
+            int at = entry.text().indexOf(q);
+            if (at < 0) {
+                continue;
+            }
+            top.add(new Scored(entry, rank(entry.text(), q, at)));
+            if (top.size() > k) {
+                top.poll();
+            }
+        }
+
+        List<Scored> best = new ArrayList<>(top);
+        best.sort(BEST_FIRST);
+        return best.stream().map(s -> s.entry().suggestion()).toList();
+    }
+
+    /**
+     * หมอถูกสร้าง/แก้ไข/เปิดปิด - อัปเดตเฉพาะรายการนี้หลัง commit (doctor ต้องโหลด user และ specialty แล้ว)
+     */
+    public void doctorChanged(Doctor doctor) {
+        Long id = doctor.getId();
+        boolean active = Boolean.TRUE.equals(doctor.getIsActive());
+        DoctorSuggestion suggestion = DoctorSuggestion.doctor(id, doctor.getDoctorName(), doctor.getSpecialtyName());
+        String text = normalize(doctor.getDoctorName());
+        TransactionHooks.afterCommit(() -> update(current -> {
+            if (active && !text.isEmpty()) {
+                put(current, current.doctorSlots, id, suggestion, text, KIND_DOCTOR);
+            } else {
+                remove(current, current.doctorSlots, id);
+            }
+        }));
+    }
+
+    public void doctorRemoved(Long doctorId) {
+        TransactionHooks.afterCommit(() -> update(current -> remove(current, current.doctorSlots, doctorId)));
+    }
+
+    /**
+     * แผนกหรือชื่อหมอเปลี่ยนแบบหลายรายการ - สร้าง index ใหม่หลัง commit
+     */
+    public void invalidate() {
+        TransactionHooks.afterCommit(() -> {
+            writeLock.lock();
+            try {
+                state = null;
+                overBudget = false;
+            } finally {
+                writeLock.unlock();
+            }
+        });
+        // off the writer's thread, which still holds its connection during afterCommit
+        TransactionHooks.afterCommitAsync(() -> {
+            try {
+                rebuild();
+            } catch (Exception e) {
+                // readers rebuild on their next call
+                logger.warn("Doctor suggest index rebuild failed: {}", e.getMessage());
+            }
+        });
+    }
+
+    public Map<String, Object> getMetrics() {
+        State current = state;
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("built", current != null);
+        metrics.put("overBudget", overBudget);
+        metrics.put("entries", current != null ? current.entries.size() : 0);
+        metrics.put("grams", current != null ? current.postings.size() : 0);
+        metrics.put("maxEntries", maxEntries);
+        return metrics;
+    }
+
+    State rebuild() {
+        writeLock.lock();
+        try {
+            if (state != null || overBudget) {
+                return state;
+            }
+            // joins the caller's transaction if there is one instead of taking a second connection
+            TransactionTemplate template = new TransactionTemplate(transactionManager);
+            template.setReadOnly(true);
+            State fresh = template.execute(status -> {
+                List<Specialty> specialties = specialtyRepository.findAllByOrderByNameAsc();
+                List<Doctor> doctors = doctorRepository.findActiveWithUserAndSpecialty();
+                if (specialties.size() + doctors.size() > maxEntries) {
+                    logger.warn("{} doctors and specialties exceed suggest.index.max-entries={}, suggestions come from the database",
+                            specialties.size() + doctors.size(), maxEntries);
+                    return null;
+                }
+                State built = new State();
+                for (Specialty specialty : specialties) {
+                    String text = normalize(specialty.getName());
+                    if (!text.isEmpty()) {
+                        put(built, built.specialtySlots, specialty.getId(),
+                                DoctorSuggestion.specialty(specialty.getId(), specialty.getName()), text, KIND_SPECIALTY);
+                    }
+                }
+                for (Doctor doctor : doctors) {
+                    String text = normalize(doctor.getDoctorName());
+                    if (!text.isEmpty()) {
+                        put(built, built.doctorSlots, doctor.getId(),
+                                DoctorSuggestion.doctor(doctor.getId(), doctor.getDoctorName(), doctor.getSpecialtyName()),
+                                text, KIND_DOCTOR);
+                    }
+                }
+                return built;
+            });
+            overBudget = fresh == null;
+            state = fresh;
+            return fresh;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void update(Consumer<State> change) {
+        writeLock.lock();
+        try {
+            State current = state;
+            if (current == null) {
+                return; // the next rebuild reads the committed data
+            }
+            change.accept(current);
+            if (current.entries.size() > maxEntries) {
+                logger.warn("Doctor suggest index is over suggest.index.max-entries={}, dropping it", maxEntries);
+                state = null;
+                overBudget = true;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static void put(State state, Map<Long, Integer> slots, Long id,
+                            DoctorSuggestion suggestion, String text, int kind) {
+        remove(state, slots, id);
+        Integer free = state.freeSlots.poll();
+        int slot = free != null ? free : state.nextSlot++;
+        Entry entry = new Entry(slot, suggestion, text, kind);
+        // entry first, then postings: a reader that finds the slot can always resolve it
+        state.entries.put(slot, entry);
+        for (String gram : grams(text)) {
+            state.postings.merge(gram, new int[]{slot}, DoctorSuggestIndex::union);
+        }
+        slots.put(id, slot);
+    }
+
+    private static void remove(State state, Map<Long, Integer> slots, Long id) {
+        Integer slot = slots.remove(id);
+        if (slot == null) {
+            return;
+        }
+        Entry entry = state.entries.remove(slot);
+        for (String gram : grams(entry.text())) {
+            state.postings.computeIfPresent(gram, (g, list) -> {
+                int[] rest = without(list, slot);
+                return rest.length == 0 ? null : rest;
+            });
+        }
+        state.freeSlots.add(slot);
+    }
+
+    private static int[] candidates(State state, String q) {
+        if (q.length() <= MAX_GRAM) {
+            return state.postings.getOrDefault(q, new int[0]);
+        }
+        // smallest trigram list first, then intersect with the others
+        List<int[]> lists = new ArrayList<>();
+        for (int i = 0; i + MAX_GRAM <= q.length(); i++) {
+            int[] list = state.postings.get(q.substring(i, i + MAX_GRAM));
+            if (list == null) {
+                return new int[0];
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.length));
+        int[] result = lists.get(0);
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = intersect(result, lists.get(i));
+        }
+        return result;
+    }
+
+    // 0 = whole name, 1 = start of name, 2 = start of a word, 3 = anywhere
+    private static int rank(String text, String q, int at) {
+        if (at == 0) {
+            return text.length() == q.length() ? 0 : 1;
+        }
+        if (text.charAt(at - 1) == ' ' || text.contains(" " + q)) {
+            return 2;
+        }
+        return 3;
+    }
+
+    /**
+     * รูปมาตรฐานสำหรับจับคู่: NFKC, ตัวพิมพ์เล็ก, ตัดวรรณยุกต์/ไม้ไต่คู้/การันต์, ตัดคำนำหน้า, ตัดเครื่องหมายวรรคตอน
+     */
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String text = Normalizer.normalize(value, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT).strip();
+
+        boolean stripped = true;
+        while (stripped) {
+            stripped = false;
+            for (String title : TITLES) {
+                if (text.startsWith(title)) {
+                    text = text.substring(title.length()).stripLeading();
+                    stripped = true;
+                }
+            }
+            for (String title : SPACED_TITLES) {
+                if (text.startsWith(title)) {
+                    text = text.substring(title.length()).stripLeading();
+                    stripped = true;
+                }
+            }
+        }
+
+        StringBuilder out = new StringBuilder(Math.min(text.length(), MAX_TEXT_LENGTH));
+        boolean space = false;
+        for (int i = 0; i < text.length() && out.length() < MAX_TEXT_LENGTH; i++) {
+            char c = text.charAt(i);
+            if (isIgnoredThaiMark(c)) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c) || Character.getType(c) == Character.NON_SPACING_MARK) {
+                if (space && out.length() > 0) {
+                    out.append(' ');
+                }
+                space = false;
+                out.append(c);
+            } else {
+                space = true; // spaces, dots, dashes ... become one space
+            }
+        }
+        return out.toString();
+    }
+
+    // ่ ้ ๊ ๋ (tone marks), ็ (mai taikhu), ์ (thanthakhat), ๎ (yamakkan) - often left out when typing
+    private static boolean isIgnoredThaiMark(char c) {
+        return (c >= '\u0E47' && c <= '\u0E4C') || c == '\u0E4E';
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int n = 1; n <= MAX_GRAM; n++) {
+            for (int i = 0; i + n <= text.length(); i++) {
+                String gram = text.substring(i, i + n);
+                if (!gram.isBlank()) {
+                    grams.add(gram);
+                }
+            }
+        }
+        return grams;
+    }
+
+    private static int[] union(int[] list, int[] single) {
+        int slot = single[0];
+        int at = Arrays.binarySearch(list, slot);
+        if (at >= 0) {
+            return list;
+        }
+        int insert = -at - 1;
+        int[] grown = new int[list.length + 1];
+        System.arraycopy(list, 0, grown, 0, insert);
+        grown[insert] = slot;
+        System.arraycopy(list, insert, grown, insert + 1, list.length - insert);
+        return grown;
+    }
+
+    private static int[] without(int[] list, int slot) {
+        int at = Arrays.binarySearch(list, slot);
+        if (at < 0) {
+            return list;
+        }
+        int[] shrunk = new int[list.length - 1];
+        System.arraycopy(list, 0, shrunk, 0, at);
+        System.arraycopy(list, at + 1, shrunk, at, list.length - at - 1);
+        return shrunk;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                out[n++] = a[i];
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.doctoralia.service;
+
+import com.example.doctoralia.dto.BookedSlot;
+import com.example.doctoralia.model.AppointmentStatus;
+import com.example.doctoralia.model.Availability;
+import com.example.doctoralia.repository.AppointmentRepository;
+import com.example.doctoralia.repository.AvailabilityRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Free time of a doctor over a date range: weekly availability expanded to concrete days
+ * minus PENDING/CONFIRMED appointments.
+ *
+ * Everything is done on int minute offsets from midnight of the first day, stored as flat
+ * [start, end) pairs, and the subtraction is one sweep over two sorted lists. Objects are
+ * only created for the free intervals that end up in the response.
+ */
+@Service
+public class FreeSlotService {
+
+    static final int MINUTES_PER_DAY = 24 * 60;
+    public static final int MAX_DAYS = 92;
+
+    @Autowired
+    private AvailabilityRepository availabilityRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    /**
+     * ช่วงเวลาว่างของหมอตั้งแต่วันที่ from ถึง to (รวมทั้งสองวัน) ที่ยาวพอสำหรับอย่างน้อย 1 slot
+     */
+    public List<Map<String, Object>> getFreeIntervals(Long doctorId, LocalDate from, LocalDate to, int slotMinutes) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("'to' must not be before 'from'");
+        }
+        int days = (int) ChronoUnit.DAYS.between(from, to) + 1;
+        if (days > MAX_DAYS) {
+            throw new IllegalArgumentException("Date range must not exceed " + MAX_DAYS + " days");
+        }
+        if (slotMinutes < 5 || slotMinutes > 480) {
+            throw new IllegalArgumentException("slotMinutes must be between 5 and 480");
+        }
+
+        LocalDateTime origin = from.atStartOfDay();
+        int[][] weekly = weeklyTemplate(availabilityRepository.findByDoctorIdAndIsActiveTrueOrderByDayOfWeekAscStartTimeAsc(doctorId));
+        int[] available = expand(weekly, from.getDayOfWeek().getValue(), days);
+
+        // include the day before so appointments running past midnight into 'from' are seen
+        List<BookedSlot> booked = appointmentRepository.findSlotsByDoctorIdAndRange(
+                doctorId, origin.minusDays(1), to.plusDays(1).atStartOfDay());
+        int nowOffset = (int) Math.min(Integer.MAX_VALUE,
+                Math.max(0, Duration.between(origin, LocalDateTime.now(ZoneId.systemDefault())).toMinutes() + 1));
+        int[] busy = busyIntervals(booked, origin, nowOffset);
+
+        int[] free = new int[available.length + busy.length + 2];
+        int freeLength = subtract(available, available.length, busy, busy.length, slotMinutes, free);
+
+        List<Map<String, Object>> intervals = new ArrayList<>(freeLength / 2);
+        for (int i = 0; i < freeLength; i += 2) {
+            int start = free[i];
+            int end = free[i + 1];
+            int day = start / MINUTES_PER_DAY;
+            Map<String, Object> interval = new HashMap<>();
+            interval.put("date", from.plusDays(day).toString());
+            interval.put("start", LocalTime.ofSecondOfDay((start - day * MINUTES_PER_DAY) * 60L).toString());
+            interval.put("end", end - day * MINUTES_PER_DAY == MINUTES_PER_DAY
+                    ? "24:00" : LocalTime.ofSecondOfDay((end - day * MINUTES_PER_DAY) * 60L).toString());
+            interval.put("slots", (end - start) / slotMinutes);
+            intervals.add(interval);
+        }
+        return intervals;
+    }
+
+    /**
+     * Availability rows grouped by day of week (index 1-7) as sorted, merged [start, end) minute pairs
+     */
+    static int[][] weeklyTemplate(List<Availability> availabilities) {
+        int[][] weekly = new int[8][];
+        int[] counts = new int[8];
+        for (Availability availability : availabilities) {
+            counts[availability.getDayOfWeek()]++;
+        }
+        for (int dow = 1; dow <= 7; dow++) {
+            weekly[dow] = new int[counts[dow] * 2];
+            counts[dow] = 0;
+        }
+        for (Availability availability : availabilities) {
+            int dow = availability.getDayOfWeek();
+            weekly[dow][counts[dow]++] = availability.getStartTime().toSecondOfDay() / 60;
+            weekly[dow][counts[dow]++] = availability.getEndTime().toSecondOfDay() / 60;
+        }
+        for (int dow = 1; dow <= 7; dow++) {
+            weekly[dow] = merge(weekly[dow], weekly[dow].length);
+        }
+        return weekly;
+    }
+
+    /**
+     * Repeat the weekly template over 'days' days starting on firstDayOfWeek (1=Monday)
+     */
+    static int[] expand(int[][] weekly, int firstDayOfWeek, int days) {
+        int length = 0;
+        for (int day = 0; day < days; day++) {
+            length += weekly[(firstDayOfWeek - 1 + day) % 7 + 1].length;
+        }
+        int[] out = new int[length];
+        int n = 0;
+        for (int day = 0; day < days; day++) {
+            int[] template = weekly[(firstDayOfWeek - 1 + day) % 7 + 1];
+            int base = day * MINUTES_PER_DAY;
+            for (int i = 0; i < template.length; i++) {
+                out[n++] = base + template[i];
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Blocking appointments as merged minute pairs relative to origin, plus [0, nowOffset) for the past
+     */
+    static int[] busyIntervals(List<BookedSlot> booked, LocalDateTime origin, int nowOffset) {
+        int[] pairs = new int[booked.size() * 2 + 2];
+        int n = 0;
+        if (nowOffset > 0) {
+            pairs[n++] = 0;
+            pairs[n++] = nowOffset;
+        }
+        for (BookedSlot slot : booked) {
+            if (slot.getStatus() != AppointmentStatus.PENDING && slot.getStatus() != AppointmentStatus.CONFIRMED) {
+                continue;
+            }
+            int start = (int) Duration.between(origin, slot.getStartTime()).toMinutes();
+            int duration = slot.getDurationMinutes() != null ? slot.getDurationMinutes() : 30;
+            if (start + duration <= 0) {
+                continue;
+            }
+            pairs[n++] = Math.max(0, start);
+            pairs[n++] = start + duration;
+        }
+        return merge(pairs, n);
+    }
+
+    /**
+     * Sort [start, end) pairs by start and join the ones that overlap or touch
+     */
+    static int[] merge(int[] pairs, int length) {
+        int count = length / 2;
+        if (count == 0) {
+            return new int[0];
+        }
+        // pack (start, end) into one long so a primitive sort orders by start
+        long[] packed = new long[count];
+        for (int i = 0; i < count; i++) {
+            packed[i] = ((long) pairs[2 * i] << 32) | (pairs[2 * i + 1] & 0xFFFFFFFFL);
+        }
+        Arrays.sort(packed);
+
+        int[] out = new int[length];
+        int n = 0;
+        for (long p : packed) {
+            int start = (int) (p >> 32);
+            int end = (int) p;
+            if (n > 0 && start <= out[n - 1]) {
+                out[n - 1] = Math.max(out[n - 1], end);
+            } else {
+                out[n++] = start;
+                out[n++] = end;
+            }
+        }
+        return n == length ? out : Arrays.copyOf(out, n);
+    }
+
+    /**
+     * Sweep-line difference of two sorted, non-overlapping pair lists. Writes the pieces of
+     * 'available' not covered by 'busy' that are at least minLength long into out and
+     * returns how many ints were written. out needs room for availableLength + busyLength.
+     */
+    static int subtract(int[] available, int availableLength, int[] busy, int busyLength, int minLength, int[] out) {
+        int n = 0;
+        int j = 0;
+        for (int i = 0; i < availableLength; i += 2) {
+            int cursor = available[i];
+            int end = available[i + 1];
+
+            // busy intervals that finished before this window can never matter again
+            while (j < busyLength && busy[j + 1] <= cursor) {
+                j += 2;
+            }
+            for (int k = j; k < busyLength && busy[k] < end; k += 2) {
+                if (busy[k] > cursor && busy[k] - cursor >= minLength) {
+                    out[n++] = cursor;
+                    out[n++] = busy[k];
+                }
+                cursor = Math.max(cursor, busy[k + 1]);
+            }
+            if (end - cursor >= minLength) {
+                out[n++] = cursor;
+                out[n++] = end;
+            }
+        }
+        return n;
+    }
+}
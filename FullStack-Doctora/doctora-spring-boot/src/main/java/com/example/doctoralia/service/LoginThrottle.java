@@ -0,0 +1,111 @@
+package com.example.doctoralia.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Token buckets per client IP and per email for login and registration.
+ *
+ * Checked before any password hashing, so a client hammering the endpoint is turned away
+ * for the price of a map lookup. Buckets refill continuously; idle ones are dropped once
+ * the maps grow past {@link #MAX_BUCKETS}.
+ */
+@Component
+public class LoginThrottle {
+
+    private static final int MAX_BUCKETS = 50_000;
+
+    private final Map<String, Bucket> ipBuckets = new ConcurrentHashMap<>();
+    private final Map<String, Bucket> emailBuckets = new ConcurrentHashMap<>();
+
+    @Value("${auth.throttle.ip.capacity:20}")
+    private int ipCapacity = 20;
+
+    @Value("${auth.throttle.ip.per-minute:20}")
+    private int ipPerMinute = 20;
+
+    @Value("${auth.throttle.email.capacity:5}")
+    private int emailCapacity = 5;
+
+    @Value("${auth.throttle.email.per-minute:5}")
+    private int emailPerMinute = 5;
+
+    /**
+     * ใช้ token ของ IP และ email อย่างละ 1
+     * Returns 0 when allowed, otherwise the seconds to wait before retrying.
+     */
+    public long tryAcquire(String ip, String email) {
+        long now = System.nanoTime();
+        Bucket ipBucket = bucket(ipBuckets, ip, ipCapacity, ipPerMinute, now);
+        long ipWait = ipBucket.tryTake(now);
+        if (ipWait > 0) {
+            return ipWait;
+        }
+        if (email == null || email.isBlank()) {
+            return 0;
+        }
+        Bucket emailBucket = bucket(emailBuckets, email.trim().toLowerCase(Locale.ROOT),
+                emailCapacity, emailPerMinute, now);
+        long emailWait = emailBucket.tryTake(now);
+        if (emailWait > 0) {
+            ipBucket.giveBack(); // คำขอนี้ไม่ได้ผ่าน ไม่ต้องนับกับ IP
+        }
+        return emailWait;
+    }
+
+    private static Bucket bucket(Map<String, Bucket> buckets, String key, int capacity, int perMinute, long now) {
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= MAX_BUCKETS) {
+                buckets.values().removeIf(b -> b.isFull(now));
+                if (buckets.size() >= MAX_BUCKETS) {
+                    buckets.clear();
+                }
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new Bucket(capacity, perMinute, now));
+        }
+        return bucket;
+    }
+
+    static final class Bucket {
+        private final double capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long refilledAt;
+
+        Bucket(int capacity, int perMinute, long now) {
+            this.capacity = capacity;
+            this.tokensPerNano = perMinute / 60e9;
+            this.tokens = capacity;
+            this.refilledAt = now;
+        }
+
+        // 0 = ได้ token, มากกว่า 0 = วินาทีที่ต้องรอ
+        synchronized long tryTake(long now) {
+            refill(now);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1 - tokens) / tokensPerNano / 1e9));
+        }
+
+        synchronized void giveBack() {
+            tokens = Math.min(capacity, tokens + 1);
+        }
+
+        synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= capacity;
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.doctoralia.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * BCrypt for login and registration on a small fixed pool with a bounded queue.
+ *
+ * A hash costs tens of milliseconds of pure CPU, so a burst of logins on request threads
+ * would take every core from the booking endpoints. Here at most {@code auth.hash.threads}
+ * hashes run at once; when the queue is full the call fails fast with
+ * {@link RejectedExecutionException}, which the auth endpoints answer with 429.
+ */
+@Service
+public class PasswordHashingService {
+
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong totalHashNanos = new AtomicLong();
+    private final AtomicLong maxHashNanos = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    public PasswordHashingService(@Value("${auth.hash.threads:0}") int threads,
+                                  @Value("${auth.hash.queue-capacity:32}") int queueCapacity,
+                                  @Value("${auth.hash.timeout-ms:5000}") long timeoutMs) {
+        // ค่าเริ่มต้น: ครึ่งหนึ่งของ CPU เพื่อให้เหลือ core ให้ระบบจองคิว
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, "password-hash-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.timeoutMs = timeoutMs;
+    }
+
+    public String encode(String rawPassword) {
+        return run(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return run(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * สถิติสำหรับ admin: เวลา hash, ความยาวคิว และจำนวนที่ถูกปฏิเสธ
+     */
+    public Map<String, Object> getMetrics() {
+        long done = completed.get();
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("poolSize", executor.getMaximumPoolSize());
+        metrics.put("activeHashes", executor.getActiveCount());
+        metrics.put("queueDepth", executor.getQueue().size());
+        metrics.put("queueCapacity", executor.getQueue().size() + executor.getQueue().remainingCapacity());
+        metrics.put("completed", done);
+        metrics.put("rejected", rejected.get());
+        metrics.put("avgHashMs", done == 0 ? 0.0 : totalHashNanos.get() / 1e6 / done);
+        metrics.put("maxHashMs", maxHashNanos.get() / 1e6);
+        metrics.put("avgQueueWaitMs", done == 0 ? 0.0 : totalWaitNanos.get() / 1e6 / done);
+        return metrics;
+    }
+
+    private <T> T run(Callable<T> hash) {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long started = System.nanoTime();
+                try {
+                    return hash.call();
+                } finally {
+                    long took = System.nanoTime() - started;
+                    totalWaitNanos.addAndGet(started - submitted);
+                    totalHashNanos.addAndGet(took);
+                    maxHashNanos.accumulateAndGet(took, Math::max);
+                    completed.incrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw new RejectedExecutionException("Authentication is busy. Please try again shortly.");
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.incrementAndGet();
+            throw new RejectedExecutionException("Authentication is busy. Please try again shortly.");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.doctoralia.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out queue numbers per doctor per day.
+ *
+ * The queue_counters row of a (doctor, day) is advanced a whole block at a time; numbers are
+ * then handed out from memory and the next block is reserved in the background once the
+ * current one is half used, so a booking normally never touches the database for its number.
+ * Numbers are unique but may skip a few after a restart or when several nodes share a day.
+ *
+ * When a booking finds the block used up it advances the counter on its own connection, in
+ * its own transaction: the new block is shared with other bookings only after that commit,
+ * and a rollback gives the whole block back with the booking.
+ */
+@Component
+public class QueueNumberAllocator {
+    private static final Logger logger = LoggerFactory.getLogger(QueueNumberAllocator.class);
+
+    private static final String RESERVE_SQL =
+            "INSERT INTO queue_counters (doctor_id, queue_date, last_value) VALUES (?, ?, ?) " +
+            "ON CONFLICT (doctor_id, queue_date) " +
+            "DO UPDATE SET last_value = queue_counters.last_value + EXCLUDED.last_value " +
+            "RETURNING last_value";
+
+    private static final int MAX_CACHED_DAYS = 10_000;
+    private static final long PREFETCH_WAIT_MS = 2_000;
+
+    // key = DoctorDayKey.of(doctorId, date)
+    private final Map<Long, Block> blocks = new ConcurrentHashMap<>();
+
+    private final ExecutorService refiller = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "queue-number-refill");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${booking.queue.block-size:10}")
+    private int blockSize = 10;
+
+    /**
+     * เลขคิวถัดไปของหมอในวันนั้น รูปแบบ 3 หลัก (001, 002, ...)
+     */
+    public String next(Long doctorId, LocalDate date) {
+        long key = DoctorDayKey.of(doctorId, date);
+        Block block = blocks.get(key);
+        if (block == null) {
+            if (blocks.size() >= MAX_CACHED_DAYS) {
+                long today = LocalDate.now().toEpochDay();
+                blocks.keySet().removeIf(k -> DoctorDayKey.epochDay(k) < today);
+            }
+            block = blocks.computeIfAbsent(key, k -> new Block(doctorId, date));
+        }
+
+        int number;
+        boolean prefetch;
+        block.lock.lock();
+        try {
+            number = take(block);
+            prefetch = !block.refilling && block.pending == 0 && block.prefetched == null
+                    && block.last - block.next < blockSize / 2;
+            if (prefetch) {
+                block.refilling = true;
+            }
+        } finally {
+            block.lock.unlock();
+        }
+
+        if (prefetch) {
+            Block target = block;
+            refiller.execute(() -> prefetch(target));
+        }
+        return String.format("%03d", number);
+    }
+
+    // เรียกขณะถือ block.lock: เลขถัดไปจากช่วงปัจจุบัน หรือจองช่วงใหม่เมื่อหมด
+    private int take(Block block) {
+        long deadline = System.currentTimeMillis() + PREFETCH_WAIT_MS;
+        while (block.next > block.last) {
+            long waitMs = deadline - System.currentTimeMillis();
+            if (block.prefetched != null) {
+                block.next = block.prefetched[0];
+                block.last = block.prefetched[1];
+                block.prefetched = null;
+            } else if ((block.refilling || block.pending > 0) && waitMs > 0) {
+                // ช่วงถัดไปกำลังจองอยู่ รอแทนการจองซ้ำ (อาจมีเธรดอื่นเติมให้แล้วระหว่างรอ)
+                try {
+                    block.refilled.await(waitMs, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    deadline = 0;
+                }
+            } else if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                return reserveForBooking(block);
+            } else {
+                int last = reserve(block.doctorId, block.date);
+                block.next = last - blockSize + 1;
+                block.last = last;
+            }
+        }
+        return block.next++;
+    }
+
+    // the counter row stays locked by the booking until it ends; the rest of the block is
+    // handed to other bookings only once it has committed
+    private int reserveForBooking(Block block) {
+        int last = reserve(block.doctorId, block.date);
+        int first = last - blockSize + 1;
+        block.pending++;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                block.lock.lock();
+                try {
+                    block.pending--;
+                    if (status == STATUS_COMMITTED && first < last) {
+                        if (block.next > block.last) {
+                            block.next = first + 1;
+                            block.last = last;
+                        } else if (block.prefetched == null) {
+                            block.prefetched = new int[]{first + 1, last};
+                        } // else: skipped, another booking already refilled the day
+                    }
+                    block.refilled.signalAll();
+                } finally {
+                    block.lock.unlock();
+                }
+            }
+        });
+        return first;
+    }
+
+    private void prefetch(Block block) {
+        try {
+            int last = reserve(block.doctorId, block.date);
+            block.lock.lock();
+            try {
+                block.prefetched = new int[]{last - blockSize + 1, last};
+            } finally {
+                block.lock.unlock();
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to prefetch queue numbers for doctor {} on {}: {}",
+                    block.doctorId, block.date, e.getMessage());
+        } finally {
+            block.lock.lock();
+            try {
+                block.refilling = false;
+                block.refilled.signalAll();
+            } finally {
+                block.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Advance the counter by one block, in the caller's transaction if there is one
+     */
+    private int reserve(Long doctorId, LocalDate date) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        Integer last = template.execute(status ->
+                jdbcTemplate.queryForObject(RESERVE_SQL, Integer.class, doctorId, date, blockSize));
+        if (last == null) {
+            throw new IllegalStateException("Could not reserve queue numbers for doctor " + doctorId);
+        }
+        return last;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refiller.shutdownNow();
+    }
+
+    // ReentrantLock, not synchronized: take may query the database while holding it,
+    // which would pin the carrier thread of a virtual thread
+    private static final class Block {
+        final ReentrantLock lock = new ReentrantLock();
+        final Condition refilled = lock.newCondition();
+        final Long doctorId;
+        final LocalDate date;
+        int next = 1;
+        int last = 0;
+        int[] prefetched;
+        boolean refilling;
+        // blocks reserved by bookings that have not committed yet
+        int pending;
+
+        Block(Long doctorId, LocalDate date) {
+            this.doctorId = doctorId;
+            this.date = date;
+        }
+    }
+}
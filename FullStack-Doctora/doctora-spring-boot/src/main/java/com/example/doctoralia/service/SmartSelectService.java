@@ -0,0 +1,64 @@
+package com.example.doctoralia.service;
+
+import com.example.doctoralia.dto.DoctorLoad;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Smart select - โหลดภาระงานของหมอทั้งแผนกจาก database
+ *
+ * Availability and the day's queue of every active doctor in the specialty come back from
+ * one aggregated query instead of two lookups per doctor. Target: p99 under 25 ms for a
+ * specialty of 30 doctors on a warm pool (see SmartSelectServiceBenchmarkTest).
+ * Selection itself is answered from {@link DoctorLoadIndex}, which calls this on a miss.
+ */
+@Service
+public class SmartSelectService {
+
+    private static final String DOCTOR_LOADS_SQL = """
+            SELECT d.id AS doctor_id,
+                   av.slot_count IS NOT NULL AS available,
+                   COALESCE(q.queue_count, 0) AS queue_count,
+                   COALESCE(q.booked_minutes, 0) AS booked_minutes
+            FROM doctors d
+            JOIN specialties s ON s.id = d.specialty_id
+            LEFT JOIN (
+                SELECT doctor_id, COUNT(*) AS slot_count
+                FROM availabilities
+                WHERE day_of_week = ? AND is_active = true
+                GROUP BY doctor_id
+            ) av ON av.doctor_id = d.id
+            LEFT JOIN (
+                SELECT doctor_id, COUNT(*) AS queue_count, SUM(COALESCE(duration_minutes, 30)) AS booked_minutes
+                FROM appointments
+                WHERE appointment_datetime >= ? AND appointment_datetime < ?
+                  AND status IN ('PENDING', 'CONFIRMED')
+                GROUP BY doctor_id
+            ) q ON q.doctor_id = d.id
+            WHERE d.is_active = true AND LOWER(s.name) = LOWER(?)
+            ORDER BY d.id
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * ดึงคิวของหมอทุกคนในแผนก (active เท่านั้น) ในวันที่กำหนด ด้วย query เดียว
+     */
+    public List<DoctorLoad> getDoctorLoads(String specialtyName, LocalDate date) {
+        return jdbcTemplate.query(DOCTOR_LOADS_SQL,
+                (rs, rowNum) -> new DoctorLoad(
+                        rs.getLong("doctor_id"),
+                        rs.getBoolean("available"),
+                        rs.getInt("queue_count"),
+                        rs.getInt("booked_minutes")),
+                date.getDayOfWeek().getValue(),
+                date.atStartOfDay(),
+                date.plusDays(1).atStartOfDay(),
+                specialtyName);
+    }
+}
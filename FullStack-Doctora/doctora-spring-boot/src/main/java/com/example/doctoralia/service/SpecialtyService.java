@@ -10,7 +10,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -24,6 +26,9 @@ public class SpecialtyService {
     @Autowired
     private DoctorRepository doctorRepository;
 
+    @Autowired
+    private CatalogChanges catalogChanges;
+
     //ดึงแผนกทั้งหมด
     public List<Specialty> getAllSpecialties() {
         return specialtyRepository.findAllByOrderByNameAsc();
@@ -60,6 +65,7 @@ public class SpecialtyService {
         specialty.setDescription(description);
 
         Specialty savedSpecialty = specialtyRepository.save(specialty);
+        catalogChanges.specialtyChanged(savedSpecialty.getId());
         logger.info("Specialty created successfully: {}", name);
 
         return savedSpecialty;
@@ -85,6 +91,7 @@ public class SpecialtyService {
         specialty.setDescription(description);
 
         Specialty updatedSpecialty = specialtyRepository.save(specialty);
+        catalogChanges.specialtyChanged(id);
         logger.info("Specialty updated successfully: {}", name);
 
         return updatedSpecialty;
@@ -106,6 +113,7 @@ public class SpecialtyService {
         }
 
         specialtyRepository.deleteById(id);
+        catalogChanges.specialtyChanged(id);
         logger.info("Specialty deleted successfully: {}", specialtyOpt.get().getName());
     }
 
@@ -122,11 +130,14 @@ public class SpecialtyService {
     public List<SpecialtyWithDoctorCount> getSpecialtiesWithDoctorCount() {
         List<Specialty> specialties = specialtyRepository.findAllByOrderByNameAsc();
 
+        // นับหมอทุกแผนกใน query เดียว แทนการนับทีละแผนก
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : doctorRepository.countActiveBySpecialty()) {
+            counts.put((Long) row[0], (Long) row[1]);
+        }
+
         return specialties.stream()
-                .map(specialty -> {
-                    long doctorCount = doctorRepository.countBySpecialtyIdAndIsActiveTrue(specialty.getId());
-                    return new SpecialtyWithDoctorCount(specialty, doctorCount);
-                })
+                .map(specialty -> new SpecialtyWithDoctorCount(specialty, counts.getOrDefault(specialty.getId(), 0L)))
                 .toList();
     }
 }
@@ -0,0 +1,63 @@
+package com.example.doctoralia.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs cache maintenance once the surrounding transaction has committed.
+ *
+ * afterCommit callbacks run on the writer's thread while it still holds its connection, so
+ * they must not read the database. Work that does (rebuilding a snapshot or index) goes
+ * through {@link #afterCommitAsync}: it is handed to one shared background thread, the
+ * writer returns without waiting, and at most one extra connection is used for refreshes
+ * no matter how many writers there are. Outside a transaction both run inline.
+ */
+final class TransactionHooks {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionHooks.class);
+
+    private static final ExecutorService REFRESHER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "cache-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private TransactionHooks() {
+    }
+
+    static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * หลัง commit ทำงานบน thread เบื้องหลัง (ไม่กิน connection ที่สองของ request)
+     */
+    static void afterCommitAsync(Runnable action) {
+        afterCommit(() -> {
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                action.run();
+                return;
+            }
+            REFRESHER.execute(() -> {
+                try {
+                    action.run();
+                } catch (RuntimeException e) {
+                    logger.warn("Background cache refresh failed: {}", e.getMessage());
+                }
+            });
+        });
+    }
+}
@@ -3,11 +3,11 @@ package com.example.doctoralia.service;
 import com.example.doctoralia.config.JwtUtils;
 import com.example.doctoralia.model.User;
 import com.example.doctoralia.model.UserRole;
+import com.example.doctoralia.repository.DoctorRepository;
 import com.example.doctoralia.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -20,8 +20,15 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
 
+    // BCrypt runs on the bounded hashing pool, not on the request thread
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashing;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private CatalogChanges catalogChanges;
 
     //สมัครสมาชิก
     public User registerUser(String email, String password, String firstName, String lastName, UserRole role) {
@@ -33,7 +40,7 @@ public class UserService {
         //สร้าง user ใหม่
         User user = new User();
         user.setEmail(email);
-        user.setPassword(passwordEncoder.encode(password));
+        user.setPassword(passwordHashing.encode(password));
         user.setFirstName(firstName);
         user.setLastName(lastName);
         user.setRole(role);
@@ -54,7 +61,7 @@ public class UserService {
             User user = userOpt.get();
 
             //เช็ค password
-            if (passwordEncoder.matches(password, user.getPassword())) {
+            if (passwordHashing.matches(password, user.getPassword())) {
                 logger.info("User found successfully: {} with role {}",email,user.getRole());
                 return Optional.of(user);
             } else {
@@ -98,6 +105,10 @@ public class UserService {
             user.setPhone(phone);
 
             User updatedUser = userRepository.save(user);
+            if (user.getRole() == UserRole.DOCTOR) {
+                // ชื่อหมอแสดงอยู่ใน catalog, ผลค้นหา และ suggest
+                doctorRepository.findWithUserAndSpecialtyByUserId(userId).ifPresent(catalogChanges::doctorChanged);
+            }
             logger.info("User profile updated: {}", user.getEmail());
 
             return updatedUser;
@@ -115,8 +126,8 @@ public class UserService {
             User user = userOpt.get();
 
             //เช็ค password เดิมว่าถูกมั้ย
-            if (passwordEncoder.matches(oldPassword, user.getPassword())) {
-                user.setPassword(passwordEncoder.encode(newPassword));
+            if (passwordHashing.matches(oldPassword, user.getPassword())) {
+                user.setPassword(passwordHashing.encode(newPassword));
                 userRepository.save(user);
                 logger.info("Password changed successfully for user: {}", user.getEmail());
             } else {
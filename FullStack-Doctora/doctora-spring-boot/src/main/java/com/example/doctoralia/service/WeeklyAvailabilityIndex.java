@@ -0,0 +1,477 @@
+package com.example.doctoralia.service;
+
+import com.example.doctoralia.dto.AvailabilityWindow;
+import com.example.doctoralia.dto.FreeWindow;
+import com.example.doctoralia.repository.AvailabilityRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
+
+/**
+ * Weekly availability of active doctors as bitsets, at quarter-hour resolution.
+ *
+ * Every doctor's week is 7 x 96 quarter-hours (11 longs); a quarter-hour is set only when
+ * one availability covers all of it. The same bits are also kept per quarter-hour, as a
+ * set of doctor ordinals, together with one ordinal set per specialty. "Who is free Monday
+ * 10:15-11:00 in this specialty" is then an AND over a few rows, and "when are these
+ * doctors all (or any of them) free" an AND (OR) of their weeks.
+ *
+ * The state is immutable and swapped whole. Availability and doctor writes call
+ * {@link #doctorChanged}; after commit that doctor's rows are read again on the background
+ * refresh thread and only the quarter-hour rows whose bits changed are copied.
+ */
+@Component
+public class WeeklyAvailabilityIndex {
+    private static final Logger logger = LoggerFactory.getLogger(WeeklyAvailabilityIndex.class);
+
+    public static final int SLOT_MINUTES = 15;
+    public static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+    public static final int WEEK_SLOTS = 7 * SLOTS_PER_DAY;
+    static final int WEEK_WORDS = (WEEK_SLOTS + 63) / 64;
+    private static final int SLOT_SECONDS = SLOT_MINUTES * 60;
+
+    private volatile State state;
+
+    // bumped by every invalidation; the state remembers the generation it was built for
+    private final AtomicLong generation = new AtomicLong();
+    private volatile long builtGeneration = -1;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicLong rebuilds = new AtomicLong();
+    private final AtomicLong doctorUpdates = new AtomicLong();
+
+    @Autowired
+    private AvailabilityRepository availabilityRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * หมอที่ว่างตลอดช่วง [from, until) ของวันนั้น (until = null คือ quarter-hour เดียว)
+     * เรียงตาม doctor id; specialtyId = null คือทุกแผนก
+     */
+    public List<Long> availableDoctors(int dayOfWeek, LocalTime from, LocalTime until, Long specialtyId) {
+        checkDay(dayOfWeek);
+        int first = slot(dayOfWeek, from);
+        int last = first + 1;
+        if (until != null) {
+            if (!until.isAfter(from)) {
+                throw new IllegalArgumentException("until must be after time");
+            }
+            last = (dayOfWeek - 1) * SLOTS_PER_DAY + (until.toSecondOfDay() + SLOT_SECONDS - 1) / SLOT_SECONDS;
+        }
+
+        State current = current();
+        long[] doctors = current.slots[first].clone();
+        for (int s = first + 1; s < last; s++) {
+            and(doctors, current.slots[s]);
+        }
+        if (specialtyId != null) {
+            long[] inSpecialty = current.specialties.get(specialtyId);
+            if (inSpecialty == null) {
+                return List.of();
+            }
+            and(doctors, inSpecialty);
+        }
+
+        List<Long> ids = new ArrayList<>();
+        forEachBit(doctors, ordinal -> ids.add(current.doctorIds[ordinal]));
+        ids.sort(null);
+        return ids;
+    }
+
+    /**
+     * ช่วงเวลาที่หมอทุกคน (all = true) หรืออย่างน้อยหนึ่งคน (all = false) ว่าง
+     * dayOfWeek = null คือทั้งสัปดาห์; หมอที่ไม่มีตารางนับเป็นไม่ว่างเลย
+     */
+    public List<FreeWindow> sharedWindows(Collection<Long> doctorIds, boolean all, Integer dayOfWeek) {
+        if (doctorIds.isEmpty()) {
+            throw new IllegalArgumentException("At least one doctor is required");
+        }
+        if (dayOfWeek != null) {
+            checkDay(dayOfWeek);
+        }
+
+        State current = current();
+        long[] week = new long[WEEK_WORDS];
+        if (all) {
+            Arrays.fill(week, -1L);
+        }
+        for (Long doctorId : doctorIds) {
+            Integer ordinal = current.ordinals.get(doctorId);
+            long[] doctorWeek = ordinal != null ? current.weeks[ordinal] : null;
+            if (doctorWeek == null) {
+                if (all) {
+                    return List.of();
+                }
+                continue;
+            }
+            if (all) {
+                and(week, doctorWeek);
+            } else {
+                or(week, doctorWeek);
+            }
+        }
+
+        int fromDay = dayOfWeek != null ? dayOfWeek : 1;
+        int toDay = dayOfWeek != null ? dayOfWeek : 7;
+        List<FreeWindow> windows = new ArrayList<>();
+        for (int day = fromDay; day <= toDay; day++) {
+            int base = (day - 1) * SLOTS_PER_DAY;
+            int s = 0;
+            while (s < SLOTS_PER_DAY) {
+                if (!get(week, base + s)) {
+                    s++;
+                    continue;
+                }
+                int start = s;
+                while (s < SLOTS_PER_DAY && get(week, base + s)) {
+                    s++;
+                }
+                windows.add(new FreeWindow(day, time(start), time(s)));
+            }
+        }
+        return windows;
+    }
+
+    /**
+     * ตารางของหมอคนนี้เปลี่ยน (availability, active, specialty) - อ่านใหม่หลัง commit
+     */
+    public void doctorChanged(Long doctorId) {
+        TransactionHooks.afterCommitAsync(() -> {
+            try {
+                reload(doctorId);
+            } catch (Exception e) {
+                logger.warn("Weekly availability update for doctor {} failed, rebuilding: {}", doctorId, e.getMessage());
+                generation.incrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * สร้างใหม่ทั้งหมดหลัง commit (ใช้เมื่อไม่รู้ว่าหมอคนไหนเปลี่ยน)
+     */
+    public void invalidate() {
+        TransactionHooks.afterCommit(generation::incrementAndGet);
+        TransactionHooks.afterCommitAsync(() -> {
+            try {
+                rebuild();
+            } catch (Exception e) {
+                // readers rebuild on their next call since builtGeneration is behind
+                logger.warn("Weekly availability rebuild failed: {}", e.getMessage());
+            }
+        });
+    }
+
+    public Map<String, Object> getMetrics() {
+        State current = state;
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("built", current != null);
+        metrics.put("doctors", current != null ? current.indexedDoctors() : 0);
+        metrics.put("specialties", current != null ? current.specialties.size() : 0);
+        metrics.put("doctorCapacity", current != null ? current.doctorIds.length : 0);
+        metrics.put("approxBytes", current != null ? current.approxBytes() : 0);
+        metrics.put("rebuilds", rebuilds.get());
+        metrics.put("doctorUpdates", doctorUpdates.get());
+        return metrics;
+    }
+
+    State current() {
+        State current = state;
+        if (current != null && builtGeneration == generation.get()) {
+            return current;
+        }
+        return rebuild();
+    }
+
+    State rebuild() {
+        lock.lock();
+        try {
+            long target = generation.get();
+            State current = state;
+            if (current != null && builtGeneration == target) {
+                return current; // อีก thread สร้างให้แล้วระหว่างรอ
+            }
+
+            List<AvailabilityWindow> windows = readOnly().execute(status -> availabilityRepository.findActiveWindows());
+            State fresh = State.build(windows != null ? windows : List.of());
+            state = fresh;
+            builtGeneration = target;
+            rebuilds.incrementAndGet();
+            logger.info("Weekly availability index built: {} doctors", fresh.indexedDoctors());
+            return fresh;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void reload(Long doctorId) {
+        lock.lock();
+        try {
+            State current = state;
+            if (current == null || builtGeneration != generation.get()) {
+                return; // the next reader builds everything anyway
+            }
+            List<AvailabilityWindow> windows = readOnly().execute(status ->
+                    availabilityRepository.findActiveWindowsByDoctorId(doctorId));
+            long[] week = new long[WEEK_WORDS];
+            Long specialtyId = null;
+            for (AvailabilityWindow window : windows != null ? windows : List.<AvailabilityWindow>of()) {
+                mark(week, window);
+                specialtyId = window.specialtyId();
+            }
+            state = current.withDoctor(doctorId, specialtyId, isEmpty(week) ? null : week);
+            doctorUpdates.incrementAndGet();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private TransactionTemplate readOnly() {
+        // joins the reader's transaction if there is one; refreshes run on their own thread
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
+    }
+
+    /**
+     * Immutable index content. Doctor ordinals are handed out once and kept until the next
+     * full build; a doctor without availability keeps its ordinal with no bits set.
+     */
+    static final class State {
+        final Map<Long, Integer> ordinals;
+        final long[] doctorIds;             // ordinal -> doctor id
+        final long[][] weeks;               // ordinal -> week bits, null = not available at all
+        final Long[] doctorSpecialties;     // ordinal -> specialty id
+        final long[][] slots;               // quarter-hour -> doctor ordinal bits
+        final Map<Long, long[]> specialties; // specialty id -> doctor ordinal bits
+        final int size;
+
+        private State(Map<Long, Integer> ordinals, long[] doctorIds, long[][] weeks, Long[] doctorSpecialties,
+                      long[][] slots, Map<Long, long[]> specialties, int size) {
+            this.ordinals = ordinals;
+            this.doctorIds = doctorIds;
+            this.weeks = weeks;
+            this.doctorSpecialties = doctorSpecialties;
+            this.slots = slots;
+            this.specialties = specialties;
+            this.size = size;
+        }
+
+        static State build(List<AvailabilityWindow> windows) {
+            Map<Long, long[]> weekByDoctor = new TreeMap<>();
+            Map<Long, Long> specialtyByDoctor = new HashMap<>();
+            for (AvailabilityWindow window : windows) {
+                mark(weekByDoctor.computeIfAbsent(window.doctorId(), id -> new long[WEEK_WORDS]), window);
+                specialtyByDoctor.put(window.doctorId(), window.specialtyId());
+            }
+
+            int capacity = capacityFor(weekByDoctor.size() + weekByDoctor.size() / 4);
+            int words = capacity / 64;
+            Map<Long, Integer> ordinals = new HashMap<>();
+            long[] doctorIds = new long[capacity];
+            long[][] weeks = new long[capacity][];
+            Long[] doctorSpecialties = new Long[capacity];
+            long[][] slots = new long[WEEK_SLOTS][words];
+            Map<Long, long[]> specialties = new HashMap<>();
+
+            int ordinal = 0;
+            for (Map.Entry<Long, long[]> entry : weekByDoctor.entrySet()) {
+                long[] week = entry.getValue();
+                if (isEmpty(week)) {
+                    continue; // e.g. only a 10-minute availability
+                }
+                Long specialtyId = specialtyByDoctor.get(entry.getKey());
+                ordinals.put(entry.getKey(), ordinal);
+                doctorIds[ordinal] = entry.getKey();
+                weeks[ordinal] = week;
+                doctorSpecialties[ordinal] = specialtyId;
+                int bit = ordinal;
+                forEachBit(week, s -> set(slots[s], bit));
+                if (specialtyId != null) {
+                    set(specialties.computeIfAbsent(specialtyId, id -> new long[words]), bit);
+                }
+                ordinal++;
+            }
+            return new State(ordinals, doctorIds, weeks, doctorSpecialties, slots, specialties, ordinal);
+        }
+
+        /**
+         * copy with one doctor's week replaced (week = null removes the doctor)
+         */
+        State withDoctor(Long doctorId, Long specialtyId, long[] week) {
+            Integer existing = ordinals.get(doctorId);
+            if (existing == null && week == null) {
+                return this;
+            }
+
+            Map<Long, Integer> newOrdinals = ordinals;
+            long[] newDoctorIds = doctorIds;
+            long[][] newWeeks = weeks.clone();
+            Long[] newSpecialtiesOf = doctorSpecialties.clone();
+            long[][] newSlots = slots.clone();
+            Map<Long, long[]> newSpecialties = new HashMap<>(specialties);
+            int newSize = size;
+
+            int ordinal;
+            if (existing != null) {
+                ordinal = existing;
+            } else {
+                ordinal = size;
+                newSize = size + 1;
+                if (ordinal == doctorIds.length) {
+                    // เต็ม - ขยายทุก row เป็น capacity ใหม่
+                    int capacity = capacityFor(newSize * 2);
+                    int words = capacity / 64;
+                    newDoctorIds = Arrays.copyOf(doctorIds, capacity);
+                    newWeeks = Arrays.copyOf(newWeeks, capacity);
+                    newSpecialtiesOf = Arrays.copyOf(newSpecialtiesOf, capacity);
+                    for (int s = 0; s < WEEK_SLOTS; s++) {
+                        newSlots[s] = Arrays.copyOf(newSlots[s], words);
+                    }
+                    newSpecialties.replaceAll((id, bits) -> Arrays.copyOf(bits, words));
+                } else {
+                    newDoctorIds = doctorIds.clone();
+                }
+                newDoctorIds[ordinal] = doctorId;
+                newOrdinals = new HashMap<>(ordinals);
+                newOrdinals.put(doctorId, ordinal);
+            }
+
+            // quarter-hours that changed for this doctor - copy only those rows
+            long[] oldWeek = newWeeks[ordinal] != null ? newWeeks[ordinal] : new long[WEEK_WORDS];
+            long[] changed = new long[WEEK_WORDS];
+            for (int w = 0; w < WEEK_WORDS; w++) {
+                changed[w] = oldWeek[w] ^ (week != null ? week[w] : 0L);
+            }
+            long[][] slotRows = newSlots;
+            forEachBit(changed, s -> {
+                long[] row = slotRows[s].clone();
+                row[ordinal >>> 6] ^= 1L << ordinal;
+                slotRows[s] = row;
+            });
+            newWeeks[ordinal] = week;
+
+            Long oldSpecialty = newSpecialtiesOf[ordinal];
+            Long newSpecialty = week != null ? specialtyId : null;
+            if (oldSpecialty != null && !oldSpecialty.equals(newSpecialty)) {
+                long[] bits = newSpecialties.get(oldSpecialty).clone();
+                bits[ordinal >>> 6] &= ~(1L << ordinal);
+                newSpecialties.put(oldSpecialty, bits);
+            }
+            if (newSpecialty != null && !newSpecialty.equals(oldSpecialty)) {
+                int words = newDoctorIds.length / 64;
+                long[] bits = newSpecialties.containsKey(newSpecialty)
+                        ? newSpecialties.get(newSpecialty).clone() : new long[words];
+                set(bits, ordinal);
+                newSpecialties.put(newSpecialty, bits);
+            }
+            newSpecialtiesOf[ordinal] = newSpecialty;
+
+            return new State(newOrdinals, newDoctorIds, newWeeks, newSpecialtiesOf, newSlots, newSpecialties, newSize);
+        }
+
+        int indexedDoctors() {
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (weeks[i] != null) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        long approxBytes() {
+            long words = (long) WEEK_SLOTS * (doctorIds.length / 64)
+                    + (long) specialties.size() * (doctorIds.length / 64)
+                    + (long) indexedDoctors() * WEEK_WORDS;
+            return words * Long.BYTES;
+        }
+
+        // whole words of doctor ordinals
+        private static int capacityFor(int doctors) {
+            return Math.max(64, (doctors + 63) / 64 * 64);
+        }
+    }
+
+    // quarter-hours fully inside [start, end)
+    static void mark(long[] week, AvailabilityWindow window) {
+        Integer day = window.dayOfWeek();
+        if (day == null || day < 1 || day > 7 || window.startTime() == null || window.endTime() == null) {
+            return;
+        }
+        int first = (window.startTime().toSecondOfDay() + SLOT_SECONDS - 1) / SLOT_SECONDS;
+        int last = window.endTime().toSecondOfDay() / SLOT_SECONDS;
+        int base = (day - 1) * SLOTS_PER_DAY;
+        for (int s = first; s < last; s++) {
+            set(week, base + s);
+        }
+    }
+
+    private static int slot(int dayOfWeek, LocalTime time) {
+        return (dayOfWeek - 1) * SLOTS_PER_DAY + time.toSecondOfDay() / SLOT_SECONDS;
+    }
+
+    private static LocalTime time(int slotOfDay) {
+        return slotOfDay >= SLOTS_PER_DAY ? LocalTime.MAX : LocalTime.MIN.plusMinutes((long) slotOfDay * SLOT_MINUTES);
+    }
+
+    private static void checkDay(int dayOfWeek) {
+        if (dayOfWeek < 1 || dayOfWeek > 7) {
+            throw new IllegalArgumentException("Day of week must be between 1-7");
+        }
+    }
+
+    private static void and(long[] target, long[] other) {
+        for (int w = 0; w < target.length; w++) {
+            target[w] &= w < other.length ? other[w] : 0L;
+        }
+    }
+
+    private static void or(long[] target, long[] other) {
+        for (int w = 0; w < target.length; w++) {
+            target[w] |= other[w];
+        }
+    }
+
+    private static void set(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    private static boolean get(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static boolean isEmpty(long[] bits) {
+        for (long word : bits) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void forEachBit(long[] bits, IntConsumer action) {
+        for (int w = 0; w < bits.length; w++) {
+            long word = bits[w];
+            while (word != 0) {
+                action.accept((w << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+-- V12__add_appointment_end_and_overlap_exclusion.sql
+-- ป้องกันการนัดเวลาซ้อนกันในระดับ database (แทนการเช็คใน Application Layer อย่างเดียว)
+-- appointment_datetime + interval เป็น STABLE จึงใช้ generated column ไม่ได้ -> ใช้ trigger คำนวณเวลาสิ้นสุดแทน
+
+ALTER TABLE appointments ADD COLUMN appointment_end TIMESTAMP WITH TIME ZONE;
+
+UPDATE appointments
+SET appointment_end = appointment_datetime + make_interval(mins => COALESCE(duration_minutes, 30));
+
+ALTER TABLE appointments ALTER COLUMN appointment_end SET NOT NULL;
+
+CREATE OR REPLACE FUNCTION set_appointment_end() RETURNS trigger AS $$
+BEGIN
+    NEW.appointment_end := NEW.appointment_datetime + make_interval(mins => COALESCE(NEW.duration_minutes, 30));
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_appointments_set_end
+    BEFORE INSERT OR UPDATE OF appointment_datetime, duration_minutes ON appointments
+    FOR EACH ROW EXECUTE FUNCTION set_appointment_end();
+
+-- นัดที่ซ้อนกันอยู่แล้วก่อนมี constraint (double booking เดิม) จะถูก mark ไว้และไม่อยู่ใน constraint
+-- แทนที่จะไปแก้สถานะนัดของคนไข้
+ALTER TABLE appointments ADD COLUMN legacy_overlap BOOLEAN NOT NULL DEFAULT false;
+
+UPDATE appointments a
+SET legacy_overlap = true
+WHERE a.status IN ('PENDING', 'CONFIRMED')
+  AND EXISTS (
+      SELECT 1 FROM appointments b
+      WHERE b.doctor_id = a.doctor_id
+        AND b.id < a.id
+        AND b.status IN ('PENDING', 'CONFIRMED')
+        AND b.appointment_datetime < a.appointment_end
+        AND b.appointment_end > a.appointment_datetime
+  );
+
+-- EXCLUDE constraint: หมอคนเดียวกันห้ามมีนัด PENDING/CONFIRMED ที่ช่วงเวลาซ้อนกัน (ใช้ btree_gist จาก V4)
+ALTER TABLE appointments ADD CONSTRAINT appointments_no_overlap
+    EXCLUDE USING GIST (
+        doctor_id WITH =,
+        tstzrange(appointment_datetime, appointment_end, '[)') WITH &&
+    ) WHERE (status IN ('PENDING', 'CONFIRMED') AND NOT legacy_overlap);
@@ -0,0 +1,19 @@
+-- V13__create_queue_counters_table.sql
+-- ตัวนับเลขคิวแยกตามหมอและวัน (แทนการ SELECT MAX(queue_number) ทั้งตาราง)
+-- แอปจองเลขเป็นช่วง (block) ด้วย INSERT ... ON CONFLICT DO UPDATE ... RETURNING
+
+CREATE TABLE queue_counters (
+    doctor_id BIGINT NOT NULL REFERENCES doctors(id) ON DELETE CASCADE,
+    queue_date DATE NOT NULL,
+    last_value INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (doctor_id, queue_date)
+);
+
+-- เริ่มตัวนับจากเลขคิวที่ออกไปแล้ว (เดิมเลขมาจาก MAX ทั้งตาราง + 1) ไม่ให้วันที่มีการจองอยู่แล้วกลับไปเริ่ม 001
+-- แล้วซ้ำกับเลขที่พิมพ์ให้คนไข้ไปแล้ว; ข้ามเลขที่ไม่ใช่ตัวเลขล้วน (กรอกเองตอนจอง)
+INSERT INTO queue_counters (doctor_id, queue_date, last_value)
+SELECT a.doctor_id, a.appointment_datetime::date, MAX(pbi.queue_number::int)
+FROM patient_booking_info pbi
+JOIN appointments a ON a.id = pbi.appointment_id
+WHERE pbi.queue_number ~ '^[0-9]{1,9}$'
+GROUP BY a.doctor_id, a.appointment_datetime::date;
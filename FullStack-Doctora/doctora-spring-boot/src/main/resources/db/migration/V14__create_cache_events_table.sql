@@ -0,0 +1,14 @@
+-- V14__create_cache_events_table.sql
+-- บันทึกการเปลี่ยนแปลงที่ทำให้ cache ในแต่ละ node ต้องล้าง (doctor / specialty / availability)
+-- id ใช้เป็น version: node ที่หลุดการเชื่อมต่อ LISTEN จะอ่านต่อจาก id ล่าสุดที่เห็น (watermark)
+-- แถวเก่ากว่า 1 วันถูกลบโดยแอป
+
+CREATE TABLE cache_events (
+    id BIGSERIAL PRIMARY KEY,
+    entity_type VARCHAR(32) NOT NULL,
+    entity_id BIGINT,
+    origin VARCHAR(64) NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+CREATE INDEX idx_cache_events_created_at ON cache_events (created_at);
@@ -0,0 +1,14 @@
+-- V15__add_appointment_history_keyset_indexes.sql
+-- ประวัตินัดของผู้ป่วย/หมอ อ่านทีละหน้าแบบ keyset บน (appointment_datetime, id)
+-- index ตรงกับลำดับที่อ่าน ทำให้แต่ละหน้าเป็น index range scan ไม่ต้อง sort ทั้งประวัติ
+
+-- ผู้ป่วย: ใหม่สุดก่อน
+CREATE INDEX idx_appointments_patient_datetime_id
+    ON appointments (patient_id, appointment_datetime DESC, id DESC);
+
+-- หมอ: เรียงตามเวลานัด; ครอบคลุม idx_appointments_doctor_datetime เดิม (prefix เดียวกัน) จึงลบอันเดิม
+CREATE INDEX idx_appointments_doctor_datetime_id
+    ON appointments (doctor_id, appointment_datetime, id);
+
+DROP INDEX IF EXISTS idx_appointments_doctor_datetime;
+
@@ -0,0 +1,13 @@
+-- V16__add_doctor_name_trigram_index.sql
+-- ค้นหาหมอตามชื่อด้วย LIKE '%x%' ใช้ btree ไม่ได้ (seq scan ทุกครั้ง)
+-- เก็บชื่อเต็มแบบ normalize เป็น generated column แล้วทำ GIN trigram index
+-- ให้ทั้ง LIKE และ similarity() ใช้ index ได้
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- ต้องตรงกับ DoctorService.normalizeName: ตัวพิมพ์เล็ก, ชื่อ + ' ' + นามสกุล
+ALTER TABLE users
+    ADD COLUMN search_name TEXT
+        GENERATED ALWAYS AS (lower(coalesce(first_name, '') || ' ' || coalesce(last_name, ''))) STORED;
+
+CREATE INDEX idx_users_search_name_trgm ON users USING gin (search_name gin_trgm_ops);
@@ -0,0 +1,16 @@
+-- V17__name_availability_overlap_exclusion.sql
+-- ตั้งชื่อ EXCLUDE constraint ของ availabilities (V4 สร้างแบบไม่มีชื่อ) ให้ application
+-- แยก error เวลาซ้อนกันออกจาก error อื่นได้ - constraint ยังเป็นตัวกันสุดท้ายเมื่อมีการแก้ตารางพร้อมกัน
+
+DO $$
+DECLARE
+    existing TEXT;
+BEGIN
+    SELECT conname INTO existing
+    FROM pg_constraint
+    WHERE conrelid = 'availabilities'::regclass AND contype = 'x';
+
+    IF existing IS NOT NULL AND existing <> 'availabilities_no_overlap' THEN
+        EXECUTE format('ALTER TABLE availabilities RENAME CONSTRAINT %I TO availabilities_no_overlap', existing);
+    END IF;
+END $$;
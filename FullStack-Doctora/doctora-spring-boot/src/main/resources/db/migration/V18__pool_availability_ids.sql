@@ -0,0 +1,5 @@
+-- V18__pool_availability_ids.sql
+-- Hibernate จอง availability id ทีละ 50 (pooled optimizer) เพื่อให้ insert เป็น batch ได้
+-- ต้องตรงกับ allocationSize ใน Availability; INSERT ที่ใช้ DEFAULT nextval ยังใช้ได้ตามเดิม
+
+ALTER SEQUENCE availabilities_id_seq INCREMENT BY 50;
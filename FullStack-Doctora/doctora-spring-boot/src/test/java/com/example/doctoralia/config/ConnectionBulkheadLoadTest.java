@@ -0,0 +1,136 @@
+package com.example.doctoralia.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.mock.env.MockEnvironment;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Burst of booking and catalog requests against a simulated pool, in the three modes the
+ * application can run in: Tomcat's 200 platform threads, virtual threads straight on the
+ * pool, and virtual threads behind {@link ConnectionBulkhead}.
+ *
+ * There is no database here: a booking holds one of 10 connections for 4 ms (advisory
+ * lock, conflict check, insert) and the pool hands connections out unfairly with a 2 s
+ * timeout, like Hikari. A catalog read is served from the snapshot and holds no
+ * connection. Run with DOCTORA_JMH=true; the table is printed to stdout.
+ */
+@EnabledIfEnvironmentVariable(named = "DOCTORA_JMH", matches = "true")
+class ConnectionBulkheadLoadTest {
+
+    private static final int POOL_SIZE = 10;
+    private static final long POOL_TIMEOUT_MS = 2_000;
+    private static final long BOOKING_HOLD_MS = 4;
+    private static final int REQUESTS = 6_000;
+
+    private record Result(String mode, String endpoint, int ok, int failed, long wallMs, double p50, double p99, double max) {}
+
+    @Test
+    void comparesThreadModelsUnderABurst() throws Exception {
+        List<Result> results = new ArrayList<>();
+        for (String endpoint : new String[]{"booking", "catalog"}) {
+            results.add(run("platform-200", endpoint, Executors.newFixedThreadPool(200), pool()));
+            results.add(run("virtual", endpoint, Executors.newVirtualThreadPerTaskExecutor(), pool()));
+            ConnectionBulkhead bulkhead = new ConnectionBulkhead(new MockEnvironment()
+                    .withProperty("booking.db.bulkhead.timeout-ms", String.valueOf(POOL_TIMEOUT_MS))
+                    .withProperty("booking.db.bulkhead.reserve", "0"));
+            results.add(run("virtual+bulkhead", endpoint, Executors.newVirtualThreadPerTaskExecutor(),
+                    (DataSource) bulkhead.postProcessAfterInitialization(pool(), "dataSource")));
+        }
+
+        System.out.printf("%-18s %-8s %6s %6s %8s %9s %9s %9s%n", "mode", "endpoint", "ok", "failed", "wall ms", "p50 ms", "p99 ms", "max ms");
+        for (Result r : results) {
+            System.out.printf("%-18s %-8s %6d %6d %8d %9.1f %9.1f %9.1f%n",
+                    r.mode(), r.endpoint(), r.ok(), r.failed(), r.wallMs(), r.p50(), r.p99(), r.max());
+        }
+        results.forEach(r -> assertEquals(REQUESTS, r.ok() + r.failed()));
+    }
+
+    private Result run(String mode, String endpoint, ExecutorService executor, DataSource dataSource) throws Exception {
+        long began = System.nanoTime();
+        List<Future<Long>> latencies = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            latencies.add(executor.submit(() -> {
+                if (endpoint.equals("booking")) {
+                    try (Connection connection = dataSource.getConnection()) {
+                        Thread.sleep(BOOKING_HOLD_MS);
+                    } catch (SQLException e) {
+                        return -1L;
+                    }
+                } else {
+                    Thread.sleep(0, 200_000); // serialize the snapshot page
+                }
+                return System.nanoTime() - began;
+            }));
+        }
+
+        int failed = 0;
+        long[] nanos = new long[REQUESTS];
+        int ok = 0;
+        for (Future<Long> latency : latencies) {
+            long value = latency.get(1, TimeUnit.MINUTES);
+            if (value < 0) {
+                failed++;
+            } else {
+                nanos[ok++] = value;
+            }
+        }
+        long wallMs = (System.nanoTime() - began) / 1_000_000;
+        executor.shutdown();
+
+        long[] done = Arrays.copyOf(nanos, ok);
+        Arrays.sort(done);
+        return new Result(mode, endpoint, ok, failed, wallMs,
+                percentile(done, 0.50), percentile(done, 0.99), percentile(done, 1.0));
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1e6;
+    }
+
+    // Hikari stand-in: connections go to whichever waiter gets there first, not the oldest
+    private static HikariDataSource pool() {
+        Semaphore connections = new Semaphore(POOL_SIZE, false);
+        HikariDataSource hikari = new HikariDataSource() {
+            @Override
+            public Connection getConnection() throws SQLException {
+                try {
+                    if (!connections.tryAcquire(POOL_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                        throw new SQLTransientConnectionException("Connection is not available, request timed out");
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLTransientConnectionException("Interrupted", e);
+                }
+                return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                        (proxy, method, args) -> {
+                            if (method.getName().equals("close")) {
+                                connections.release();
+                            }
+                            return null;
+                        });
+            }
+        };
+        hikari.setMaximumPoolSize(POOL_SIZE);
+        return hikari;
+    }
+}
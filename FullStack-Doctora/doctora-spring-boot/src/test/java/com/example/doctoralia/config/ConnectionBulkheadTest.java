@@ -0,0 +1,90 @@
+package com.example.doctoralia.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ConnectionBulkheadTest {
+
+    @Test
+    void holdsOnePermitPerOpenConnection() throws Exception {
+        ConnectionBulkhead bulkhead = new ConnectionBulkhead(
+                new MockEnvironment().withProperty("booking.db.bulkhead.timeout-ms", "50"));
+        Connection physical = mock(Connection.class);
+        DataSource dataSource = bulkheaded(bulkhead, physical, 4);
+        assertEquals(2, bulkhead.getMetrics().get("permits")); // 4 minus the reserve of 2
+
+        Connection first = dataSource.getConnection();
+        Connection second = onOtherThread(dataSource::getConnection);
+        assertEquals(2, bulkhead.getMetrics().get("inUse"));
+
+        long began = System.nanoTime();
+        assertThrows(ExecutionException.class, () -> onOtherThread(dataSource::getConnection));
+        assertTrue(System.nanoTime() - began >= TimeUnit.MILLISECONDS.toNanos(40));
+        assertEquals(1L, bulkhead.getMetrics().get("timedOut"));
+
+        first.close();
+        first.close(); // ปิดซ้ำต้องไม่คืน permit สองครั้ง
+        assertEquals(1, bulkhead.getMetrics().get("inUse"));
+        verify(physical, times(2)).close();
+
+        onOtherThread(dataSource::getConnection).close();
+        second.close();
+        assertEquals(0, bulkhead.getMetrics().get("inUse"));
+        assertSame(dataSource, bulkhead.postProcessAfterInitialization(dataSource, "other"));
+    }
+
+    @Test
+    void aSecondConnectionOnTheSameThreadSkipsTheQueue() throws Exception {
+        ConnectionBulkhead bulkhead = new ConnectionBulkhead(
+                new MockEnvironment().withProperty("booking.db.bulkhead.timeout-ms", "50"));
+        DataSource dataSource = bulkheaded(bulkhead, mock(Connection.class), 3);
+        assertEquals(1, bulkhead.getMetrics().get("permits"));
+
+        // outer transaction holds the only permit; its REQUIRES_NEW block must not wait for it
+        Connection outer = dataSource.getConnection();
+        Connection inner = dataSource.getConnection();
+        assertEquals(1L, bulkhead.getMetrics().get("nested"));
+        assertEquals(1, bulkhead.getMetrics().get("inUse"));
+
+        inner.close();
+        outer.close();
+        assertEquals(0, bulkhead.getMetrics().get("inUse"));
+        // back to queueing once the thread holds nothing
+        dataSource.getConnection().close();
+        assertEquals(1L, bulkhead.getMetrics().get("nested"));
+    }
+
+    private static DataSource bulkheaded(ConnectionBulkhead bulkhead, Connection physical, int poolSize) {
+        HikariDataSource hikari = new HikariDataSource() {
+            @Override
+            public Connection getConnection() {
+                return physical;
+            }
+        };
+        hikari.setMaximumPoolSize(poolSize);
+        return (DataSource) bulkhead.postProcessAfterInitialization(hikari, "dataSource");
+    }
+
+    private static Connection onOtherThread(Callable<Connection> open) throws Exception {
+        ExecutorService thread = Executors.newSingleThreadExecutor();
+        try {
+            return thread.submit(open).get(5, TimeUnit.SECONDS);
+        } finally {
+            thread.shutdown();
+        }
+    }
+}
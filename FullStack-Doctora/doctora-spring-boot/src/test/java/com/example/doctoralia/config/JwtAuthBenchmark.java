@@ -0,0 +1,96 @@
+package com.example.doctoralia.config;
+
+import com.example.doctoralia.model.User;
+import com.example.doctoralia.model.UserRole;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Per-request auth cost: the old path (validate + email + role in the filter, then validate +
+ * userId in the controller, each with a fresh key and parser) against one verification with the
+ * cached parser, and against a hit in the verified-token cache from four threads at once.
+ * Run with DOCTORA_JMH=true; JMH prints the average time per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JwtAuthBenchmark {
+
+    private static final String SECRET = "mySecretKey12345678901234567890123456789012345678901234567890";
+
+    private JwtUtils jwtUtils;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpiration", 3_600_000L);
+
+        User user = new User("user42@example.com", "x", "First", "Last", UserRole.PATIENT);
+        user.setId(42L);
+        token = jwtUtils.generateJwtToken(user);
+        jwtUtils.parsePrincipal(token);
+    }
+
+    @Benchmark
+    public Claims legacyFiveParses() {
+        Claims claims = null;
+        for (int call = 0; call < 5; call++) {
+            claims = Jwts.parserBuilder()
+                    .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                    .build()
+                    .parseClaimsJws(token)
+                    .getBody();
+        }
+        return claims;
+    }
+
+    @Benchmark
+    public DoctoraPrincipal singleVerification() {
+        return jwtUtils.verify(token);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public DoctoraPrincipal cacheHitFourThreads() {
+        return jwtUtils.parsePrincipal(token);
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "DOCTORA_JMH", matches = "true")
+    void authCostPerRequest() throws Exception {
+        Options options = new OptionsBuilder()
+                .include(JwtAuthBenchmark.class.getName() + "\\.")
+                .forks(0) // surefire classpath
+                .build();
+
+        Map<String, Double> micros = new HashMap<>();
+        for (RunResult result : new Runner(options).run()) {
+            String name = result.getParams().getBenchmark();
+            micros.put(name.substring(name.lastIndexOf('.') + 1), result.getPrimaryResult().getScore());
+        }
+        System.out.printf("Auth per request: legacy %.2f us, single verification %.2f us, cache hit %.3f us%n",
+                micros.get("legacyFiveParses"), micros.get("singleVerification"), micros.get("cacheHitFourThreads"));
+        // generous ceilings for a shared 2-core runner
+        assertTrue(micros.get("singleVerification") < 200, micros.toString());
+        assertTrue(micros.get("cacheHitFourThreads") < 5, micros.toString());
+    }
+}
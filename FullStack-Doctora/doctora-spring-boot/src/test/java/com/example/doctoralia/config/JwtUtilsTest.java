@@ -0,0 +1,95 @@
+package com.example.doctoralia.config;
+
+import com.example.doctoralia.model.User;
+import com.example.doctoralia.model.UserRole;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilsTest {
+
+    private static final String SECRET = "mySecretKey12345678901234567890123456789012345678901234567890";
+
+    private JwtUtils jwtUtils;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpiration", 3_600_000L);
+    }
+
+    @Test
+    void principalCarriesTheTokenClaims() {
+        String token = jwtUtils.generateJwtToken(user(42L));
+
+        DoctoraPrincipal principal = jwtUtils.parsePrincipal(token);
+
+        assertEquals(42L, principal.getUserId());
+        assertEquals("user42@example.com", principal.getEmail());
+        assertEquals("PATIENT", principal.getRole());
+        assertEquals("user42@example.com", principal.getName());
+        assertSame(principal, jwtUtils.parsePrincipal(token));
+    }
+
+    @Test
+    void doctorTokensCarryTheDoctorId() {
+        DoctoraPrincipal doctor = jwtUtils.parsePrincipal(jwtUtils.generateJwtToken(user(7L), 31L));
+        assertEquals(31L, doctor.getDoctorId());
+
+        DoctoraPrincipal patient = jwtUtils.parsePrincipal(jwtUtils.generateJwtToken(user(8L)));
+        assertNull(patient.getDoctorId());
+    }
+
+    @Test
+    void tamperedAndExpiredTokensAreRejected() {
+        String token = jwtUtils.generateJwtToken(user(1L));
+        assertFalse(jwtUtils.validateJwtToken(token.substring(0, token.length() - 2) + "xx"));
+
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpiration", -1_000L);
+        assertFalse(jwtUtils.validateJwtToken(jwtUtils.generateJwtToken(user(2L))));
+    }
+
+    @Test
+    void publicCatalogRoutesSkipTheFilter() {
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter();
+
+        assertTrue(filter.shouldNotFilter(request("GET", "/api/doctors/15")));
+        assertTrue(filter.shouldNotFilter(request("GET", "/api/doctors/15/free-slots")));
+        assertTrue(filter.shouldNotFilter(request("GET", "/api/appointments/doctor/3/booked-slots")));
+        assertFalse(filter.shouldNotFilter(request("GET", "/api/doctors/profile/my")));
+        assertFalse(filter.shouldNotFilter(request("POST", "/api/specialties")));
+        assertFalse(filter.shouldNotFilter(request("GET", "/api/appointments/my")));
+    }
+
+    @Test
+    void verifiedTokenCacheStaysBounded() {
+        int capacity = (int) ReflectionTestUtils.getField(JwtUtils.class, "VERIFIED_TOKEN_CACHE_SIZE");
+        for (long id = 0; id < capacity * 3L; id++) {
+            assertEquals(id, jwtUtils.parsePrincipal(jwtUtils.generateJwtToken(user(id))).getUserId());
+        }
+
+        Map<?, ?> cache = (Map<?, ?>) ReflectionTestUtils.getField(jwtUtils, "verifiedTokens");
+        assertTrue(cache.size() <= capacity, cache.size() + " cached tokens");
+
+        String fresh = jwtUtils.generateJwtToken(user(-1L));
+        assertSame(jwtUtils.parsePrincipal(fresh), jwtUtils.parsePrincipal(fresh));
+    }
+
+    private static MockHttpServletRequest request(String method, String uri) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setServletPath(uri);
+        return request;
+    }
+
+    private static User user(Long id) {
+        User user = new User("user" + id + "@example.com", "x", "First", "Last", UserRole.PATIENT);
+        user.setId(id);
+        return user;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.doctoralia.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadPinningMonitorTest {
+
+    private final Object monitor = new Object();
+
+    @Test
+    void reportsSleepInsideSynchronizedOnAVirtualThread() throws Exception {
+        VirtualThreadPinningMonitor pinning = new VirtualThreadPinningMonitor();
+        ReflectionTestUtils.setField(pinning, "thresholdMs", 10L);
+        pinning.start();
+        try {
+            Thread.ofVirtual().start(this::sleepWhilePinned).join();
+
+            // JFR streams events in batches of about a second
+            long deadline = System.currentTimeMillis() + 10_000;
+            while ((Long) pinning.getMetrics().get("pins") == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(100);
+            }
+
+            Map<String, Object> metrics = pinning.getMetrics();
+            assertTrue((Long) metrics.get("pins") >= 1);
+            @SuppressWarnings("unchecked")
+            Map<String, Long> sites = (Map<String, Long>) metrics.get("sites");
+            assertTrue(sites.keySet().stream().anyMatch(site -> site.contains("sleepWhilePinned")), sites.toString());
+        } finally {
+            pinning.stop();
+        }
+    }
+
+    private void sleepWhilePinned() {
+        synchronized (monitor) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.doctoralia.controller;
+
+import com.example.doctoralia.config.JwtUtils;
+import com.example.doctoralia.model.User;
+import com.example.doctoralia.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * SQL statements issued by Hibernate per list endpoint, independent of how many rows come back.
+ * Needs a migrated Postgres with some doctors and appointments, run with DOCTORA_DB_BENCHMARK=true.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@EnabledIfEnvironmentVariable(named = "DOCTORA_DB_BENCHMARK", matches = "true")
+class EndpointStatementCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void patientAppointmentListIsOneQuery() throws Exception {
+        Long patientId = jdbcTemplate.queryForObject(
+                "SELECT patient_id FROM appointments GROUP BY patient_id ORDER BY COUNT(*) DESC LIMIT 1", Long.class);
+        String token = jwtUtils.generateJwtToken(user(patientId));
+
+        assertStatements(get("/api/appointments/my").header("Authorization", "Bearer " + token), 1);
+    }
+
+    @Test
+    void doctorAppointmentListIsOneQuery() throws Exception {
+        Long[] ids = jdbcTemplate.queryForObject(
+                "SELECT d.id, d.user_id FROM appointments a JOIN doctors d ON d.id = a.doctor_id " +
+                "GROUP BY d.id, d.user_id ORDER BY COUNT(*) DESC LIMIT 1",
+                (rs, row) -> new Long[]{rs.getLong(1), rs.getLong(2)});
+        String token = jwtUtils.generateJwtToken(user(ids[1]), ids[0]);
+
+        assertStatements(get("/api/appointments/doctor/my").header("Authorization", "Bearer " + token), 1);
+    }
+
+    @Test
+    void doctorPagesLoadUserAndSpecialtyWithTheRows() throws Exception {
+        // rows + count
+        assertStatements(get("/api/doctors").param("size", "50"), 2);
+        assertStatements(get("/api/doctors").param("size", "50").param("includeInactive", "true"), 2);
+
+        Long specialtyId = jdbcTemplate.queryForObject(
+                "SELECT specialty_id FROM doctors GROUP BY specialty_id ORDER BY COUNT(*) DESC LIMIT 1", Long.class);
+        // specialty + rows + count
+        assertStatements(get("/api/doctors/specialty/" + specialtyId).param("size", "50"), 3);
+        // native search: rows + count + one batch each for users and specialties
+        assertStatements(get("/api/doctors").param("specialty", specialtyId.toString()).param("size", "50"), 4);
+    }
+
+    @Test
+    void doctorSearchAndDetailAreOneQuery() throws Exception {
+        assertStatements(get("/api/doctors/search").param("name", "a"), 1);
+
+        Long inactiveId = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MIN(id), (SELECT MIN(id) FROM doctors)) FROM doctors WHERE is_active = false", Long.class);
+        // inactive doctors are not in the catalog snapshot, so this reads the database
+        assertStatements(get("/api/doctors/" + inactiveId), 1);
+    }
+
+    @Test
+    void availabilityListDoesNotLoadTheDoctor() throws Exception {
+        Long doctorId = jdbcTemplate.queryForObject(
+                "SELECT doctor_id FROM availabilities GROUP BY doctor_id ORDER BY COUNT(*) DESC LIMIT 1", Long.class);
+
+        assertStatements(get("/api/availability/doctor/" + doctorId), 1);
+    }
+
+    private User user(Long id) {
+        return userRepository.findById(id).orElseThrow();
+    }
+
+    private void assertStatements(MockHttpServletRequestBuilder request, long max) throws Exception {
+        statistics.clear();
+        String uri = mockMvc.perform(request).andExpect(status().isOk()).andReturn().getRequest().getRequestURI();
+        long statements = statistics.getPrepareStatementCount();
+        System.out.printf("%s: %d statements%n", uri, statements);
+        assertTrue(statements <= max, statements + " statements, expected at most " + max);
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.doctoralia.controller;
+
+import com.example.doctoralia.dto.AppointmentResponse;
+import com.example.doctoralia.dto.DoctorResponse;
+import com.example.doctoralia.model.Appointment;
+import com.example.doctoralia.model.AppointmentStatus;
+import com.example.doctoralia.model.Doctor;
+import com.example.doctoralia.model.Specialty;
+import com.example.doctoralia.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Allocation per serialized response for a 50-row doctor page and appointment list:
+ * the old HashMap trees (plain ObjectMapper) against the response records (with Blackbird).
+ * Run with DOCTORA_JMH=true; results are printed by JMH with the gc.alloc.rate.norm column.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ResponseAllocationBenchmark {
+
+    private static final int ROWS = 50;
+
+    private final ObjectMapper mapMapper = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .build();
+    private final ObjectMapper recordMapper = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .addModule(new BlackbirdModule())
+            .build();
+
+    private final List<Doctor> doctors = new ArrayList<>();
+    private final List<Appointment> appointments = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        Specialty specialty = new Specialty("Cardiology", "Heart clinic");
+        specialty.setId(1L);
+        for (int i = 0; i < ROWS; i++) {
+            User user = new User();
+            user.setId(100L + i);
+            user.setFirstName("Doctor" + i);
+            user.setLastName("Lastname" + i);
+            user.setEmail("doctor" + i + "@example.com");
+
+            Doctor doctor = new Doctor();
+            doctor.setId((long) i);
+            doctor.setUser(user);
+            doctor.setSpecialty(specialty);
+            doctor.setLicenseNumber("LIC-" + i);
+            doctor.setBio("Experienced cardiologist with a focus on preventive care and long-term follow up " + i);
+            doctor.setExperienceYears(10);
+            doctor.setConsultationFee(BigDecimal.valueOf(800));
+            doctor.setRoomNumber("A" + i);
+            doctors.add(doctor);
+
+            User patient = new User();
+            patient.setId(1000L + i);
+            patient.setFirstName("Patient" + i);
+            patient.setLastName("Lastname" + i);
+            patient.setEmail("patient" + i + "@example.com");
+
+            Appointment appointment = new Appointment(doctor, patient, LocalDateTime.of(2026, 1, 5, 9, 0).plusMinutes(30L * i));
+            appointment.setId(5000L + i);
+            appointment.setStatus(AppointmentStatus.CONFIRMED);
+            appointment.setNotes("Follow-up visit");
+            appointments.add(appointment);
+        }
+    }
+
+    @Benchmark
+    public void doctorListMaps() throws Exception {
+        Map<String, Object> response = new HashMap<>();
+        response.put("doctors", doctors.stream().map(ResponseAllocationBenchmark::doctorMap).toList());
+        mapMapper.writeValue(OutputStream.nullOutputStream(), response);
+    }
+
+    @Benchmark
+    public void doctorListRecords() throws Exception {
+        Map<String, Object> response = new HashMap<>();
+        response.put("doctors", doctors.stream().map(DoctorResponse::from).toList());
+        recordMapper.writeValue(OutputStream.nullOutputStream(), response);
+    }
+
+    @Benchmark
+    public void appointmentListMaps() throws Exception {
+        Map<String, Object> response = new HashMap<>();
+        response.put("appointments", appointments.stream().map(ResponseAllocationBenchmark::appointmentMap).toList());
+        mapMapper.writeValue(OutputStream.nullOutputStream(), response);
+    }
+
+    @Benchmark
+    public void appointmentListRecords() throws Exception {
+        // rows as the JPQL constructor expression builds them
+        List<AppointmentResponse> rows = new ArrayList<>(appointments.size());
+        for (Appointment a : appointments) {
+            rows.add(new AppointmentResponse(a.getId(),
+                    a.getDoctor().getId(), a.getDoctor().getUser().getFirstName(), a.getDoctor().getUser().getLastName(),
+                    a.getDoctor().getSpecialty().getId(), a.getDoctor().getSpecialty().getName(),
+                    a.getPatient().getId(), a.getPatient().getEmail(), a.getPatient().getFirstName(), a.getPatient().getLastName(),
+                    a.getAppointmentDatetime(), a.getDurationMinutes(), a.getStatus(),
+                    a.getNotes(), a.getDoctorNotes(), a.getCreatedAt(), a.getUpdatedAt()));
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("appointments", rows);
+        recordMapper.writeValue(OutputStream.nullOutputStream(), response);
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "DOCTORA_JMH", matches = "true")
+    void recordsAllocateLessThanMaps() throws Exception {
+        Options options = new OptionsBuilder()
+                .include(ResponseAllocationBenchmark.class.getName() + "\\.")
+                .forks(0) // surefire classpath; the GC profiler works in-process
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        Map<String, Double> bytesPerOp = new HashMap<>();
+        for (RunResult result : new Runner(options).run()) {
+            String name = result.getParams().getBenchmark();
+            bytesPerOp.put(name.substring(name.lastIndexOf('.') + 1),
+                    result.getSecondaryResults().get("gc.alloc.rate.norm").getScore());
+        }
+        bytesPerOp.forEach((name, bytes) -> System.out.printf("%-24s %10.0f B/op%n", name, bytes));
+
+        assertTrue(bytesPerOp.get("doctorListRecords") < bytesPerOp.get("doctorListMaps"));
+        assertTrue(bytesPerOp.get("appointmentListRecords") < bytesPerOp.get("appointmentListMaps"));
+    }
+
+    // ---- the HashMap responses the controllers built before the records ----
+
+    private static Map<String, Object> doctorMap(Doctor doctor) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("id", doctor.getId());
+        response.put("doctorName", doctor.getDoctorName());
+        response.put("email", doctor.getUser().getEmail());
+        Map<String, Object> specialty = new HashMap<>();
+        specialty.put("id", doctor.getSpecialty().getId());
+        specialty.put("name", doctor.getSpecialty().getName());
+        response.put("specialty", specialty);
+        response.put("licenseNumber", doctor.getLicenseNumber());
+        response.put("experienceYears", doctor.getExperienceYears());
+        response.put("consultationFee", doctor.getConsultationFee());
+        response.put("roomNumber", doctor.getRoomNumber());
+        response.put("isActive", doctor.getIsActive());
+        String bio = doctor.getBio();
+        response.put("bio", bio != null && bio.length() > 100 ? bio.substring(0, 100) + "..." : bio);
+        return response;
+    }
+
+    private static Map<String, Object> appointmentMap(Appointment appointment) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("id", appointment.getId());
+
+        Map<String, Object> doctor = new HashMap<>();
+        doctor.put("id", appointment.getDoctor().getId());
+        doctor.put("doctorName", appointment.getDoctor().getDoctorName());
+        Map<String, Object> specialty = new HashMap<>();
+        specialty.put("id", appointment.getDoctor().getSpecialty().getId());
+        specialty.put("name", appointment.getDoctor().getSpecialty().getName());
+        doctor.put("specialty", specialty);
+        response.put("doctor", doctor);
+
+        Map<String, Object> patient = new HashMap<>();
+        patient.put("id", appointment.getPatient().getId());
+        patient.put("email", appointment.getPatient().getEmail());
+        patient.put("firstName", appointment.getPatient().getFirstName());
+        patient.put("lastName", appointment.getPatient().getLastName());
+        response.put("patient", patient);
+
+        response.put("appointmentDatetime", appointment.getAppointmentDatetime());
+        response.put("durationMinutes", appointment.getDurationMinutes());
+        response.put("status", appointment.getStatus());
+        response.put("notes", appointment.getNotes());
+        response.put("doctorNotes", appointment.getDoctorNotes());
+        response.put("createdAt", appointment.getCreatedAt());
+        response.put("updatedAt", appointment.getUpdatedAt());
+        return response;
+    }
+}
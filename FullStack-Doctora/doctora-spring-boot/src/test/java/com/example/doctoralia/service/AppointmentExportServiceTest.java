@@ -0,0 +1,211 @@
+package com.example.doctoralia.service;
+
+import com.example.doctoralia.dto.AppointmentExportRow;
+import com.example.doctoralia.model.AppointmentStatus;
+import com.example.doctoralia.repository.AppointmentRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AppointmentExportServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 1, 9, 0);
+
+    private final AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private AppointmentExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        exportService = new AppointmentExportService();
+        ReflectionTestUtils.setField(exportService, "appointmentRepository", appointmentRepository);
+        ReflectionTestUtils.setField(exportService, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(exportService, "objectMapper", objectMapper);
+    }
+
+    @Test
+    void csvIsWrittenRowByRowAndTheCursorIsClosed() {
+        int total = 25_000;
+        AtomicInteger pulled = new AtomicInteger();
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<AppointmentExportRow> rows = LongStream.rangeClosed(1, total)
+                .mapToObj(id -> {
+                    pulled.incrementAndGet();
+                    return row(id, "note " + id);
+                })
+                .onClose(() -> closed.set(true));
+        when(appointmentRepository.streamExportRows(any(), any())).thenReturn(rows);
+
+        CountingOutputStream out = new CountingOutputStream();
+        long written = exportService.export(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 31),
+                AppointmentExportService.Format.CSV, out);
+
+        assertEquals(total, written);
+        assertEquals(total, pulled.get());
+        assertEquals(total + 1, out.lines); // header + one line per row
+        assertTrue(out.flushes > total / 1_000, "rows should reach the client before the export ends");
+        assertTrue(closed.get());
+        verify(appointmentRepository).streamExportRows(
+                LocalDateTime.of(2025, 3, 1, 0, 0), LocalDateTime.of(2025, 4, 1, 0, 0));
+    }
+
+    @Test
+    void csvQuotesFieldsWithSeparatorsAndStartsWithABom() {
+        when(appointmentRepository.streamExportRows(any(), any()))
+                .thenReturn(Stream.of(row(1L, "ปวดหัว, มีไข้\n\"ด่วน\"")));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 1),
+                AppointmentExportService.Format.CSV, out);
+
+        String csv = out.toString(StandardCharsets.UTF_8);
+        assertTrue(csv.startsWith("\uFEFFappointmentId,appointmentDatetime,"));
+        assertTrue(csv.contains(",\"ปวดหัว, มีไข้\n\"\"ด่วน\"\"\","));
+        String dataLine = csv.substring(csv.indexOf("\r\n") + 2);
+        assertTrue(dataLine.startsWith("1,2025-03-01T09:01,30,CONFIRMED,7,Somchai,Jaidee,Cardiology,"));
+    }
+
+    @Test
+    void csvNeutralisesCellsThatExcelWouldRunAsFormulas() {
+        List<String> payloads = List.of("=HYPERLINK(\"http://x\")", "+1+1", "-2+3", "@SUM(A1)", "\tcmd", "\r=1");
+        when(appointmentRepository.streamExportRows(any(), any())).thenReturn(
+                LongStream.range(0, payloads.size()).mapToObj(i -> row(i + 1, payloads.get((int) i))));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 1),
+                AppointmentExportService.Format.CSV, out);
+
+        String csv = out.toString(StandardCharsets.UTF_8);
+        assertTrue(csv.contains(",\"'=HYPERLINK(\"\"http://x\"\")\","));
+        assertTrue(csv.contains(",\"'+1+1\","));
+        assertTrue(csv.contains(",\"'-2+3\","));
+        assertTrue(csv.contains(",\"'@SUM(A1)\","));
+        assertTrue(csv.contains(",\"'\tcmd\","));
+        assertTrue(csv.contains(",\"'\r=1\","));
+        // numbers and dates are not free text and stay as they are
+        assertTrue(csv.contains("\r\n1,2025-03-01T09:01,30,CONFIRMED,"));
+    }
+
+    @Test
+    void ndjsonWritesOneObjectPerLine() throws Exception {
+        when(appointmentRepository.streamExportRows(any(), any()))
+                .thenReturn(Stream.of(row(1L, "first"), row(2L, "line\nbreak")));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = exportService.export(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 2),
+                AppointmentExportService.Format.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, written);
+        assertEquals(2, lines.length);
+        JsonNode second = objectMapper.readTree(lines[1]);
+        assertEquals(2, second.get("appointmentId").asLong());
+        assertEquals("line\nbreak", second.get("notes").asText());
+        assertEquals("Cardiology", second.get("specialtyName").asText());
+    }
+
+    @Test
+    void exportsLeaveTheResponseStreamOpen() {
+        for (AppointmentExportService.Format format : AppointmentExportService.Format.values()) {
+            when(appointmentRepository.streamExportRows(any(), any())).thenReturn(Stream.of(row(1L, "first")));
+
+            ServletLikeOutputStream out = new ServletLikeOutputStream();
+            assertEquals(1, exportService.export(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 1), format, out));
+
+            assertFalse(out.closed, format + " closed the response stream");
+            assertTrue(out.toString(StandardCharsets.UTF_8).endsWith(format == AppointmentExportService.Format.CSV ? "\r\n" : "}\n"));
+        }
+    }
+
+    @Test
+    void rejectsAnInvertedRangeAndUnknownFormat() {
+        assertThrows(IllegalArgumentException.class, () -> exportService.export(
+                LocalDate.of(2025, 3, 2), LocalDate.of(2025, 3, 1),
+                AppointmentExportService.Format.CSV, new ByteArrayOutputStream()));
+        assertThrows(IllegalArgumentException.class, () -> AppointmentExportService.Format.parse("xlsx"));
+        assertEquals(AppointmentExportService.Format.NDJSON, AppointmentExportService.Format.parse(" NDJson "));
+        verifyNoInteractions(appointmentRepository);
+    }
+
+    private static AppointmentExportRow row(long id, String notes) {
+        return new AppointmentExportRow(id, START.plusMinutes(id), 30, AppointmentStatus.CONFIRMED,
+                7L, "Somchai", "Jaidee", "Cardiology",
+                100L + id, "patient" + id + "@example.com", "Malee", "Srisuk", notes, null, START.minusDays(1),
+                "A" + id, "นางสาว", "มาลี", "ศรีสุข", "FEMALE", LocalDate.of(1990, 5, 1), "ไทย", "1234567890123",
+                "0812345678", "malee@example.com", "ไอ", "SELF");
+    }
+
+    // counts bytes without keeping them, so a large export runs in constant memory
+    private static final class CountingOutputStream extends OutputStream {
+        int lines;
+        int flushes;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+    }
+
+    // like a servlet response stream: writing or flushing after close fails
+    private static final class ServletLikeOutputStream extends ByteArrayOutputStream {
+        boolean closed;
+
+        @Override
+        public synchronized void write(int b) {
+            checkOpen();
+            super.write(b);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            checkOpen();
+            super.write(b, off, len);
+        }
+
+        @Override
+        public void flush() {
+            checkOpen();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        private void checkOpen() {
+            if (closed) {
+                throw new IllegalStateException("Stream closed");
+            }
+        }
+    }
+}
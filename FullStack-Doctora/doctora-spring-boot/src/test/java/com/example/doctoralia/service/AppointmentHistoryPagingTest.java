@@ -0,0 +1,166 @@
+package com.example.doctoralia.service;
+
+import com.example.doctoralia.dto.AppointmentResponse;
+import com.example.doctoralia.dto.HistoryCursor;
+import com.example.doctoralia.dto.HistoryPage;
+import com.example.doctoralia.model.AppointmentStatus;
+import com.example.doctoralia.repository.AppointmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class AppointmentHistoryPagingTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 9, 0);
+
+    @Mock
+    private AppointmentRepository appointmentRepository;
+
+    @InjectMocks
+    private AppointmentService appointmentService;
+
+    // 230 rows, several sharing a start time so the id tie-breaker matters
+    private final List<AppointmentResponse> history = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (long id = 1; id <= 230; id++) {
+            AppointmentStatus status = id % 5 == 0 ? AppointmentStatus.CANCELLED : AppointmentStatus.COMPLETED;
+            history.add(row(id, START.plusHours(id / 3), status));
+        }
+
+        // the repository queries, evaluated over the in-memory history
+        when(appointmentRepository.findPatientHistoryPage(anyLong(), any(), any(), any(), any(), anyLong(), any()))
+                .thenAnswer(invocation -> page(invocation.getArgument(1), invocation.getArgument(2),
+                        invocation.getArgument(3), invocation.getArgument(4), invocation.getArgument(5),
+                        invocation.getArgument(6), true));
+        when(appointmentRepository.findDoctorHistoryPage(anyLong(), any(), any(), any(), any(), anyLong(), any()))
+                .thenAnswer(invocation -> page(invocation.getArgument(1), invocation.getArgument(2),
+                        invocation.getArgument(3), invocation.getArgument(4), invocation.getArgument(5),
+                        invocation.getArgument(6), false));
+    }
+
+    @Test
+    void followingTheCursorVisitsEveryRowOnceNewestFirst() {
+        List<AppointmentResponse> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            HistoryPage<AppointmentResponse> page =
+                    appointmentService.getAppointmentsByPatient(7L, cursor, null, null, null, null);
+            assertTrue(page.items().size() <= AppointmentService.HISTORY_DEFAULT_PAGE_SIZE);
+            seen.addAll(page.items());
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(5, pages); // 50 + 50 + 50 + 50 + 30
+        assertEquals(230, seen.size());
+        assertEquals(230, new HashSet<>(seen.stream().map(AppointmentResponse::id).toList()).size());
+        assertEquals(newestFirst(history), seen);
+        // every page asks for one row more than it returns
+        verify(appointmentRepository, times(5)).findPatientHistoryPage(anyLong(), any(), any(), any(), any(), anyLong(),
+                eq(Limit.of(AppointmentService.HISTORY_DEFAULT_PAGE_SIZE + 1)));
+    }
+
+    @Test
+    void doctorPagesRunForwardWithinTheWindowAndStatusFilter() {
+        List<AppointmentResponse> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            HistoryPage<AppointmentResponse> page = appointmentService.getAppointmentsByDoctor(3L, cursor, 20,
+                    List.of("completed"), "2024-01-02", "2024-01-03");
+            seen.addAll(page.items());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        List<AppointmentResponse> expected = history.stream()
+                .filter(r -> r.status() == AppointmentStatus.COMPLETED)
+                .filter(r -> !r.appointmentDatetime().isBefore(LocalDateTime.of(2024, 1, 2, 0, 0)))
+                .filter(r -> r.appointmentDatetime().isBefore(LocalDateTime.of(2024, 1, 4, 0, 0)))
+                .toList();
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        HistoryPage<AppointmentResponse> page =
+                appointmentService.getAppointmentsByPatient(7L, null, 200, null, null, null);
+        HistoryPage<AppointmentResponse> rest =
+                appointmentService.getAppointmentsByPatient(7L, page.nextCursor(), 200, null, null, null);
+
+        assertTrue(page.hasMore());
+        assertEquals(30, rest.items().size());
+        assertFalse(rest.hasMore());
+        assertNull(rest.nextCursor());
+    }
+
+    @Test
+    void badArgumentsAreRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> appointmentService.getAppointmentsByPatient(7L, "not-a-cursor", null, null, null, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> appointmentService.getAppointmentsByPatient(7L, null, 0, null, null, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> appointmentService.getAppointmentsByPatient(7L, null, 201, null, null, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> appointmentService.getAppointmentsByDoctor(3L, null, null, List.of("LOST"), null, null));
+    }
+
+    @Test
+    void cursorRoundTrips() {
+        HistoryCursor cursor = new HistoryCursor(LocalDateTime.of(2024, 2, 29, 23, 45, 10), 98765L);
+        assertEquals(cursor, HistoryCursor.decode(cursor.encode()));
+        assertTrue(cursor.encode().matches("[A-Za-z0-9_-]+"));
+    }
+
+    private List<AppointmentResponse> page(Collection<AppointmentStatus> statuses, LocalDateTime from, LocalDateTime to,
+                                           LocalDateTime keyDatetime, Long keyId, Limit limit, boolean descending) {
+        Comparator<AppointmentResponse> order = Comparator.comparing(AppointmentResponse::appointmentDatetime)
+                .thenComparing(AppointmentResponse::id);
+        AppointmentResponse key = row(keyId, keyDatetime, AppointmentStatus.PENDING);
+        Set<AppointmentStatus> wanted = Set.copyOf(statuses);
+        return history.stream()
+                .filter(r -> wanted.contains(r.status()))
+                .filter(r -> !r.appointmentDatetime().isBefore(from) && r.appointmentDatetime().isBefore(to))
+                .filter(r -> descending ? order.compare(r, key) < 0 : order.compare(r, key) > 0)
+                .sorted(descending ? order.reversed() : order)
+                .limit(limit.max())
+                .toList();
+    }
+
+    private static List<AppointmentResponse> newestFirst(List<AppointmentResponse> rows) {
+        return rows.stream()
+                .sorted(Comparator.comparing(AppointmentResponse::appointmentDatetime)
+                        .thenComparing(AppointmentResponse::id).reversed())
+                .toList();
+    }
+
+    private static AppointmentResponse row(Long id, LocalDateTime at, AppointmentStatus status) {
+        return new AppointmentResponse(id, 3L, "Somchai", "Jaidee", 1L, "Cardiology",
+                7L, "patient@example.com", "Malee", "Srisuk",
+                at, 30, status, null, null, at.minusDays(1), at.minusDays(1));
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.doctoralia.service;
+
+import com.example.doctoralia.dto.BookedSlot;
+import com.example.doctoralia.model.Appointment;
+import com.example.doctoralia.model.AppointmentStatus;
+import com.example.doctoralia.model.Doctor;
+import com.example.doctoralia.repository.AppointmentRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AppointmentSlotIndexTest {
+
+    private static final LocalDate DAY = LocalDate.of(2030, 1, 7);
+
+    @Mock
+    private AppointmentRepository appointmentRepository;
+
+    @InjectMocks
+    private AppointmentSlotIndex index;
+
+    @Test
+    void bitRangesMatchBitSetSemantics() {
+        long[] words = new long[AppointmentSlotIndex.WORDS_PER_DAY];
+        AppointmentSlotIndex.setBits(words, 60, 130);
+
+        assertTrue(AppointmentSlotIndex.anyBits(words, 0, 61));
+        assertTrue(AppointmentSlotIndex.anyBits(words, 129, 200));
+        assertFalse(AppointmentSlotIndex.anyBits(words, 0, 60));
+        assertFalse(AppointmentSlotIndex.anyBits(words, 130, 1440));
+        assertEquals(70, Long.bitCount(words[0]) + Long.bitCount(words[1]) + Long.bitCount(words[2]));
+    }
+
+    @Test
+    void keysOutsideTheEpochDayRangeAreRejected() {
+        long key = DoctorDayKey.of(3L, DAY);
+        assertEquals(3L, DoctorDayKey.doctorId(key));
+        assertEquals(DAY, LocalDate.ofEpochDay(DoctorDayKey.epochDay(key)));
+
+        // a negative epoch day would otherwise overwrite the doctor bits and collide across doctors
+        assertThrows(IllegalArgumentException.class, () -> DoctorDayKey.of(3L, LocalDate.of(1969, 12, 31)));
+        assertThrows(IllegalArgumentException.class, () -> DoctorDayKey.of(3L, LocalDate.of(5000, 1, 1)));
+        assertThrows(IllegalArgumentException.class, () -> index.getBookedSlots(3L, LocalDate.of(1900, 1, 1)));
+        verifyNoInteractions(appointmentRepository);
+    }
+
+    @Test
+    void conflictsAreAnsweredFromMemoryAfterFirstLoad() {
+        when(appointmentRepository.findSlotsByDoctorIdAndRange(eq(1L), any(), any()))
+                .thenReturn(List.of(new BookedSlot(10L, DAY.atTime(9, 0), 30, AppointmentStatus.PENDING)));
+
+        assertFalse(index.isFree(1L, DAY.atTime(9, 15), 30));
+        assertFalse(index.isFree(1L, DAY.atTime(8, 45), 30));
+        assertTrue(index.isFree(1L, DAY.atTime(9, 30), 30));
+        assertTrue(index.isFree(1L, DAY.atTime(8, 30), 30));
+
+        verify(appointmentRepository, times(1)).findSlotsByDoctorIdAndRange(eq(1L), any(), any());
+    }
+
+    @Test
+    void recordedChangesUpdateOccupancyAndBookedSlots() {
+        when(appointmentRepository.findSlotsByDoctorIdAndRange(eq(1L), any(), any())).thenReturn(List.of());
+        assertTrue(index.isFree(1L, DAY.atTime(10, 0), 30));
+
+        Appointment appointment = appointment(20L, DAY.atTime(10, 0), AppointmentStatus.PENDING);
+        index.recordChange(appointment);
+        assertFalse(index.isFree(1L, DAY.atTime(10, 0), 30));
+        assertEquals(1, index.getBookedSlots(1L, DAY).size());
+
+        appointment.setStatus(AppointmentStatus.CANCELLED);
+        index.recordChange(appointment);
+        assertTrue(index.isFree(1L, DAY.atTime(10, 0), 30));
+        assertTrue(index.getBookedSlots(1L, DAY).isEmpty());
+    }
+
+    @Test
+    void appointmentsRunningPastMidnightBlockTheNextDay() {
+        when(appointmentRepository.findSlotsByDoctorIdAndRange(eq(1L), any(), any()))
+                .thenReturn(List.of(new BookedSlot(30L, DAY.atTime(23, 45), 30, AppointmentStatus.CONFIRMED)));
+
+        LocalDate nextDay = DAY.plusDays(1);
+        assertFalse(index.isFree(1L, nextDay.atStartOfDay(), 15));
+        assertTrue(index.isFree(1L, nextDay.atTime(0, 15), 15));
+        // the row started the day before, so it is not listed as booked on the next day
+        assertTrue(index.getBookedSlots(1L, nextDay).isEmpty());
+    }
+
+    @Test
+    void verifyRepairsDriftFromTheDatabase() {
+        List<BookedSlot> rows = new ArrayList<>();
+        when(appointmentRepository.findSlotsByDoctorIdAndRange(eq(1L), any(), any())).thenAnswer(inv -> List.copyOf(rows));
+        assertTrue(index.isFree(1L, DAY.atTime(11, 0), 30));
+
+        // a row written behind the index's back, e.g. by another node
+        rows.add(new BookedSlot(40L, DAY.atTime(11, 0), 30, AppointmentStatus.PENDING));
+
+        assertEquals(1, index.verifyAgainstDatabase().size());
+        assertFalse(index.isFree(1L, DAY.atTime(11, 0), 30));
+        assertTrue(index.verifyAgainstDatabase().isEmpty());
+    }
+
+    @Test
+    void evictedDaysAreReloadedWithTheBookingTheyMissed() {
+        List<BookedSlot> rows = new ArrayList<>();
+        when(appointmentRepository.findSlotsByDoctorIdAndRange(eq(1L), any(), any())).thenAnswer(inv -> List.copyOf(rows));
+        assertTrue(index.isFree(1L, DAY.atTime(23, 30), 60));
+
+        rows.add(new BookedSlot(50L, DAY.atTime(23, 30), 60, AppointmentStatus.PENDING));
+        index.evictDays(1L, DAY.atTime(23, 30), 60);
+
+        assertEquals(0, index.cachedDays());
+        assertFalse(index.isFree(1L, DAY.atTime(23, 30), 60));
+    }
+
+    @Test
+    void daysOlderThanTheTtlAreReadAgain() {
+        List<BookedSlot> rows = new ArrayList<>();
+        when(appointmentRepository.findSlotsByDoctorIdAndRange(eq(1L), any(), any())).thenAnswer(inv -> List.copyOf(rows));
+        assertTrue(index.isFree(1L, DAY.atTime(14, 0), 30));
+
+        rows.add(new BookedSlot(60L, DAY.atTime(14, 0), 30, AppointmentStatus.CONFIRMED));
+        assertTrue(index.isFree(1L, DAY.atTime(14, 0), 30)); // still within the TTL
+
+        ReflectionTestUtils.setField(index, "ttl", Duration.ZERO);
+        assertFalse(index.isFree(1L, DAY.atTime(14, 0), 30));
+        verify(appointmentRepository, times(2)).findSlotsByDoctorIdAndRange(eq(1L), any(), any());
+    }
+
+    private static Appointment appointment(Long id, LocalDateTime start, AppointmentStatus status) {
+        Doctor doctor = new Doctor();
+        doctor.setId(1L);
+        Appointment appointment = new Appointment();
+        appointment.setId(id);
+        appointment.setDoctor(doctor);
+        appointment.setAppointmentDatetime(start);
+        appointment.setDurationMinutes(30);
+        appointment.setStatus(status);
+        return appointment;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.doctoralia.service;
+
+import com.example.doctoralia.dto.AvailabilityImportResult;
+import com.example.doctoralia.repository.AvailabilityRepository;
+import com.example.doctoralia.repository.DoctorRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Spooling, parsing and validating a 112,000-row CSV (2,000 doctors x 7 days x 8 slots) as a
+ * dry run, with the repositories mocked out: the database inserts are not part of this number
+ * (see AvailabilityImportThroughputTest). Run with DOCTORA_JMH=true; JMH prints ms per import.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+public class AvailabilityImportBenchmark {
+
+    private byte[] body;
+    private AvailabilityImportService service;
+
+    @Setup
+    public void setUp() {
+        StringBuilder csv = new StringBuilder("doctor_id,day_of_week,start_time,end_time\n");
+        for (int doctor = 1; doctor <= 2_000; doctor++) {
+            for (int day = 1; day <= 7; day++) {
+                for (int hour = 8; hour < 16; hour++) {
+                    csv.append(doctor).append(',').append(day).append(',')
+                            .append(LocalTime.of(hour, 0)).append(',').append(LocalTime.of(hour + 1, 0)).append('\n');
+                }
+            }
+        }
+        body = csv.toString().getBytes(StandardCharsets.UTF_8);
+
+        DoctorRepository doctorRepository = mock(DoctorRepository.class, withSettings().stubOnly());
+        when(doctorRepository.existsById(anyLong())).thenReturn(true);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class, withSettings().stubOnly());
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        service = new AvailabilityImportService();
+        ReflectionTestUtils.setField(service, "entityManager", mock(EntityManager.class, withSettings().stubOnly()));
+        ReflectionTestUtils.setField(service, "availabilityRepository", mock(AvailabilityRepository.class, withSettings().stubOnly()));
+        ReflectionTestUtils.setField(service, "doctorRepository", doctorRepository);
+        ReflectionTestUtils.setField(service, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+    }
+
+    @Benchmark
+    public AvailabilityImportResult dryRun() {
+        return service.importSchedules(new ByteArrayInputStream(body), AvailabilityImportService.Format.CSV, false, true);
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "DOCTORA_JMH", matches = "true")
+    void hundredThousandRowsAreCheckedInUnderASecond() throws Exception {
+        AvailabilityImportBenchmark check = new AvailabilityImportBenchmark();
+        check.setUp();
+        AvailabilityImportResult result = check.dryRun();
+        assertEquals(112_000, result.imported());
+        assertEquals(0, result.failed());
+        assertEquals(2_000, result.doctors());
+
+        Options options = new OptionsBuilder()
+                .include(AvailabilityImportBenchmark.class.getName() + "\\.")
+                .forks(0) // surefire classpath
+                .build();
+
+        for (RunResult run : new Runner(options).run()) {
+            double ms = run.getPrimaryResult().getScore();
+            System.out.printf("Availability import dry run, 112,000 rows: %.0f ms%n", ms);
+            assertTrue(ms < 1_000, ms + " ms");
+        }
+    }
+}
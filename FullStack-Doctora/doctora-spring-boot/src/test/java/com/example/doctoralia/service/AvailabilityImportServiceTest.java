@@ -0,0 +1,212 @@
+package com.example.doctoralia.service;
+
+import com.example.doctoralia.dto.AvailabilityImportResult;
+import com.example.doctoralia.dto.AvailabilityImportResult.RowError;
+import com.example.doctoralia.model.Availability;
+import com.example.doctoralia.model.Doctor;
+import com.example.doctoralia.repository.AvailabilityRepository;
+import com.example.doctoralia.repository.DoctorRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class AvailabilityImportServiceTest {
+
+    private final AvailabilityRepository availabilityRepository = mock(AvailabilityRepository.class);
+    private final DoctorRepository doctorRepository = mock(DoctorRepository.class);
+    private final CacheInvalidationBus bus = mock(CacheInvalidationBus.class);
+    private final AvailabilityIntervalIndex intervalIndex = mock(AvailabilityIntervalIndex.class);
+    private final List<Availability> persisted = new ArrayList<>();
+
+    private final EntityManager entityManager = mock(EntityManager.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private AvailabilityImportService service;
+
+    @BeforeEach
+    void setUp() {
+        when(doctorRepository.existsById(anyLong())).thenAnswer(invocation -> invocation.<Long>getArgument(0) < 100);
+        when(doctorRepository.findIdByLicenseNumber("MD-7")).thenReturn(Optional.of(7L));
+        when(doctorRepository.findIdByLicenseNumber("MD-8")).thenReturn(Optional.of(8L));
+        when(availabilityRepository.deleteAllByDoctorId(anyLong())).thenReturn(5);
+        doAnswer(invocation -> persisted.add(invocation.getArgument(0))).when(entityManager).persist(any());
+
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        service = new AvailabilityImportService();
+        ReflectionTestUtils.setField(service, "entityManager", entityManager);
+        ReflectionTestUtils.setField(service, "availabilityRepository", availabilityRepository);
+        ReflectionTestUtils.setField(service, "doctorRepository", doctorRepository);
+        ReflectionTestUtils.setField(service, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(service, "calendarHeatmapService", mock(CalendarHeatmapService.class));
+        ReflectionTestUtils.setField(service, "weeklyAvailabilityIndex", mock(WeeklyAvailabilityIndex.class));
+        ReflectionTestUtils.setField(service, "intervalIndex", intervalIndex);
+        ReflectionTestUtils.setField(service, "cacheInvalidationBus", bus);
+    }
+
+    @Test
+    void csvReportsEveryBadRowAndImportsTheRest() {
+        Availability existing = new Availability(null, 2, time("09:00"), time("12:00"));
+        when(availabilityRepository.findByDoctorIdAndIsActiveTrueOrderByDayOfWeekAscStartTimeAsc(1L))
+                .thenReturn(List.of(existing));
+
+        AvailabilityImportResult result = service.importSchedules(csv("""
+                doctor_id,day_of_week,start_time,end_time
+                1,1,09:00,12:00
+                1,1,11:00,13:00
+                1,2,11:30,14:00
+
+                1,9,09:00,10:00
+                1,3,9am,10:00
+                404,1,09:00,10:00
+                ,1,09:00,10:00
+                "2",1,"13:00","17:00"
+                2,1,05:00,07:00
+                """), AvailabilityImportService.Format.CSV, false, false);
+
+        assertEquals(9, result.rowsRead());
+        assertEquals(2, result.imported());
+        assertEquals(7, result.failed());
+        assertEquals(List.of(
+                new RowError(3, "Overlaps row 2 (09:00 - 12:00)"),
+                new RowError(4, "Overlaps existing availability 09:00 - 12:00"),
+                new RowError(6, "Day of week must be between 1-7"),
+                new RowError(7, "Invalid start_time: 9am (use HH:mm)"),
+                new RowError(8, "Doctor not found with ID: 404"),
+                new RowError(9, "doctor_id or license_number is required"),
+                new RowError(11, "Working hours must be between 06:00 - 22:00")), result.errors());
+
+        assertEquals(2, persisted.size());
+        verify(entityManager).getReference(Doctor.class, 1L);
+        verify(entityManager).getReference(Doctor.class, 2L);
+        verify(bus).publish(CacheInvalidationBus.EntityType.AVAILABILITY, null);
+        verify(intervalIndex).clear();
+        verify(availabilityRepository, never()).deleteAllByDoctorId(anyLong());
+    }
+
+    @Test
+    void jsonByLicenseNumberReplacesEachDoctorOnce() {
+        AvailabilityImportResult result = service.importSchedules(json("""
+                [
+                  {"licenseNumber": "MD-7", "dayOfWeek": 1, "startTime": "09:00", "endTime": "12:00"},
+                  {"licenseNumber": "MD-8", "dayOfWeek": 1, "startTime": "09:00", "endTime": "12:00"},
+                  {"licenseNumber": "MD-7", "dayOfWeek": 1, "startTime": "13:00", "endTime": "17:00"},
+                  "not an object",
+                  {"licenseNumber": "MD-404", "dayOfWeek": 1, "startTime": "09:00", "endTime": "12:00"}
+                ]
+                """), AvailabilityImportService.Format.JSON, true, false);
+
+        assertEquals(5, result.rowsRead());
+        assertEquals(3, result.imported());
+        assertEquals(2, result.doctors());
+        assertEquals(10, result.replaced());
+        assertEquals(List.of(new RowError(4, "Expected an availability object"),
+                new RowError(5, "Doctor not found with license number: MD-404")), result.errors());
+        verify(availabilityRepository).deleteAllByDoctorId(7L);
+        verify(availabilityRepository).deleteAllByDoctorId(8L);
+        verify(doctorRepository, times(1)).findIdByLicenseNumber("MD-7");
+        // replaced weeks are not read back for overlap checks
+        verify(availabilityRepository, never()).findByDoctorIdAndIsActiveTrueOrderByDayOfWeekAscStartTimeAsc(anyLong());
+    }
+
+    @Test
+    void dryRunValidatesWithoutWriting() {
+        AvailabilityImportResult result = service.importSchedules(csv("""
+                license_number,day_of_week,start_time,end_time
+                MD-7,1,09:00,12:00
+                MD-7,1,10:00,11:00
+                """), AvailabilityImportService.Format.CSV, true, true);
+
+        assertTrue(result.dryRun());
+        assertEquals(1, result.imported());
+        assertEquals(1, result.failed());
+        assertTrue(persisted.isEmpty());
+        verify(availabilityRepository, never()).deleteAllByDoctorId(anyLong());
+        verifyNoInteractions(bus, intervalIndex);
+    }
+
+    @Test
+    void flushesAndClearsEveryBatch() {
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+
+        service.importSchedules(csv("""
+                doctor_id,day_of_week,start_time,end_time
+                1,1,09:00,10:00
+                1,2,09:00,10:00
+                1,3,09:00,10:00
+                1,4,09:00,10:00
+                1,5,09:00,10:00
+                """), AvailabilityImportService.Format.CSV, false, false);
+
+        assertEquals(5, persisted.size());
+        verify(entityManager, times(3)).flush();
+        verify(entityManager, times(3)).clear();
+    }
+
+    @Test
+    void malformedInputIsRejectedAsAWhole() {
+        assertThrows(IllegalArgumentException.class, () -> service.importSchedules(
+                csv("doctor,day,from,to\n1,1,09:00,10:00\n"), AvailabilityImportService.Format.CSV, false, false));
+        assertThrows(IllegalArgumentException.class, () -> service.importSchedules(
+                json("{\"doctorId\": 1}"), AvailabilityImportService.Format.JSON, false, false));
+        assertThrows(IllegalArgumentException.class, () -> service.importSchedules(
+                json("[{\"doctorId\": 1,"), AvailabilityImportService.Format.JSON, false, false));
+
+        ReflectionTestUtils.setField(service, "maxRows", 1L);
+        assertThrows(IllegalArgumentException.class, () -> service.importSchedules(csv("""
+                doctor_id,day_of_week,start_time,end_time
+                1,1,09:00,10:00
+                1,2,09:00,10:00
+                """), AvailabilityImportService.Format.CSV, false, false));
+    }
+
+    @Test
+    void theUploadIsReadBeforeTheTransactionStarts() {
+        byte[] body = """
+                doctor_id,day_of_week,start_time,end_time
+                1,1,09:00,10:00
+                """.getBytes(StandardCharsets.UTF_8);
+        // a slow client: every read checks that no connection is held yet
+        InputStream upload = new ByteArrayInputStream(body) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                verify(transactionManager, never()).getTransaction(any());
+                return super.read(b, off, Math.min(len, 8));
+            }
+        };
+
+        AvailabilityImportResult result = service.importSchedules(upload, AvailabilityImportService.Format.CSV, false, false);
+
+        assertEquals(1, result.imported());
+        verify(transactionManager).getTransaction(any());
+    }
+
+    private static InputStream csv(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static InputStream json(String body) {
+        return csv(body);
+    }
+
+    private static LocalTime time(String value) {
+        return LocalTime.parse(value);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.doctoralia.service;
+
+import com.example.doctoralia.dto.AvailabilityImportResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Insert throughput of the availability import: up to 2,000 existing doctors get a full week
+ * of 8 one-hour slots each (replace=true), written through the batched inserts. The import
+ * joins the test transaction and is rolled back afterwards.
+ * Needs a migrated Postgres with doctors (DB_HOST etc.), run with DOCTORA_DB_BENCHMARK=true.
+ */
+@SpringBootTest
+@Transactional
+@EnabledIfEnvironmentVariable(named = "DOCTORA_DB_BENCHMARK", matches = "true")
+class AvailabilityImportThroughputTest {
+
+    @Autowired
+    private AvailabilityImportService importService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void reportsRowsInsertedPerSecond() {
+        List<Long> doctorIds = jdbcTemplate.queryForList("SELECT id FROM doctors ORDER BY id LIMIT 2000", Long.class);
+        assertFalse(doctorIds.isEmpty(), "needs doctors in the database");
+
+        StringBuilder body = new StringBuilder("doctor_id,day_of_week,start_time,end_time\n");
+        for (Long doctorId : doctorIds) {
+            for (int day = 1; day <= 7; day++) {
+                for (int hour = 8; hour < 16; hour++) {
+                    body.append(doctorId).append(',').append(day).append(',')
+                            .append(LocalTime.of(hour, 0)).append(',').append(LocalTime.of(hour + 1, 0)).append('\n');
+                }
+            }
+        }
+
+        AvailabilityImportResult result = importService.importSchedules(
+                new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8)),
+                AvailabilityImportService.Format.CSV, true, false);
+
+        System.out.printf("Availability import: %d rows for %d doctors in %d ms (%.0f rows/sec, %d replaced)%n",
+                result.imported(), result.doctors(), result.elapsedMs(),
+                result.imported() * 1000.0 / Math.max(1, result.elapsedMs()), result.replaced());
+        assertEquals(doctorIds.size() * 56L, result.imported());
+        assertEquals(0, result.failed());
+    }
+}
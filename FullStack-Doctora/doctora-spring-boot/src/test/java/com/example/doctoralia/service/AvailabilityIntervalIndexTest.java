@@ -0,0 +1,80 @@
+package com.example.doctoralia.service;
+
+import com.example.doctoralia.model.Availability;
+import com.example.doctoralia.repository.AvailabilityRepository;
+import com.example.doctoralia.service.AvailabilityIntervalTree.Interval;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AvailabilityIntervalIndexTest {
+
+    private final AvailabilityRepository availabilityRepository = mock(AvailabilityRepository.class);
+    private AvailabilityIntervalIndex index;
+
+    @BeforeEach
+    void setUp() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(availabilityRepository.findByDoctorIdAndIsActiveTrueOrderByDayOfWeekAscStartTimeAsc(7L))
+                .thenReturn(List.of(availability(1L, 1, "09:00", "12:00"), availability(2L, 2, "13:00", "17:00")));
+
+        index = new AvailabilityIntervalIndex();
+        ReflectionTestUtils.setField(index, "availabilityRepository", availabilityRepository);
+        ReflectionTestUtils.setField(index, "transactionManager", transactionManager);
+    }
+
+    @Test
+    void writesUpdateTheCachedWeekWithoutReloading() {
+        assertEquals(List.of(1L), ids(index.conflicts(7L, 1, time("11:00"), time("13:00"), null)));
+
+        index.saved(7L, availability(3L, 1, "13:00", "15:00"));
+        assertEquals(List.of(1L, 3L), ids(index.conflicts(7L, 1, time("11:00"), time("14:00"), null)));
+
+        // moved to another day
+        index.saved(7L, availability(1L, 3, "09:00", "12:00"));
+        assertEquals(List.of(), ids(index.conflicts(7L, 1, time("09:00"), time("12:00"), null)));
+        assertEquals(List.of(1L), ids(index.conflicts(7L, 3, time("10:00"), time("11:00"), null)));
+
+        index.deleted(7L, 2L);
+        assertEquals(List.of(), ids(index.conflicts(7L, 2, time("13:00"), time("17:00"), null)));
+
+        index.replaced(7L, List.of(availability(9L, 5, "08:00", "10:00")));
+        assertEquals(List.of(), ids(index.conflicts(7L, 3, time("10:00"), time("11:00"), null)));
+        assertEquals(List.of(9L), ids(index.conflicts(7L, 5, time("09:00"), time("09:30"), null)));
+
+        verify(availabilityRepository, times(1)).findByDoctorIdAndIsActiveTrueOrderByDayOfWeekAscStartTimeAsc(7L);
+    }
+
+    @Test
+    void changesFromOtherNodesReloadTheDoctor() {
+        index.conflicts(7L, 1, time("09:00"), time("10:00"), null);
+        index.evict(7L);
+        index.conflicts(7L, 1, time("09:00"), time("10:00"), null);
+
+        verify(availabilityRepository, times(2)).findByDoctorIdAndIsActiveTrueOrderByDayOfWeekAscStartTimeAsc(7L);
+    }
+
+    private static Availability availability(Long id, int dayOfWeek, String start, String end) {
+        Availability availability = new Availability(null, dayOfWeek, time(start), time(end));
+        availability.setId(id);
+        return availability;
+    }
+
+    private static List<Long> ids(List<Interval> intervals) {
+        return intervals.stream().map(Interval::id).toList();
+    }
+
+    private static LocalTime time(String value) {
+        return LocalTime.parse(value);
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.doctoralia.service;
+
+import com.example.doctoralia.service.AvailabilityIntervalTree.Interval;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AvailabilityIntervalTreeTest {
+
+    private final AvailabilityIntervalTree tree = AvailabilityIntervalTree.of(List.of(
+            interval(1L, "13:00", "17:00"),
+            interval(2L, "08:00", "09:00"),
+            interval(3L, "09:30", "12:00"),
+            interval(4L, "18:00", "20:00")));
+
+    @Test
+    void findsEveryOverlapInStartOrder() {
+        assertEquals(List.of(3L, 1L), ids(tree.overlapping(time("11:00"), time("14:00"), null)));
+        assertEquals(List.of(2L, 3L, 1L, 4L), ids(tree.overlapping(time("07:00"), time("23:00"), null)));
+        assertEquals(List.of(1L), ids(tree.overlapping(time("14:00"), time("15:00"), null)));
+        assertEquals(List.of(), ids(tree.overlapping(time("12:00"), time("13:00"), null)));
+        assertEquals(4, tree.size());
+    }
+
+    @Test
+    void rangesAreHalfOpenAndTheEditedSlotIsSkipped() {
+        // touching ends are allowed, same as the database constraint
+        assertEquals(List.of(), ids(tree.overlapping(time("09:00"), time("09:30"), null)));
+        assertEquals(List.of(2L), ids(tree.overlapping(time("08:59"), time("09:30"), null)));
+
+        assertEquals(List.of(), ids(tree.overlapping(time("13:30"), time("16:00"), 1L)));
+        assertEquals(List.of(3L), ids(tree.overlapping(time("11:00"), time("14:00"), 1L)));
+        assertEquals(List.of(), ids(AvailabilityIntervalTree.EMPTY.overlapping(time("00:00"), time("23:59"), null)));
+    }
+
+    @Test
+    void matchesABruteForceScan() {
+        Random random = new Random(24);
+        for (int round = 0; round < 200; round++) {
+            List<Interval> intervals = new ArrayList<>();
+            int count = random.nextInt(40);
+            for (long id = 0; id < count; id++) {
+                intervals.add(randomInterval(random, id));
+            }
+            AvailabilityIntervalTree randomTree = AvailabilityIntervalTree.of(intervals);
+
+            for (int query = 0; query < 20; query++) {
+                Interval asked = randomInterval(random, -1L);
+                Long excludeId = count > 0 && random.nextBoolean() ? (long) random.nextInt(count) : null;
+
+                List<Interval> expected = intervals.stream()
+                        .filter(i -> i.start().isBefore(asked.end()) && i.end().isAfter(asked.start()))
+                        .filter(i -> !i.id().equals(excludeId))
+                        .sorted(Comparator.comparing(Interval::start).thenComparing(Interval::end))
+                        .toList();
+                assertEquals(expected, randomTree.overlapping(asked.start(), asked.end(), excludeId));
+            }
+        }
+    }
+
+    private static Interval randomInterval(Random random, long id) {
+        int start = random.nextInt(24 * 60 - 1);
+        int end = start + 1 + random.nextInt(Math.min(240, 24 * 60 - 1 - start));
+        return new Interval(id, LocalTime.ofSecondOfDay(start * 60L), LocalTime.ofSecondOfDay(end * 60L));
+    }
+
+    private static List<Long> ids(List<Interval> intervals) {
+        return intervals.stream().map(Interval::id).toList();
+    }
+
+    private static Interval interval(Long id, String start, String end) {
+        return new Interval(id, time(start), time(end));
+    }
+
+    private static LocalTime time(String value) {
+        return LocalTime.parse(value);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.doctoralia.service;
+
+import com.example.doctoralia.dto.AddAvailabilityRequest;
+import com.example.doctoralia.model.Availability;
+import com.example.doctoralia.model.Doctor;
+import com.example.doctoralia.repository.AvailabilityRepository;
+import com.example.doctoralia.repository.DoctorRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class AvailabilityScheduleTest {
+
+    private final AvailabilityRepository availabilityRepository = mock(AvailabilityRepository.class);
+    private final AvailabilityIntervalIndex intervalIndex = mock(AvailabilityIntervalIndex.class);
+    private final Doctor doctor = mock(Doctor.class);
+
+    private AvailabilityService service;
+
+    @BeforeEach
+    void setUp() {
+        DoctorRepository doctorRepository = mock(DoctorRepository.class);
+        when(doctor.getId()).thenReturn(7L);
+        when(doctorRepository.findById(7L)).thenReturn(Optional.of(doctor));
+        when(availabilityRepository.saveAllAndFlush(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        service = new AvailabilityService();
+        ReflectionTestUtils.setField(service, "availabilityRepository", availabilityRepository);
+        ReflectionTestUtils.setField(service, "doctorRepository", doctorRepository);
+        ReflectionTestUtils.setField(service, "calendarHeatmapService", mock(CalendarHeatmapService.class));
+        ReflectionTestUtils.setField(service, "cacheInvalidationBus", mock(CacheInvalidationBus.class));
+        ReflectionTestUtils.setField(service, "weeklyAvailabilityIndex", mock(WeeklyAvailabilityIndex.class));
+        ReflectionTestUtils.setField(service, "intervalIndex", intervalIndex);
+    }
+
+    @Test
+    void reportsEveryProblemAndWritesNothing() {
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () ->
+                service.replaceWeeklySchedule(7L, List.of(
+                        slot(1, "09:00", "12:00"),
+                        slot(8, "09:00", "10:00"),
+                        slot(2, "11:00", "10:00"))));
+        assertEquals("Slot 2: Day of week must be between 1-7; Slot 3: Start time must be before end time",
+                error.getMessage());
+
+        error = assertThrows(IllegalArgumentException.class, () ->
+                service.replaceWeeklySchedule(7L, List.of(
+                        slot(1, "09:00", "17:00"),
+                        slot(1, "10:00", "11:00"),
+                        slot(1, "16:00", "18:00"),
+                        slot(2, "09:00", "10:00"),
+                        slot(2, "09:30", "11:00"))));
+        assertEquals("Slot 2 (Monday 10:00 - 11:00) overlaps slot 1 (Monday 09:00 - 17:00); "
+                        + "Slot 3 (Monday 16:00 - 18:00) overlaps slot 1 (Monday 09:00 - 17:00); "
+                        + "Slot 5 (Tuesday 09:30 - 11:00) overlaps slot 4 (Tuesday 09:00 - 10:00)",
+                error.getMessage());
+
+        verify(availabilityRepository, never()).deleteAllByDoctorId(any());
+        verify(availabilityRepository, never()).saveAllAndFlush(anyList());
+    }
+
+    @Test
+    void replacesTheWholeWeekInDayAndTimeOrder() {
+        List<Availability> saved = service.replaceWeeklySchedule(7L, List.of(
+                slot(3, "13:00", "17:00"),
+                slot(1, "12:00", "13:00"),
+                slot(1, "09:00", "12:00")));
+
+        assertEquals(List.of("Monday 09:00 - 12:00", "Monday 12:00 - 13:00", "Wednesday 13:00 - 17:00"),
+                saved.stream().map(a -> a.getDayName() + " " + a.getTimeRange()).toList());
+        verify(availabilityRepository).deleteAllByDoctorId(7L);
+        verify(intervalIndex).replaced(7L, saved);
+        // the batch is validated on its own, not against the rows it replaces
+        verify(intervalIndex, never()).conflicts(any(), anyInt(), any(), any(), any());
+    }
+
+    @Test
+    void anotherDoctorsRowIsNeitherUpdatedNorIndexed() {
+        Doctor other = mock(Doctor.class);
+        when(other.getId()).thenReturn(8L);
+        Availability theirs = new Availability(other, 2, LocalTime.of(9, 0), LocalTime.of(12, 0));
+        when(availabilityRepository.findById(99L)).thenReturn(Optional.of(theirs));
+
+        assertThrows(IllegalArgumentException.class, () ->
+                service.updateAvailability(7L, 99L, 1, LocalTime.of(9, 0), LocalTime.of(10, 0)));
+
+        assertEquals(2, theirs.getDayOfWeek());
+        verify(availabilityRepository, never()).saveAndFlush(any());
+        verify(intervalIndex, never()).saved(any(), any());
+    }
+
+    private static AddAvailabilityRequest slot(int dayOfWeek, String start, String end) {
+        AddAvailabilityRequest request = new AddAvailabilityRequest();
+        request.setDayOfWeek(dayOfWeek);
+        request.setStartTime(LocalTime.parse(start));
+        request.setEndTime(LocalTime.parse(end));
+        return request;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.doctoralia.service;
+
+import com.example.doctoralia.service.CacheInvalidationBus.RemoteChange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CacheInvalidationBusTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final List<Object> events = new ArrayList<>();
+
+    private CacheInvalidationBus bus;
+
+    @BeforeEach
+    void setUp() {
+        bus = new CacheInvalidationBus();
+        ReflectionTestUtils.setField(bus, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(bus, "eventPublisher", (ApplicationEventPublisher) events::add);
+    }
+
+    @Test
+    void remoteEventsAreHandedToTheLocalCaches() {
+        bus.handle(CacheInvalidationBus.payload(CacheInvalidationBus.EntityType.DOCTOR, 7L, 42, "other-node"));
+
+        assertEquals(List.of(new RemoteChange(CacheInvalidationBus.EntityType.DOCTOR, 7L)), events);
+        assertEquals(42, bus.getWatermark());
+    }
+
+    @Test
+    void ownEventsOnlyMoveTheWatermark() {
+        bus.handle(CacheInvalidationBus.payload(CacheInvalidationBus.EntityType.SPECIALTY, 3L, 10, bus.getNodeId()));
+
+        assertEquals(List.of(), events);
+        assertEquals(10, bus.getWatermark());
+    }
+
+    @Test
+    void watermarkNeverMovesBackAndUnknownIdsAreAccepted() {
+        bus.handle(CacheInvalidationBus.payload(CacheInvalidationBus.EntityType.AVAILABILITY, 5L, 20, "other-node"));
+        bus.handle(CacheInvalidationBus.payload(CacheInvalidationBus.EntityType.DOCTOR, null, 19, "other-node"));
+
+        assertEquals(20, bus.getWatermark());
+        assertEquals(List.of(new RemoteChange(CacheInvalidationBus.EntityType.AVAILABILITY, 5L),
+                new RemoteChange(CacheInvalidationBus.EntityType.DOCTOR, null)), events);
+    }
+
+    @Test
+    void publishIsANoOpWhenDisabled() {
+        bus.publish(CacheInvalidationBus.EntityType.DOCTOR, 1L);
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void publishWritesTheEventThenNotifies() {
+        ReflectionTestUtils.setField(bus, "enabled", true);
+        when(jdbcTemplate.queryForObject(startsWith("INSERT INTO cache_events"), eq(Long.class), any(Object[].class)))
+                .thenReturn(99L);
+
+        bus.publish(CacheInvalidationBus.EntityType.DOCTOR, 4L);
+
+        verify(jdbcTemplate).queryForObject(eq("SELECT pg_notify(?, ?)"), eq(Object.class),
+                eq(CacheInvalidationBus.CHANNEL), eq("DOCTOR:4:99:" + bus.getNodeId()));
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.doctoralia.service;
+
+import com.example.doctoralia.model.Appointment;
+import com.example.doctoralia.model.Doctor;
+import com.example.doctoralia.model.Specialty;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CalendarHeatmapServiceTest {
+
+    private static final YearMonth MONTH = YearMonth.of(2030, 1);
+    private static final LocalDate MONDAY = LocalDate.of(2030, 1, 7);
+
+    private final AtomicInteger queries = new AtomicInteger();
+    private int bookedMinutes = 60;
+    private CalendarHeatmapService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new CalendarHeatmapService();
+        ReflectionTestUtils.setField(service, "jdbcTemplate", new JdbcTemplate() {
+            @Override
+            public void query(String sql, RowCallbackHandler rch, Object... args) {
+                queries.incrementAndGet();
+                try {
+                    ResultSet rs = mock(ResultSet.class);
+                    when(rs.getLong("doctor_id")).thenReturn(1L);
+                    if (sql.contains("FROM availabilities")) {
+                        // Mondays 09:00-12:00
+                        when(rs.getInt("day_of_week")).thenReturn(1);
+                        when(rs.getTime("start_time")).thenReturn(Time.valueOf(LocalTime.of(9, 0)));
+                        when(rs.getTime("end_time")).thenReturn(Time.valueOf(LocalTime.of(12, 0)));
+                    } else {
+                        when(rs.getDate("day")).thenReturn(Date.valueOf(MONDAY));
+                        when(rs.getInt("booked_minutes")).thenReturn(bookedMinutes);
+                    }
+                    rch.processRow(rs);
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+    }
+
+    @Test
+    void freeMinutesAreAvailabilityMinusBookings() {
+        List<Map<String, Object>> days = service.getDoctorHeatmap(1L, MONTH);
+
+        assertEquals(31, days.size());
+        assertEquals(120, day(days, MONDAY).get("freeMinutes"));
+        assertEquals(180, day(days, MONDAY.plusDays(7)).get("freeMinutes"));
+        assertEquals(0, day(days, MONDAY.plusDays(1)).get("availableMinutes"));
+    }
+
+    @Test
+    void monthIsCachedUntilABookingChangesIt() {
+        service.getDoctorHeatmap(1L, MONTH);
+        service.getDoctorHeatmap(1L, MONTH);
+        assertEquals(2, queries.get());
+
+        bookedMinutes = 180;
+        service.recordBookingChange(appointment(MONDAY));
+        assertEquals(0, day(service.getDoctorHeatmap(1L, MONTH), MONDAY).get("freeMinutes"));
+        assertEquals(4, queries.get());
+    }
+
+    @Test
+    void bookingsOutsideAvailabilityDoNotGoNegative() {
+        bookedMinutes = 600;
+        assertEquals(0, day(service.getSpecialtyHeatmap(5L, MONTH), MONDAY).get("freeMinutes"));
+    }
+
+    private static Map<String, Object> day(List<Map<String, Object>> days, LocalDate date) {
+        return days.get(date.getDayOfMonth() - 1);
+    }
+
+    private static Appointment appointment(LocalDate date) {
+        Specialty specialty = new Specialty();
+        specialty.setId(5L);
+        Doctor doctor = new Doctor();
+        doctor.setId(1L);
+        doctor.setSpecialty(specialty);
+        Appointment appointment = new Appointment();
+        appointment.setDoctor(doctor);
+        appointment.setAppointmentDatetime(date.atTime(9, 0));
+        return appointment;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.doctoralia.service;
+
+import com.example.doctoralia.model.Doctor;
+import com.example.doctoralia.service.CacheInvalidationBus.EntityType;
+import com.example.doctoralia.service.CacheInvalidationBus.RemoteChange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class CatalogChangesTest {
+
+    private final CatalogService catalogService = mock(CatalogService.class);
+    private final DoctorSearchExecutor searchExecutor = mock(DoctorSearchExecutor.class);
+    private final DoctorSuggestIndex suggestIndex = mock(DoctorSuggestIndex.class);
+    private final DoctorLoadIndex loadIndex = mock(DoctorLoadIndex.class);
+    private final CalendarHeatmapService heatmap = mock(CalendarHeatmapService.class);
+    private final AppointmentSlotIndex slotIndex = mock(AppointmentSlotIndex.class);
+    private final WeeklyAvailabilityIndex weeklyIndex = mock(WeeklyAvailabilityIndex.class);
+    private final AvailabilityIntervalIndex intervalIndex = mock(AvailabilityIntervalIndex.class);
+    private final CacheInvalidationBus bus = mock(CacheInvalidationBus.class);
+
+    private CatalogChanges changes;
+
+    @BeforeEach
+    void setUp() {
+        changes = new CatalogChanges();
+        ReflectionTestUtils.setField(changes, "catalogService", catalogService);
+        ReflectionTestUtils.setField(changes, "searchExecutor", searchExecutor);
+        ReflectionTestUtils.setField(changes, "suggestIndex", suggestIndex);
+        ReflectionTestUtils.setField(changes, "doctorLoadIndex", loadIndex);
+        ReflectionTestUtils.setField(changes, "calendarHeatmapService", heatmap);
+        ReflectionTestUtils.setField(changes, "slotIndex", slotIndex);
+        ReflectionTestUtils.setField(changes, "weeklyAvailabilityIndex", weeklyIndex);
+        ReflectionTestUtils.setField(changes, "availabilityIntervalIndex", intervalIndex);
+        ReflectionTestUtils.setField(changes, "cacheInvalidationBus", bus);
+    }
+
+    @Test
+    void localDoctorWritesUpdateTheirEntryAndTellOtherNodes() {
+        Doctor doctor = new Doctor();
+        doctor.setId(7L);
+
+        changes.doctorChanged(doctor);
+
+        verify(catalogService).invalidate();
+        verify(searchExecutor).invalidate();
+        verify(loadIndex).clear();
+        verify(heatmap).clear();
+        verify(weeklyIndex).doctorChanged(7L);
+        verify(suggestIndex).doctorChanged(doctor);
+        verify(suggestIndex, never()).invalidate();
+        verify(bus).publish(EntityType.DOCTOR, 7L);
+
+        changes.doctorRemoved(8L);
+        verify(slotIndex).evictDoctor(8L);
+        verify(suggestIndex).doctorRemoved(8L);
+        verify(bus).publish(EntityType.DOCTOR, 8L);
+    }
+
+    @Test
+    void remoteDoctorEventDropsEveryDoctorCacheWithoutPublishing() {
+        changes.onRemoteChange(new RemoteChange(EntityType.DOCTOR, 7L));
+
+        verify(catalogService).invalidate();
+        verify(searchExecutor).invalidate();
+        verify(suggestIndex).invalidate();
+        verify(loadIndex).clear();
+        verify(heatmap).clear();
+        verify(slotIndex).evictDoctor(7L);
+        verify(weeklyIndex).doctorChanged(7L);
+        verify(intervalIndex).evict(7L);
+        verifyNoInteractions(bus);
+    }
+
+    @Test
+    void remoteAppointmentEventDropsOnlyThatDoctorsBookings() {
+        changes.onRemoteChange(new RemoteChange(EntityType.APPOINTMENT, 7L));
+
+        verify(slotIndex).evictDoctor(7L);
+        verify(loadIndex).clear();
+        verify(heatmap).clear();
+        verifyNoInteractions(catalogService, searchExecutor, suggestIndex, weeklyIndex, intervalIndex, bus);
+    }
+
+    @Test
+    void remoteAvailabilityAndUnknownChanges() {
+        changes.onRemoteChange(new RemoteChange(EntityType.AVAILABILITY, 5L));
+        verify(intervalIndex).evict(5L);
+        verify(heatmap).clear();
+        verifyNoInteractions(catalogService, slotIndex);
+
+        changes.onRemoteChange(new RemoteChange(EntityType.DOCTOR, null));
+        verify(intervalIndex).clear();
+        verify(weeklyIndex).invalidate();
+        verify(slotIndex, never()).evictDoctor(anyLong());
+
+        changes.onRemoteChange(new RemoteChange(null, null));
+        verify(intervalIndex, times(2)).clear();
+        verify(loadIndex, times(2)).clear();
+        verify(suggestIndex, times(2)).invalidate();
+        verify(suggestIndex, never()).doctorChanged(any());
+        verify(slotIndex).clear();
+    }
+}
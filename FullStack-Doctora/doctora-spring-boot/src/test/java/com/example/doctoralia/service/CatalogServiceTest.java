@@ -0,0 +1,160 @@
+package com.example.doctoralia.service;
+
+import com.example.doctoralia.dto.DoctorSummaryResponse;
+import com.example.doctoralia.model.Doctor;
+import com.example.doctoralia.model.Specialty;
+import com.example.doctoralia.model.User;
+import com.example.doctoralia.repository.DoctorRepository;
+import com.example.doctoralia.repository.SpecialtyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CatalogServiceTest {
+
+    private final SpecialtyRepository specialtyRepository = mock(SpecialtyRepository.class);
+    private final DoctorRepository doctorRepository = mock(DoctorRepository.class);
+    private final Specialty cardiology = specialty(1L, "Cardiology");
+    private final Specialty dermatology = specialty(2L, "Dermatology");
+    private final List<Doctor> activeDoctors = new ArrayList<>();
+
+    private CatalogService catalog;
+
+    @BeforeEach
+    void setUp() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(specialtyRepository.findAllByOrderByNameAsc()).thenReturn(List.of(cardiology, dermatology));
+        when(doctorRepository.findActiveWithUserAndSpecialty()).thenAnswer(invocation -> List.copyOf(activeDoctors));
+
+        catalog = new CatalogService();
+        ReflectionTestUtils.setField(catalog, "specialtyRepository", specialtyRepository);
+        ReflectionTestUtils.setField(catalog, "doctorRepository", doctorRepository);
+        ReflectionTestUtils.setField(catalog, "transactionManager", transactionManager);
+
+        activeDoctors.add(doctor(10L, "Anan", cardiology, "x".repeat(80)));
+        activeDoctors.add(doctor(11L, "Busaba", cardiology, null));
+        activeDoctors.add(doctor(12L, "Chai", dermatology, "short"));
+    }
+
+    @Test
+    void readsAreServedFromOneSnapshot() {
+        for (int i = 0; i < 100; i++) {
+            CatalogSnapshot snapshot = catalog.get();
+            assertEquals(3, snapshot.getActiveDoctors().size());
+            assertEquals(2, snapshot.getDoctorsBySpecialty("  cardiology ").size());
+            assertEquals(2L, snapshot.getSpecialty(1L).get("doctorCount"));
+            assertEquals("Anan Doctor", snapshot.getDoctorDetail(10L).doctorName());
+        }
+
+        verify(specialtyRepository, times(1)).findAllByOrderByNameAsc();
+        verify(doctorRepository, times(1)).findActiveWithUserAndSpecialty();
+        verifyNoMoreInteractions(doctorRepository);
+    }
+
+    @Test
+    void viewsMatchTheEndpointShapesAndCannotBeModified() {
+        CatalogSnapshot snapshot = catalog.get();
+
+        DoctorSummaryResponse summary = snapshot.getActiveDoctors().get(0);
+        assertEquals(53, summary.bio().length()); // 50 + "..."
+        assertFalse(Arrays.stream(DoctorSummaryResponse.class.getRecordComponents())
+                .anyMatch(component -> component.getName().equals("licenseNumber")));
+        assertEquals(80, snapshot.getDoctorDetail(10L).bio().length());
+        assertEquals("LIC-10", snapshot.getDoctorDetail(10L).licenseNumber());
+        assertEquals(List.of("Cardiology", "Dermatology"),
+                snapshot.getSpecialties().stream().map(s -> s.get("name")).toList());
+
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getActiveDoctors().clear());
+    }
+
+    @Test
+    void invalidationSwapsInANewSnapshotAfterCommit() {
+        CatalogSnapshot before = catalog.get();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            activeDoctors.remove(1);
+            catalog.invalidate();
+            // still inside the transaction: readers keep the old catalog
+            assertSame(before, catalog.get());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.afterCommit());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        CatalogSnapshot after = catalog.get();
+        assertNotSame(before, after);
+        assertEquals(3, before.getActiveDoctors().size());
+        assertEquals(2, after.getActiveDoctors().size());
+        assertNull(after.getDoctorDetail(11L));
+        assertEquals(1L, after.getSpecialty(1L).get("doctorCount"));
+    }
+
+    @Test
+    void readersInsideATransactionKeepTheLastSnapshotInsteadOfRebuilding() {
+        CatalogSnapshot before = catalog.get();
+        // a committed change whose rebuild is still queued
+        ((AtomicLong) ReflectionTestUtils.getField(catalog, "generation")).incrementAndGet();
+        clearInvocations(doctorRepository);
+
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            // a rebuild here would need a second connection while the caller holds one
+            assertSame(before, catalog.get());
+            verify(doctorRepository, never()).findActiveWithUserAndSpecialty();
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+        assertNotSame(before, catalog.get());
+    }
+
+    @Test
+    void doctorsAboveTheBudgetAreLeftToTheDatabase() {
+        ReflectionTestUtils.setField(catalog, "maxDoctors", 2);
+
+        CatalogSnapshot snapshot = catalog.get();
+
+        assertFalse(snapshot.isDoctorsCached());
+        assertNull(snapshot.getActiveDoctors());
+        assertNull(snapshot.getDoctorsBySpecialty("Cardiology"));
+        assertNull(snapshot.getDoctorDetail(10L));
+        assertEquals(2L, snapshot.getSpecialty(1L).get("doctorCount"));
+    }
+
+    private static Specialty specialty(Long id, String name) {
+        Specialty specialty = new Specialty(name, name + " clinic");
+        specialty.setId(id);
+        return specialty;
+    }
+
+    private static Doctor doctor(Long id, String firstName, Specialty specialty, String bio) {
+        User user = new User();
+        user.setId(id + 100);
+        user.setFirstName(firstName);
+        user.setLastName("Doctor");
+        user.setEmail(firstName.toLowerCase() + "@example.com");
+
+        Doctor doctor = new Doctor();
+        doctor.setId(id);
+        doctor.setUser(user);
+        doctor.setSpecialty(specialty);
+        doctor.setLicenseNumber("LIC-" + id);
+        doctor.setBio(bio);
+        doctor.setIsActive(true);
+        return doctor;
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.doctoralia.service;
+
+import com.example.doctoralia.dto.BookedSlot;
+import com.example.doctoralia.model.Appointment;
+import com.example.doctoralia.model.AppointmentStatus;
+import com.example.doctoralia.model.Doctor;
+import com.example.doctoralia.model.User;
+import com.example.doctoralia.repository.AppointmentRepository;
+import com.example.doctoralia.repository.DoctorRepository;
+import com.example.doctoralia.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Concurrent bookings through {@link AppointmentService#createAppointment} with the real slot
+ * index and booking lock. The database is a list of committed rows behind repository mocks:
+ * a booking's row joins it when its stand-in transaction commits, before the lock is released.
+ * The numbers measure the in-process booking path only.
+ */
+class DoctorBookingLockTest {
+
+    private static final LocalDate DAY = LocalDate.of(2030, 3, 4);
+    private static final int THREADS = 16;
+    private static final int DOCTORS = 8;
+    private static final int ATTEMPTS_PER_THREAD = 2_000;
+
+    private final List<Appointment> committed = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<List<Appointment>> pending = ThreadLocal.withInitial(ArrayList::new);
+    private final AtomicLong ids = new AtomicLong();
+    private AppointmentSlotIndex index;
+    private AppointmentService service;
+
+    @BeforeEach
+    void setUp() {
+        AppointmentRepository appointmentRepository = mock(AppointmentRepository.class, withSettings().stubOnly());
+        when(appointmentRepository.findSlotsByDoctorIdAndRange(anyLong(), any(), any())).thenAnswer(inv ->
+                rows(inv.getArgument(0), inv.getArgument(1), inv.getArgument(2)).stream()
+                        .map(a -> new BookedSlot(a.getId(), a.getAppointmentDatetime(), a.getDurationMinutes(), a.getStatus()))
+                        .toList());
+        when(appointmentRepository.findConflictingAppointments(anyLong(), any(), any())).thenAnswer(inv -> {
+            LocalDateTime start = inv.getArgument(1);
+            LocalDateTime end = inv.getArgument(2);
+            return rows(inv.getArgument(0), start.minusDays(1), end).stream()
+                    .filter(a -> a.getAppointmentDatetime().plusMinutes(a.getDurationMinutes()).isAfter(start))
+                    .toList();
+        });
+        when(appointmentRepository.saveAndFlush(any())).thenAnswer(inv -> {
+            Appointment appointment = inv.getArgument(0);
+            appointment.setId(ids.incrementAndGet());
+            pending.get().add(appointment);
+            return appointment;
+        });
+
+        DoctorRepository doctorRepository = mock(DoctorRepository.class, withSettings().stubOnly());
+        when(doctorRepository.findWithUserAndSpecialtyById(anyLong())).thenAnswer(inv -> {
+            Doctor doctor = new Doctor();
+            doctor.setId(inv.getArgument(0));
+            doctor.setIsActive(true);
+            return Optional.of(doctor);
+        });
+        UserRepository userRepository = mock(UserRepository.class, withSettings().stubOnly());
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
+
+        index = new AppointmentSlotIndex();
+        ReflectionTestUtils.setField(index, "appointmentRepository", appointmentRepository);
+
+        DoctorBookingLock bookingLock = new DoctorBookingLock();
+        ReflectionTestUtils.setField(bookingLock, "jdbcTemplate", new JdbcTemplate() {
+            @Override
+            public <T> T query(String sql, ResultSetExtractor<T> rse, Object... args) {
+                return null; // pg_advisory_xact_lock is a no-op without Postgres
+            }
+        });
+
+        service = new AppointmentService();
+        ReflectionTestUtils.setField(service, "appointmentRepository", appointmentRepository);
+        ReflectionTestUtils.setField(service, "doctorRepository", doctorRepository);
+        ReflectionTestUtils.setField(service, "userRepository", userRepository);
+        ReflectionTestUtils.setField(service, "slotIndex", index);
+        ReflectionTestUtils.setField(service, "bookingLock", bookingLock);
+        ReflectionTestUtils.setField(service, "loadIndex", mock(DoctorLoadIndex.class, withSettings().stubOnly()));
+        ReflectionTestUtils.setField(service, "calendarHeatmapService", mock(CalendarHeatmapService.class, withSettings().stubOnly()));
+        ReflectionTestUtils.setField(service, "cacheInvalidationBus", mock(CacheInvalidationBus.class, withSettings().stubOnly()));
+    }
+
+    @Test
+    void concurrentOverlappingBookingsNeverDoubleBook() throws Exception {
+        ConcurrentLinkedQueue<Appointment> accepted = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+
+        for (int t = 0; t < THREADS; t++) {
+            pool.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    long doctorId = 1 + random.nextInt(DOCTORS);
+                    // 5-minute grid with 30-minute visits: most attempts overlap but are not identical
+                    LocalDateTime time = DAY.atTime(8, 0).plusMinutes(5L * random.nextInt(120));
+                    Appointment appointment = book(doctorId, time);
+                    if (appointment != null) {
+                        accepted.add(appointment);
+                    }
+                }
+                return null;
+            });
+        }
+
+        long began = System.nanoTime();
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(60, TimeUnit.SECONDS));
+        double seconds = (System.nanoTime() - began) / 1e9;
+
+        long attempts = (long) THREADS * ATTEMPTS_PER_THREAD;
+        System.out.printf("Booking path: %d attempts in %.3f s (%.0f attempts/sec, %d accepted)%n",
+                attempts, seconds, attempts / seconds, accepted.size());
+
+        assertFalse(accepted.isEmpty());
+        assertEquals(committed.size(), accepted.size());
+        assertNoOverlaps(new ArrayList<>(accepted));
+    }
+
+    @Test
+    void bookingsTheSlotIndexHasNotSeenAreCaughtUnderTheLock() {
+        assertNotNull(book(1L, DAY.atTime(9, 0)));
+
+        // committed by another node; this node's index already has the day loaded without it
+        Doctor doctor = new Doctor();
+        doctor.setId(1L);
+        Appointment elsewhere = new Appointment();
+        elsewhere.setId(ids.incrementAndGet());
+        elsewhere.setDoctor(doctor);
+        elsewhere.setAppointmentDatetime(DAY.atTime(10, 0));
+        elsewhere.setDurationMinutes(30);
+        elsewhere.setStatus(AppointmentStatus.PENDING);
+        committed.add(elsewhere);
+        assertTrue(index.isFree(1L, DAY.atTime(10, 15), 30));
+
+        assertNull(book(1L, DAY.atTime(10, 15)));
+        assertEquals(2, committed.size());
+        // the rejected booking dropped the stale day, so the next lookup sees the row
+        assertFalse(index.isFree(1L, DAY.atTime(10, 15), 30));
+    }
+
+    // stand-in for the @Transactional boundary of createAppointment; null when the slot was taken
+    private Appointment book(long doctorId, LocalDateTime time) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            Appointment appointment = service.createAppointment(doctorId, 100L, time, 30, null);
+            committed.addAll(pending.get());
+            TransactionSynchronizationUtils.triggerAfterCommit();
+            TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            return appointment;
+        } catch (IllegalArgumentException e) {
+            TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            return null;
+        } finally {
+            pending.get().clear();
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    // PENDING/CONFIRMED rows of a doctor starting in [from, to)
+    private List<Appointment> rows(Long doctorId, LocalDateTime from, LocalDateTime to) {
+        return committed.stream()
+                .filter(a -> a.getDoctor().getId().equals(doctorId))
+                .filter(a -> a.getStatus() != AppointmentStatus.CANCELLED)
+                .filter(a -> !a.getAppointmentDatetime().isBefore(from) && a.getAppointmentDatetime().isBefore(to))
+                .toList();
+    }
+
+    private static void assertNoOverlaps(List<Appointment> appointments) {
+        appointments.sort(Comparator.comparing((Appointment a) -> a.getDoctor().getId())
+                .thenComparing(Appointment::getAppointmentDatetime));
+        for (int i = 1; i < appointments.size(); i++) {
+            Appointment previous = appointments.get(i - 1);
+            Appointment current = appointments.get(i);
+            if (previous.getDoctor().getId().equals(current.getDoctor().getId())) {
+                LocalDateTime previousEnd = previous.getAppointmentDatetime().plusMinutes(previous.getDurationMinutes());
+                assertFalse(current.getAppointmentDatetime().isBefore(previousEnd),
+                        "Double booking: " + previous + " and " + current);
+            }
+        }
+    }
+}
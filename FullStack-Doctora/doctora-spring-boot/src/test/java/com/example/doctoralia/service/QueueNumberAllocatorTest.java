@@ -0,0 +1,134 @@
+package com.example.doctoralia.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class QueueNumberAllocatorTest {
+
+    private static final LocalDate DAY = LocalDate.of(2030, 5, 6);
+
+    // stand-in for the queue_counters table
+    private final Map<String, AtomicInteger> counters = new ConcurrentHashMap<>();
+    private final AtomicInteger reservations = new AtomicInteger();
+
+    private QueueNumberAllocator allocator() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        QueueNumberAllocator allocator = new QueueNumberAllocator();
+        ReflectionTestUtils.setField(allocator, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(allocator, "jdbcTemplate", new JdbcTemplate() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T queryForObject(String sql, Class<T> requiredType, Object... args) {
+                reservations.incrementAndGet();
+                int size = (Integer) args[2];
+                return (T) Integer.valueOf(counters.computeIfAbsent(args[0] + "|" + args[1], k -> new AtomicInteger())
+                        .addAndGet(size));
+            }
+        });
+        return allocator;
+    }
+
+    @Test
+    void numbersStartAtOnePerDoctorPerDay() {
+        QueueNumberAllocator allocator = allocator();
+
+        assertEquals("001", allocator.next(1L, DAY));
+        assertEquals("002", allocator.next(1L, DAY));
+        assertEquals("001", allocator.next(2L, DAY));
+        assertEquals("001", allocator.next(1L, DAY.plusDays(1)));
+    }
+
+    @Test
+    void concurrentCallersNeverShareANumber() throws Exception {
+        QueueNumberAllocator allocator = allocator();
+        int threads = 8;
+        int perThread = 500;
+        Set<String> issued = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Integer>> duplicates = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            duplicates.add(pool.submit(() -> {
+                start.await();
+                int seen = 0;
+                for (int i = 0; i < perThread; i++) {
+                    if (!issued.add(allocator.next(3L, DAY))) {
+                        seen++;
+                    }
+                }
+                return seen;
+            }));
+        }
+        start.countDown();
+        pool.shutdown();
+        for (Future<Integer> future : duplicates) {
+            assertEquals(0, future.get(30, TimeUnit.SECONDS));
+        }
+
+        assertEquals(threads * perThread, issued.size());
+        // one counter round trip per block, not per booking
+        assertTrue(reservations.get() <= threads * perThread / 10 + 2, "reservations: " + reservations.get());
+    }
+
+    @Test
+    void bookingsShareTheirBlockOnlyAfterCommit() {
+        QueueNumberAllocator allocator = allocator();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertEquals("001", allocator.next(4L, DAY));
+            complete(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        // the rest of the committed block, no second round trip
+        assertEquals("002", allocator.next(4L, DAY));
+        assertEquals(1, reservations.get());
+    }
+
+    @Test
+    void rolledBackBookingsGiveTheirBlockBack() {
+        QueueNumberAllocator allocator = allocator();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertEquals("001", allocator.next(5L, DAY));
+            counters.get("5|" + DAY).set(0); // the counter update rolls back with the booking
+            complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals("001", allocator.next(5L, DAY));
+        assertEquals(2, reservations.get());
+    }
+
+    private static void complete(int status) {
+        TransactionSynchronizationManager.getSynchronizations().forEach(s -> s.afterCompletion(status));
+    }
+}
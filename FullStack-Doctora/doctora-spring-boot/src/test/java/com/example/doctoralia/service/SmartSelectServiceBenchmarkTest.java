@@ -0,0 +1,62 @@
+package com.example.doctoralia.service;
+
+import com.example.doctoralia.dto.DoctorLoad;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Latency of the smart-select query against a real database.
+ * Needs a migrated Postgres (DB_HOST etc.), run with DOCTORA_DB_BENCHMARK=true.
+ */
+@SpringBootTest
+@EnabledIfEnvironmentVariable(named = "DOCTORA_DB_BENCHMARK", matches = "true")
+class SmartSelectServiceBenchmarkTest {
+
+    private static final int WARMUP = 200;
+    private static final int SAMPLES = 2_000;
+    private static final double P99_TARGET_MS = 25.0;
+
+    @Autowired
+    private SmartSelectService smartSelectService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void smartSelectStaysUnderP99Target() {
+        String specialty = jdbcTemplate.queryForObject("""
+                SELECT s.name FROM specialties s JOIN doctors d ON d.specialty_id = s.id
+                GROUP BY s.name ORDER BY COUNT(*) DESC LIMIT 1
+                """, String.class);
+        LocalDate date = LocalDate.now().plusDays(1);
+
+        for (int i = 0; i < WARMUP; i++) {
+            smartSelectService.getDoctorLoads(specialty, date);
+        }
+
+        long[] nanos = new long[SAMPLES];
+        int doctors = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            long began = System.nanoTime();
+            List<DoctorLoad> loads = smartSelectService.getDoctorLoads(specialty, date);
+            nanos[i] = System.nanoTime() - began;
+            doctors = loads.size();
+        }
+
+        Arrays.sort(nanos);
+        double p50 = nanos[SAMPLES / 2] / 1e6;
+        double p99 = nanos[(int) (SAMPLES * 0.99)] / 1e6;
+        System.out.printf("Smart select (%s, %d doctors): p50 %.2f ms, p99 %.2f ms%n", specialty, doctors, p50, p99);
+
+        assertTrue(p99 < P99_TARGET_MS, "p99 " + p99 + " ms exceeds target " + P99_TARGET_MS + " ms");
+    }
+}
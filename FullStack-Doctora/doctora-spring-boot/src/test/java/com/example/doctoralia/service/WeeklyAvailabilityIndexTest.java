@@ -0,0 +1,140 @@
+package com.example.doctoralia.service;
+
+import com.example.doctoralia.dto.AvailabilityWindow;
+import com.example.doctoralia.dto.FreeWindow;
+import com.example.doctoralia.repository.AvailabilityRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class WeeklyAvailabilityIndexTest {
+
+    private static final long CARDIOLOGY = 1L;
+    private static final long PEDIATRICS = 2L;
+
+    private final AvailabilityRepository availabilityRepository = mock(AvailabilityRepository.class);
+    private final Map<Long, List<AvailabilityWindow>> rows = new HashMap<>();
+
+    private WeeklyAvailabilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(availabilityRepository.findActiveWindows())
+                .thenAnswer(invocation -> rows.values().stream().flatMap(List::stream).toList());
+        when(availabilityRepository.findActiveWindowsByDoctorId(anyLong()))
+                .thenAnswer(invocation -> rows.getOrDefault(invocation.<Long>getArgument(0), List.of()));
+
+        index = new WeeklyAvailabilityIndex();
+        ReflectionTestUtils.setField(index, "availabilityRepository", availabilityRepository);
+        ReflectionTestUtils.setField(index, "transactionManager", transactionManager);
+
+        // Monday 09:00-12:00 and Wednesday 13:00-17:00
+        put(1L, CARDIOLOGY, window(1, "09:00", "12:00"), window(3, "13:00", "17:00"));
+        // Monday 10:00-11:00
+        put(2L, CARDIOLOGY, window(1, "10:00", "11:00"));
+        // Monday 08:10-10:20: only 08:15-10:15 is fully covered
+        put(3L, PEDIATRICS, window(1, "08:10", "10:20"));
+    }
+
+    @Test
+    void doctorsFreeAtAQuarterHour() {
+        assertEquals(List.of(1L, 2L, 3L), index.availableDoctors(1, time("10:00"), null, null));
+        assertEquals(List.of(1L, 2L), index.availableDoctors(1, time("10:15"), null, null));
+        assertEquals(List.of(3L), index.availableDoctors(1, time("08:20"), null, PEDIATRICS));
+        assertEquals(List.of(), index.availableDoctors(1, time("08:05"), null, null));
+        assertEquals(List.of(), index.availableDoctors(1, time("10:15"), null, 99L));
+        assertEquals(List.of(1L), index.availableDoctors(3, time("16:45"), null, CARDIOLOGY));
+    }
+
+    @Test
+    void doctorsFreeForAWholeRange() {
+        assertEquals(List.of(1L, 2L), index.availableDoctors(1, time("10:00"), time("11:00"), null));
+        assertEquals(List.of(1L), index.availableDoctors(1, time("10:00"), time("11:05"), null));
+        assertEquals(List.of(1L, 3L), index.availableDoctors(1, time("09:00"), time("10:15"), null));
+        assertThrows(IllegalArgumentException.class, () -> index.availableDoctors(1, time("10:00"), time("09:00"), null));
+        assertThrows(IllegalArgumentException.class, () -> index.availableDoctors(8, time("10:00"), null, null));
+    }
+
+    @Test
+    void sharedWindowsAreAndOrOfWeeks() {
+        assertEquals(List.of(new FreeWindow(1, time("10:00"), time("10:15"))),
+                index.sharedWindows(List.of(1L, 2L, 3L), true, null));
+        assertEquals(List.of(new FreeWindow(1, time("08:15"), time("12:00")), new FreeWindow(3, time("13:00"), time("17:00"))),
+                index.sharedWindows(List.of(1L, 3L), false, null));
+        assertEquals(List.of(new FreeWindow(3, time("13:00"), time("17:00"))),
+                index.sharedWindows(List.of(1L), true, 3));
+        assertEquals(List.of(), index.sharedWindows(List.of(1L, 404L), true, null));
+    }
+
+    @Test
+    void doctorWritesReplaceOneWeek() {
+        index.availableDoctors(1, time("10:00"), null, null); // build
+
+        put(2L, PEDIATRICS, window(2, "14:00", "15:00"));
+        index.doctorChanged(2L);
+        assertEquals(List.of(1L, 3L), index.availableDoctors(1, time("10:00"), null, null));
+        assertEquals(List.of(2L), index.availableDoctors(2, time("14:30"), null, PEDIATRICS));
+        assertEquals(List.of(), index.availableDoctors(2, time("14:30"), null, CARDIOLOGY));
+
+        rows.remove(3L);
+        index.doctorChanged(3L);
+        assertEquals(List.of(1L), index.availableDoctors(1, time("10:00"), null, null));
+        assertEquals(List.of(), index.sharedWindows(List.of(3L), false, null));
+
+        // grows past the first 64 doctor ordinals
+        List<Long> added = new ArrayList<>();
+        for (long id = 100; id < 300; id++) {
+            put(id, CARDIOLOGY, window(5, "09:00", "10:00"));
+            index.doctorChanged(id);
+            added.add(id);
+        }
+        assertEquals(added, index.availableDoctors(5, time("09:30"), null, CARDIOLOGY));
+        assertEquals(List.of(1L), index.availableDoctors(1, time("10:00"), null, CARDIOLOGY));
+
+        verify(availabilityRepository, times(1)).findActiveWindows();
+        assertEquals(202, index.getMetrics().get("doctors"));
+    }
+
+    @Test
+    void invalidateRebuildsFromTheDatabase() {
+        index.availableDoctors(1, time("10:00"), null, null);
+
+        LongStream.range(10, 20).forEach(id -> put(id, PEDIATRICS, window(7, "06:00", "07:00")));
+        index.invalidate();
+
+        assertEquals(10, index.availableDoctors(7, time("06:00"), time("07:00"), PEDIATRICS).size());
+        verify(availabilityRepository, times(2)).findActiveWindows();
+    }
+
+    private void put(long doctorId, long specialtyId, AvailabilityWindow... windows) {
+        List<AvailabilityWindow> list = new ArrayList<>();
+        for (AvailabilityWindow window : windows) {
+            list.add(new AvailabilityWindow(doctorId, specialtyId, window.dayOfWeek(), window.startTime(), window.endTime()));
+        }
+        rows.put(doctorId, list);
+    }
+
+    private static AvailabilityWindow window(int dayOfWeek, String start, String end) {
+        return new AvailabilityWindow(null, null, dayOfWeek, time(start), time(end));
+    }
+
+    private static LocalTime time(String value) {
+        return LocalTime.parse(value);
+    }
+}
@@ -0,0 +1,143 @@
+#!/bin/bash
+
+# Load test for catalog and booking endpoints - compares platform vs virtual thread mode.
+#
+# Usage:
+#   1. Start the backend with VIRTUAL_THREADS_ENABLED=false, run:  ./load-test.sh http://localhost:8082 platform
+#   2. Restart it with VIRTUAL_THREADS_ENABLED=true, run:          ./load-test.sh http://localhost:8082 virtual
+#   3. Compare the two files in load-test-results/
+#
+# Environment:
+#   PATIENT_EMAIL / PATIENT_PASSWORD  patient account used for bookings (required for the booking test)
+#   DOCTOR_ID                         doctor to book and to read free slots for (default 1)
+#   REQUESTS                          requests per scenario (default 2000)
+#   CONCURRENCY                       parallel clients (default 200)
+#   BOOKING_DAYS_AHEAD                first day used for bookings, spread over 30-minute slots (default 30)
+
+echo "📈 Doctora Load Test"
+echo "===================="
+echo ""
+
+GREEN='\033[0;32m'
+RED='\033[0;31m'
+BLUE='\033[0;34m'
+NC='\033[0m'
+
+BACKEND_URL="${1:-http://localhost:8082}"
+LABEL="${2:-run}"
+DOCTOR_ID="${DOCTOR_ID:-1}"
+REQUESTS="${REQUESTS:-2000}"
+CONCURRENCY="${CONCURRENCY:-200}"
+BOOKING_DAYS_AHEAD="${BOOKING_DAYS_AHEAD:-30}"
+
+RESULTS_DIR="load-test-results"
+RESULTS_FILE="$RESULTS_DIR/$LABEL-$(date +%Y%m%d-%H%M%S).txt"
+mkdir -p "$RESULTS_DIR"
+
+echo -e "${BLUE}Backend URL: $BACKEND_URL  label: $LABEL  requests: $REQUESTS  concurrency: $CONCURRENCY${NC}"
+echo ""
+
+# runtime mode as reported by the server (admin token optional)
+if [ -n "$ADMIN_TOKEN" ]; then
+    curl -s -H "Authorization: Bearer $ADMIN_TOKEN" "$BACKEND_URL/api/admin/runtime-metrics" > "$RESULTS_DIR/$LABEL-runtime-before.json"
+fi
+
+# Prints one line of statistics from a file of "<http_code> <seconds>" lines
+summarize() {
+    local name=$1
+    local file=$2
+    local elapsed=$3
+
+    local total ok p50 p95 p99 max
+    total=$(wc -l < "$file")
+    ok=$(awk '$1 >= 200 && $1 < 300' "$file" | wc -l)
+    sort -k2 -n "$file" -o "$file.sorted"
+    p50=$(awk -v n="$total" 'NR == int(n * 0.50) + 1 { printf "%.1f", $2 * 1000 }' "$file.sorted")
+    p95=$(awk -v n="$total" 'NR == int(n * 0.95) + 1 { printf "%.1f", $2 * 1000 }' "$file.sorted")
+    p99=$(awk -v n="$total" 'NR == int(n * 0.99) + 1 { printf "%.1f", $2 * 1000 }' "$file.sorted")
+    max=$(tail -1 "$file.sorted" | awk '{ printf "%.1f", $2 * 1000 }')
+    local codes
+    codes=$(awk '{ print $1 }' "$file" | sort | uniq -c | awk '{ printf "%s:%s ", $2, $1 }')
+
+    local line
+    line=$(printf "%-22s total=%-6s 2xx=%-6s rps=%-8s p50=%sms p95=%sms p99=%sms max=%sms codes=[%s]" \
+        "$name" "$total" "$ok" "$(awk -v t="$total" -v s="$elapsed" 'BEGIN { printf "%.0f", t / s }')" \
+        "$p50" "$p95" "$p99" "$max" "$codes")
+    echo "$line" | tee -a "$RESULTS_FILE"
+    rm -f "$file.sorted"
+}
+
+# Runs REQUESTS GET requests against a URL with CONCURRENCY parallel curl processes
+run_get() {
+    local name=$1
+    local url=$2
+    local out
+    out=$(mktemp)
+
+    local start end
+    start=$(date +%s.%N)
+    seq "$REQUESTS" | xargs -P "$CONCURRENCY" -I{} \
+        curl -s -o /dev/null -w "%{http_code} %{time_total}\n" "$url" >> "$out"
+    end=$(date +%s.%N)
+
+    summarize "$name" "$out" "$(echo "$end - $start" | bc)"
+    rm -f "$out"
+}
+
+# Books REQUESTS distinct 30-minute slots in parallel (a few will collide on purpose)
+run_booking() {
+    local token=$1
+    local out
+    out=$(mktemp)
+
+    local start end
+    start=$(date +%s.%N)
+    seq 0 $((REQUESTS - 1)) | xargs -P "$CONCURRENCY" -I{} bash -c '
+        i={}
+        day=$(( '"$BOOKING_DAYS_AHEAD"' + i / 16 ))
+        minute=$(( 8 * 60 + (i % 16) * 30 ))
+        when="$(date -d "+$day day" +%Y-%m-%d)T$(printf "%02d:%02d" $((minute / 60)) $((minute % 60))):00"
+        curl -s -o /dev/null -w "%{http_code} %{time_total}\n" \
+            -X POST "'"$BACKEND_URL"'/api/appointments" \
+            -H "Content-Type: application/json" \
+            -H "Authorization: Bearer '"$token"'" \
+            -d "{\"doctorId\": '"$DOCTOR_ID"', \"appointmentDateTime\": \"$when\", \"durationMinutes\": 30, \"notes\": \"load test\"}"
+    ' >> "$out"
+    end=$(date +%s.%N)
+
+    summarize "booking (POST)" "$out" "$(echo "$end - $start" | bc)"
+    rm -f "$out"
+}
+
+{
+    echo "label=$LABEL url=$BACKEND_URL requests=$REQUESTS concurrency=$CONCURRENCY doctor=$DOCTOR_ID"
+    echo "started=$(date -Iseconds)"
+} > "$RESULTS_FILE"
+
+FROM=$(date -d "+1 day" +%Y-%m-%d)
+TO=$(date -d "+14 day" +%Y-%m-%d)
+
+run_get "specialties" "$BACKEND_URL/api/specialties"
+run_get "doctors list" "$BACKEND_URL/api/doctors?page=0&size=20"
+run_get "doctor detail" "$BACKEND_URL/api/doctors/$DOCTOR_ID"
+run_get "free slots (14 days)" "$BACKEND_URL/api/doctors/$DOCTOR_ID/free-slots?from=$FROM&to=$TO"
+
+if [ -n "$PATIENT_EMAIL" ] && [ -n "$PATIENT_PASSWORD" ]; then
+    TOKEN=$(curl -s -X POST "$BACKEND_URL/api/auth/login" \
+        -H "Content-Type: application/json" \
+        -d "{\"email\": \"$PATIENT_EMAIL\", \"password\": \"$PATIENT_PASSWORD\"}" | jq -r '.token')
+    if [ -n "$TOKEN" ] && [ "$TOKEN" != "null" ]; then
+        run_booking "$TOKEN"
+    else
+        echo -e "${RED}❌ Login failed - booking test skipped${NC}" | tee -a "$RESULTS_FILE"
+    fi
+else
+    echo "PATIENT_EMAIL/PATIENT_PASSWORD not set - booking test skipped" | tee -a "$RESULTS_FILE"
+fi
+
+if [ -n "$ADMIN_TOKEN" ]; then
+    curl -s -H "Authorization: Bearer $ADMIN_TOKEN" "$BACKEND_URL/api/admin/runtime-metrics" > "$RESULTS_DIR/$LABEL-runtime-after.json"
+fi
+
+echo ""
+echo -e "${GREEN}✅ Results written to $RESULTS_FILE${NC}"